@@ -191,6 +191,12 @@ resource "aws_cloudwatch_log_group" "worker" {
   tags              = local.common_tags
 }
 
+resource "aws_cloudwatch_log_group" "outbox_relay" {
+  name              = "/aws/lambda/${local.name_prefix}-outbox-relay"
+  retention_in_days = 7
+  tags              = local.common_tags
+}
+
 resource "aws_lambda_function" "create_order" {
   function_name    = "${local.name_prefix}-create-order"
   role             = aws_iam_role.lambda_role.arn
@@ -311,6 +317,63 @@ resource "aws_lambda_event_source_mapping" "worker_sqs" {
   enabled                            = true
 }
 
+resource "aws_lambda_function" "outbox_relay" {
+  function_name    = "${local.name_prefix}-outbox-relay"
+  role             = aws_iam_role.lambda_role.arn
+  runtime          = "java21"
+  handler          = "com.caseplan.adapter.in.lambda.OutboxRelayHandler::handleRequest"
+  s3_bucket        = aws_s3_bucket.lambda_artifacts.id
+  s3_key           = aws_s3_object.lambda_zip.key
+  source_code_hash = filebase64sha256(var.lambda_zip_path)
+  memory_size      = 1024
+  # Matches the schedule: each invocation polls until close to its timeout, then the next takes over.
+  timeout          = 60
+
+  vpc_config {
+    subnet_ids         = var.lambda_subnet_ids
+    security_group_ids = local.lambda_security_group_ids
+  }
+
+  environment {
+    variables = {
+      SPRING_DATASOURCE_URL      = var.datasource_url
+      SPRING_DATASOURCE_USERNAME = var.datasource_username
+      SPRING_DATASOURCE_PASSWORD = var.datasource_password
+      QUEUE_PROVIDER             = "sqs"
+      QUEUE_URL                  = aws_sqs_queue.orders.id
+    }
+  }
+
+  tags = local.common_tags
+
+  depends_on = [
+    aws_iam_role_policy_attachment.basic_logs,
+    aws_iam_role_policy_attachment.vpc_access,
+    aws_iam_role_policy.sqs_access,
+    aws_cloudwatch_log_group.outbox_relay,
+    aws_s3_object.lambda_zip
+  ]
+}
+
+resource "aws_cloudwatch_event_rule" "outbox_relay" {
+  name                = "${local.name_prefix}-outbox-relay"
+  schedule_expression = "rate(1 minute)"
+  tags                = local.common_tags
+}
+
+resource "aws_cloudwatch_event_target" "outbox_relay" {
+  rule = aws_cloudwatch_event_rule.outbox_relay.name
+  arn  = aws_lambda_function.outbox_relay.arn
+}
+
+resource "aws_lambda_permission" "events_invoke_outbox_relay" {
+  statement_id  = "AllowEventBridgeInvokeOutboxRelay"
+  action        = "lambda:InvokeFunction"
+  function_name = aws_lambda_function.outbox_relay.function_name
+  principal     = "events.amazonaws.com"
+  source_arn    = aws_cloudwatch_event_rule.outbox_relay.arn
+}
+
 resource "aws_apigatewayv2_api" "orders_api" {
   name          = "${local.name_prefix}-api"
   protocol_type = "HTTP"
@@ -34,3 +34,7 @@ output "get_order_status_lambda" {
 output "worker_lambda" {
   value = aws_lambda_function.generate_caseplan_worker.function_name
 }
+
+output "outbox_relay_lambda" {
+  value = aws_lambda_function.outbox_relay.function_name
+}
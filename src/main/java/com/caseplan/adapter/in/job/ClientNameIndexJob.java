@@ -0,0 +1,77 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.ClientNameIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Once per start: fills {@code full_name_normalized} for clients that predate it, in batches of
+ * {@code caseplan.client-search.backfill.batch-size}. Writes are guarded, so several nodes running
+ * it at once only repeat a little work.
+ */
+@Component
+@ConditionalOnProperty(name = "caseplan.client-search.backfill.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ClientNameIndexJob {
+
+    /** Sleep (ms) before retrying a batch that failed, e.g. while the DB is unreachable. */
+    private static final long DB_ERROR_BACKOFF_MS = 5000L;
+
+    private final ClientNameIndexService indexService;
+
+    @Value("${caseplan.client-search.backfill.batch-size:1000}")
+    private int batchSize = 1000;
+
+    /** Pause between batches; caps the backfill's share of DB time. */
+    @Value("${caseplan.client-search.backfill.interval-ms:200}")
+    private long intervalMs = 200L;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "caseplan-client-name-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void run() {
+        long afterId = 0L;
+        while (running) {
+            try {
+                afterId = indexService.normalizeBatch(afterId, Math.max(1, batchSize));
+                if (afterId == ClientNameIndexService.DONE) {
+                    return;
+                }
+                //noinspection BusyWait - intentional pause between batches
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed batch
+                    Thread.sleep(DB_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.LegacyContentBackfillService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Background pass that moves pre-split plan text out of the plan rows (see
+ * {@link LegacyContentBackfillService}). Walks the table once per start in batches of
+ * {@code caseplan.content.backfill.batch-size} with a pause between them, and then stops: plans
+ * generated since never write the old column. Several nodes may run it at once; row locks with
+ * SKIP LOCKED keep them off each other's batches.
+ */
+@Component
+@ConditionalOnProperty(name = "caseplan.content.backfill.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LegacyContentBackfillJob {
+
+    /** Sleep (ms) before retrying a batch that failed, e.g. while the DB is unreachable. */
+    private static final long DB_ERROR_BACKOFF_MS = 5000L;
+
+    private final LegacyContentBackfillService backfillService;
+
+    @Value("${caseplan.content.backfill.batch-size:100}")
+    private int batchSize = 100;
+
+    /** Pause between batches; caps the backfill's share of DB time. */
+    @Value("${caseplan.content.backfill.interval-ms:500}")
+    private long intervalMs = 500L;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "caseplan-content-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void run() {
+        long afterId = 0L;
+        while (running) {
+            try {
+                afterId = backfillService.backfillBatch(afterId, Math.max(1, batchSize));
+                if (afterId == LegacyContentBackfillService.DONE) {
+                    return;
+                }
+                //noinspection BusyWait - intentional pause between batches
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed batch
+                    Thread.sleep(DB_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
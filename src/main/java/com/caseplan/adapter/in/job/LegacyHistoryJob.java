@@ -0,0 +1,103 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.LegacyHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Background pass that moves the history past retention out of the legacy partitions (see
+ * {@link LegacyHistoryService}), so V8 itself never rewrites rows. Walks plans, then cases, in
+ * batches of {@code caseplan.partitioning.legacy-history.batch-size} with a pause between them,
+ * then re-attaches the legacy partitions and stops. While active plans hold rows back it walks
+ * again a minute later. Several nodes may run it at once; row locks with SKIP LOCKED keep them
+ * off each other's batches, and the DDL takes the partition maintenance lock.
+ */
+@Component
+@ConditionalOnProperty(name = {"caseplan.partitioning.enabled", "caseplan.partitioning.legacy-history.enabled"},
+        havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LegacyHistoryJob {
+
+    /** Sleep (ms) before retrying a batch that failed, e.g. while the DB is unreachable. */
+    private static final long DB_ERROR_BACKOFF_MS = 5000L;
+    /** Sleep (ms) before walking again when active plans kept rows in the legacy partitions. */
+    private static final long HELD_BACK_RETRY_MS = 60_000L;
+
+    private final LegacyHistoryService historyService;
+
+    @Value("${caseplan.partitioning.legacy-history.batch-size:500}")
+    private int batchSize = 500;
+
+    /** Pause between batches; caps the move's share of DB time. */
+    @Value("${caseplan.partitioning.legacy-history.interval-ms:500}")
+    private long intervalMs = 500L;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "caseplan-legacy-history");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void run() {
+        int limit = Math.max(1, batchSize);
+        while (running) {
+            try {
+                LocalDate historyEnd = historyService.start(LocalDate.now(ZoneOffset.UTC));
+                if (historyEnd == null) {
+                    return;
+                }
+                walk(afterId -> historyService.archivePlans(historyEnd, afterId, limit));
+                walk(afterId -> historyService.archiveCases(historyEnd, afterId, limit));
+                if (!running || historyService.finish(historyEnd)) {
+                    return;
+                }
+                //noinspection BusyWait - intentional wait for active plans to finish
+                Thread.sleep(HELD_BACK_RETRY_MS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed batch
+                    Thread.sleep(DB_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void walk(LongUnaryOperator batch) throws InterruptedException {
+        long afterId = 0L;
+        while (running) {
+            afterId = batch.applyAsLong(afterId);
+            if (afterId == LegacyHistoryService.DONE) {
+                return;
+            }
+            //noinspection BusyWait - intentional pause between batches
+            Thread.sleep(intervalMs);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.PlanPartitionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * At start and then every {@code caseplan.partitioning.interval-ms}: creates the coming months'
+ * partitions and archives the months past retention. Partition DDL is serialized across nodes, so
+ * every node can run it.
+ */
+@Component
+@ConditionalOnProperty(name = "caseplan.partitioning.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PlanPartitionJob {
+
+    /** Sleep (ms) before retrying a run that failed, e.g. while the DB is unreachable. */
+    private static final long DB_ERROR_BACKOFF_MS = 5000L;
+
+    private final PlanPartitionService partitionService;
+
+    @Value("${caseplan.partitioning.interval-ms:3600000}")
+    private long intervalMs = 3_600_000L;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "caseplan-plan-partitions");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void run() {
+        while (running) {
+            try {
+                partitionService.maintain();
+                //noinspection BusyWait - intentional pause between runs
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed run
+                    Thread.sleep(DB_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.ServiceNumberBackfillService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Background pass that gives legacy case rows their service number, so the list endpoints never
+ * write. Walks the table once per start in batches of {@code caseplan.service-number.backfill.batch-size}
+ * with a pause between them, and then stops: rows created since always get a number up front.
+ * Several nodes may run it at once; row locks with SKIP LOCKED keep them off each other's batches.
+ */
+@Component
+@ConditionalOnProperty(name = "caseplan.service-number.backfill.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ServiceNumberBackfillJob {
+
+    /** Sleep (ms) before retrying a batch that failed, e.g. while the DB is unreachable. */
+    private static final long DB_ERROR_BACKOFF_MS = 5000L;
+
+    private final ServiceNumberBackfillService backfillService;
+
+    @Value("${caseplan.service-number.backfill.batch-size:200}")
+    private int batchSize = 200;
+
+    /** Pause between batches; caps the backfill's share of DB time. */
+    @Value("${caseplan.service-number.backfill.interval-ms:1000}")
+    private long intervalMs = 1000L;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "caseplan-service-number-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void run() {
+        long afterId = 0L;
+        while (running) {
+            try {
+                afterId = backfillService.backfillBatch(afterId, Math.max(1, batchSize));
+                if (afterId == ServiceNumberBackfillService.DONE) {
+                    return;
+                }
+                //noinspection BusyWait - intentional pause between batches
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed batch
+                    Thread.sleep(DB_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
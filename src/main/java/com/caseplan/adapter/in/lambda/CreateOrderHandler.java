@@ -5,12 +5,15 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.caseplan.common.exception.BaseAppException;
+import com.caseplan.common.exception.OverloadedException;
 import com.caseplan.domain.model.CasePlan;
 import com.caseplan.adapter.in.web.controller.CasePlanController;
 import com.caseplan.adapter.in.web.dto.CreateCasePlanRequest;
+import com.caseplan.adapter.out.datasource.ReadRouting;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.ResponseEntity;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
@@ -59,26 +62,43 @@ public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequest
                 return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf("message", "validation failed", "detail", message));
             }
 
-            Object body = casePlanController.create(req).getBody();
+            ResponseEntity<?> created = casePlanController.create(req);
+            Object body = created.getBody();
             Long planId = extractPlanId(body);
             if (planId == null) {
                 return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf("message", "created but cannot extract plan id"));
             }
 
             statusCode = 201;
-            return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf(
+            Map<String, Object> response = LambdaJsonResponse.mapOf(
                     "id", planId,
                     "status", "pending",
                     "message", "queued"
-            ));
+            );
+            String estimatedWait = created.getHeaders().getFirst(CasePlanController.ESTIMATED_WAIT_HEADER);
+            if (estimatedWait != null) {
+                response.put("estimatedWaitSeconds", Long.parseLong(estimatedWait));
+                response.put("estimatedCompletionAt", created.getHeaders().getFirst(CasePlanController.ESTIMATED_COMPLETION_HEADER));
+            }
+            APIGatewayProxyResponseEvent createdResponse = LambdaJsonResponse.json(MAPPER, statusCode, response);
+            // Echoed by the client on its status polls, it keeps them on the primary until the replicas have the plan.
+            String primaryUntil = created.getHeaders().getFirst(ReadRouting.PRIMARY_UNTIL_HEADER);
+            if (primaryUntil != null) {
+                LambdaJsonResponse.withHeader(createdResponse, ReadRouting.PRIMARY_UNTIL_HEADER, primaryUntil);
+            }
+            return createdResponse;
         } catch (BaseAppException e) {
             statusCode = e.getHttpStatus().value();
-            return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf(
+            APIGatewayProxyResponseEvent response = LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf(
                     "type", e.getType(),
                     "code", e.getCode(),
                     "message", e.getMessage(),
                     "detail", e.getDetail()
             ));
+            if (e instanceof OverloadedException overloaded) {
+                LambdaJsonResponse.withHeader(response, "Retry-After", String.valueOf(overloaded.getRetryAfterSeconds()));
+            }
+            return response;
         } catch (IllegalArgumentException e) {
             statusCode = 400;
             return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf("message", e.getMessage()));
@@ -3,27 +3,57 @@ package com.caseplan.adapter.in.lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.caseplan.adapter.out.queue.SqsQueueAdapter;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
 import com.caseplan.application.service.CasePlanGenerationService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import java.time.Duration;
+import java.util.Map;
+
 /**
  * SQS worker: consumes planId and generates case plan content via LLM.
+ * <p>
+ * Publishes the same queue data the in-app consumers expose through Micrometer: per record the
+ * queue wait and processing time by priority, per batch the dequeued count and the oldest wait
+ * seen. Queue depth is not read here, which would cost a GetQueueAttributes call per invocation;
+ * the scheduled {@link OutboxRelayHandler} emits it once a minute.
+ * <p>
+ * While a plan generates, each heartbeat of its row lease also pushes the message's visibility
+ * timeout out to twice the lease TTL. A crashed invocation's message therefore reappears shortly
+ * after its lease has lapsed, and the redelivery can take the plan over straight away.
+ * <p>
+ * A message that arrives before the due time in its {@code enqueuedAt} (a delayed send to a FIFO
+ * queue, which cannot delay messages, or a delay beyond the SQS maximum) is not processed: it is
+ * hidden until due and the invocation fails once the rest of the batch is done, so SQS keeps it.
+ * Each such hold costs the message one receive against the queue's {@code maxReceiveCount}.
  */
 public class GenerateCasePlanWorkerHandler implements RequestHandler<SQSEvent, String> {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** Messages due sooner than this are processed on arrival; hiding them would only add a receive. */
+    private static final long HOLD_MIN_MILLIS = 1000L;
 
     private final CasePlanGenerationService generationService;
+    /** On SQS, used to extend message visibility; null (or another provider) skips that. */
+    private final QueuePort queuePort;
 
     public GenerateCasePlanWorkerHandler() {
         ConfigurableApplicationContext ctx = LambdaSpringContext.getContext();
         this.generationService = ctx.getBean(CasePlanGenerationService.class);
+        this.queuePort = ctx.getBean(QueuePort.class);
     }
 
     GenerateCasePlanWorkerHandler(CasePlanGenerationService generationService) {
+        this(generationService, null);
+    }
+
+    GenerateCasePlanWorkerHandler(CasePlanGenerationService generationService, QueuePort queuePort) {
         this.generationService = generationService;
+        this.queuePort = queuePort;
     }
 
     @Override
@@ -37,6 +67,9 @@ public class GenerateCasePlanWorkerHandler implements RequestHandler<SQSEvent, S
         int success = 0;
         int skipped = 0;
         int failed = 0;
+        int dequeued = 0;
+        int held = 0;
+        long oldestWait = 0L;
 
         try {
             for (SQSEvent.SQSMessage msg : event.getRecords()) {
@@ -46,7 +79,25 @@ public class GenerateCasePlanWorkerHandler implements RequestHandler<SQSEvent, S
                         skipped++;
                         continue;
                     }
-                    if (generationService.processWithRetry(planId)) {
+                    String priority = extractPriority(msg.getBody());
+                    if (holdUntilDue(msg, QueuePriority.fromStored(priority))) {
+                        held++;
+                        continue;
+                    }
+                    dequeued++;
+                    long waited = queueWaitMillis(msg);
+                    oldestWait = Math.max(oldestWait, waited);
+                    long processingStart = System.currentTimeMillis();
+                    boolean processed;
+                    try {
+                        Runnable heartbeat = visibilityHeartbeat(msg, QueuePriority.fromStored(priority));
+                        processed = heartbeat == null
+                                ? generationService.processWithRetry(planId)
+                                : generationService.processWithRetry(planId, heartbeat);
+                    } finally {
+                        emitRecordMetrics(priority, waited, System.currentTimeMillis() - processingStart);
+                    }
+                    if (processed) {
                         success++;
                     } else {
                         skipped++;
@@ -57,6 +108,9 @@ public class GenerateCasePlanWorkerHandler implements RequestHandler<SQSEvent, S
                 }
             }
 
+            if (held > 0) {
+                throw new IllegalStateException("Held " + held + " message(s) until due; failing the batch so SQS keeps them");
+            }
             return "success=" + success + ", skipped=" + skipped + ", failed=" + failed;
         } finally {
             long duration = System.currentTimeMillis() - start;
@@ -65,11 +119,87 @@ public class GenerateCasePlanWorkerHandler implements RequestHandler<SQSEvent, S
                     .count("PlansProcessed", success)
                     .count("PlansFailed", failed)
                     .count("PlansSkipped", skipped)
+                    .count("PlansDequeued", dequeued)
+                    .count("PlansHeld", held)
+                    .millis("OldestQueueWait", oldestWait)
                     .millis("HandlerDuration", duration)
                     .emit();
         }
     }
 
+    /**
+     * Hides a message that is not due yet until its due time. False when it is due (or carries no
+     * due time), or when the queue is not SQS or the record has no receipt handle (a test event).
+     */
+    private boolean holdUntilDue(SQSEvent.SQSMessage msg, QueuePriority priority) {
+        Long dueAt = extractEnqueuedAt(msg.getBody());
+        long dueIn = dueAt == null ? 0L : dueAt - System.currentTimeMillis();
+        if (dueIn < HOLD_MIN_MILLIS || !(queuePort instanceof SqsQueueAdapter) || msg.getReceiptHandle() == null) {
+            return false;
+        }
+        ((SqsQueueAdapter) queuePort).extendVisibility(priority, msg.getReceiptHandle(), Duration.ofMillis(dueIn + 999L));
+        return true;
+    }
+
+    /** Null when the queue is not SQS or the record carries no receipt handle (a test event). */
+    private Runnable visibilityHeartbeat(SQSEvent.SQSMessage msg, QueuePriority priority) {
+        if (!(queuePort instanceof SqsQueueAdapter) || msg.getReceiptHandle() == null) {
+            return null;
+        }
+        SqsQueueAdapter sqs = (SqsQueueAdapter) queuePort;
+        Duration visibility = generationService.leaseTtl().multipliedBy(2);
+        String receiptHandle = msg.getReceiptHandle();
+        return () -> sqs.extendVisibility(priority, receiptHandle, visibility);
+    }
+
+    /** Per-class queue wait and processing time; a negative wait (unknown send time) is left out. */
+    private void emitRecordMetrics(String priority, long waited, long processingMillis) {
+        CloudWatchEmf.MetricRecord record = CloudWatchEmf.record()
+                .dimension("handler", "Worker")
+                .dimension("priority", priority);
+        if (waited >= 0) {
+            record.millis("QueueWait", waited);
+        }
+        record.millis("ProcessingTime", processingMillis).emit();
+    }
+
+    /**
+     * Wait from the payload's {@code enqueuedAt} (the due time for delayed sends) to now. Messages
+     * sent before the field existed fall back to the SQS SentTimestamp attribute; -1 when neither
+     * is readable.
+     */
+    private long queueWaitMillis(SQSEvent.SQSMessage msg) {
+        Long enqueuedAt = extractEnqueuedAt(msg.getBody());
+        if (enqueuedAt == null) {
+            Map<String, String> attributes = msg.getAttributes();
+            String sentTimestamp = attributes == null ? null : attributes.get("SentTimestamp");
+            try {
+                enqueuedAt = sentTimestamp == null ? null : Long.parseLong(sentTimestamp);
+            } catch (NumberFormatException ignored) {
+                // malformed attribute; the wait metric is best-effort
+            }
+        }
+        return enqueuedAt == null ? -1L : Math.max(0L, System.currentTimeMillis() - enqueuedAt);
+    }
+
+    private Long extractEnqueuedAt(String body) {
+        try {
+            JsonNode enqueuedAt = MAPPER.readTree(body).get("enqueuedAt");
+            return enqueuedAt == null || !enqueuedAt.canConvertToLong() ? null : enqueuedAt.longValue();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String extractPriority(String body) {
+        try {
+            JsonNode priority = MAPPER.readTree(body).get("priority");
+            return QueuePriority.fromStored(priority == null ? null : priority.asText()).getValue();
+        } catch (Exception e) {
+            return QueuePriority.INTERACTIVE.getValue();
+        }
+    }
+
     private Long extractPlanId(String body) {
         if (body == null || body.trim().isEmpty()) {
             return null;
@@ -4,6 +4,7 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.caseplan.adapter.out.datasource.ReadRouting;
 import com.caseplan.application.service.CasePlanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -40,7 +41,9 @@ public class GetOrderStatusHandler implements RequestHandler<APIGatewayProxyRequ
                 return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf("message", "id is required (path /orders/{id} or query ?id=)"));
             }
 
-            Map<String, Object> status = casePlanService.getStatus(id);
+            Map<String, Object> status = LambdaReadConsistency.replicaAcceptable(event)
+                    ? ReadRouting.onReplica(() -> casePlanService.getStatus(id))
+                    : casePlanService.getStatus(id);
             if (status == null) {
                 statusCode = 404;
                 return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf("message", "order not found", "id", id));
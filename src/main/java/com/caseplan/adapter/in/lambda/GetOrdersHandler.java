@@ -4,11 +4,11 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import com.caseplan.adapter.out.persistence.OrderSummary;
 import com.caseplan.application.service.CasePlanService;
-import com.caseplan.domain.model.Attorney;
-import com.caseplan.domain.model.CaseInfo;
-import com.caseplan.domain.model.CasePlan;
-import com.caseplan.domain.model.Client;
+import com.caseplan.application.service.OrderSummaryPage;
+import com.caseplan.common.exception.BaseAppException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.ConfigurableApplicationContext;
 
@@ -18,7 +18,9 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * GET /orders -> returns latest case plans list for frontend polling.
+ * GET /orders?cursor=&limit= -> one page of the case plans list, newest first, for frontend polling.
+ * {@code nextCursor} in the response fetches the next older page; it is null on the last one.
+ * {@code count} is the number of items on this page, not the total number of plans.
  */
 public class GetOrdersHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
@@ -42,25 +44,51 @@ public class GetOrdersHandler implements RequestHandler<APIGatewayProxyRequestEv
         long start = System.currentTimeMillis();
         int statusCode = 500;
         try {
-            List<CasePlan> casePlans = casePlanService.listAll();
+            Map<String, String> query = event == null ? null : event.getQueryStringParameters();
+            String cursor = query == null ? null : query.get("cursor");
+            String rawLimit = query == null ? null : query.get("limit");
+            Integer limit = null;
+            if (rawLimit != null && !rawLimit.trim().isEmpty()) {
+                try {
+                    limit = Integer.valueOf(rawLimit.trim());
+                } catch (NumberFormatException e) {
+                    statusCode = 400;
+                    return LambdaJsonResponse.json(MAPPER, statusCode,
+                            LambdaJsonResponse.mapOf("message", "limit must be an integer"));
+                }
+            }
+
+            Integer pageLimit = limit;
+            // Frontend polling: a replica may serve it unless the request asked for the primary.
+            OrderSummaryPage page = LambdaReadConsistency.replicaAcceptable(event)
+                    ? ReadRouting.onReplica(() -> casePlanService.listOrders(cursor, pageLimit))
+                    : casePlanService.listOrders(cursor, pageLimit);
             List<Map<String, Object>> items = new ArrayList<>();
-            for (CasePlan plan : casePlans) {
-                items.add(toItem(plan));
+            for (OrderSummary order : page.getItems()) {
+                items.add(toItem(order));
             }
 
             Map<String, Object> body = new LinkedHashMap<>();
             body.put("count", items.size());
             body.put("items", items);
+            body.put("nextCursor", page.getNextCursor());
 
             statusCode = 200;
             return LambdaJsonResponse.json(MAPPER, statusCode, body);
+        } catch (BaseAppException e) {
+            statusCode = e.getHttpStatus().value();
+            return LambdaJsonResponse.json(MAPPER, statusCode, LambdaJsonResponse.mapOf(
+                    "type", e.getType(),
+                    "code", e.getCode(),
+                    "message", e.getMessage()
+            ));
         } catch (Exception e) {
             statusCode = 500;
             return LambdaJsonResponse.json(MAPPER, statusCode,
                     LambdaJsonResponse.mapOf("message", "internal error", "error", e.getMessage()));
         } finally {
             long duration = System.currentTimeMillis() - start;
-            String statusBucket = statusCode == 200 ? "2xx" : "5xx";
+            String statusBucket = statusCode < 400 ? "2xx" : statusCode < 500 ? "4xx" : "5xx";
             CloudWatchEmf.record()
                     .dimension("handler", "GetOrders")
                     .dimension("status", statusBucket)
@@ -70,39 +98,36 @@ public class GetOrdersHandler implements RequestHandler<APIGatewayProxyRequestEv
         }
     }
 
-    private Map<String, Object> toItem(CasePlan plan) {
+    private Map<String, Object> toItem(OrderSummary order) {
         Map<String, Object> item = new LinkedHashMap<>();
-        item.put("id", plan.getId());
-        item.put("status", plan.getStatus());
-        item.put("createdAt", plan.getCreatedAt() == null ? null : plan.getCreatedAt().toString());
+        item.put("id", order.getId());
+        item.put("status", order.getStatus());
+        item.put("createdAt", order.getCreatedAt() == null ? null : order.getCreatedAt().toString());
 
-        CaseInfo info = plan.getCaseInfo();
-        if (info != null) {
+        if (order.getCaseInfoId() != null) {
             Map<String, Object> caseInfo = new LinkedHashMap<>();
-            caseInfo.put("serviceNumber", info.getServiceNumber());
-            caseInfo.put("docketNumber", info.getCaseNumber());
-            caseInfo.put("primaryCauseOfAction", info.getPrimaryCauseOfAction());
-            caseInfo.put("remedySought", info.getRemedySought());
+            caseInfo.put("serviceNumber", order.getServiceNumber());
+            caseInfo.put("docketNumber", order.getDocketNumber());
+            caseInfo.put("primaryCauseOfAction", order.getPrimaryCauseOfAction());
+            caseInfo.put("remedySought", order.getRemedySought());
 
-            Client client = info.getClient();
-            if (client != null) {
+            if (order.getClientFirstName() != null || order.getClientLastName() != null) {
                 Map<String, Object> clientMap = new LinkedHashMap<>();
-                clientMap.put("firstName", client.getFirstName());
-                clientMap.put("lastName", client.getLastName());
+                clientMap.put("firstName", order.getClientFirstName());
+                clientMap.put("lastName", order.getClientLastName());
                 caseInfo.put("client", clientMap);
-                item.put("clientName", safe(client.getFirstName()) + " " + safe(client.getLastName()));
+                item.put("clientName", safe(order.getClientFirstName()) + " " + safe(order.getClientLastName()));
             }
 
-            Attorney attorney = info.getAttorney();
-            if (attorney != null) {
+            if (order.getAttorneyName() != null || order.getAttorneyBarNumber() != null) {
                 Map<String, Object> attorneyMap = new LinkedHashMap<>();
-                attorneyMap.put("name", attorney.getName());
-                attorneyMap.put("barNumber", attorney.getBarNumber());
+                attorneyMap.put("name", order.getAttorneyName());
+                attorneyMap.put("barNumber", order.getAttorneyBarNumber());
                 caseInfo.put("attorney", attorneyMap);
             }
 
             item.put("caseInfo", caseInfo);
-            item.put("remedySought", info.getRemedySought());
+            item.put("remedySought", order.getRemedySought());
         }
         return item;
     }
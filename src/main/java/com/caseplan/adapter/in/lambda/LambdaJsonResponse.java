@@ -25,6 +25,13 @@ final class LambdaJsonResponse {
         return response;
     }
 
+    static APIGatewayProxyResponseEvent withHeader(APIGatewayProxyResponseEvent response, String name, String value) {
+        Map<String, String> headers = new HashMap<>(response.getHeaders());
+        headers.put(name, value);
+        response.setHeaders(headers);
+        return response;
+    }
+
     static Map<String, Object> mapOf(Object... kv) {
         Map<String, Object> map = new HashMap<>();
         for (int i = 0; i < kv.length; i += 2) {
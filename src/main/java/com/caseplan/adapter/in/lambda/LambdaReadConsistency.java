@@ -0,0 +1,37 @@
+package com.caseplan.adapter.in.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.caseplan.adapter.out.datasource.ReadRouting;
+
+import java.util.Map;
+
+/**
+ * The Lambda side of the web {@code ReadConsistencyFilter}: whether a polling request may be
+ * served by a read replica. API Gateway passes header names as the client sent them, so they are
+ * matched case-insensitively.
+ */
+final class LambdaReadConsistency {
+
+    private LambdaReadConsistency() {
+    }
+
+    static boolean replicaAcceptable(APIGatewayProxyRequestEvent event) {
+        Map<String, String> headers = event == null ? null : event.getHeaders();
+        return ReadRouting.replicaAcceptable(
+                header(headers, ReadRouting.CONSISTENCY_HEADER),
+                header(headers, ReadRouting.PRIMARY_UNTIL_HEADER),
+                System.currentTimeMillis());
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
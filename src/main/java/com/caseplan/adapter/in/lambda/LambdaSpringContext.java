@@ -6,7 +6,9 @@ import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
 
 /**
- * Shared Spring context for Lambda handlers.
+ * Shared Spring context for Lambda handlers. It runs no background jobs and no migrations: the
+ * schema is migrated by the app nodes or the deploy step before the handlers ship, so a cold
+ * start never runs DDL or a long backfill on the request path.
  */
 public final class LambdaSpringContext {
 
@@ -23,6 +25,11 @@ public final class LambdaSpringContext {
                             .web(WebApplicationType.NONE)
                             .properties(
                                     "caseplan.consumer.enabled=false",
+                                    "caseplan.service-number.backfill.enabled=false",
+                                    "caseplan.client-search.backfill.enabled=false",
+                                    "caseplan.content.backfill.enabled=false",
+                                    "caseplan.partitioning.enabled=false",
+                                    "spring.flyway.enabled=false",
                                     "spring.data.redis.repositories.enabled=false",
                                     "spring.main.lazy-initialization=true"
                             )
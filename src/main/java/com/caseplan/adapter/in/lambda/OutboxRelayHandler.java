@@ -0,0 +1,103 @@
+package com.caseplan.adapter.in.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.service.OutboxRelayService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Scheduled outbox relay: publishes outbox rows to SQS.
+ * <p>
+ * EventBridge can only fire once a minute, so each invocation keeps polling until it nears its
+ * timeout. With the schedule and the function timeout both at a minute, the outbox is drained
+ * continuously and a new plan reaches SQS within about one poll interval.
+ * <p>
+ * Each invocation also reads the queue depth once and emits it as {@code QueueDepth}, so the
+ * depth series costs one GetQueueAttributes call a minute however many batches the worker runs.
+ */
+public class OutboxRelayHandler implements RequestHandler<ScheduledEvent, String> {
+
+    /** Pause between polls that found fewer rows than a full batch. */
+    static final long POLL_INTERVAL_MS = 500L;
+    /** Stop polling once less than this much invocation time is left. */
+    static final long STOP_MARGIN_MS = 5000L;
+
+    private final OutboxRelayService relayService;
+    /** Depth source for the per-invocation metric; null skips it. */
+    private final QueuePort queuePort;
+
+    public OutboxRelayHandler() {
+        ConfigurableApplicationContext ctx = LambdaSpringContext.getContext();
+        this.relayService = ctx.getBean(OutboxRelayService.class);
+        this.queuePort = ctx.getBean(QueuePort.class);
+    }
+
+    OutboxRelayHandler(OutboxRelayService relayService) {
+        this(relayService, null);
+    }
+
+    OutboxRelayHandler(OutboxRelayService relayService, QueuePort queuePort) {
+        this.relayService = relayService;
+        this.queuePort = queuePort;
+    }
+
+    @Override
+    public String handleRequest(ScheduledEvent event, Context context) {
+        long start = System.currentTimeMillis();
+        int relayed = 0;
+        int passes = 0;
+        try {
+            do {
+                int batch = relayService.relayBatch();
+                relayed += batch;
+                passes++;
+                if (batch < OutboxRelayService.BATCH_SIZE && !sleepBeforeNextPoll(context)) {
+                    break;
+                }
+            } while (hasTimeLeft(context));
+            return "relayed=" + relayed + ", passes=" + passes;
+        } finally {
+            CloudWatchEmf.MetricRecord record = CloudWatchEmf.record()
+                    .dimension("handler", "OutboxRelay")
+                    .count("OutboxRelayed", relayed)
+                    .millis("HandlerDuration", System.currentTimeMillis() - start);
+            long depth = queueDepth();
+            if (depth >= 0) {
+                record.count("QueueDepth", depth);
+            }
+            record.emit();
+        }
+    }
+
+    /** Best-effort: a failed GetQueueAttributes call must not fail the relay. */
+    private long queueDepth() {
+        if (queuePort == null) {
+            return -1L;
+        }
+        try {
+            return queuePort.depth();
+        } catch (Exception e) {
+            return -1L;
+        }
+    }
+
+    /** Without a Lambda context (local invocation) a single pass is made. */
+    private boolean hasTimeLeft(Context context) {
+        return context != null && context.getRemainingTimeInMillis() > STOP_MARGIN_MS + POLL_INTERVAL_MS;
+    }
+
+    private boolean sleepBeforeNextPoll(Context context) {
+        if (!hasTimeLeft(context)) {
+            return false;
+        }
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,96 +1,392 @@
 package com.caseplan.adapter.in.queue;
 
-import com.caseplan.domain.model.CasePlan;
+import com.caseplan.adapter.out.lease.LeaderLease;
+import com.caseplan.adapter.out.lease.PartitionMembership;
+import com.caseplan.adapter.out.persistence.CasePlanKey;
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
 import com.caseplan.application.port.out.QueuePort;
 import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.adapter.out.queue.QueueDelivery;
+import com.caseplan.adapter.out.queue.QueueReceiver;
+import com.caseplan.application.port.out.QueuePriority;
 import com.caseplan.application.service.CasePlanGenerationService;
+import com.caseplan.application.service.OutboxRelayService;
+import com.caseplan.domain.model.CasePlanOutbox;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Worker loop for the providers that implement {@link QueueReceiver} (redis, memory). SQS is
+ * consumed by the Lambda worker and postgres by {@link PostgresQueueConsumer}.
+ * <p>
+ * Started and stopped as a {@link SmartLifecycle}: on shutdown the loops stop taking work, in-flight
+ * plans get up to {@code caseplan.consumer.drain-timeout-seconds} to finish, and whatever is still
+ * running then goes back to pending through the outbox instead of waiting for its lease to expire.
+ * <p>
+ * Maintenance (lease recovery, queue reconciliation) runs only on the node holding the
+ * {@link LeaderLease}, so its DB scans do not multiply with the node count and nodes never
+ * re-enqueue the same ids in parallel.
+ * <p>
+ * Workers pop only the queue partitions the {@link PartitionMembership} heartbeat assigns to this
+ * node; partitions are rebalanced across live nodes as they join and leave.
+ */
 @Component
-@ConditionalOnProperty(name = "caseplan.consumer.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnExpression("${caseplan.consumer.enabled:true} and !{'sqs', 'postgres'}.contains('${queue.provider:redis}'.trim().toLowerCase())")
 @RequiredArgsConstructor
-public class CasePlanConsumer {
+public class CasePlanConsumer implements SmartLifecycle {
 
     private final CasePlanRepo casePlanRepo;
-    private final StringRedisTemplate redisTemplate;
+    private final CasePlanOutboxRepo outboxRepo;
+    private final TransactionTemplate transactionTemplate;
     private final QueuePort queuePort;
     private final CasePlanGenerationService generationService;
+    private final OutboxRelayService outboxRelayService;
+    private final QueueMetrics queueMetrics;
+    private final LeaderLease maintenanceLease;
+    private final PartitionMembership partitionMembership;
 
-    private static final String QUEUE_KEY = "caseplan:pending";
-    /** Block up to 60s when queue is empty (BLPOP); then loop. No busy polling. */
-    private static final long BLPOP_TIMEOUT_SECONDS = 60L;
+    @Value("${caseplan.consumer.workers:1}")
+    private int workerCount;
+
+    @Value("${caseplan.consumer.drain-timeout-seconds:30}")
+    private long drainTimeoutSeconds;
+
+    private QueueReceiver receiver;
+    private final ConsumerDrain<QueueDelivery> drain = new ConsumerDrain<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    /** Fencing token of the current leadership term; {@link LeaderLease#NOT_LEADER} on followers. */
+    private volatile long leaderToken = LeaderLease.NOT_LEADER;
+
+    /**
+     * Wait up to 5s in one receive when all class queues are empty; then loop. Also bounds how
+     * long an idle worker takes to notice a drain, since a waiting receive is never interrupted
+     * (an interrupted pop can take an id the worker then never sees).
+     */
+    private static final Duration RECEIVE_TIMEOUT = Duration.ofSeconds(5L);
     /** Sleep (ms) before retrying when Redis/IO throws — avoid hammering on disconnect. */
     private static final long REDIS_ERROR_BACKOFF_MS = 5000L;
-    /** Stale recovery: processing records older than this are re-queued on startup. */
-    private static final long STALE_PROCESSING_MINUTES = 10L;
-    /** Reconcile DB pending records back to queue to recover from queue loss/crash. */
-    private static final long PENDING_RECONCILE_INTERVAL_SECONDS = 60L;
+    /**
+     * Processing records without a lease (claimed before leases existed) are re-queued by the
+     * leader once untouched for this long; leased ones as soon as the lease lapses.
+     */
+    private static final long LEGACY_STALE_PROCESSING_MINUTES = 10L;
+    /**
+     * Lease acquire/renew interval. A third of the default 15s TTL, so two missed renewals still
+     * keep the lease and a dead leader is replaced within one TTL plus one interval.
+     */
+    private static final long LEASE_RENEW_INTERVAL_MS = 5000L;
+    /** Membership heartbeat interval; a third of the default 15s member TTL, like the leader lease. */
+    private static final long MEMBERSHIP_HEARTBEAT_INTERVAL_MS = 5000L;
+    /** Expired plans fetched per page during lease recovery; the leader lease is renewed between pages. */
+    private static final int LEASE_RECOVERY_BATCH_SIZE = 100;
+    /** Outbox poll interval when the last relay pass drained it; bounds create-to-queue latency. */
+    private static final long OUTBOX_POLL_INTERVAL_MS = 200L;
+    /** How often due items are promoted from the delayed queues; bounds how late a retry can start. */
+    private static final long DELAY_MOVER_INTERVAL_MS = 1000L;
+    /** Pending records younger than this are still on their normal path to the queue; leave them alone. */
+    private static final long PENDING_RECONCILE_GRACE_SECONDS = 120L;
+    /** Ids fetched (and membership-checked) per keyset page during reconciliation. */
+    private static final int PENDING_RECONCILE_BATCH_SIZE = 500;
 
-    @PostConstruct
-    public void startWorker() {
-        recoverStaleProcessing();
-        recoverLostPendingQueueItems();
-        Thread reconcileWorker = new Thread(this::runReconcileLoop, "caseplan-reconcile");
-        reconcileWorker.setDaemon(false);
-        reconcileWorker.start();
+    @Override
+    public void start() {
+        startWorker();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
 
-        Thread worker = new Thread(this::runWorker, "caseplan-consumer");
-        worker.setDaemon(false);
-        worker.start();
+    public ConsumerDrain<QueueDelivery> getDrain() {
+        return drain;
     }
 
-    /** Orphan recovery: re-queue CasePlans stuck in processing (e.g. process died). */
-    @SuppressWarnings("null")
-    private void recoverStaleProcessing() {
-        Instant cutoff = Instant.now().minusSeconds(STALE_PROCESSING_MINUTES * 60);
-        List<CasePlan> stale = casePlanRepo.findByStatusAndUpdatedAtBefore("processing", cutoff);
-        for (CasePlan plan : stale) {
-            plan.setStatus("pending");
-            casePlanRepo.save(plan);
-            queuePort.enqueue(plan.getId().toString());
+    public void startWorker() {
+        if (!(queuePort instanceof QueueReceiver)) {
+            throw new IllegalStateException("Queue provider " + queuePort.getClass().getSimpleName()
+                    + " has no receive side for CasePlanConsumer");
+        }
+        receiver = (QueueReceiver) queuePort;
+        running = true;
+        startThread(this::runMembershipLoop, "caseplan-membership");
+        startThread(this::runMaintenanceLoop, "caseplan-maintenance");
+        startThread(this::runOutboxRelayLoop, "caseplan-outbox-relay");
+        startThread(this::runDelayMoverLoop, "caseplan-delay-mover");
+        for (int i = 1; i <= Math.max(1, workerCount); i++) {
+            startThread(this::runWorker, workerCount > 1 ? "caseplan-consumer-" + i : "caseplan-consumer");
         }
     }
 
-    /** DB->Queue reconciliation: ensure pending records exist in Redis queue. */
-    private void recoverLostPendingQueueItems() {
-        List<CasePlan> pending = casePlanRepo.findByStatus("pending");
-        if (pending.isEmpty()) {
+    /**
+     * Daemon threads: the lifecycle stop, not the threads, decides how long the JVM waits, so a
+     * worker still inside an LLM call after the deadline does not hold up exit.
+     */
+    private void startThread(Runnable loop, String name) {
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Drain: stop taking work, give in-flight plans until the deadline, then return the rest to
+     * the queue. Blocks the shutdown for at most the drain timeout. Leadership and partitions are
+     * handed back first so maintenance and this node's share of the queue move to other nodes
+     * without waiting for either to expire.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
             return;
         }
+        running = false;
+        releaseLeadership();
+        leaveMembership();
+        Instant deadline = Instant.now().plusSeconds(Math.max(0L, drainTimeoutSeconds));
+        drain.startDrain(deadline);
+        for (Thread thread : threads) {
+            long remainingMs = Duration.between(Instant.now(), deadline).toMillis();
+            if (remainingMs <= 0) {
+                break;
+            }
+            try {
+                thread.join(remainingMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (QueueDelivery delivery : drain.abandon()) {
+            returnToQueue(delivery);
+        }
+        drain.stopped();
+    }
+
+    /**
+     * Releases the in-flight marker first so the enqueue is not collapsed, and flips the plan back
+     * to pending with an outbox row in the same transaction, so the relay of any live node, or of
+     * this one once restarted, queues it. The flip is one guarded transition: a plan that finished
+     * or moved on meanwhile is left alone.
+     */
+    private void returnToQueue(QueueDelivery delivery) {
+        try {
+            receiver.complete(delivery);
+            Long id = Long.parseLong(delivery.id());
+            transactionTemplate.executeWithoutResult(status -> {
+                if (casePlanRepo.transition(id, "processing", "pending", Instant.now()) == 1) {
+                    outboxRepo.save(new CasePlanOutbox(id, delivery.priority().getValue()));
+                }
+            });
+        } catch (Exception ignored) {
+            // lease recovery on the leader still covers this id
+        }
+    }
+
+    /**
+     * Leader election: every node tries to take or keep the lease each interval. A new term starts
+     * with the reconciliation pass that used to run on every node's startup; the leader then
+     * reclaims expired generation leases on every renewal, so a dead worker's plan is back on the
+     * queue within the generation lease TTL plus one interval.
+     */
+    private void runMaintenanceLoop() {
+        while (running) {
+            try {
+                long token = maintenanceLease.acquireOrRenew();
+                long previous = leaderToken;
+                leaderToken = token;
+                if (token != LeaderLease.NOT_LEADER) {
+                    if (token != previous) {
+                        recoverLostPendingQueueItems(receiver.isDurable()
+                                ? Duration.ofSeconds(PENDING_RECONCILE_GRACE_SECONDS)
+                                : Duration.ZERO);
+                    }
+                    recoverExpiredLeases();
+                }
+                //noinspection BusyWait - intentional interval between lease renewals
+                Thread.sleep(LEASE_RENEW_INTERVAL_MS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                leaderToken = LeaderLease.NOT_LEADER; // cannot tell; act as a follower until the next renew
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed Redis/IO call
+                    Thread.sleep(REDIS_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Announces this node every interval and points the receiver at the partitions it now owns.
+     * On a failed heartbeat the last assignment stays; a node cut off from Redis cannot pop anyway.
+     */
+    private void runMembershipLoop() {
+        while (running) {
+            try {
+                receiver.assignPartitions(partitionMembership.heartbeat());
+                //noinspection BusyWait - intentional interval between membership heartbeats
+                Thread.sleep(MEMBERSHIP_HEARTBEAT_INTERVAL_MS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed Redis call
+                    Thread.sleep(REDIS_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void leaveMembership() {
+        try {
+            partitionMembership.leave();
+        } catch (Exception ignored) {
+            // the membership entry expires on its own
+        }
+    }
+
+    private void releaseLeadership() {
+        long token = leaderToken;
+        leaderToken = LeaderLease.NOT_LEADER;
+        if (token != LeaderLease.NOT_LEADER) {
+            try {
+                maintenanceLease.release(token);
+            } catch (Exception ignored) {
+                // the lease expires on its own
+            }
+        }
+    }
+
+    /**
+     * Fencing check between maintenance batches: renews the lease under the current token and
+     * fails once another node has taken over, so a paused ex-leader stops at its next batch.
+     */
+    private boolean stillLeader() {
+        long token = leaderToken;
+        if (token != LeaderLease.NOT_LEADER && maintenanceLease.renew(token)) {
+            return true;
+        }
+        leaderToken = LeaderLease.NOT_LEADER;
+        return false;
+    }
 
-        List<String> queued = redisTemplate.opsForList().range(QUEUE_KEY, 0, -1);
-        Set<String> queuedIds = queued != null ? new HashSet<>(queued) : new HashSet<>();
-        for (CasePlan plan : pending) {
-            if (plan.getId() == null) {
-                continue;
+    /**
+     * Orphan recovery: re-queue plans whose worker stopped renewing its generation lease. Each
+     * reclaim is a conditional update that re-checks the expiry and writes the plan's outbox row in
+     * the same transaction. The dead worker's in-flight marker is dropped before that commits, so
+     * the relay's enqueue is not collapsed into it. Leader only.
+     */
+    private void recoverExpiredLeases() {
+        Instant now = Instant.now();
+        Instant legacyCutoff = now.minusSeconds(LEGACY_STALE_PROCESSING_MINUTES * 60);
+        while (stillLeader()) {
+            List<CasePlanKey> expired = casePlanRepo.findKeysWithExpiredLease(
+                    now, legacyCutoff, PageRequest.of(0, LEASE_RECOVERY_BATCH_SIZE));
+            for (CasePlanKey key : expired) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (casePlanRepo.reclaimExpiredLease(key.getId(), now, legacyCutoff) == 1) {
+                        receiver.releaseInFlight(key.getId().toString());
+                        outboxRepo.save(new CasePlanOutbox(key.getId(),
+                                QueuePriority.fromStored(key.getPriority()).getValue()));
+                    }
+                });
             }
-            String idStr = plan.getId().toString();
-            if (queuedIds.contains(idStr)) {
-                continue;
+            if (expired.size() < LEASE_RECOVERY_BATCH_SIZE) {
+                return;
             }
-            queuePort.enqueue(idStr);
-            queuedIds.add(idStr);
         }
     }
 
-    /** Blocking loop: BLPOP until a task id is available, then process with retry. */
+    /**
+     * DB->Queue reconciliation, run by each new leader: new plans reach the queue through the
+     * outbox, so this only covers ids lost from the queue itself (a Redis restart without
+     * persistence, or any restart of the in-memory queue, which is why that one passes no grace
+     * window). The in-memory queue also runs it after spilling on overflow.
+     * Walks pending ids older than the grace window in keyset pages and checks each page
+     * against the queued ids, so cost scales with the backlog page, not the queue length.
+     */
+    private void recoverLostPendingQueueItems(Duration grace) {
+        Instant cutoff = Instant.now().minus(grace);
+        Instant afterUpdatedAt = Instant.EPOCH;
+        long afterId = 0L;
+        while (stillLeader()) {
+            List<CasePlanKey> page = casePlanRepo.findKeysByStatusUpdatedBefore(
+                    "pending", cutoff, afterUpdatedAt, afterId, PageRequest.of(0, PENDING_RECONCILE_BATCH_SIZE));
+            if (page.isEmpty()) {
+                return;
+            }
+
+            List<String> ids = new ArrayList<>(page.size());
+            for (CasePlanKey key : page) {
+                ids.add(key.getId().toString());
+            }
+            Set<String> queued = receiver.queuedAmong(ids);
+            for (int i = 0; i < ids.size(); i++) {
+                if (!queued.contains(ids.get(i))) {
+                    queuePort.enqueue(ids.get(i), QueuePriority.fromStored(page.get(i).getPriority()));
+                }
+            }
+
+            if (page.size() < PENDING_RECONCILE_BATCH_SIZE) {
+                return;
+            }
+            CasePlanKey last = page.get(page.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getId();
+        }
+    }
+
+    /** Blocking loop: weighted-fair receive across class queues, then process with retry. */
     private void runWorker() {
-        while (true) {
+        WeightedFairScheduler scheduler = new WeightedFairScheduler();
+        while (running) {
             try {
-                String idStr = redisTemplate.opsForList().leftPop(QUEUE_KEY, BLPOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                if (idStr == null) {
-                    continue; // timeout, queue was empty
+                QueueDelivery delivery = receiver.receive(scheduler.nextOrder(), RECEIVE_TIMEOUT);
+                if (receiver.takeSpilled()) {
+                    recoverLostPendingQueueItems(Duration.ZERO);
+                }
+                if (delivery == null) {
+                    continue; // timeout, all queues were empty
+                }
+                queueMetrics.recordDequeued(delivery.priority(), delivery.entry().enqueuedAtMillis());
+                if (!drain.begin(delivery.id(), delivery)) {
+                    if (drain.reclaim(delivery.id())) {
+                        returnToQueue(delivery); // popped after the drain deadline
+                    }
+                    break;
                 }
-                generationService.processWithRetry(Long.parseLong(idStr));
+                long startNanos = System.nanoTime();
+                try {
+                    generationService.processWithRetry(Long.parseLong(delivery.id()));
+                } finally {
+                    if (drain.finish(delivery.id())) {
+                        receiver.complete(delivery); // else the drain already returned it to the queue
+                    }
+                    queueMetrics.recordProcessed(delivery.priority(), startNanos);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
             } catch (Exception e) {
                 try {
                     //noinspection BusyWait - intentional backoff before retrying a failed Redis/IO call
@@ -103,13 +399,36 @@ public class CasePlanConsumer {
         }
     }
 
-    /** Periodic safety net for Redis data loss: requeue pending records every minute. */
-    private void runReconcileLoop() {
-        while (true) {
+    /** Publish outbox rows; loops without pausing while full batches keep coming. */
+    private void runOutboxRelayLoop() {
+        while (running) {
+            try {
+                if (outboxRelayService.relayBatch() < OutboxRelayService.BATCH_SIZE) {
+                    //noinspection BusyWait - intentional interval between outbox polls
+                    Thread.sleep(OUTBOX_POLL_INTERVAL_MS);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed DB/Redis call
+                    Thread.sleep(REDIS_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Promote due retries from the delayed ZSETs onto the ready lists. */
+    private void runDelayMoverLoop() {
+        while (running) {
             try {
-                recoverLostPendingQueueItems();
-                //noinspection BusyWait - intentional interval between reconciliation passes
-                Thread.sleep(TimeUnit.SECONDS.toMillis(PENDING_RECONCILE_INTERVAL_SECONDS));
+                queuePort.promoteDue();
+                //noinspection BusyWait - intentional interval between mover passes
+                Thread.sleep(DELAY_MOVER_INTERVAL_MS);
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
                 break;
@@ -0,0 +1,113 @@
+package com.caseplan.adapter.in.queue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-flight bookkeeping and drain progress for a consumer's worker threads.
+ * <p>
+ * A worker {@link #begin}s an item after taking it off the queue and {@link #finish}es it when
+ * done. Whoever removes the item from the in-flight map owns its cleanup: normally the worker,
+ * but once the drain deadline passes {@link #abandon} takes the stragglers so the consumer can
+ * return them to the queue, and a worker that finishes late sees {@code finish} return false and
+ * leaves the (by then re-queued) item alone.
+ *
+ * @param <T> what the consumer needs to return an item to the queue
+ */
+public class ConsumerDrain<T> {
+
+    public enum Phase { RUNNING, DRAINING, STOPPED }
+
+    private final Map<String, T> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong finishedWhileDraining = new AtomicLong();
+    private final AtomicLong returnedToQueue = new AtomicLong();
+
+    private volatile Phase phase = Phase.RUNNING;
+    /** Set by {@link #abandon}; from then on nothing new may start. */
+    private volatile boolean closed;
+    private volatile Instant drainStartedAt;
+    private volatile Instant drainDeadline;
+    private volatile Instant stoppedAt;
+
+    /**
+     * @return false once the drain has abandoned in-flight work: the caller must not process the
+     * item and, if {@link #reclaim} says it still owns it, return it to the queue itself
+     */
+    public boolean begin(String id, T item) {
+        inFlight.put(id, item);
+        return !closed;
+    }
+
+    /** @return true when the caller still owned the item, i.e. it was not abandoned meanwhile */
+    public boolean finish(String id) {
+        boolean owned = inFlight.remove(id) != null;
+        if (owned && phase == Phase.DRAINING) {
+            finishedWhileDraining.incrementAndGet();
+        }
+        return owned;
+    }
+
+    /** For an item refused by {@link #begin}: true when the caller, not the drain, must return it. */
+    public boolean reclaim(String id) {
+        boolean owned = inFlight.remove(id) != null;
+        if (owned) {
+            returnedToQueue.incrementAndGet();
+        }
+        return owned;
+    }
+
+    public void startDrain(Instant deadline) {
+        drainStartedAt = Instant.now();
+        drainDeadline = deadline;
+        phase = Phase.DRAINING;
+    }
+
+    /** Takes every item still in flight; the caller puts them back on the queue. */
+    public List<T> abandon() {
+        closed = true;
+        List<T> abandoned = new ArrayList<>();
+        for (String id : new ArrayList<>(inFlight.keySet())) {
+            T item = inFlight.remove(id);
+            if (item != null) {
+                abandoned.add(item);
+            }
+        }
+        returnedToQueue.addAndGet(abandoned.size());
+        return abandoned;
+    }
+
+    public void stopped() {
+        stoppedAt = Instant.now();
+        phase = Phase.STOPPED;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /** Snapshot for the actuator endpoint; timestamps are absent until the drain reaches them. */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("phase", phase.name().toLowerCase());
+        report.put("inFlight", inFlight.size());
+        report.put("finishedWhileDraining", finishedWhileDraining.get());
+        report.put("returnedToQueue", returnedToQueue.get());
+        if (drainStartedAt != null) {
+            report.put("drainStartedAt", drainStartedAt.toString());
+            report.put("drainDeadline", drainDeadline.toString());
+        }
+        if (stoppedAt != null) {
+            report.put("stoppedAt", stoppedAt.toString());
+        }
+        return report;
+    }
+}
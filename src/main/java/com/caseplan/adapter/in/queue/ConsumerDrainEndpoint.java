@@ -0,0 +1,43 @@
+package com.caseplan.adapter.in.queue;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/consumer}: drain progress of the in-app consumer, so a rolling deploy can
+ * watch in-flight plans finish or go back to the queue. Nodes without one (SQS, or
+ * {@code caseplan.consumer.enabled=false}) report {@code disabled}.
+ */
+@Component
+@Endpoint(id = "consumer")
+public class ConsumerDrainEndpoint {
+
+    private final ObjectProvider<CasePlanConsumer> consumer;
+    private final ObjectProvider<PostgresQueueConsumer> postgresConsumer;
+
+    public ConsumerDrainEndpoint(ObjectProvider<CasePlanConsumer> consumer,
+                                 ObjectProvider<PostgresQueueConsumer> postgresConsumer) {
+        this.consumer = consumer;
+        this.postgresConsumer = postgresConsumer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> drain() {
+        CasePlanConsumer active = consumer.getIfAvailable();
+        if (active != null) {
+            return active.getDrain().report();
+        }
+        PostgresQueueConsumer postgres = postgresConsumer.getIfAvailable();
+        if (postgres != null) {
+            return postgres.getDrain().report();
+        }
+        Map<String, Object> disabled = new LinkedHashMap<>();
+        disabled.put("phase", "disabled");
+        return disabled;
+    }
+}
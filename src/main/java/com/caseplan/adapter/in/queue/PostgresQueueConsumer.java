@@ -0,0 +1,287 @@
+package com.caseplan.adapter.in.queue;
+
+import com.caseplan.adapter.out.queue.PostgresQueueAdapter;
+import com.caseplan.application.port.out.QueuePriority;
+import com.caseplan.application.service.CasePlanGenerationService;
+import com.caseplan.application.service.OutboxRelayService;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumer for {@code queue.provider=postgres}. One dispatcher thread holds a LISTEN connection,
+ * claims as many due rows as there are idle workers and hands them to a fixed worker pool. When
+ * nothing is due it sleeps until a NOTIFY arrives or the next delayed row falls due, so an idle
+ * node issues no queries beyond a periodic check for expired generation leases.
+ * <p>
+ * Stopped like {@link CasePlanConsumer}: the dispatcher stops claiming, in-flight plans get up to
+ * {@code caseplan.consumer.drain-timeout-seconds} to finish, and the rows still processing then go
+ * straight back to the queue instead of waiting for their lease to lapse.
+ */
+@Component
+@ConditionalOnExpression("${caseplan.consumer.enabled:true} and '${queue.provider:redis}'.trim().equalsIgnoreCase('postgres')")
+@RequiredArgsConstructor
+public class PostgresQueueConsumer implements SmartLifecycle {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final CasePlanGenerationService generationService;
+    private final OutboxRelayService outboxRelayService;
+
+    @Value("${queue.postgres.workers:4}")
+    private int workerCount;
+
+    @Value("${caseplan.lease.ttl-seconds:30}")
+    private long leaseTtlSeconds;
+
+    @Value("${caseplan.consumer.drain-timeout-seconds:30}")
+    private long drainTimeoutSeconds;
+
+    /** Longest the dispatcher waits for a NOTIFY before re-checking due rows. */
+    private static final long MAX_IDLE_WAIT_MS = 30_000L;
+    /** Sleep (ms) before reconnecting when the listen connection or a claim fails. */
+    private static final long DB_ERROR_BACKOFF_MS = 5000L;
+    /** Processing rows without a lease (claimed before leases existed) are orphaned after this long. */
+    private static final long LEGACY_STALE_PROCESSING_MINUTES = 10L;
+    /** How often expired leases are released; with the lease TTL this bounds recovery of a dead worker's rows. */
+    private static final long LEASE_CHECK_INTERVAL_MS = 5000L;
+    /** Outbox poll interval when the last relay pass drained it. */
+    private static final long OUTBOX_POLL_INTERVAL_MS = 200L;
+
+    private PostgresQueueAdapter queue;
+    private Semaphore idleWorkers;
+    private ExecutorService workers;
+    private long nextLeaseCheckAt;
+    private final ConsumerDrain<Long> drain = new ConsumerDrain<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        startWorker();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public ConsumerDrain<Long> getDrain() {
+        return drain;
+    }
+
+    /**
+     * Daemon threads throughout: the lifecycle stop, not the threads, decides how long the JVM
+     * waits, so a worker still inside an LLM call after the deadline does not hold up exit.
+     */
+    public void startWorker() {
+        queue = new PostgresQueueAdapter(jdbcTemplate);
+        int size = Math.max(1, workerCount);
+        idleWorkers = new Semaphore(size);
+        AtomicInteger seq = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "caseplan-pg-worker-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        startThread(this::runOutboxRelayLoop, "caseplan-outbox-relay");
+        startThread(this::runDispatcher, "caseplan-pg-dispatcher");
+    }
+
+    private void startThread(Runnable loop, String name) {
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Drain: stop claiming, give in-flight plans until the deadline, then release the rows still
+     * processing. Blocks the shutdown for at most the drain timeout. The loops are interrupted
+     * rather than joined since they only ever wait, never hold a plan.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        Instant deadline = Instant.now().plusSeconds(Math.max(0L, drainTimeoutSeconds));
+        drain.startDrain(deadline);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Math.max(0L, Duration.between(Instant.now(), deadline).toMillis()),
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        for (Long id : drain.abandon()) {
+            returnToQueue(id);
+        }
+        workers.shutdownNow();
+        drain.stopped();
+    }
+
+    /** The release re-checks the status, so a plan that finished meanwhile is left alone. */
+    private void returnToQueue(Long id) {
+        try {
+            queue.release(id);
+        } catch (Exception ignored) {
+            // the row's lease lapses and releaseExpired picks it up
+        }
+    }
+
+    private void runDispatcher() {
+        WeightedFairScheduler scheduler = new WeightedFairScheduler();
+        while (running) {
+            try (Connection listenConnection = dataSource.getConnection()) {
+                listenConnection.setAutoCommit(true);
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("LISTEN " + PostgresQueueAdapter.NOTIFY_CHANNEL);
+                }
+                PGConnection notifications = listenConnection.unwrap(PGConnection.class);
+                while (running) {
+                    releaseExpiredIfDue();
+                    idleWorkers.acquire();
+                    int slots = 1 + idleWorkers.drainPermits();
+                    List<Long> claimed;
+                    try {
+                        claimed = claim(queue, scheduler, slots, Duration.ofSeconds(Math.max(1L, leaseTtlSeconds)));
+                    } catch (RuntimeException e) {
+                        idleWorkers.release(slots);
+                        throw e;
+                    }
+                    idleWorkers.release(slots - claimed.size());
+                    for (Long id : claimed) {
+                        dispatch(id);
+                    }
+                    if (claimed.size() < slots) {
+                        notifications.getNotifications((int) idleWaitMillis());
+                    }
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before reconnecting after a DB failure
+                    Thread.sleep(DB_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the free slots class by class in the scheduler's order, so classes share claims in
+     * proportion to their weights and an empty class yields its turn.
+     */
+    static List<Long> claim(PostgresQueueAdapter queue, WeightedFairScheduler scheduler, int slots, Duration leaseTtl) {
+        List<Long> claimed = new ArrayList<>(slots);
+        for (QueuePriority priority : scheduler.nextOrder()) {
+            if (claimed.size() >= slots) {
+                break;
+            }
+            claimed.addAll(queue.claim(priority, slots - claimed.size(), leaseTtl));
+        }
+        return claimed;
+    }
+
+    /** Hands a claimed row to a worker, or straight back to the queue once the drain has closed. */
+    void dispatch(Long id) {
+        String key = id.toString();
+        if (!drain.begin(key, id)) {
+            if (drain.reclaim(key)) {
+                returnToQueue(id);
+            }
+            idleWorkers.release();
+            return;
+        }
+        try {
+            workers.execute(() -> process(id));
+        } catch (RuntimeException e) {
+            // pool already shut down by the drain
+            if (drain.reclaim(key)) {
+                returnToQueue(id);
+            }
+            idleWorkers.release();
+        }
+    }
+
+    private void process(Long id) {
+        try {
+            generationService.processWithRetry(id);
+        } catch (Exception ignored) {
+            // terminal failures are recorded on the row by the generation service
+        } finally {
+            drain.finish(id.toString());
+            idleWorkers.release();
+        }
+    }
+
+    /** Wait until the next delayed row is due, bounded so lease checks still run on an idle node. */
+    private long idleWaitMillis() {
+        long wait = Math.min(MAX_IDLE_WAIT_MS, Math.max(1L, nextLeaseCheckAt - System.currentTimeMillis()));
+        Instant nextDue = queue.nextDueAt();
+        if (nextDue != null) {
+            wait = Math.min(wait, Math.max(1L, Duration.between(Instant.now(), nextDue).toMillis()));
+        }
+        return wait;
+    }
+
+    /** One indexed UPDATE; releasing on every node is safe since the statement itself re-checks the expiry. */
+    private void releaseExpiredIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextLeaseCheckAt) {
+            return;
+        }
+        queue.releaseExpired(Instant.now().minusSeconds(LEGACY_STALE_PROCESSING_MINUTES * 60));
+        nextLeaseCheckAt = now + LEASE_CHECK_INTERVAL_MS;
+    }
+
+    /** Publish outbox rows; loops without pausing while full batches keep coming. */
+    private void runOutboxRelayLoop() {
+        while (running) {
+            try {
+                if (outboxRelayService.relayBatch() < OutboxRelayService.BATCH_SIZE) {
+                    //noinspection BusyWait - intentional interval between outbox polls
+                    Thread.sleep(OUTBOX_POLL_INTERVAL_MS);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                try {
+                    //noinspection BusyWait - intentional backoff before retrying a failed DB call
+                    Thread.sleep(DB_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+}
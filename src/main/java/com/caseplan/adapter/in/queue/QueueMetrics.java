@@ -0,0 +1,115 @@
+package com.caseplan.adapter.in.queue;
+
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue lag and throughput meters, shared by the consumers that run inside the app:
+ * <ul>
+ *   <li>{@code caseplan.queue.depth} – ids waiting, ready or delayed, across classes</li>
+ *   <li>{@code caseplan.queue.oldest.age{priority}} – how long the head of each class has waited</li>
+ *   <li>{@code caseplan.queue.wait{priority}} – enqueue (or due time) to dequeue</li>
+ *   <li>{@code caseplan.queue.processing{priority}} – dequeue to complete</li>
+ *   <li>{@code caseplan.queue.dequeued{priority}} – dequeue count; its rate is the drain rate</li>
+ * </ul>
+ * The gauges read one snapshot of the provider's depth and head ages, refreshed at most every
+ * {@code caseplan.queue.metrics-ttl-ms}, so scrapes from several registries cost one round of
+ * provider calls (an SQS GetQueueAttributes, a Postgres count) per TTL rather than one per gauge.
+ * A provider that cannot tell reports NaN rather than a misleading zero. The SQS worker Lambda
+ * publishes the same data through {@code CloudWatchEmf}.
+ */
+@Component
+public class QueueMetrics {
+
+    private final Map<QueuePriority, Timer> waitTimers = new EnumMap<>(QueuePriority.class);
+    private final Map<QueuePriority, Timer> processingTimers = new EnumMap<>(QueuePriority.class);
+    private final Map<QueuePriority, Counter> dequeuedCounters = new EnumMap<>(QueuePriority.class);
+    private final QueuePort queuePort;
+    private final long snapshotTtlMs;
+
+    private volatile Snapshot snapshot;
+
+    public QueueMetrics(QueuePort queuePort, MeterRegistry meterRegistry,
+                        @Value("${caseplan.queue.metrics-ttl-ms:5000}") long snapshotTtlMs) {
+        this.queuePort = queuePort;
+        this.snapshotTtlMs = snapshotTtlMs;
+        Gauge.builder("caseplan.queue.depth", this, metrics -> known(metrics.currentSnapshot().depth()))
+                .description("Case plan ids waiting in the queue, ready or delayed")
+                .register(meterRegistry);
+        for (QueuePriority priority : QueuePriority.values()) {
+            String tag = priority.getValue();
+            TimeGauge.builder("caseplan.queue.oldest.age", this, TimeUnit.MILLISECONDS,
+                            metrics -> known(metrics.currentSnapshot().oldestAgeMillis().get(priority)))
+                    .description("Age of the oldest ready case plan id in the class")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("caseplan.queue.wait")
+                    .description("Time a case plan id spent queued before a worker popped it")
+                    .tag("priority", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            processingTimers.put(priority, Timer.builder("caseplan.queue.processing")
+                    .description("Time from dequeue to the worker finishing with the plan")
+                    .tag("priority", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            dequeuedCounters.put(priority, Counter.builder("caseplan.queue.dequeued")
+                    .description("Case plan ids taken off the queue by a worker")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Counts the dequeue and, when the entry carries its enqueue time, records the wait. */
+    public void recordDequeued(QueuePriority priority, long enqueuedAtMillis) {
+        dequeuedCounters.get(priority).increment();
+        if (enqueuedAtMillis >= 0) {
+            long waitedMs = Math.max(0L, System.currentTimeMillis() - enqueuedAtMillis);
+            waitTimers.get(priority).record(waitedMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void recordProcessed(QueuePriority priority, long startNanos) {
+        processingTimers.get(priority).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.takenAtMillis() < snapshotTtlMs) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && now - current.takenAtMillis() < snapshotTtlMs) {
+                return current;
+            }
+            Map<QueuePriority, Long> oldest = new EnumMap<>(QueuePriority.class);
+            for (QueuePriority priority : QueuePriority.values()) {
+                oldest.put(priority, queuePort.oldestAgeMillis(priority));
+            }
+            current = new Snapshot(queuePort.depth(), oldest, now);
+            snapshot = current;
+            return current;
+        }
+    }
+
+    /** An unsupported reading shows as a gap on the dashboard, not as an empty queue. */
+    private static double known(long value) {
+        return value < 0 ? Double.NaN : value;
+    }
+
+    private record Snapshot(long depth, Map<QueuePriority, Long> oldestAgeMillis, long takenAtMillis) {
+    }
+}
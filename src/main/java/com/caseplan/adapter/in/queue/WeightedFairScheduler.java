@@ -0,0 +1,54 @@
+package com.caseplan.adapter.in.queue;
+
+import com.caseplan.application.port.out.QueuePriority;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smooth weighted round-robin over priority classes (the nginx upstream algorithm).
+ * Each call returns every class, the one whose turn it is first; the consumer hands that
+ * order to the receiver, which pops from the first non-empty list. Backlogged classes
+ * therefore share dequeues in proportion to their weights, and an empty class simply
+ * yields its turn to the next one.
+ * <p>
+ * Not thread-safe; each worker thread owns its own instance.
+ */
+class WeightedFairScheduler {
+
+    private final QueuePriority[] classes = QueuePriority.values();
+    private final Map<QueuePriority, Integer> current = new EnumMap<>(QueuePriority.class);
+    private final int totalWeight;
+
+    WeightedFairScheduler() {
+        int total = 0;
+        for (QueuePriority priority : classes) {
+            current.put(priority, 0);
+            total += priority.getWeight();
+        }
+        this.totalWeight = total;
+    }
+
+    List<QueuePriority> nextOrder() {
+        QueuePriority selected = null;
+        for (QueuePriority priority : classes) {
+            int value = current.get(priority) + priority.getWeight();
+            current.put(priority, value);
+            if (selected == null || value > current.get(selected)) {
+                selected = priority;
+            }
+        }
+        current.put(selected, current.get(selected) - totalWeight);
+
+        List<QueuePriority> order = new ArrayList<>(classes.length);
+        order.add(selected);
+        for (QueuePriority priority : classes) {
+            if (priority != selected) {
+                order.add(priority);
+            }
+        }
+        return order;
+    }
+}
@@ -1,6 +1,7 @@
 package com.caseplan.adapter.in.web.controller;
 
 import com.caseplan.adapter.in.web.dto.CreateCasePlanRequest;
+import com.caseplan.adapter.out.datasource.ReadRouting;
 import com.caseplan.application.port.in.CreateCasePlanCommand;
 import com.caseplan.domain.model.CasePlan;
 import com.caseplan.adapter.in.web.response.PageResponseBuilder;
@@ -10,11 +11,14 @@ import com.caseplan.application.service.CreateCasePlanResult;
 import com.caseplan.application.service.CasePlanService;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,8 +28,18 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CasePlanController {
 
+    public static final String ESTIMATED_WAIT_HEADER = "X-Estimated-Wait-Seconds";
+    public static final String ESTIMATED_COMPLETION_HEADER = "X-Estimated-Completion-At";
+
     private final CasePlanService casePlanService;
 
+    /**
+     * How long after a write the caller's reads should stay on the primary, returned to it as
+     * {@link ReadRouting#PRIMARY_UNTIL_HEADER}; covers the replicas' usual lag.
+     */
+    @Value("${caseplan.datasource.read-your-writes-seconds:5}")
+    private long readYourWritesSeconds = 5;
+
     @GetMapping
     public Map<String, Object> listAll(
             @RequestParam(defaultValue = "1") int page,
@@ -53,13 +67,12 @@ public class CasePlanController {
 
     @GetMapping("/{id}/download")
     public ResponseEntity<byte[]> download(@PathVariable @NonNull Long id) {
-        Optional<CasePlan> optional = casePlanService.getForDownload(id);
+        Optional<String> optional = casePlanService.getForDownload(id);
         if (optional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        CasePlan casePlan = optional.get();
-        byte[] body = casePlan.getGeneratedPlan().getBytes(StandardCharsets.UTF_8);
+        byte[] body = optional.get().getBytes(StandardCharsets.UTF_8);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"caseplan-" + id + ".txt\"")
                 .contentType(MediaType.TEXT_PLAIN)
@@ -77,7 +90,9 @@ public class CasePlanController {
         body.put("id", optional.get().getId());
         body.put("status", optional.get().getStatus());
         body.put("message", "retry accepted");
-        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(ReadRouting.PRIMARY_UNTIL_HEADER, primaryUntil())
+                .body(body);
     }
 
     @PostMapping
@@ -86,12 +101,24 @@ public class CasePlanController {
         CreateCasePlanResult result = casePlanService.create(toCommand(request));
         CasePlan casePlan = result.getCasePlan();
         List<WarningException> warnings = result.getWarnings();
+        ResponseEntity.BodyBuilder created = ResponseEntity.status(HttpStatus.CREATED)
+                .header(ReadRouting.PRIMARY_UNTIL_HEADER, primaryUntil());
+        // The ETA travels in headers so the body keeps its shape for existing clients.
+        Long estimatedWait = result.getEstimatedWaitSeconds();
+        if (estimatedWait != null) {
+            created.header(ESTIMATED_WAIT_HEADER, String.valueOf(estimatedWait))
+                    .header(ESTIMATED_COMPLETION_HEADER, Instant.now().plusSeconds(estimatedWait).toString());
+        }
         if (!warnings.isEmpty()) {
             SuccessWithWarnings<CasePlan> response = new SuccessWithWarnings<>(casePlan, warnings);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response.toMap());
+            return created.body(response.toMap());
         }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(casePlan);
+        return created.body(casePlan);
+    }
+
+    private String primaryUntil() {
+        return ReadRouting.primaryUntil(System.currentTimeMillis(), Duration.ofSeconds(readYourWritesSeconds));
     }
 
     private CreateCasePlanCommand toCommand(CreateCasePlanRequest request) {
@@ -110,6 +137,7 @@ public class CasePlanController {
         command.setPriorLegalActions(request.getPriorLegalActions());
         command.setCaseDocuments(request.getCaseDocuments());
         command.setConfirm(request.getConfirm());
+        command.setPriority(request.getPriority());
         return command;
     }
 }
@@ -13,10 +13,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -44,8 +47,21 @@ public class OrdersController {
     }
 
     @GetMapping
-    public ResponseEntity<String> listOrders() {
-        APIGatewayProxyResponseEvent res = getOrdersHandler.handleRequest(new APIGatewayProxyRequestEvent(), null);
+    public ResponseEntity<String> listOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String limit,
+            @RequestHeader HttpHeaders requestHeaders) {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        event.setHeaders(requestHeaders.toSingleValueMap());
+        Map<String, String> query = new HashMap<>();
+        if (cursor != null) {
+            query.put("cursor", cursor);
+        }
+        if (limit != null) {
+            query.put("limit", limit);
+        }
+        event.setQueryStringParameters(query);
+        APIGatewayProxyResponseEvent res = getOrdersHandler.handleRequest(event, null);
         return toResponse(res);
     }
 
@@ -59,8 +75,10 @@ public class OrdersController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<String> getOrder(@PathVariable String id) {
+    public ResponseEntity<String> getOrder(@PathVariable String id, @RequestHeader HttpHeaders requestHeaders) {
         APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        // The handler reads the read-consistency headers from the event, as behind API Gateway.
+        event.setHeaders(requestHeaders.toSingleValueMap());
         event.setPathParameters(Collections.singletonMap("id", id));
         APIGatewayProxyResponseEvent res = getOrderStatusHandler.handleRequest(event, null);
         return toResponse(res);
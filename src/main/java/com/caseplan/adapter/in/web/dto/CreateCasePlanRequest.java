@@ -49,4 +49,8 @@ public class CreateCasePlanRequest {
     private String priorLegalActions;
     private String caseDocuments;
     private Boolean confirm;
+
+    // Optional scheduling class; bulk imports should send "bulk" so they cannot starve interactive orders.
+    @Pattern(regexp = "^$|(?i)^(interactive|bulk)$", message = "Priority must be interactive or bulk")
+    private String priority;
 }
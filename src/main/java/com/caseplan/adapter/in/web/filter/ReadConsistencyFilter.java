@@ -0,0 +1,40 @@
+package com.caseplan.adapter.in.web.filter;
+
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Lets the read-only work of GET requests go to a read replica, unless the request asked for
+ * primary reads through {@link ReadRouting#CONSISTENCY_HEADER} or a still-running
+ * {@link ReadRouting#PRIMARY_UNTIL_HEADER}. Other methods always use the primary.
+ */
+@Component
+public class ReadConsistencyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean replica = ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))
+                && ReadRouting.replicaAcceptable(
+                        request.getHeader(ReadRouting.CONSISTENCY_HEADER),
+                        request.getHeader(ReadRouting.PRIMARY_UNTIL_HEADER),
+                        System.currentTimeMillis());
+        if (!replica) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReadRouting.allowReplica();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+}
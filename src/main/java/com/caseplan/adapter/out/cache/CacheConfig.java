@@ -0,0 +1,32 @@
+package com.caseplan.adapter.out.cache;
+
+import com.caseplan.application.port.out.CacheInvalidationPort;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class CacheConfig {
+
+    static final String INVALIDATION_CHANNEL = "caseplan:lookup-cache:evict";
+
+    /**
+     * How node-local caches hear about evictions on other nodes: Redis pub/sub wherever Redis is
+     * the queue (so already deployed), otherwise none, and entries on other nodes expire by TTL.
+     */
+    @Bean
+    public CacheInvalidationPort cacheInvalidation(
+            @Value("${caseplan.lookup-cache.invalidation:${queue.provider:redis}}") String invalidation,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        if (!"redis".equals(invalidation == null ? "" : invalidation.trim().toLowerCase())) {
+            return new LocalCacheInvalidation();
+        }
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            throw new IllegalStateException("Redis cache invalidation selected but StringRedisTemplate is unavailable");
+        }
+        return new RedisCacheInvalidation(redisTemplate, INVALIDATION_CHANNEL);
+    }
+}
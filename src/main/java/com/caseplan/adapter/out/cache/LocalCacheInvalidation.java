@@ -0,0 +1,22 @@
+package com.caseplan.adapter.out.cache;
+
+import com.caseplan.application.port.out.CacheInvalidationPort;
+
+import java.util.function.BiConsumer;
+
+/**
+ * No broadcast: for a single node, or for deployments without Redis, where cached entries on
+ * other nodes live until they expire.
+ */
+public class LocalCacheInvalidation implements CacheInvalidationPort {
+
+    @Override
+    public void publish(String cache, String key) {
+        // nothing to tell; the publishing node evicts its own entry
+    }
+
+    @Override
+    public void subscribe(BiConsumer<String, String> handler) {
+        // no other node publishes
+    }
+}
@@ -0,0 +1,79 @@
+package com.caseplan.adapter.out.cache;
+
+import com.caseplan.application.port.out.CacheInvalidationPort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link CacheInvalidationPort} over one Redis pub/sub channel; a message is
+ * {@code <cache>|<key>}. Pub/sub keeps nothing for a node that is not subscribed at that moment,
+ * which is why the caches behind this expire their entries anyway.
+ */
+public class RedisCacheInvalidation implements CacheInvalidationPort, Closeable {
+
+    static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    /** Created with the first subscription; guarded by {@code this}. */
+    private RedisMessageListenerContainer container;
+
+    public RedisCacheInvalidation(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    /** Never fails the caller, whose write has already committed: a lost eviction waits for the TTL. */
+    @Override
+    public void publish(String cache, String key) {
+        try {
+            redisTemplate.convertAndSend(channel, cache + SEPARATOR + key);
+        } catch (RuntimeException ignored) {
+            // Redis unreachable; other nodes keep the entry until it expires
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(BiConsumer<String, String> handler) {
+        if (container == null) {
+            container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+            container.afterPropertiesSet();
+            container.start();
+        }
+        try {
+            container.addMessageListener(
+                    (message, pattern) -> dispatch(new String(message.getBody(), StandardCharsets.UTF_8), handler),
+                    new ChannelTopic(channel));
+        } catch (RuntimeException ignored) {
+            // Redis unreachable: the container keeps retrying the subscription in the background
+            // and the node starts anyway; evictions sent meanwhile are lost and wait for the TTL.
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (container != null) {
+            container.stop();
+            try {
+                container.destroy();
+            } catch (Exception ignored) {
+                // shutting down anyway
+            }
+            container = null;
+        }
+    }
+
+    /** Malformed messages are ignored. */
+    static void dispatch(String body, BiConsumer<String, String> handler) {
+        int separator = body.indexOf(SEPARATOR);
+        if (separator > 0) {
+            handler.accept(body.substring(0, separator), body.substring(separator + 1));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.caseplan.adapter.out.datasource;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread choice between the primary and the read replicas.
+ * <p>
+ * Read-only transactions go to a replica only on a thread that an inbound adapter marked as
+ * {@link #allowReplica() replica-tolerant}: the polling endpoints, for a request that did not ask
+ * for primary reads. Everything else (writes, workers, jobs, and any read that has to see its own
+ * writes) stays on the primary, so routing is opt-in and a caller that never heard of replicas
+ * keeps its read-your-writes guarantee.
+ * <p>
+ * A client opts out per request with {@link #CONSISTENCY_HEADER}{@code : primary}, or by echoing
+ * the {@link #PRIMARY_UNTIL_HEADER} that a write returned, which keeps its reads on the primary
+ * until the replicas have caught up with that write.
+ */
+public final class ReadRouting {
+
+    /** {@code primary} pins the request's reads to the primary; {@code replica} (the default) allows replicas. */
+    public static final String CONSISTENCY_HEADER = "X-Read-Consistency";
+    /** Epoch millis before which the client's reads stay on the primary; returned by writes. */
+    public static final String PRIMARY_UNTIL_HEADER = "X-Read-Primary-Until";
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(REPLICA_ALLOWED.get());
+    }
+
+    /** Marks the current thread's reads as replica-tolerant until {@link #clear()}. */
+    public static void allowReplica() {
+        REPLICA_ALLOWED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        REPLICA_ALLOWED.remove();
+    }
+
+    /** Runs a read with replicas allowed, restoring the previous setting afterwards. */
+    public static <T> T onReplica(Supplier<T> read) {
+        return with(Boolean.TRUE, read);
+    }
+
+    /** Runs a read on the primary, restoring the previous setting afterwards. */
+    public static <T> T onPrimary(Supplier<T> read) {
+        return with(null, read);
+    }
+
+    /**
+     * A lookup that found nothing on a replica may only be lagging behind a write that just
+     * committed (typically a poll right after create): asks the primary once more. Does nothing
+     * when the lookup already ran on the primary.
+     */
+    public static <T> Optional<T> orOnPrimary(Optional<T> found, Supplier<Optional<T>> read) {
+        if (found.isPresent() || !isReplicaAllowed()) {
+            return found;
+        }
+        return onPrimary(read);
+    }
+
+    /**
+     * Whether a request may read from a replica, given its {@link #CONSISTENCY_HEADER} and
+     * {@link #PRIMARY_UNTIL_HEADER} values (either may be null). Unparseable values are ignored.
+     */
+    public static boolean replicaAcceptable(String consistency, String primaryUntil, long nowMillis) {
+        if (consistency != null && "primary".equalsIgnoreCase(consistency.trim())) {
+            return false;
+        }
+        if (primaryUntil != null) {
+            try {
+                return Long.parseLong(primaryUntil.trim()) <= nowMillis;
+            } catch (NumberFormatException ignored) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /** {@link #PRIMARY_UNTIL_HEADER} value for a write that committed at {@code nowMillis}. */
+    public static String primaryUntil(long nowMillis, Duration window) {
+        return String.valueOf(nowMillis + window.toMillis());
+    }
+
+    private static <T> T with(Boolean allowed, Supplier<T> read) {
+        Boolean previous = REPLICA_ALLOWED.get();
+        set(allowed);
+        try {
+            return read.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    private static void set(Boolean allowed) {
+        if (allowed == null) {
+            REPLICA_ALLOWED.remove();
+        } else {
+            REPLICA_ALLOWED.set(allowed);
+        }
+    }
+}
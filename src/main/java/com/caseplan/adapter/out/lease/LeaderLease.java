@@ -0,0 +1,28 @@
+package com.caseplan.adapter.out.lease;
+
+/**
+ * Cluster-wide leadership for maintenance jobs, as an expiring lease with a fencing token.
+ * <p>
+ * Each acquisition gets a token greater than every earlier one. A leader passes its token back on
+ * every {@link #renew}, and a renew fails once the lease has moved on. Jobs renew between batches,
+ * so a paused or partitioned ex-leader stops at its next batch instead of running in parallel with
+ * the new one.
+ */
+public interface LeaderLease {
+
+    /** Token meaning "not the leader". */
+    long NOT_LEADER = -1L;
+
+    /**
+     * Takes the lease if it is free, or extends it if this node already holds it.
+     *
+     * @return this node's fencing token while it leads, {@link #NOT_LEADER} otherwise
+     */
+    long acquireOrRenew();
+
+    /** Extends the lease only if {@code token} is still the current one; false means leadership is lost. */
+    boolean renew(long token);
+
+    /** Gives the lease up early, so another node can take over without waiting for it to expire. */
+    void release(long token);
+}
@@ -0,0 +1,25 @@
+package com.caseplan.adapter.out.lease;
+
+/**
+ * Single-node lease for providers with no shared store (the in-memory queue): this node always
+ * leads, under one fixed token.
+ */
+public class LocalLeaderLease implements LeaderLease {
+
+    private static final long TOKEN = 1L;
+
+    @Override
+    public long acquireOrRenew() {
+        return TOKEN;
+    }
+
+    @Override
+    public boolean renew(long token) {
+        return token == TOKEN;
+    }
+
+    @Override
+    public void release(long token) {
+        // nothing to hand over
+    }
+}
@@ -0,0 +1,28 @@
+package com.caseplan.adapter.out.lease;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/** Single-node membership for providers with no shared store: this node owns every partition. */
+public class LocalPartitionMembership implements PartitionMembership {
+
+    private final Set<Integer> all;
+
+    public LocalPartitionMembership(int partitions) {
+        Set<Integer> owned = new TreeSet<>();
+        for (int p = 0; p < Math.max(1, partitions); p++) {
+            owned.add(p);
+        }
+        this.all = owned;
+    }
+
+    @Override
+    public Set<Integer> heartbeat() {
+        return all;
+    }
+
+    @Override
+    public void leave() {
+        // nobody to hand over to
+    }
+}
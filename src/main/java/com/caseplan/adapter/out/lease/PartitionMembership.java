@@ -0,0 +1,25 @@
+package com.caseplan.adapter.out.lease;
+
+import java.util.Set;
+
+/**
+ * Which queue partitions this node consumes. Nodes announce themselves with a heartbeat; every
+ * node derives the same partition-to-node assignment from the live membership, so partitions move
+ * on join and leave without any node coordinating the move.
+ * <p>
+ * Ownership is advisory: while views converge a partition can briefly have two consumers or
+ * none. Popping is atomic and each generation runs under its row lease, so an overlap costs
+ * nothing and a gap only delays that partition until the next heartbeat.
+ */
+public interface PartitionMembership {
+
+    /**
+     * Registers or refreshes this node and drops members whose heartbeat lapsed.
+     *
+     * @return the partitions this node owns under the membership it just saw
+     */
+    Set<Integer> heartbeat();
+
+    /** Leaves at once, so the remaining nodes take over this node's partitions on their next heartbeat. */
+    void leave();
+}
@@ -0,0 +1,98 @@
+package com.caseplan.adapter.out.lease;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * {@link LeaderLease} on one Redis key holding {@code <owner>|<token>} with a PX expiry. Tokens
+ * come from INCR on a separate counter key, so they keep increasing even after the lease key
+ * expires. Every operation is a Lua script, so checking the owner and acting on the key happen
+ * atomically.
+ * <p>
+ * A leader that dies stops renewing, and another node takes over once the TTL runs out. A leader
+ * that shuts down cleanly releases the lease, so the next acquire attempt on another node wins at once.
+ */
+public class RedisLeaderLease implements LeaderLease {
+
+    static final String FENCE_SUFFIX = ":fence";
+
+    /** KEYS: lease, fence counter. ARGV: owner, ttl millis. Returns the held or new token, or -1. */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1])\n"
+                    + "if current then\n"
+                    + "  local sep = string.find(current, '|', 1, true)\n"
+                    + "  if sep and string.sub(current, 1, sep - 1) == ARGV[1] then\n"
+                    + "    redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+                    + "    return tonumber(string.sub(current, sep + 1))\n"
+                    + "  end\n"
+                    + "  return -1\n"
+                    + "end\n"
+                    + "local token = redis.call('INCR', KEYS[2])\n"
+                    + "redis.call('SET', KEYS[1], ARGV[1] .. '|' .. token, 'PX', ARGV[2])\n"
+                    + "return token",
+            Long.class);
+
+    /** KEYS: lease. ARGV: owner|token, ttl millis. */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "  return redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+                    + "end\n"
+                    + "return 0",
+            Long.class);
+
+    /** KEYS: lease. ARGV: owner|token. */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "  return redis.call('DEL', KEYS[1])\n"
+                    + "end\n"
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+    private final String ttlMillis;
+    /** Random per process, so a restarted node never mistakes its predecessor's lease for its own. */
+    private final String owner = UUID.randomUUID().toString();
+
+    public RedisLeaderLease(StringRedisTemplate redisTemplate, String key, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.key = key;
+        this.ttlMillis = String.valueOf(ttl.toMillis());
+    }
+
+    @Override
+    public long acquireOrRenew() {
+        Long token = redisTemplate.execute(ACQUIRE_SCRIPT, Arrays.asList(key, key + FENCE_SUFFIX), owner, ttlMillis);
+        return token == null || token <= 0 ? NOT_LEADER : token;
+    }
+
+    @Override
+    public boolean renew(long token) {
+        if (token <= 0) {
+            return false;
+        }
+        Long renewed = redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key), value(token), ttlMillis);
+        return renewed != null && renewed == 1L;
+    }
+
+    @Override
+    public void release(long token) {
+        if (token > 0) {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key), value(token));
+        }
+    }
+
+    String owner() {
+        return owner;
+    }
+
+    private String value(long token) {
+        return owner + "|" + token;
+    }
+}
@@ -0,0 +1,85 @@
+package com.caseplan.adapter.out.lease;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * {@link PartitionMembership} on one Redis ZSET of node ids scored by heartbeat expiry. A heartbeat
+ * is one script: drop lapsed members, refresh this one, read the rest. The live ids are sorted by
+ * name, and partition {@code p} belongs to the node at index {@code p % nodes}, so nodes that see
+ * the same membership agree on the split and every node gets an even share. A join or leave can
+ * shift most partitions; that only costs a few seconds of overlap, since nothing is pinned to a node.
+ */
+public class RedisPartitionMembership implements PartitionMembership {
+
+    /** KEYS: members zset. ARGV: node id, now millis, expiry millis, key ttl millis. Returns live ids. */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> HEARTBEAT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[2])\n"
+                    + "redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1])\n"
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[4])\n"
+                    + "return redis.call('ZRANGE', KEYS[1], 0, -1)",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+    private final int partitions;
+    private final long ttlMillis;
+    /** Random per process, so a restarted node joins as a new member instead of inheriting a slot mid-drain. */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RedisPartitionMembership(StringRedisTemplate redisTemplate, String key, int partitions, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.key = key;
+        this.partitions = Math.max(1, partitions);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    @Override
+    public Set<Integer> heartbeat() {
+        long now = System.currentTimeMillis();
+        @SuppressWarnings("unchecked")
+        List<Object> live = redisTemplate.execute(HEARTBEAT_SCRIPT, Collections.singletonList(key),
+                nodeId, String.valueOf(now), String.valueOf(now + ttlMillis), String.valueOf(ttlMillis * 2));
+        List<String> members = new ArrayList<>();
+        if (live != null) {
+            for (Object member : live) {
+                members.add(String.valueOf(member));
+            }
+        }
+        if (!members.contains(nodeId)) {
+            members.add(nodeId);
+        }
+        return assign(members, nodeId, partitions);
+    }
+
+    @Override
+    public void leave() {
+        redisTemplate.opsForZSet().remove(key, nodeId);
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    /** Round-robin over the members in name order; a node beyond the partition count owns nothing. */
+    static Set<Integer> assign(List<String> members, String nodeId, int partitions) {
+        List<String> sorted = new ArrayList<>(members);
+        Collections.sort(sorted);
+        int index = sorted.indexOf(nodeId);
+        Set<Integer> owned = new TreeSet<>();
+        for (int p = index; p >= 0 && p < partitions; p += sorted.size()) {
+            owned.add(p);
+        }
+        return owned;
+    }
+}
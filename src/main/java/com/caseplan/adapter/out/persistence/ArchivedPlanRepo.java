@@ -0,0 +1,110 @@
+package com.caseplan.adapter.out.persistence;
+
+import com.caseplan.domain.model.Attorney;
+import com.caseplan.domain.model.CaseInfo;
+import com.caseplan.domain.model.CasePlan;
+import com.caseplan.domain.model.Client;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * The slow path for plans past the retention window, which {@code PlanPartitionService} moved to
+ * {@code dev_caseplans_archive}. Only asked after the live tables came up empty, so it costs
+ * nothing on the hot path; the archive is looked up by id in every archived month.
+ * <p>
+ * The plan's case is archived a month or so after the plan, so it is looked up in both the live
+ * and the archived cases. The rows map to detached entities that callers only read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ArchivedPlanRepo {
+
+    private static final String FIND_WITH_CASE_INFO_SQL =
+            "SELECT cp.id, cp.status, cp.priority, cp.generated_plan, cp.content_version, cp.error_message, "
+                    + "cp.attempt_count, cp.created_at, cp.updated_at, "
+                    + "ci.id AS ci_id, ci.case_number, ci.service_number, ci.primary_cause_of_action, "
+                    + "ci.opposing_party, ci.legal_remedy_sought, ci.additional_causes, ci.prior_legal_actions, "
+                    + "ci.case_documents, ci.referring_source, ci.created_at AS ci_created_at, "
+                    + "c.id AS c_id, c.first_name, c.last_name, c.full_name_normalized, c.id_number, "
+                    + "c.created_at AS c_created_at, "
+                    + "a.id AS a_id, a.name, a.bar_number, a.created_at AS a_created_at "
+                    + "FROM dev_caseplans_archive cp "
+                    + "LEFT JOIN LATERAL ("
+                    + "SELECT * FROM dev_case_infos WHERE id = cp.case_info_id "
+                    + "UNION ALL SELECT * FROM dev_case_infos_archive WHERE id = cp.case_info_id "
+                    + "LIMIT 1) ci ON true "
+                    + "LEFT JOIN dev_clients c ON c.id = ci.client_id "
+                    + "LEFT JOIN dev_attorneys a ON a.id = ci.attorney_id "
+                    + "WHERE cp.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** The archived plan with its case, client and attorney, or empty when no archived plan has this id. */
+    @Transactional(readOnly = true)
+    public Optional<CasePlan> findWithCaseInfoById(long id) {
+        return jdbcTemplate.query(FIND_WITH_CASE_INFO_SQL, (rs, rowNum) -> casePlan(rs), id).stream().findFirst();
+    }
+
+    private static CasePlan casePlan(ResultSet rs) throws SQLException {
+        CasePlan casePlan = new CasePlan();
+        casePlan.setId(rs.getLong("id"));
+        casePlan.setStatus(rs.getString("status"));
+        casePlan.setPriority(rs.getString("priority"));
+        casePlan.setLegacyGeneratedPlan(rs.getString("generated_plan"));
+        casePlan.setContentVersion(rs.getObject("content_version", Integer.class));
+        casePlan.setErrorMessage(rs.getString("error_message"));
+        casePlan.setAttemptCount(rs.getObject("attempt_count", Integer.class));
+        casePlan.setCreatedAt(instant(rs.getTimestamp("created_at")));
+        casePlan.setUpdatedAt(instant(rs.getTimestamp("updated_at")));
+        if (rs.getObject("ci_id") != null) {
+            casePlan.setCaseInfo(caseInfo(rs));
+        }
+        return casePlan;
+    }
+
+    private static CaseInfo caseInfo(ResultSet rs) throws SQLException {
+        CaseInfo caseInfo = new CaseInfo();
+        caseInfo.setId(rs.getLong("ci_id"));
+        caseInfo.setCaseNumber(rs.getString("case_number"));
+        caseInfo.setServiceNumber(rs.getString("service_number"));
+        caseInfo.setPrimaryCauseOfAction(rs.getString("primary_cause_of_action"));
+        caseInfo.setOpposingParty(rs.getString("opposing_party"));
+        caseInfo.setRemedySought(rs.getString("legal_remedy_sought"));
+        caseInfo.setAdditionalCauses(rs.getString("additional_causes"));
+        caseInfo.setPriorLegalActions(rs.getString("prior_legal_actions"));
+        caseInfo.setCaseDocuments(rs.getString("case_documents"));
+        caseInfo.setReferringSource(rs.getString("referring_source"));
+        caseInfo.setCreatedAt(instant(rs.getTimestamp("ci_created_at")));
+        if (rs.getObject("c_id") != null) {
+            Client client = new Client();
+            client.setId(rs.getLong("c_id"));
+            client.setFirstName(rs.getString("first_name"));
+            client.setLastName(rs.getString("last_name"));
+            client.setFullNameNormalized(rs.getString("full_name_normalized"));
+            client.setIdNumber(rs.getString("id_number"));
+            client.setCreatedAt(instant(rs.getTimestamp("c_created_at")));
+            caseInfo.setClient(client);
+        }
+        if (rs.getObject("a_id") != null) {
+            Attorney attorney = new Attorney();
+            attorney.setId(rs.getLong("a_id"));
+            attorney.setName(rs.getString("name"));
+            attorney.setBarNumber(rs.getString("bar_number"));
+            attorney.setCreatedAt(instant(rs.getTimestamp("a_created_at")));
+            caseInfo.setAttorney(attorney);
+        }
+        return caseInfo;
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
@@ -2,6 +2,8 @@ package com.caseplan.adapter.out.persistence;
 
 import com.caseplan.domain.model.CaseInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
@@ -9,6 +11,19 @@ import java.util.Optional;
 
 public interface CaseInfoRepo extends JpaRepository<CaseInfo, Long> {
     Optional<CaseInfo> findTopByServiceNumberStartingWithOrderByServiceNumberDesc(String prefix);
-    List<CaseInfo> findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-            Long clientId, String primaryCauseOfAction, String opposingParty, Instant start, Instant end);
+
+    /**
+     * The client's cases for the same cause and opposing party created before {@code end}, newest
+     * first; create tells a same-day duplicate from an older similar case in memory. Compares the
+     * client_id column itself: the derived query joined dev_clients, which made Hibernate flush a
+     * new client (and everything else pending) before this check on create.
+     */
+    @Query("SELECT c FROM CaseInfo c WHERE c.client.id = :clientId"
+            + " AND c.primaryCauseOfAction = :primaryCauseOfAction AND c.opposingParty = :opposingParty"
+            + " AND c.createdAt < :end ORDER BY c.createdAt DESC")
+    List<CaseInfo> findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+            @Param("clientId") Long clientId,
+            @Param("primaryCauseOfAction") String primaryCauseOfAction,
+            @Param("opposingParty") String opposingParty,
+            @Param("end") Instant end);
 }
@@ -0,0 +1,18 @@
+package com.caseplan.adapter.out.persistence;
+
+import com.caseplan.domain.model.CasePlanContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface CasePlanContentRepo extends JpaRepository<CasePlanContent, Long> {
+    /** Read-only so a status poll or download can be served by a read replica. */
+    @Transactional(readOnly = true)
+    Optional<CasePlanContent> findByPlanIdAndVersion(Long planId, Integer version);
+
+    @Query("SELECT COALESCE(MAX(c.version), 0) + 1 FROM CasePlanContent c WHERE c.planId = :planId")
+    int nextVersion(@Param("planId") Long planId);
+}
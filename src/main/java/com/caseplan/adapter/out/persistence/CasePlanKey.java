@@ -0,0 +1,12 @@
+package com.caseplan.adapter.out.persistence;
+
+import java.time.Instant;
+
+/**
+ * Id-only projection used by maintenance scans; never touches the plan content or its associations.
+ */
+public interface CasePlanKey {
+    Long getId();
+    Instant getUpdatedAt();
+    String getPriority();
+}
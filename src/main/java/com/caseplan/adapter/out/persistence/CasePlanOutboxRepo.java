@@ -0,0 +1,19 @@
+package com.caseplan.adapter.out.persistence;
+
+import com.caseplan.domain.model.CasePlanOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CasePlanOutboxRepo extends JpaRepository<CasePlanOutbox, Long> {
+
+    /**
+     * Oldest outbox rows, row-locked until the caller's transaction ends. SKIP LOCKED lets several
+     * relays run side by side: each claims a disjoint batch instead of queueing behind the others.
+     */
+    @Query(value = "SELECT * FROM dev_caseplan_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<CasePlanOutbox> lockBatch(@Param("limit") int limit);
+}
@@ -3,33 +3,232 @@ package com.caseplan.adapter.out.persistence;
 import com.caseplan.domain.model.CasePlan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface CasePlanRepo extends JpaRepository<CasePlan, Long> {
+    @EntityGraph(CasePlan.GRAPH_WITH_CASE)
     List<CasePlan> findAllByOrderByCreatedAtDesc();
+
+    /**
+     * Detail and generation: the plan with everything the response or the prompt reads, in one
+     * select. Read-only so the detail endpoint can be served by a read replica.
+     */
+    @EntityGraph(CasePlan.GRAPH_WITH_CASE)
+    @Transactional(readOnly = true)
+    Optional<CasePlan> findWithCaseInfoById(Long id);
+
     List<CasePlan> findByStatus(String status);
-    List<CasePlan> findByStatusAndUpdatedAtBefore(String status, Instant before);
+    long countByStatusInAndUpdatedAtAfter(List<String> statuses, Instant after);
 
-    @Query("SELECT cp FROM CasePlan cp " +
+    /**
+     * Keyset page over (updatedAt, id) for plans in the given status last touched before the cutoff.
+     * Served by the (status, updated_at) index; pass the last key of the previous page to continue.
+     */
+    @Query("SELECT cp.id AS id, cp.updatedAt AS updatedAt, cp.priority AS priority FROM CasePlan cp " +
+            "WHERE cp.status = :status " +
+            "AND cp.updatedAt < :before " +
+            "AND (cp.updatedAt > :afterUpdatedAt OR (cp.updatedAt = :afterUpdatedAt AND cp.id > :afterId)) " +
+            "ORDER BY cp.updatedAt, cp.id")
+    List<CasePlanKey> findKeysByStatusUpdatedBefore(
+            @Param("status") String status,
+            @Param("before") Instant before,
+            @Param("afterUpdatedAt") Instant afterUpdatedAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    /**
+     * Takes the generation lease: a pending plan, or a processing plan whose lease has lapsed or
+     * was never taken by a worker (a postgres claim hands the row over without an owner).
+     *
+     * @return 1 when this caller now holds the lease, 0 when another worker does or the plan is done
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CasePlan cp SET cp.status = 'processing', cp.leaseOwner = :owner, " +
+            "cp.leaseExpiresAt = :expiresAt, cp.updatedAt = :now, cp.version = cp.version + 1 " +
+            "WHERE cp.id = :id " +
+            "AND (cp.status = 'pending' OR (cp.status = 'processing' " +
+            "AND (cp.leaseOwner IS NULL OR cp.leaseExpiresAt < :now)))")
+    int claimLease(
+            @Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("expiresAt") Instant expiresAt,
+            @Param("now") Instant now
+    );
+
+    /** Heartbeat. Returns 0 once the lease was reclaimed, i.e. the caller's result will be discarded. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CasePlan cp SET cp.leaseExpiresAt = :expiresAt " +
+            "WHERE cp.id = :id AND cp.leaseOwner = :owner AND cp.status = 'processing'")
+    int renewLease(
+            @Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("expiresAt") Instant expiresAt
+    );
+
+    /**
+     * Completes the plan with the given content version only if the caller still holds the lease.
+     * Also drops any pre-split inline content, which the new version supersedes.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CasePlan cp SET cp.status = 'completed', cp.contentVersion = :contentVersion, " +
+            "cp.legacyGeneratedPlan = NULL, " +
+            "cp.errorMessage = NULL, cp.attemptCount = :attemptCount, " +
+            "cp.leaseOwner = NULL, cp.leaseExpiresAt = NULL, cp.updatedAt = :now, cp.version = cp.version + 1 " +
+            "WHERE cp.id = :id AND cp.leaseOwner = :owner AND cp.status = 'processing'")
+    int completeUnderLease(
+            @Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("contentVersion") Integer contentVersion,
+            @Param("attemptCount") Integer attemptCount,
+            @Param("now") Instant now
+    );
+
+    /** Ends a failed attempt ({@code pending} for a retry, {@code failed} when exhausted) under the lease. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CasePlan cp SET cp.status = :status, cp.errorMessage = :errorMessage, " +
+            "cp.attemptCount = :attemptCount, " +
+            "cp.leaseOwner = NULL, cp.leaseExpiresAt = NULL, cp.updatedAt = :now, cp.version = cp.version + 1 " +
+            "WHERE cp.id = :id AND cp.leaseOwner = :owner AND cp.status = 'processing'")
+    int releaseUnderLease(
+            @Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("status") String status,
+            @Param("errorMessage") String errorMessage,
+            @Param("attemptCount") Integer attemptCount,
+            @Param("now") Instant now
+    );
+
+    /**
+     * Processing plans whose worker stopped heartbeating. Rows without a lease (claimed before
+     * leases existed) fall back to the old updated-at window. Served by the (status, lease_expires_at) index.
+     */
+    @Query("SELECT cp.id AS id, cp.updatedAt AS updatedAt, cp.priority AS priority FROM CasePlan cp " +
+            "WHERE cp.status = 'processing' " +
+            "AND (cp.leaseExpiresAt < :now OR (cp.leaseExpiresAt IS NULL AND cp.updatedAt < :legacyCutoff)) " +
+            "ORDER BY cp.id")
+    List<CasePlanKey> findKeysWithExpiredLease(
+            @Param("now") Instant now,
+            @Param("legacyCutoff") Instant legacyCutoff,
+            Pageable pageable
+    );
+
+    /**
+     * Puts one expired plan back to pending. Re-checks the expiry in the same statement, so a
+     * worker that renewed after the scan keeps its plan and nobody generates it twice.
+     *
+     * @return 1 when reclaimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CasePlan cp SET cp.status = 'pending', cp.leaseOwner = NULL, cp.leaseExpiresAt = NULL, " +
+            "cp.updatedAt = :now, cp.version = cp.version + 1 " +
+            "WHERE cp.id = :id AND cp.status = 'processing' " +
+            "AND (cp.leaseExpiresAt < :now OR (cp.leaseExpiresAt IS NULL AND cp.updatedAt < :legacyCutoff))")
+    int reclaimExpiredLease(
+            @Param("id") Long id,
+            @Param("now") Instant now,
+            @Param("legacyCutoff") Instant legacyCutoff
+    );
+
+    /**
+     * Moves a plan from one status to another outside a generation lease, dropping any lease, in a
+     * single statement. Whoever moves the plan first wins; a caller that finds it no longer in
+     * {@code from} (another node got there first) changes nothing.
+     *
+     * @return 1 when this caller made the transition, 0 when the plan was not in {@code from}
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CasePlan cp SET cp.status = :to, cp.leaseOwner = NULL, cp.leaseExpiresAt = NULL, " +
+            "cp.updatedAt = :now, cp.version = cp.version + 1 " +
+            "WHERE cp.id = :id AND cp.status = :from")
+    int transition(
+            @Param("id") Long id,
+            @Param("from") String from,
+            @Param("to") String to,
+            @Param("now") Instant now
+    );
+
+    /**
+     * Manual retry: a failed plan back to pending with its attempts, error and content reference
+     * cleared. Of two concurrent retries only one matches.
+     *
+     * @return 1 when this caller reset the plan, 0 when it was not (or no longer) failed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CasePlan cp SET cp.status = 'pending', cp.errorMessage = NULL, cp.contentVersion = NULL, " +
+            "cp.legacyGeneratedPlan = NULL, cp.attemptCount = 0, " +
+            "cp.updatedAt = :now, cp.version = cp.version + 1 " +
+            "WHERE cp.id = :id AND cp.status = 'failed'")
+    int resetFailedForRetry(
+            @Param("id") Long id,
+            @Param("now") Instant now
+    );
+
+    String ORDER_SUMMARY_SELECT = "SELECT cp.id AS id, cp.status AS status, cp.createdAt AS createdAt, " +
+            "ci.id AS caseInfoId, ci.serviceNumber AS serviceNumber, ci.caseNumber AS docketNumber, " +
+            "ci.primaryCauseOfAction AS primaryCauseOfAction, ci.remedySought AS remedySought, " +
+            "c.firstName AS clientFirstName, c.lastName AS clientLastName, " +
+            "a.name AS attorneyName, a.barNumber AS attorneyBarNumber " +
+            "FROM CasePlan cp " +
+            "LEFT JOIN cp.caseInfo ci " +
+            "LEFT JOIN ci.client c " +
+            "LEFT JOIN ci.attorney a ";
+
+    /** Newest orders first; served by the (created_at, id) index. */
+    @Query(ORDER_SUMMARY_SELECT + "ORDER BY cp.createdAt DESC, cp.id DESC")
+    List<OrderSummary> findOrderSummaries(Pageable pageable);
+
+    /** Keyset continuation: the orders strictly older than the last one of the previous page. */
+    @Query(ORDER_SUMMARY_SELECT +
+            "WHERE cp.createdAt < :beforeCreatedAt OR (cp.createdAt = :beforeCreatedAt AND cp.id < :beforeId) " +
+            "ORDER BY cp.createdAt DESC, cp.id DESC")
+    List<OrderSummary> findOrderSummariesBefore(
+            @Param("beforeCreatedAt") Instant beforeCreatedAt,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
+
+    /**
+     * Plan list with optional filters. {@code patientName} must already be in
+     * {@link com.caseplan.domain.model.Client#normalizeName normalized} form; it is matched as a
+     * substring of the client's normalized full name, served by the trigram index on PostgreSQL.
+     * The count reaches the cases only for a name filter: PostgreSQL cannot drop an unused join to
+     * the partitioned case table, whose ids are unique only together with their month.
+     */
+    @EntityGraph(CasePlan.GRAPH_WITH_CASE)
+    @Query(value = "SELECT cp FROM CasePlan cp " +
             "LEFT JOIN cp.caseInfo ci " +
             "LEFT JOIN ci.client c " +
             "WHERE (:status IS NULL OR cp.status = :status) " +
-            "AND (:patientName IS NULL OR " +
-            "LOWER(COALESCE(c.firstName, '')) LIKE LOWER(CONCAT('%', :patientName, '%')) OR " +
-            "LOWER(COALESCE(c.lastName, '')) LIKE LOWER(CONCAT('%', :patientName, '%')) OR " +
-            "LOWER(CONCAT(COALESCE(c.firstName, ''), ' ', COALESCE(c.lastName, ''))) LIKE LOWER(CONCAT('%', :patientName, '%'))) " +
-            "ORDER BY cp.createdAt DESC")
+            "AND (:patientName IS NULL OR c.fullNameNormalized LIKE CONCAT('%', :patientName, '%')) " +
+            "ORDER BY cp.createdAt DESC",
+            countQuery = "SELECT COUNT(cp) FROM CasePlan cp " +
+                    "WHERE (:status IS NULL OR cp.status = :status) " +
+                    "AND (:patientName IS NULL OR EXISTS (SELECT ci.id FROM CaseInfo ci JOIN ci.client c " +
+                    "WHERE ci = cp.caseInfo AND c.fullNameNormalized LIKE CONCAT('%', :patientName, '%')))")
     Page<CasePlan> search(
             @Param("status") String status,
             @Param("patientName") String patientName,
             Pageable pageable
     );
 
+    @EntityGraph(CasePlan.GRAPH_WITH_CASE)
     @Query("SELECT cp FROM CasePlan cp " +
             "LEFT JOIN cp.caseInfo ci " +
             "WHERE ci.client.id = :clientId " +
@@ -0,0 +1,44 @@
+package com.caseplan.adapter.out.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backfill of {@code dev_clients.full_name_normalized}, the column client name search matches
+ * against (its trigram index is created by migration V3).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClientNameIndexRepo {
+
+    private static final String FIND_UNNORMALIZED_SQL =
+            "SELECT id, first_name, last_name FROM dev_clients "
+                    + "WHERE id > ? AND full_name_normalized IS NULL ORDER BY id LIMIT ?";
+    private static final String SET_NORMALIZED_SQL =
+            "UPDATE dev_clients SET full_name_normalized = ? WHERE id = ? AND full_name_normalized IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** A client row written before the normalized column existed. */
+    public record UnnormalizedClient(long id, String firstName, String lastName) {
+    }
+
+    public List<UnnormalizedClient> findUnnormalized(long afterId, int limit) {
+        return jdbcTemplate.query(FIND_UNNORMALIZED_SQL, (rs, rowNum) ->
+                new UnnormalizedClient(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name")),
+                afterId, limit);
+    }
+
+    /** One JDBC batch; the guard leaves rows an entity write normalized meanwhile untouched. */
+    public void setNormalized(List<Long> ids, List<String> names) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            args.add(new Object[]{names.get(i), ids.get(i)});
+        }
+        jdbcTemplate.batchUpdate(SET_NORMALIZED_SQL, args);
+    }
+}
@@ -0,0 +1,61 @@
+package com.caseplan.adapter.out.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Set-based access to plans whose text still sits in the pre-split {@code generated_plan} column.
+ * Both statements must run in the caller's transaction: the row locks taken by {@link #lockLegacy}
+ * keep two backfills, and a worker completing or retrying the same plan, off each other's rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LegacyContentBackfillRepo {
+
+    private static final String LOCK_LEGACY_SQL =
+            "SELECT id, generated_plan FROM dev_caseplans "
+                    + "WHERE id > ? AND generated_plan IS NOT NULL AND content_version IS NULL "
+                    + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    /**
+     * One statement for the whole batch: each text becomes its plan's next content version, and
+     * the plan points at it with the column cleared. The version bump fails a stale entity save
+     * that would otherwise write the text back.
+     */
+    private static final String MOVE_SQL =
+            "WITH moved AS ("
+                    + "INSERT INTO dev_caseplan_contents (plan_id, version, content, created_at) "
+                    + "SELECT v.plan_id, COALESCE((SELECT MAX(c.version) FROM dev_caseplan_contents c "
+                    + "WHERE c.plan_id = v.plan_id), 0) + 1, v.content, ? "
+                    + "FROM unnest(?::bigint[], ?::bytea[]) AS v(plan_id, content) "
+                    + "RETURNING plan_id, version) "
+                    + "UPDATE dev_caseplans p SET content_version = m.version, generated_plan = NULL, "
+                    + "version = p.version + 1 "
+                    + "FROM moved m WHERE p.id = m.plan_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** A plan still carrying its text inline. */
+    public record LegacyContent(long id, String content) {
+    }
+
+    /** Locks the next {@code limit} plans with inline text after {@code afterId}, skipping rows locked elsewhere. */
+    public List<LegacyContent> lockLegacy(long afterId, int limit) {
+        return jdbcTemplate.query(LOCK_LEGACY_SQL,
+                (rs, rowNum) -> new LegacyContent(rs.getLong("id"), rs.getString("generated_plan")),
+                afterId, limit);
+    }
+
+    /**
+     * @param contents the plans' texts, already compressed as {@code dev_caseplan_contents} stores them
+     * @return plans moved
+     */
+    public int moveToContents(List<Long> planIds, List<byte[]> contents, Instant now) {
+        return jdbcTemplate.update(MOVE_SQL, Timestamp.from(now),
+                planIds.toArray(new Long[0]), contents.toArray(new byte[0][]));
+    }
+}
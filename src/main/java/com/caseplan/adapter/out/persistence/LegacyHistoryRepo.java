@@ -0,0 +1,59 @@
+package com.caseplan.adapter.out.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Set-based moves of history rows out of the {@code _legacy} partitions that V8 attached, into the
+ * {@code _archive} tables. Lock and move must run in the caller's transaction: the row locks taken
+ * by the lock step keep two nodes (and any worker still writing a plan) off the same rows, and the
+ * delete and insert of one move commit together, so a row is always found in exactly one table.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LegacyHistoryRepo {
+
+    /** Finished plans only: a pending or processing plan stays live until a worker is done with it. */
+    private static final String LOCK_PLANS_SQL =
+            "SELECT id FROM dev_caseplans_legacy "
+                    + "WHERE id > ? AND created_at < ? AND (status IS NULL OR status NOT IN ('pending', 'processing')) "
+                    + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    /** A case stays live while any of its plans does, so an archived plan never loses a live case. */
+    private static final String LOCK_CASES_SQL =
+            "SELECT c.id FROM dev_case_infos_legacy c "
+                    + "WHERE c.id > ? AND c.created_at < ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM dev_caseplans p WHERE p.case_info_id = c.id) "
+                    + "ORDER BY c.id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String MOVE_PLANS_SQL =
+            "WITH moved AS (DELETE FROM dev_caseplans_legacy WHERE id = ANY (?) RETURNING *) "
+                    + "INSERT INTO dev_caseplans_archive SELECT * FROM moved";
+    private static final String MOVE_CASES_SQL =
+            "WITH moved AS (DELETE FROM dev_case_infos_legacy WHERE id = ANY (?) RETURNING *) "
+                    + "INSERT INTO dev_case_infos_archive SELECT * FROM moved";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Locks the next {@code limit} finished plans after {@code afterId} created before {@code end}. */
+    public List<Long> lockPlans(LocalDate end, long afterId, int limit) {
+        return jdbcTemplate.queryForList(LOCK_PLANS_SQL, Long.class, afterId, end.atStartOfDay(), limit);
+    }
+
+    /** Locks the next {@code limit} cases after {@code afterId} created before {@code end} that have no live plan. */
+    public List<Long> lockCases(LocalDate end, long afterId, int limit) {
+        return jdbcTemplate.queryForList(LOCK_CASES_SQL, Long.class, afterId, end.atStartOfDay(), limit);
+    }
+
+    /** @return plans moved */
+    public int archivePlans(List<Long> ids) {
+        return jdbcTemplate.update(MOVE_PLANS_SQL, (Object) ids.toArray(new Long[0]));
+    }
+
+    /** @return cases moved */
+    public int archiveCases(List<Long> ids) {
+        return jdbcTemplate.update(MOVE_CASES_SQL, (Object) ids.toArray(new Long[0]));
+    }
+}
@@ -0,0 +1,22 @@
+package com.caseplan.adapter.out.persistence;
+
+import java.time.Instant;
+
+/**
+ * One row of the orders list: the plan's status and the case fields the list shows, flattened
+ * from one join. Never selects the generated plan text.
+ */
+public interface OrderSummary {
+    Long getId();
+    String getStatus();
+    Instant getCreatedAt();
+    Long getCaseInfoId();
+    String getServiceNumber();
+    String getDocketNumber();
+    String getPrimaryCauseOfAction();
+    String getRemedySought();
+    String getClientFirstName();
+    String getClientLastName();
+    String getAttorneyName();
+    String getAttorneyBarNumber();
+}
@@ -0,0 +1,198 @@
+package com.caseplan.adapter.out.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Catalog and DDL access for the month partitions of {@code dev_case_infos} and
+ * {@code dev_caseplans} and their {@code _archive} twins (see {@code V8__partition_plans_by_month}).
+ * <p>
+ * Every DDL step runs under a transaction-scoped advisory lock, so nodes running the maintenance
+ * job at once take turns and each re-checks the catalog first, and under a short lock timeout: a
+ * step waiting behind a long query would otherwise hold up every query on the table behind it. A
+ * step that times out is simply retried on the next run.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PlanPartitionRepo {
+
+    /** Advisory lock key shared by all partition DDL. */
+    static final long MAINTENANCE_LOCK = 0x63617365706c616eL;
+
+    private static final String LOCK_TIMEOUT_SQL = "SET LOCAL lock_timeout = '5s'";
+    private static final String LOCK_SQL = "SELECT 1 FROM pg_advisory_xact_lock(?)";
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                    + "JOIN pg_class c ON c.oid = i.inhrelid "
+                    + "WHERE i.inhparent = ?::regclass";
+    private static final String CONSTRAINT_EXISTS_SQL =
+            "SELECT COUNT(*) FROM pg_constraint WHERE conrelid = ?::regclass AND conname = ?";
+    private static final String ACTIVE_PLANS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM %s WHERE status IN ('pending', 'processing'))";
+    private static final String ROWS_BEFORE_SQL = "SELECT EXISTS (SELECT 1 FROM %s WHERE created_at < ?)";
+
+    private static final Pattern BOUND = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+    private static final DateTimeFormatter BOUND_VALUE = DateTimeFormatter.ofPattern("''yyyy-MM-dd HH:mm:ss''");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** A month partition, or the legacy one; {@code from} is null when the range starts at MINVALUE. */
+    public record PlanPartition(String name, LocalDate from, LocalDate to) {
+    }
+
+    /** Partitions currently attached to {@code parent}, in no particular order. */
+    public List<PlanPartition> partitions(String parent) {
+        return jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> partition(rs.getString(1), rs.getString(2)), parent);
+    }
+
+    /**
+     * Creates {@code name} for [from, to) under {@code parent} unless another node already did; a
+     * null {@code from} starts the range at MINVALUE.
+     */
+    @Transactional
+    public void createPartition(String parent, String name, LocalDate from, LocalDate to) {
+        lockForDdl();
+        jdbcTemplate.execute(String.format(Locale.ROOT,
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM (%s) TO ('%s')",
+                name, parent, lowerBound(from), to));
+    }
+
+    /**
+     * First of two steps of {@link #archive}: states the partition's range as a validated CHECK
+     * constraint, so the archive table can adopt the partition without scanning it under lock.
+     * Adding the constraint locks the partition only briefly; validating it scans the partition
+     * while reads and writes go on. Returns at once when the constraint is already there.
+     */
+    @Transactional
+    public void prepareArchive(PlanPartition partition) {
+        String constraint = partition.name() + "_range";
+        Integer existing = jdbcTemplate.queryForObject(CONSTRAINT_EXISTS_SQL, Integer.class, partition.name(), constraint);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        lockForDdl();
+        String range = partition.from() == null
+                ? String.format(Locale.ROOT, "created_at IS NOT NULL AND created_at < '%s'", partition.to())
+                : String.format(Locale.ROOT, "created_at IS NOT NULL AND created_at >= '%s' AND created_at < '%s'",
+                        partition.from(), partition.to());
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s ADD CONSTRAINT %s CHECK (%s) NOT VALID",
+                partition.name(), constraint, range));
+    }
+
+    /** Validates the constraint {@link #prepareArchive} added; a no-op once it is valid. */
+    public void validateArchiveRange(PlanPartition partition) {
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s VALIDATE CONSTRAINT %s_range",
+                partition.name(), partition.name()));
+    }
+
+    /** Whether a plan partition still holds plans that a worker may pick up. */
+    public boolean hasActivePlans(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                String.format(Locale.ROOT, ACTIVE_PLANS_SQL, partition), Boolean.class));
+    }
+
+    /**
+     * Moves a partition from {@code parent} to {@code archiveParent} in one transaction, so a row
+     * is always found in exactly one of them. With {@code plans}, refuses (and rolls back) when the
+     * partition holds a plan that became active again since the caller checked.
+     *
+     * @return false when another node archived the partition first
+     */
+    @Transactional
+    public boolean archive(String parent, String archiveParent, PlanPartition partition, boolean plans) {
+        lockForDdl();
+        if (partitions(parent).stream().noneMatch(p -> p.name().equals(partition.name()))) {
+            return false;
+        }
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s DETACH PARTITION %s", parent, partition.name()));
+        if (plans && hasActivePlans(partition.name())) {
+            throw new IllegalStateException("Partition " + partition.name() + " has active plans");
+        }
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM (%s) TO ('%s')",
+                archiveParent, partition.name(), lowerBound(partition.from()), partition.to()));
+        return true;
+    }
+
+    /** Whether the partition still holds rows created before {@code end}. */
+    public boolean hasRowsBefore(String partition, LocalDate end) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                String.format(Locale.ROOT, ROWS_BEFORE_SQL, partition), Boolean.class, end.atStartOfDay()));
+    }
+
+    /**
+     * First of two steps of {@link #rebound}: states the new lower bound of a partition that starts
+     * at MINVALUE as a CHECK constraint, added NOT VALID like in {@link #prepareArchive}. The caller
+     * makes sure no row below {@code from} is left, since writes to such a row would now fail.
+     * Returns at once when the constraint is already there.
+     */
+    @Transactional
+    public void prepareRebound(PlanPartition partition, LocalDate from) {
+        String constraint = partition.name() + "_from";
+        Integer existing = jdbcTemplate.queryForObject(CONSTRAINT_EXISTS_SQL, Integer.class, partition.name(), constraint);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        lockForDdl();
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s ADD CONSTRAINT %s CHECK (created_at >= '%s') NOT VALID",
+                partition.name(), constraint, from));
+    }
+
+    /** Validates the constraint {@link #prepareRebound} added; a no-op once it is valid. */
+    public void validateRebound(PlanPartition partition) {
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s VALIDATE CONSTRAINT %s_from",
+                partition.name(), partition.name()));
+    }
+
+    /**
+     * Re-attaches a partition that starts at MINVALUE to {@code parent} for [from, to) in one
+     * transaction. The validated constraints of {@link #prepareRebound} and of the upper bound let
+     * the attach skip the scan, so the table is locked only for the catalog change.
+     *
+     * @return false when another node re-attached or archived the partition first
+     */
+    @Transactional
+    public boolean rebound(String parent, PlanPartition partition, LocalDate from) {
+        lockForDdl();
+        if (partitions(parent).stream().noneMatch(p -> p.name().equals(partition.name()) && p.from() == null)) {
+            return false;
+        }
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s DETACH PARTITION %s", parent, partition.name()));
+        jdbcTemplate.execute(String.format(Locale.ROOT, "ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                parent, partition.name(), from, partition.to()));
+        return true;
+    }
+
+    private void lockForDdl() {
+        jdbcTemplate.execute(LOCK_TIMEOUT_SQL);
+        jdbcTemplate.queryForObject(LOCK_SQL, Integer.class, MAINTENANCE_LOCK);
+    }
+
+    private static String lowerBound(LocalDate from) {
+        return from == null ? "MINVALUE" : "'" + from + "'";
+    }
+
+    static PlanPartition partition(String name, String bound) {
+        Matcher matcher = BOUND.matcher(bound == null ? "" : bound);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected bound for partition " + name + ": " + bound);
+        }
+        return new PlanPartition(name, boundDate(matcher.group(1)), boundDate(matcher.group(2)));
+    }
+
+    private static LocalDate boundDate(String value) {
+        if ("MINVALUE".equals(value)) {
+            return null;
+        }
+        return LocalDateTime.parse(value, BOUND_VALUE).toLocalDate();
+    }
+}
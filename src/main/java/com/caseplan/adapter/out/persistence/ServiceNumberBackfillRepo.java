@@ -0,0 +1,48 @@
+package com.caseplan.adapter.out.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Set-based access to case rows created before service numbers existed. Both statements must
+ * run in the caller's transaction: the row locks taken by {@link #lockMissing} are what keep two
+ * backfills (or a backfill and any other writer) from numbering the same row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ServiceNumberBackfillRepo {
+
+    private static final String LOCK_MISSING_SQL =
+            "SELECT id, created_at FROM dev_case_infos "
+                    + "WHERE id > ? AND (service_number IS NULL OR TRIM(service_number) = '') "
+                    + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    /** One statement for the whole batch; the guard keeps a number that appeared meanwhile. */
+    private static final String ASSIGN_SQL =
+            "UPDATE dev_case_infos ci SET service_number = v.service_number "
+                    + "FROM unnest(?::bigint[], ?::text[]) AS v(id, service_number) "
+                    + "WHERE ci.id = v.id AND (ci.service_number IS NULL OR TRIM(ci.service_number) = '')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** A case row still waiting for its number, with the time that decides which day it belongs to. */
+    public record MissingServiceNumber(long id, Instant createdAt) {
+    }
+
+    /** Locks the next {@code limit} unnumbered rows after {@code afterId}, skipping rows locked elsewhere. */
+    public List<MissingServiceNumber> lockMissing(long afterId, int limit) {
+        return jdbcTemplate.query(LOCK_MISSING_SQL, (rs, rowNum) -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return new MissingServiceNumber(rs.getLong("id"), createdAt == null ? null : createdAt.toInstant());
+        }, afterId, limit);
+    }
+
+    /** @return rows updated */
+    public int assign(List<Long> ids, List<String> serviceNumbers) {
+        return jdbcTemplate.update(ASSIGN_SQL, ids.toArray(new Long[0]), serviceNumbers.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,55 @@
+package com.caseplan.adapter.out.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Per-day counters behind service numbers. Each call reserves a block of {@code count} sequences
+ * in one statement and commits it in its own transaction, so the row lock is held for that
+ * statement only and a reserved block stays reserved even if the caller's transaction rolls back.
+ * Order creation reserves before its own transaction opens, so it never holds one pooled
+ * connection while waiting for another.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ServiceNumberCounterRepo {
+
+    private static final String ADVANCE_SQL =
+            "UPDATE dev_service_number_counters SET last_value = last_value + ? WHERE day = ? "
+                    + "RETURNING last_value";
+    /** A concurrent first reservation for the day wins the insert; the loser advances its row instead. */
+    private static final String CREATE_SQL =
+            "INSERT INTO dev_service_number_counters (day, last_value) VALUES (?, ?) "
+                    + "ON CONFLICT (day) DO UPDATE "
+                    + "SET last_value = dev_service_number_counters.last_value + ? "
+                    + "RETURNING last_value";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** @return the last sequence of the reserved block, or null when the day has no counter yet */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Long advance(String day, int count) {
+        List<Long> last = jdbcTemplate.queryForList(ADVANCE_SQL, Long.class, count, day);
+        return last.isEmpty() ? null : last.get(0);
+    }
+
+    /**
+     * Starts the day's counter after {@code seed} (the highest number already issued) and reserves
+     * the first block; if another node got there first, reserves the next block of its counter.
+     *
+     * @return the last sequence of the reserved block
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long create(String day, long seed, int count) {
+        Long last = jdbcTemplate.queryForObject(CREATE_SQL, Long.class, day, seed + count, count);
+        if (last == null) {
+            throw new IllegalStateException("No counter value returned for day " + day);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,234 @@
+package com.caseplan.adapter.out.queue;
+
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process queue for {@code queue.provider=memory}: one bounded {@link MpmcRingBuffer} per
+ * priority class, drained by the consumer's worker threads. Nothing leaves the JVM, which makes
+ * it the provider for single-node deployments and for measuring the service's own overhead.
+ * <p>
+ * Dedup and delayed delivery mirror the Redis adapter: a queued-id set collapses repeat enqueues,
+ * in-flight ids are not re-queued, and delayed ids wait in a due-time heap until
+ * {@link #promoteDue} moves them. Queued ids are lost with the process; recovery re-reads pending
+ * rows from the DB on startup ({@link #isDurable()} is false).
+ */
+public class InMemoryQueueAdapter implements QueuePort, QueueReceiver {
+
+    /** What an immediate enqueue does when its class buffer is full. */
+    public enum OverflowPolicy {
+        /**
+         * Park the producer until a worker frees a slot, for at most {@link #BLOCK_MAX_WAIT_MS};
+         * then throw like {@link #REJECT}. The producer is the outbox relay inside its DB
+         * transaction, so the wait must stay short.
+         */
+        BLOCK,
+        /** Throw; the outbox relay rolls back and retries the batch later. */
+        REJECT,
+        /** Leave the id pending in the DB; the consumer re-reads it once the buffer has drained. */
+        SPILL;
+
+        public static OverflowPolicy fromValue(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return SPILL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Unknown queue.memory.overflow: " + value);
+            }
+        }
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    /** Longest a {@link OverflowPolicy#BLOCK} enqueue waits for space before giving up. */
+    static final long BLOCK_MAX_WAIT_MS = 1000L;
+
+    private final Map<QueuePriority, MpmcRingBuffer<QueueEntry>> buffers = new EnumMap<>(QueuePriority.class);
+    /** One permit per buffered entry across all classes; workers block on it instead of spinning. */
+    private final Semaphore ready = new Semaphore(0);
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final PriorityBlockingQueue<Scheduled> delayed = new PriorityBlockingQueue<>();
+    private final AtomicBoolean spilled = new AtomicBoolean();
+    private final OverflowPolicy overflowPolicy;
+
+    public InMemoryQueueAdapter(int capacityPerClass, OverflowPolicy overflowPolicy) {
+        for (QueuePriority priority : QueuePriority.values()) {
+            buffers.put(priority, new MpmcRingBuffer<>(capacityPerClass));
+        }
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void enqueue(String id, QueuePriority priority) {
+        if (inFlight.contains(id) || !queued.add(id)) {
+            return;
+        }
+        QueueEntry entry = new QueueEntry(id, System.currentTimeMillis());
+        if (offer(priority, entry)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BLOCK_MAX_WAIT_MS);
+                while (!offer(priority, entry)) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        queued.remove(id);
+                        throw new IllegalStateException("Memory queue full for class " + priority.getValue()
+                                + " after waiting " + BLOCK_MAX_WAIT_MS + "ms");
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    if (Thread.currentThread().isInterrupted()) {
+                        queued.remove(id);
+                        throw new IllegalStateException("Interrupted waiting for memory queue space");
+                    }
+                }
+                return;
+            case REJECT:
+                queued.remove(id);
+                throw new IllegalStateException("Memory queue full for class " + priority.getValue());
+            case SPILL:
+            default:
+                queued.remove(id);
+                spilled.set(true);
+        }
+    }
+
+    @Override
+    public void enqueueAfter(String id, QueuePriority priority, Duration delay) {
+        if (delay == null || delay.isZero() || delay.isNegative()) {
+            enqueue(id, priority);
+            return;
+        }
+        if (!queued.add(id)) {
+            return;
+        }
+        delayed.add(new Scheduled(System.currentTimeMillis() + delay.toMillis(), id, priority));
+    }
+
+    /** Due ids that do not fit stay scheduled and are retried on the next pass; none is dropped. */
+    @Override
+    public int promoteDue() {
+        long now = System.currentTimeMillis();
+        int promoted = 0;
+        Scheduled next;
+        while ((next = delayed.peek()) != null && next.dueAtMillis() <= now) {
+            Scheduled due = delayed.poll();
+            if (due == null) {
+                break;
+            }
+            if (!offer(due.priority(), new QueueEntry(due.id(), now))) {
+                delayed.add(due);
+                break;
+            }
+            promoted++;
+        }
+        return promoted;
+    }
+
+    @Override
+    public long depth() {
+        return queued.size();
+    }
+
+    @Override
+    public long oldestAgeMillis(QueuePriority priority) {
+        QueueEntry head = buffers.get(priority).peek();
+        return head == null ? 0L : Math.max(0L, System.currentTimeMillis() - head.enqueuedAtMillis());
+    }
+
+    @Override
+    public QueueDelivery receive(List<QueuePriority> order, Duration timeout) throws InterruptedException {
+        if (!ready.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        // The permit guarantees an entry in some buffer; a racing worker may take the one we look
+        // at first, but never ours, so this settles within a few passes.
+        while (true) {
+            for (QueuePriority priority : order) {
+                QueueEntry entry = buffers.get(priority).poll();
+                if (entry != null) {
+                    inFlight.add(entry.id());
+                    queued.remove(entry.id());
+                    return new QueueDelivery(priority, entry);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void complete(QueueDelivery delivery) {
+        releaseInFlight(delivery.id());
+    }
+
+    @Override
+    public void releaseInFlight(String id) {
+        inFlight.remove(id);
+    }
+
+    @Override
+    public Set<String> queuedAmong(Collection<String> ids) {
+        Set<String> result = new HashSet<>();
+        for (String id : ids) {
+            if (queued.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+
+    /** Only reports a spill once every class buffer is at most half full, so the re-read has room. */
+    @Override
+    public boolean takeSpilled() {
+        if (!spilled.get()) {
+            return false;
+        }
+        for (MpmcRingBuffer<QueueEntry> buffer : buffers.values()) {
+            if (buffer.size() > buffer.capacity() / 2) {
+                return false;
+            }
+        }
+        return spilled.compareAndSet(true, false);
+    }
+
+    int size(QueuePriority priority) {
+        return buffers.get(priority).size();
+    }
+
+    private boolean offer(QueuePriority priority, QueueEntry entry) {
+        if (!buffers.get(priority).offer(entry)) {
+            return false;
+        }
+        ready.release();
+        return true;
+    }
+
+    private record Scheduled(long dueAtMillis, String id, QueuePriority priority) implements Comparable<Scheduled> {
+        @Override
+        public int compareTo(Scheduled other) {
+            return Long.compare(dueAtMillis, other.dueAtMillis);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.caseplan.adapter.out.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer ring buffer (Vyukov's sequence-per-slot design,
+ * the same slot-sequencing idea as the Disruptor). Each slot carries a sequence number telling
+ * producers when it is free and consumers when it is published, so {@link #offer} and
+ * {@link #poll} are a single CAS on the tail or head cursor in the uncontended case and never
+ * block: a full buffer makes {@code offer} return false, an empty one makes {@code poll} return null.
+ */
+final class MpmcRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /** Capacity is rounded up to a power of two so a slot index is a mask, not a modulo. */
+    MpmcRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + requestedCapacity);
+        }
+        int capacity = Math.max(2, Integer.highestOneBit(requestedCapacity - 1) << 1);
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(E element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, element);
+                    sequences.set(index, pos + 1); // publish to consumers
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // slot still holds an unconsumed element: full
+            } else {
+                pos = tail.get(); // another producer claimed this position
+            }
+        }
+    }
+
+    E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, pos + mask + 1); // free the slot for the next lap
+                    return element;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // not yet published: empty
+            } else {
+                pos = head.get(); // another consumer took this position
+            }
+        }
+    }
+
+    /**
+     * The element at the head without taking it, or null when empty. Racy by design: a consumer may
+     * take it (and the slot be reused) right after the read, so it is only fit for monitoring.
+     */
+    E peek() {
+        long pos = head.get();
+        int index = (int) (pos & mask);
+        return sequences.get(index) == pos + 1 ? slots.get(index) : null;
+    }
+
+    /** Approximate under concurrency; exact when quiescent. */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
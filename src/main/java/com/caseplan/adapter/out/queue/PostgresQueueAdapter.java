@@ -0,0 +1,142 @@
+package com.caseplan.adapter.out.queue;
+
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Uses {@code dev_caseplans} itself as the queue: a pending row is claimable once its
+ * {@code available_at} is set and due. Enqueueing publishes the row by stamping that column and
+ * sends a NOTIFY so listening consumers wake up; claiming flips a batch to {@code processing} with
+ * {@code FOR UPDATE SKIP LOCKED}, so consumers on any number of nodes never contend for a row.
+ * <p>
+ * Since the queue and the plans are the same rows there is nothing to reconcile: a plan is lost
+ * from the queue only if its row is.
+ */
+@RequiredArgsConstructor
+public class PostgresQueueAdapter implements QueuePort {
+
+    public static final String NOTIFY_CHANNEL = "caseplan_pending";
+
+    /** Timestamps are bound from the JVM clock so they compare with the Instant columns Hibernate writes. */
+    private static final String PUBLISH_SQL =
+            "UPDATE dev_caseplans SET available_at = ? WHERE id = ?";
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+    private static final String CLAIM_SQL =
+            "UPDATE dev_caseplans SET status = 'processing', available_at = NULL, updated_at = ?, "
+                    + "lease_owner = NULL, lease_expires_at = ?, version = version + 1 "
+                    + "WHERE id IN ("
+                    + "SELECT id FROM dev_caseplans "
+                    + "WHERE status = 'pending' AND available_at <= ? AND COALESCE(priority, 'interactive') = ? "
+                    + "ORDER BY available_at, id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                    + "RETURNING id";
+    private static final String NEXT_DUE_SQL =
+            "SELECT MIN(available_at) FROM dev_caseplans WHERE status = 'pending' AND available_at > ?";
+    private static final String DEPTH_SQL =
+            "SELECT COUNT(*) FROM dev_caseplans WHERE status = 'pending' AND available_at IS NOT NULL";
+    private static final String OLDEST_DUE_SQL =
+            "SELECT MIN(available_at) FROM dev_caseplans "
+                    + "WHERE status = 'pending' AND available_at <= ? AND COALESCE(priority, 'interactive') = ?";
+    private static final String RELEASE_EXPIRED_SQL =
+            "UPDATE dev_caseplans SET status = 'pending', available_at = ?, lease_owner = NULL, lease_expires_at = NULL, "
+                    + "version = version + 1 "
+                    + "WHERE status = 'processing' "
+                    + "AND (lease_expires_at < ? OR (lease_expires_at IS NULL AND updated_at < ?))";
+    private static final String RELEASE_SQL =
+            "UPDATE dev_caseplans SET status = 'pending', available_at = ?, lease_owner = NULL, lease_expires_at = NULL, "
+                    + "version = version + 1 "
+                    + "WHERE id = ? AND status = 'processing'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void enqueue(String id, QueuePriority priority) {
+        publish(id, Instant.now());
+    }
+
+    @Override
+    public void enqueueAfter(String id, QueuePriority priority, Duration delay) {
+        if (delay == null || delay.isZero() || delay.isNegative()) {
+            enqueue(id, priority);
+            return;
+        }
+        publish(id, Instant.now().plus(delay));
+    }
+
+    @Override
+    public long depth() {
+        Long count = jdbcTemplate.queryForObject(DEPTH_SQL, Long.class);
+        return count == null ? -1L : count;
+    }
+
+    /** Age of the earliest due row of the class; a delayed row only starts ageing once it is due. */
+    @Override
+    public long oldestAgeMillis(QueuePriority priority) {
+        Instant now = Instant.now();
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_DUE_SQL, Timestamp.class,
+                Timestamp.from(now), priority.getValue());
+        return oldest == null ? 0L : Math.max(0L, now.toEpochMilli() - oldest.getTime());
+    }
+
+    /**
+     * Claims up to {@code limit} due rows of one class, oldest first, and marks them processing
+     * under an ownerless lease, which the worker the row is handed to then takes over. Rows of a
+     * node that dies between the two are released once that lease lapses.
+     *
+     * @return claimed plan ids
+     */
+    public List<Long> claim(QueuePriority priority, int limit, Duration leaseTtl) {
+        Instant now = Instant.now();
+        Timestamp nowTs = Timestamp.from(now);
+        return jdbcTemplate.queryForList(CLAIM_SQL, Long.class,
+                nowTs, Timestamp.from(now.plus(leaseTtl)), nowTs, priority.getValue(), limit);
+    }
+
+    /** Earliest future due time among delayed rows, or null when nothing is scheduled. */
+    public Instant nextDueAt() {
+        Timestamp next = jdbcTemplate.queryForObject(NEXT_DUE_SQL, Timestamp.class, Timestamp.from(Instant.now()));
+        return next == null ? null : next.toInstant();
+    }
+
+    /**
+     * Puts processing rows whose lease lapsed (their worker died) back on the queue. Rows claimed
+     * before leases existed have none and are released once untouched since {@code legacyCutoff}.
+     * A worker that renewed in time is not matched, so a live plan is never handed out twice.
+     *
+     * @return number of rows released
+     */
+    public int releaseExpired(Instant legacyCutoff) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return jdbcTemplate.update(RELEASE_EXPIRED_SQL, now, now, Timestamp.from(legacyCutoff));
+    }
+
+    /**
+     * Puts one claimed row straight back on the queue, e.g. when its consumer shuts down before
+     * the plan finished. A row that completed or failed meanwhile is not matched and stays as is.
+     *
+     * @return true when the row was released
+     */
+    public boolean release(long id) {
+        Timestamp now = Timestamp.from(Instant.now());
+        if (jdbcTemplate.update(RELEASE_SQL, now, id) == 0) {
+            return false;
+        }
+        jdbcTemplate.queryForObject(NOTIFY_SQL, Object.class, NOTIFY_CHANNEL, Long.toString(id));
+        return true;
+    }
+
+    /**
+     * NOTIFY is transactional, so inside a surrounding transaction (the outbox relay) listeners are
+     * only woken once the row is committed and visible to their claim.
+     */
+    private void publish(String id, Instant availableAt) {
+        jdbcTemplate.update(PUBLISH_SQL, Timestamp.from(availableAt), Long.parseLong(id));
+        jdbcTemplate.queryForObject(NOTIFY_SQL, Object.class, NOTIFY_CHANNEL, id);
+    }
+}
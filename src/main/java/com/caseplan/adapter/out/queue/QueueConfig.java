@@ -1,11 +1,18 @@
 package com.caseplan.adapter.out.queue;
 
+import com.caseplan.adapter.out.lease.LeaderLease;
+import com.caseplan.adapter.out.lease.LocalLeaderLease;
+import com.caseplan.adapter.out.lease.LocalPartitionMembership;
+import com.caseplan.adapter.out.lease.PartitionMembership;
+import com.caseplan.adapter.out.lease.RedisLeaderLease;
+import com.caseplan.adapter.out.lease.RedisPartitionMembership;
 import com.caseplan.application.port.out.QueuePort;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
@@ -16,12 +23,20 @@ import java.time.Duration;
 @Configuration
 public class QueueConfig {
 
+    static final String MAINTENANCE_LEASE_KEY = "caseplan:maintenance:leader";
+    static final String CONSUMER_MEMBERS_KEY = "caseplan:consumers";
+
     @Bean
     public QueuePort queuePort(
             @Value("${queue.provider:redis}") String provider,
             @Value("${queue.sqs.queue-url:}") String sqsQueueUrl,
+            @Value("${queue.sqs.bulk-queue-url:}") String sqsBulkQueueUrl,
             @Value("${queue.sqs.region:us-east-2}") String sqsRegion,
-            ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+            @Value("${queue.memory.capacity:1024}") int memoryCapacity,
+            @Value("${queue.memory.overflow:spill}") String memoryOverflow,
+            @Value("${queue.redis.partitions:1}") int redisPartitions,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+            ObjectProvider<JdbcTemplate> jdbcTemplateProvider) {
 
         switch (provider == null ? "" : provider.trim().toLowerCase()) {
             case "sqs":
@@ -33,14 +48,74 @@ public class QueueConfig {
                                 .apiCallAttemptTimeout(Duration.ofSeconds(5))
                                 .build())
                         .build();
-                return new SqsQueueAdapter(sqsClient, sqsQueueUrl);
+                return new SqsQueueAdapter(sqsClient, sqsQueueUrl, sqsBulkQueueUrl);
+            case "memory":
+                return new InMemoryQueueAdapter(memoryCapacity, InMemoryQueueAdapter.OverflowPolicy.fromValue(memoryOverflow));
+            case "postgres":
+                JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+                if (jdbcTemplate == null) {
+                    throw new IllegalStateException("Postgres queue provider selected but JdbcTemplate is unavailable");
+                }
+                return new PostgresQueueAdapter(jdbcTemplate);
+            case "redis":
+            default:
+                StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+                if (redisTemplate == null) {
+                    throw new IllegalStateException("Redis queue provider selected but StringRedisTemplate is unavailable");
+                }
+                return new RedisQueueAdapter(redisTemplate, redisPartitions);
+        }
+    }
+
+    /**
+     * Leadership for the consumer's maintenance jobs (lease recovery, queue reconciliation). Redis
+     * mode shares one lease across nodes; the in-memory queue is single-node by construction.
+     */
+    @Bean
+    public LeaderLease maintenanceLease(
+            @Value("${queue.provider:redis}") String provider,
+            @Value("${caseplan.leader.lease-ttl-seconds:15}") long leaseTtlSeconds,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        switch (provider == null ? "" : provider.trim().toLowerCase()) {
+            case "sqs":
+            case "postgres":
+            case "memory":
+                // no CasePlanConsumer (sqs, postgres) or a single node (memory)
+                return new LocalLeaderLease();
+            case "redis":
+            default:
+                StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+                if (redisTemplate == null) {
+                    throw new IllegalStateException("Redis queue provider selected but StringRedisTemplate is unavailable");
+                }
+                return new RedisLeaderLease(redisTemplate, MAINTENANCE_LEASE_KEY,
+                        Duration.ofSeconds(Math.max(1L, leaseTtlSeconds)));
+        }
+    }
+
+    /**
+     * Which Redis queue partitions this node's consumer pops. Nodes heartbeat into one shared set
+     * and split the partitions between the live ones; other providers are unpartitioned.
+     */
+    @Bean
+    public PartitionMembership partitionMembership(
+            @Value("${queue.provider:redis}") String provider,
+            @Value("${queue.redis.partitions:1}") int redisPartitions,
+            @Value("${queue.redis.membership-ttl-seconds:15}") long membershipTtlSeconds,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        switch (provider == null ? "" : provider.trim().toLowerCase()) {
+            case "sqs":
+            case "postgres":
+            case "memory":
+                return new LocalPartitionMembership(1);
             case "redis":
             default:
                 StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
                 if (redisTemplate == null) {
                     throw new IllegalStateException("Redis queue provider selected but StringRedisTemplate is unavailable");
                 }
-                return new RedisQueueAdapter(redisTemplate);
+                return new RedisPartitionMembership(redisTemplate, CONSUMER_MEMBERS_KEY, redisPartitions,
+                        Duration.ofSeconds(Math.max(1L, membershipTtlSeconds)));
         }
     }
 }
@@ -0,0 +1,11 @@
+package com.caseplan.adapter.out.queue;
+
+import com.caseplan.application.port.out.QueuePriority;
+
+/** An entry handed to a worker, with the class it was taken from. */
+public record QueueDelivery(QueuePriority priority, QueueEntry entry) {
+
+    public String id() {
+        return entry.id();
+    }
+}
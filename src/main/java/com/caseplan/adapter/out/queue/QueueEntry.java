@@ -0,0 +1,33 @@
+package com.caseplan.adapter.out.queue;
+
+/**
+ * Redis list element: {@code <planId>|<enqueuedAtMillis>}. The timestamp lets the consumer
+ * measure queue wait per priority class. Bare ids (written before the timestamp existed)
+ * still parse, with an unknown enqueue time.
+ */
+public record QueueEntry(String id, long enqueuedAtMillis) {
+
+    private static final char SEPARATOR = '|';
+
+    public static QueueEntry parse(String raw) {
+        int sep = raw.indexOf(SEPARATOR);
+        if (sep < 0) {
+            return new QueueEntry(raw, -1L);
+        }
+        long enqueuedAt;
+        try {
+            enqueuedAt = Long.parseLong(raw.substring(sep + 1));
+        } catch (NumberFormatException ignored) {
+            enqueuedAt = -1L;
+        }
+        return new QueueEntry(raw.substring(0, sep), enqueuedAt);
+    }
+
+    public String encode() {
+        return id + SEPARATOR + enqueuedAtMillis;
+    }
+
+    public boolean hasEnqueuedAt() {
+        return enqueuedAtMillis >= 0;
+    }
+}
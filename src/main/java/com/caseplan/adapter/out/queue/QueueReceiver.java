@@ -0,0 +1,57 @@
+package com.caseplan.adapter.out.queue;
+
+import com.caseplan.application.port.out.QueuePriority;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pull side of the queue providers that run their own worker loop ({@code CasePlanConsumer}):
+ * Redis and the in-process ring buffer. SQS and postgres deliver through their own consumers.
+ */
+public interface QueueReceiver {
+
+    /**
+     * Blocks up to {@code timeout} for the next entry, trying the classes in the given order.
+     * The id counts as in flight until {@link #complete} is called for it.
+     *
+     * @return the delivery, or null on timeout
+     */
+    QueueDelivery receive(List<QueuePriority> order, Duration timeout) throws InterruptedException;
+
+    /** Ends the delivery; later enqueues of the id are no longer collapsed into it. */
+    void complete(QueueDelivery delivery);
+
+    /**
+     * Drops the in-flight marker of an id whose worker lost its generation lease, so the id can
+     * be queued again. The late worker's own {@link #complete} is then a no-op or ends the marker
+     * of the next delivery, which the lease on the row still keeps from running twice.
+     */
+    void releaseInFlight(String id);
+
+    /** The subset of {@code ids} currently queued or scheduled. */
+    Set<String> queuedAmong(Collection<String> ids);
+
+    /**
+     * Restricts {@link #receive} to the given partitions, as assigned by the consumer's membership
+     * heartbeat. Unpartitioned receivers have a single partition and ignore it.
+     */
+    default void assignPartitions(Set<Integer> partitions) {
+        // one partition: always owned
+    }
+
+    /** False when queued ids do not survive a restart, so recovery must re-read every pending row. */
+    default boolean isDurable() {
+        return true;
+    }
+
+    /**
+     * True once per overflow episode in which enqueues were left in the DB instead of queued, when
+     * there is room again to take them back. The consumer then re-reads pending rows.
+     */
+    default boolean takeSpilled() {
+        return false;
+    }
+}
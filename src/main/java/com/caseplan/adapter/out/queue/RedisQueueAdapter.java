@@ -1,18 +1,311 @@
 package com.caseplan.adapter.out.queue;
 
 import com.caseplan.application.port.out.QueuePort;
-import lombok.RequiredArgsConstructor;
+import com.caseplan.application.port.out.QueuePriority;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 
-@RequiredArgsConstructor
-public class RedisQueueAdapter implements QueuePort {
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redis lists as the queue, one per priority class and partition. With more than one partition
+ * ({@code queue.redis.partitions}) an id goes to partition {@code id % partitions}, and each node
+ * only pops the partitions {@link #assignPartitions assigned} to it, so nodes stop contending on
+ * one list and each takes its share. Partition 0 keeps the unpartitioned key names, so ids queued
+ * before partitioning (or with one partition) still drain.
+ */
+public class RedisQueueAdapter implements QueuePort, QueueReceiver {
+
+    /** Interactive class keeps the original key so items queued before priorities existed still drain. */
+    public static final String QUEUE_KEY = "caseplan:pending";
+    /**
+     * SET of the ids currently sitting in any class list or delayed ZSET. It is both the O(1)
+     * membership check for reconciliation and the enqueue-side dedup guard.
+     */
+    public static final String QUEUED_IDS_KEY = "caseplan:pending:ids";
+    /** Prefix of the per-id marker a worker holds while a popped id is being processed. */
+    private static final String IN_FLIGHT_KEY_PREFIX = "caseplan:inflight:";
+    /** Per-class ZSET of delayed ids, scored by due time in epoch millis. */
+    private static final String DELAYED_KEY = "caseplan:delayed";
+    /** Upper bound on ids promoted per class per mover pass, to keep each script call short. */
+    private static final int PROMOTE_BATCH_SIZE = 100;
+    /**
+     * TTL of the in-flight marker. Lease recovery drops the marker of a plan it reclaims, so this
+     * is only a backstop for markers left behind by a worker whose plan never needed reclaiming.
+     */
+    private static final long IN_FLIGHT_TTL_MINUTES = 10L;
+    /** Pause between pop attempts while every assigned list is empty; bounds idle pickup latency. */
+    private static final long EMPTY_POLL_MS = 100L;
+
+    /**
+     * Idempotent push: the id goes onto the list only if it is neither queued (SADD says it was
+     * already a member) nor in flight on a worker. Returns 1 when pushed, 0 when collapsed.
+     * KEYS: class list, queued-id set, in-flight marker.
+     */
+    private static final RedisScript<Long> ENQUEUE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[3]) == 1 then return 0 end\n"
+                    + "if redis.call('SADD', KEYS[2], ARGV[1]) == 0 then return 0 end\n"
+                    + "redis.call('RPUSH', KEYS[1], ARGV[2])\n"
+                    + "return 1",
+            Long.class);
+
+    /**
+     * Idempotent schedule. Deliberately ignores the in-flight marker: the worker holding the id is
+     * the one scheduling its own retry.
+     */
+    private static final RedisScript<Long> SCHEDULE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SADD', KEYS[2], ARGV[1]) == 0 then return 0 end\n"
+                    + "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])\n"
+                    + "return 1",
+            Long.class);
+
+    /**
+     * Atomically move due ids from a delayed ZSET to the tail of their partition's class list.
+     * Running it as one script means concurrent movers on several nodes can never promote the same
+     * id twice. The partition is picked as in {@link #partitionOf}.
+     * KEYS: delayed zset, partition-0 ready list. ARGV: now millis, batch size, partition count.
+     */
+    private static final RedisScript<Long> PROMOTE_SCRIPT = new DefaultRedisScript<>(
+            "local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))\n"
+                    + "local partitions = tonumber(ARGV[3])\n"
+                    + "for _, id in ipairs(due) do\n"
+                    + "  redis.call('ZREM', KEYS[1], id)\n"
+                    + "  local target = KEYS[2]\n"
+                    + "  local n = tonumber(id)\n"
+                    + "  if partitions > 1 and n then\n"
+                    + "    local p = n % partitions\n"
+                    + "    if p > 0 then target = KEYS[2] .. ':p' .. p end\n"
+                    + "  end\n"
+                    + "  redis.call('RPUSH', target, id .. '|' .. ARGV[1])\n"
+                    + "end\n"
+                    + "return #due",
+            Long.class);
+
+    /**
+     * Pops the first entry of the first non-empty list, marks its id in flight and drops it from
+     * the queued-id set, all in one step: a node that dies or loses Redis halfway cannot leave an
+     * id in the set that no list holds, which would collapse every later enqueue of it.
+     * KEYS: candidate lists in order, then the queued-id set. ARGV: in-flight key prefix, marker TTL
+     * in seconds. Returns {list, entry}, or nil when every list is empty.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS - 1 do\n"
+                    + "  local entry = redis.call('LPOP', KEYS[i])\n"
+                    + "  if entry then\n"
+                    + "    local id = string.match(entry, '^[^|]*')\n"
+                    + "    redis.call('SET', ARGV[1] .. id, '1', 'EX', tonumber(ARGV[2]))\n"
+                    + "    redis.call('SREM', KEYS[#KEYS], id)\n"
+                    + "    return {KEYS[i], entry}\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "return nil",
+            List.class);
 
     private final StringRedisTemplate redisTemplate;
+    private final int partitions;
+    /** Partitions this node pops; all of them until membership says otherwise. */
+    private volatile List<Integer> assigned;
+    /** Rotates which assigned partition the pop checks first, so low partitions do not starve high ones. */
+    private final AtomicInteger rotation = new AtomicInteger();
+
+    public RedisQueueAdapter(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, 1);
+    }
+
+    public RedisQueueAdapter(StringRedisTemplate redisTemplate, int partitions) {
+        this.redisTemplate = redisTemplate;
+        this.partitions = Math.max(1, partitions);
+        List<Integer> all = new ArrayList<>();
+        for (int p = 0; p < this.partitions; p++) {
+            all.add(p);
+        }
+        this.assigned = all;
+    }
+
+    public static String queueKey(QueuePriority priority) {
+        return priority == QueuePriority.INTERACTIVE ? QUEUE_KEY : QUEUE_KEY + ":" + priority.getValue();
+    }
+
+    public static String queueKey(QueuePriority priority, int partition) {
+        return partition == 0 ? queueKey(priority) : queueKey(priority) + ":p" + partition;
+    }
+
+    /** Plan ids are numeric; anything else lands in partition 0, matching the promote script. */
+    int partitionOf(String id) {
+        if (partitions == 1) {
+            return 0;
+        }
+        try {
+            return (int) Math.floorMod(Long.parseLong(id), (long) partitions);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** Set by the consumer from its membership heartbeat; an empty set leaves this node's workers idle. */
+    @Override
+    public void assignPartitions(Set<Integer> owned) {
+        List<Integer> valid = new ArrayList<>();
+        for (Integer p : new TreeSet<>(owned)) {
+            if (p >= 0 && p < partitions) {
+                valid.add(p);
+            }
+        }
+        assigned = valid;
+    }
+
+    List<Integer> assignedPartitions() {
+        return assigned;
+    }
+
+    public static String inFlightKey(String id) {
+        return IN_FLIGHT_KEY_PREFIX + id;
+    }
+
+    static String delayedKey(QueuePriority priority) {
+        return DELAYED_KEY + ":" + priority.getValue();
+    }
+
+    @Override
+    public void enqueue(String id, QueuePriority priority) {
+        String payload = new QueueEntry(id, System.currentTimeMillis()).encode();
+        redisTemplate.execute(ENQUEUE_SCRIPT, Arrays.asList(queueKey(priority, partitionOf(id)), QUEUED_IDS_KEY, inFlightKey(id)),
+                id, payload);
+    }
+
+    @Override
+    public void enqueueAfter(String id, QueuePriority priority, Duration delay) {
+        if (delay == null || delay.isZero() || delay.isNegative()) {
+            enqueue(id, priority);
+            return;
+        }
+        long dueAt = System.currentTimeMillis() + delay.toMillis();
+        redisTemplate.execute(SCHEDULE_SCRIPT, Arrays.asList(delayedKey(priority), QUEUED_IDS_KEY),
+                id, String.valueOf(dueAt));
+    }
+
+    @Override
+    public int promoteDue() {
+        String now = String.valueOf(System.currentTimeMillis());
+        int promoted = 0;
+        for (QueuePriority priority : QueuePriority.values()) {
+            Long moved = redisTemplate.execute(PROMOTE_SCRIPT,
+                    Arrays.asList(delayedKey(priority), queueKey(priority)),
+                    now, String.valueOf(PROMOTE_BATCH_SIZE), String.valueOf(partitions));
+            promoted += moved == null ? 0 : moved.intValue();
+        }
+        return promoted;
+    }
+
+    /** The queued-id set holds every ready and delayed id, so one SCARD covers all classes. */
+    @Override
+    public long depth() {
+        Long size = redisTemplate.opsForSet().size(QUEUED_IDS_KEY);
+        return size == null ? -1L : size;
+    }
+
+    /**
+     * The head of each partition's class list is its oldest ready entry; the oldest stamp across
+     * partitions gives the age. Unknown (-1) if any head predates enqueue stamps.
+     */
+    @Override
+    public long oldestAgeMillis(QueuePriority priority) {
+        long oldest = 0L;
+        for (int p = 0; p < partitions; p++) {
+            String head = redisTemplate.opsForList().index(queueKey(priority, p), 0);
+            if (head == null) {
+                continue;
+            }
+            QueueEntry entry = QueueEntry.parse(head);
+            if (!entry.hasEnqueuedAt()) {
+                return -1L;
+            }
+            oldest = Math.max(oldest, System.currentTimeMillis() - entry.enqueuedAtMillis());
+        }
+        return oldest;
+    }
+
+    /**
+     * Pops over the assigned partitions in one script call: the lists are tried left to right, so
+     * the caller's class order decides which backlog is served, and within a class the starting
+     * partition rotates per call. The pop is non-blocking, so while everything is empty the call
+     * retries every {@link #EMPTY_POLL_MS} until {@code timeout} has passed.
+     */
+    @Override
+    public QueueDelivery receive(List<QueuePriority> order, Duration timeout) throws InterruptedException {
+        List<Integer> owned = assigned;
+        if (owned.isEmpty()) {
+            Thread.sleep(timeout.toMillis()); // more nodes than partitions: stand by
+            return null;
+        }
+        int start = Math.floorMod(rotation.getAndIncrement(), owned.size());
+        List<String> keys = new ArrayList<>();
+        Map<String, QueuePriority> priorityByKey = new HashMap<>();
+        for (QueuePriority priority : order) {
+            for (int i = 0; i < owned.size(); i++) {
+                String key = queueKey(priority, owned.get((start + i) % owned.size()));
+                priorityByKey.put(key, priority);
+                keys.add(key);
+            }
+        }
+        keys.add(QUEUED_IDS_KEY);
+        String ttlSeconds = String.valueOf(TimeUnit.MINUTES.toSeconds(IN_FLIGHT_TTL_MINUTES));
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            List<?> popped = redisTemplate.execute(POP_SCRIPT, keys, IN_FLIGHT_KEY_PREFIX, ttlSeconds);
+            if (popped != null && popped.size() >= 2) {
+                String key = String.valueOf(popped.get(0));
+                QueueEntry entry = QueueEntry.parse(String.valueOf(popped.get(1)));
+                return new QueueDelivery(priorityByKey.getOrDefault(key, QueuePriority.INTERACTIVE), entry);
+            }
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return null; // timeout, all queues were empty
+            }
+            //noinspection BusyWait - intentional pause between pops of empty lists
+            Thread.sleep(Math.min(EMPTY_POLL_MS, remainingMs));
+        }
+    }
+
+    @Override
+    public void complete(QueueDelivery delivery) {
+        releaseInFlight(delivery.id());
+    }
 
-    private static final String QUEUE_KEY = "caseplan:pending";
+    @Override
+    public void releaseInFlight(String id) {
+        redisTemplate.delete(inFlightKey(id));
+    }
 
+    /** One SMISMEMBER round trip for the whole batch. */
     @Override
-    public void enqueue(String id) {
-        redisTemplate.opsForList().rightPush(QUEUE_KEY, id);
+    public Set<String> queuedAmong(Collection<String> ids) {
+        Set<String> result = new HashSet<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Map<Object, Boolean> membership = redisTemplate.opsForSet().isMember(QUEUED_IDS_KEY, ids.toArray());
+        if (membership == null) {
+            return result;
+        }
+        for (String id : ids) {
+            if (Boolean.TRUE.equals(membership.get(id))) {
+                result.add(id);
+            }
+        }
+        return result;
     }
 }
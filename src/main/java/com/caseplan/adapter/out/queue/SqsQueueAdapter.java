@@ -1,34 +1,148 @@
 package com.caseplan.adapter.out.queue;
 
 import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
-@RequiredArgsConstructor
+/**
+ * One SQS queue per priority class. Each queue gets its own worker event source mapping, so
+ * bulk backlogs are bounded by their own reserved concurrency and never delay interactive orders.
+ * A blank bulk queue URL routes bulk work to the main queue.
+ * <p>
+ * FIFO queues ({@code .fifo} URLs) get enqueue-side dedup: the plan id is the
+ * {@code MessageDeduplicationId}, so recovery paths re-sending an id within the 5-minute dedup
+ * window collapse into one delivery. Each plan is its own message group, so there is no
+ * head-of-line blocking across plans. FIFO queues reject per-message {@code DelaySeconds}; delayed
+ * sends to them go out at once, under a dedup id that includes the due time so they are not
+ * collapsed into the original send, and the worker hides them until that due time
+ * ({@code GenerateCasePlanWorkerHandler}).
+ */
 public class SqsQueueAdapter implements QueuePort {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** SQS caps per-message DelaySeconds at 15 minutes. */
+    static final int MAX_DELAY_SECONDS = 900;
+    /** SQS caps a message's visibility timeout at 12 hours. */
+    static final int MAX_VISIBILITY_SECONDS = 43_200;
 
     private final SqsClient sqsClient;
     private final String queueUrl;
+    private final String bulkQueueUrl;
 
+    public SqsQueueAdapter(SqsClient sqsClient, String queueUrl) {
+        this(sqsClient, queueUrl, null);
+    }
+
+    public SqsQueueAdapter(SqsClient sqsClient, String queueUrl, String bulkQueueUrl) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.bulkQueueUrl = bulkQueueUrl == null || bulkQueueUrl.trim().isEmpty() ? queueUrl : bulkQueueUrl.trim();
+    }
+
+    @Override
+    public void enqueue(String id, QueuePriority priority) {
+        send(id, priority, 0, id, System.currentTimeMillis());
+    }
+
+    /**
+     * Standard queues delay natively, up to the SQS maximum of 15 minutes. The payload carries the
+     * due time either way; the worker holds back a message that arrives before it, which covers
+     * FIFO queues and longer delays.
+     */
     @Override
-    public void enqueue(String id) {
+    public void enqueueAfter(String id, QueuePriority priority, Duration delay) {
+        long seconds = delay == null || delay.isNegative() ? 0L : (delay.toMillis() + 999L) / 1000L;
+        long dueEpochSecond = System.currentTimeMillis() / 1000L + seconds;
+        send(id, priority, (int) Math.min(seconds, MAX_DELAY_SECONDS), id + "-" + dueEpochSecond,
+                dueEpochSecond * 1000L);
+    }
+
+    /**
+     * {@code enqueuedAt} is when the message becomes deliverable (the due time for delayed sends),
+     * so the worker's queue-wait metric means the same as the Redis one: time spent ready but unpicked.
+     */
+    private void send(String id, QueuePriority priority, int delaySeconds, String deduplicationId, long enqueuedAt) {
         Map<String, Object> body = new HashMap<>();
         body.put("planId", id);
+        body.put("priority", priority.getValue());
+        body.put("enqueuedAt", enqueuedAt);
         try {
             String messageBody = MAPPER.writeValueAsString(body);
-            sqsClient.sendMessage(SendMessageRequest.builder()
-                    .queueUrl(queueUrl)
-                    .messageBody(messageBody)
-                    .build());
+            String url = queueUrlFor(priority);
+            SendMessageRequest.Builder request = SendMessageRequest.builder()
+                    .queueUrl(url)
+                    .messageBody(messageBody);
+            if (isFifo(url)) {
+                request.messageGroupId(id).messageDeduplicationId(deduplicationId);
+            } else {
+                request.delaySeconds(delaySeconds);
+            }
+            sqsClient.sendMessage(request.build());
         } catch (Exception e) {
             throw new RuntimeException("Failed to send SQS message for plan " + id, e);
         }
     }
+
+    /**
+     * Visible plus delayed messages, summed over the distinct class queues. Both counts are
+     * approximate by SQS's own definition; in-flight messages are being worked on and not counted.
+     */
+    @Override
+    public long depth() {
+        Set<String> urls = new LinkedHashSet<>();
+        urls.add(queueUrl);
+        urls.add(bulkQueueUrl);
+        long depth = 0L;
+        for (String url : urls) {
+            Map<QueueAttributeName, String> attributes = sqsClient.getQueueAttributes(GetQueueAttributesRequest.builder()
+                    .queueUrl(url)
+                    .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                            QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_DELAYED)
+                    .build()).attributes();
+            depth += parseCount(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES));
+            depth += parseCount(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_DELAYED));
+        }
+        return depth;
+    }
+
+    /**
+     * Keeps a received message hidden for {@code timeout} from now. The worker calls this with each
+     * generation lease heartbeat, so a message only reappears once the worker has stopped
+     * heartbeating, instead of after a fixed timeout sized for the slowest LLM call.
+     */
+    public void extendVisibility(QueuePriority priority, String receiptHandle, Duration timeout) {
+        long seconds = Math.min(MAX_VISIBILITY_SECONDS, Math.max(0L, timeout.getSeconds()));
+        sqsClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                .queueUrl(queueUrlFor(priority))
+                .receiptHandle(receiptHandle)
+                .visibilityTimeout((int) seconds)
+                .build());
+    }
+
+    private static long parseCount(String value) {
+        try {
+            return value == null ? 0L : Long.parseLong(value);
+        } catch (NumberFormatException ignored) {
+            return 0L;
+        }
+    }
+
+    private static boolean isFifo(String url) {
+        return url != null && url.endsWith(".fifo");
+    }
+
+    String queueUrlFor(QueuePriority priority) {
+        return priority == QueuePriority.BULK ? bulkQueueUrl : queueUrl;
+    }
 }
@@ -20,4 +20,6 @@ public class CreateCasePlanCommand {
     private String priorLegalActions;
     private String caseDocuments;
     private Boolean confirm;
+    /** Scheduling class: "interactive" (default) or "bulk". */
+    private String priority;
 }
@@ -0,0 +1,17 @@
+package com.caseplan.application.port.out;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Evictions of node-local cache entries, broadcast to every node running the app. Delivery is
+ * best effort: a node that misses one keeps the entry until it expires, so the caches that use this
+ * bound their entries' lifetime.
+ */
+public interface CacheInvalidationPort {
+
+    /** Tells the other nodes to drop {@code key} from their {@code cache}; a node may hear its own evictions too. */
+    void publish(String cache, String key);
+
+    /** Registers the handler for evictions published by any node: (cache, key). */
+    void subscribe(BiConsumer<String, String> handler);
+}
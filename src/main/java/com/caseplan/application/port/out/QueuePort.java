@@ -1,5 +1,44 @@
 package com.caseplan.application.port.out;
 
+import java.time.Duration;
+
 public interface QueuePort {
-    void enqueue(String id);
+
+    void enqueue(String id, QueuePriority priority);
+
+    default void enqueue(String id) {
+        enqueue(id, QueuePriority.INTERACTIVE);
+    }
+
+    /**
+     * Deliver the id only once {@code delay} has elapsed. Nothing holds a worker while it waits;
+     * a zero or negative delay is an immediate enqueue.
+     */
+    void enqueueAfter(String id, QueuePriority priority, Duration delay);
+
+    /**
+     * Move delayed items that are now due onto their ready queues. Providers with native delayed
+     * delivery have nothing to do; Redis needs a periodic caller (the consumer's mover thread).
+     *
+     * @return number of items promoted
+     */
+    default int promoteDue() {
+        return 0;
+    }
+
+    /**
+     * Approximate number of ids waiting, ready or delayed, across all priority classes. Used for
+     * admission control; -1 when the provider cannot tell.
+     */
+    default long depth() {
+        return -1L;
+    }
+
+    /**
+     * How long the oldest ready id of one class has been waiting, in millis; 0 when the class is
+     * empty and -1 when the provider cannot tell (SQS publishes ApproximateAgeOfOldestMessage itself).
+     */
+    default long oldestAgeMillis(QueuePriority priority) {
+        return -1L;
+    }
 }
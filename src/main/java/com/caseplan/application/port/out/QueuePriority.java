@@ -0,0 +1,56 @@
+package com.caseplan.application.port.out;
+
+import com.caseplan.common.exception.ValidationException;
+
+/**
+ * Scheduling class of a queued case plan. Weights drive the weighted-fair dequeue: with both
+ * classes backlogged, interactive orders get {@code 4} turns for every bulk turn, and an idle
+ * class never holds back the other.
+ */
+public enum QueuePriority {
+    INTERACTIVE("interactive", 4),
+    BULK("bulk", 1);
+
+    private final String value;
+    private final int weight;
+
+    QueuePriority(String value, int weight) {
+        this.value = value;
+        this.weight = weight;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /** Blank means "not specified" and maps to {@link #INTERACTIVE}; unknown values are rejected. */
+    public static QueuePriority fromValue(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return INTERACTIVE;
+        }
+        String normalized = value.trim();
+        for (QueuePriority priority : values()) {
+            if (priority.value.equalsIgnoreCase(normalized)) {
+                return priority;
+            }
+        }
+        throw new ValidationException("INVALID_PRIORITY", "Unknown priority: " + normalized, null);
+    }
+
+    /** Lenient variant for values read back from storage or queue payloads. */
+    public static QueuePriority fromStored(String value) {
+        if (value == null) {
+            return INTERACTIVE;
+        }
+        for (QueuePriority priority : values()) {
+            if (priority.value.equalsIgnoreCase(value.trim())) {
+                return priority;
+            }
+        }
+        return INTERACTIVE;
+    }
+}
@@ -0,0 +1,158 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.common.exception.OverloadedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queue-depth-aware admission for order creation.
+ * <p>
+ * Depth comes from the queue provider (Redis queued-id set, SQS approximate counts, ...); the
+ * drain rate is plans finished (completed or failed) per second over a recent window, read from
+ * the DB so it counts every worker, not just this node's. Their ratio is the ETA. A create is
+ * rejected with 429 once the backlog is past {@code admission.max-queue-depth} or its ETA past
+ * {@code admission.max-eta-seconds}; otherwise it is accepted with the ETA attached.
+ * <p>
+ * Both inputs are cached for a short TTL, so a burst of creates costs one depth call and one count
+ * query per TTL rather than one per request.
+ * <p>
+ * When the depth cannot be read (the broker is unreachable) the create is admitted without an
+ * estimate, as when the provider cannot report depth: creating an order only needs the outbox
+ * row, not the queue. When only the drain count fails, the depth limit still applies but no ETA
+ * is given. A failed read is cached like a good one, so an outage costs one attempt per TTL
+ * rather than a timeout per request.
+ */
+@Service
+public class AdmissionService {
+
+    private static final List<String> FINISHED_STATUSES = Arrays.asList("completed", "failed");
+    /** Retry-After when the backlog is over the limit but nothing has drained recently to estimate from. */
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 60L;
+    private static final long MAX_RETRY_AFTER_SECONDS = 3600L;
+
+    private final QueuePort queuePort;
+    private final CasePlanRepo casePlanRepo;
+    private final boolean enabled;
+    private final long maxQueueDepth;
+    private final long maxEtaSeconds;
+    private final Duration drainWindow;
+    private final long snapshotTtlMs;
+
+    private volatile Snapshot snapshot;
+
+    public AdmissionService(
+            QueuePort queuePort,
+            CasePlanRepo casePlanRepo,
+            @Value("${admission.enabled:true}") boolean enabled,
+            @Value("${admission.max-queue-depth:10000}") long maxQueueDepth,
+            @Value("${admission.max-eta-seconds:3600}") long maxEtaSeconds,
+            @Value("${admission.drain-window-seconds:300}") long drainWindowSeconds,
+            @Value("${admission.snapshot-ttl-ms:2000}") long snapshotTtlMs) {
+        this.queuePort = queuePort;
+        this.casePlanRepo = casePlanRepo;
+        this.enabled = enabled;
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxEtaSeconds = maxEtaSeconds;
+        this.drainWindow = Duration.ofSeconds(Math.max(1L, drainWindowSeconds));
+        this.snapshotTtlMs = snapshotTtlMs;
+    }
+
+    /**
+     * Admits one more plan or throws {@link OverloadedException}.
+     *
+     * @return estimated queue wait for the new plan in seconds, or null when it cannot be estimated
+     */
+    public Long admit() {
+        if (!enabled) {
+            return null;
+        }
+        Snapshot current = currentSnapshot();
+        if (current.depth() < 0) {
+            return null; // provider cannot report depth; admit without an estimate
+        }
+
+        Long eta = current.etaSeconds(current.depth() + 1);
+        boolean tooDeep = current.depth() >= maxQueueDepth;
+        boolean tooSlow = eta != null && eta > maxEtaSeconds;
+        if (tooDeep || tooSlow) {
+            long retryAfter = retryAfterSeconds(current);
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("queueDepth", current.depth());
+            detail.put("estimatedWaitSeconds", eta);
+            detail.put("retryAfterSeconds", retryAfter);
+            throw new OverloadedException(
+                    "QUEUE_BACKLOG",
+                    "Order backlog is too deep to accept new orders right now; retry in " + retryAfter + "s",
+                    detail,
+                    retryAfter
+            );
+        }
+        return eta;
+    }
+
+    /** Time for the backlog to drain down to the admission limit at the current rate. */
+    private long retryAfterSeconds(Snapshot current) {
+        if (current.drainPerSecond() <= 0) {
+            return DEFAULT_RETRY_AFTER_SECONDS;
+        }
+        double admissibleDepth = Math.min(maxQueueDepth, maxEtaSeconds * current.drainPerSecond());
+        double excess = current.depth() + 1 - admissibleDepth;
+        long seconds = (long) Math.ceil(excess / current.drainPerSecond());
+        return Math.max(1L, Math.min(MAX_RETRY_AFTER_SECONDS, seconds));
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.takenAtMillis() < snapshotTtlMs) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && now - current.takenAtMillis() < snapshotTtlMs) {
+                return current;
+            }
+            current = readSnapshot(now);
+            snapshot = current;
+            return current;
+        }
+    }
+
+    private Snapshot readSnapshot(long now) {
+        long depth;
+        try {
+            depth = queuePort.depth();
+        } catch (RuntimeException e) {
+            depth = -1L; // unknown: admitted without an estimate
+        }
+        if (depth < 0) {
+            return new Snapshot(depth, 0d, now);
+        }
+        long finished;
+        try {
+            finished = casePlanRepo.countByStatusInAndUpdatedAtAfter(FINISHED_STATUSES, Instant.now().minus(drainWindow));
+        } catch (RuntimeException e) {
+            finished = 0L; // no drain rate: the depth limit alone applies
+        }
+        return new Snapshot(depth, finished / (double) drainWindow.getSeconds(), now);
+    }
+
+    private record Snapshot(long depth, double drainPerSecond, long takenAtMillis) {
+
+        Long etaSeconds(long position) {
+            if (drainPerSecond <= 0) {
+                return null;
+            }
+            return (long) Math.ceil(position / drainPerSecond);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CasePlanContentRepo;
+import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.domain.model.CasePlan;
+import com.caseplan.domain.model.CasePlanContent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Generated plan text lives in {@code dev_caseplan_contents}, compressed, one row per generation.
+ * The plan row only carries the version number, so nothing that reads plans pays for the text
+ * unless it asks for it here.
+ */
+@Service
+@RequiredArgsConstructor
+public class CasePlanContentService {
+
+    private final CasePlanContentRepo contentRepo;
+    private final CasePlanRepo casePlanRepo;
+
+    /**
+     * Stores the content as the plan's next version and completes the plan under the caller's
+     * lease, in one transaction. If the lease was lost the new version is dropped again.
+     *
+     * @return true when the plan is now completed with this content
+     */
+    @Transactional
+    public boolean completeWithContent(Long planId, String owner, String content, int attempt) {
+        int version = contentRepo.nextVersion(planId);
+        CasePlanContent saved = contentRepo.save(new CasePlanContent(planId, version, content));
+        if (casePlanRepo.completeUnderLease(planId, owner, version, attempt, Instant.now()) == 1) {
+            return true;
+        }
+        contentRepo.delete(saved);
+        return false;
+    }
+
+    /** The plan's current content; plans generated before the split fall back to the old column. */
+    public Optional<String> currentContent(CasePlan casePlan) {
+        if (casePlan.getContentVersion() == null) {
+            return Optional.ofNullable(casePlan.getLegacyGeneratedPlan());
+        }
+        return contentRepo.findByPlanIdAndVersion(casePlan.getId(), casePlan.getContentVersion())
+                .map(CasePlanContent::getContent);
+    }
+}
@@ -3,14 +3,27 @@ package com.caseplan.application.service;
 import com.caseplan.domain.model.Attorney;
 import com.caseplan.domain.model.CaseInfo;
 import com.caseplan.domain.model.CasePlan;
+import com.caseplan.domain.model.CasePlanOutbox;
 import com.caseplan.domain.model.Client;
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
 import com.caseplan.adapter.out.persistence.CasePlanRepo;
 import com.caseplan.application.port.out.LLMService;
+import com.caseplan.application.port.out.QueuePriority;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -18,12 +31,49 @@ public class CasePlanGenerationService {
 
     private static final int MAX_ATTEMPTS = 3;
     private static final long BACKOFF_BASE_MS = 1000L;
+    private static final long DEFAULT_LEASE_TTL_SECONDS = 30L;
 
     private final CasePlanRepo casePlanRepo;
     private final LLMService llmService;
-
+    private final CasePlanOutboxRepo outboxRepo;
+    private final CasePlanContentService contentService;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Lease lifetime; a dead worker's plan is reclaimed within about this long. */
+    @Value("${caseplan.lease.ttl-seconds:30}")
+    private long leaseTtlSeconds = DEFAULT_LEASE_TTL_SECONDS;
+
+    /** Shared by all workers of the node; a renewal is one short UPDATE. */
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "caseplan-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Runs one generation attempt. A failed attempt with retries left puts the plan back to
+     * {@code pending} and, in the same transaction, writes an outbox row due after an exponential
+     * backoff, so no worker thread or Lambda invocation sits idle waiting for the retry and a
+     * failed publish cannot strand the plan in {@code pending}. Once attempts are exhausted
+     * the plan is marked {@code failed} and the failure propagates for broker redelivery/DLQ.
+     *
+     * @return true if the plan was generated by this call
+     */
     public boolean processWithRetry(Long id) {
-        Optional<CasePlan> optional = casePlanRepo.findById(id);
+        return processWithRetry(id, null);
+    }
+
+    /**
+     * As {@link #processWithRetry(Long)}, with a callback run right after the lease is taken and on
+     * every heartbeat, for delivery state that must be kept alive in step (an SQS visibility timeout).
+     * <p>
+     * The attempt runs under a lease on the row: it is taken with a conditional update, renewed
+     * every third of {@link #leaseTtl()} while the LLM call runs, and every write of the outcome is
+     * conditional on still holding it. A worker that dies stops renewing, so its plan is reclaimed
+     * within one TTL; a worker that was only paused finds its lease gone and drops its result.
+     */
+    public boolean processWithRetry(Long id, Runnable onHeartbeat) {
+        Optional<CasePlan> optional = casePlanRepo.findWithCaseInfoById(id); // the prompt reads the case, client and attorney
         if (optional.isEmpty()) {
             return false;
         }
@@ -39,33 +89,79 @@ public class CasePlanGenerationService {
         if (!"pending".equals(currentStatus) && !"processing".equals(currentStatus)) {
             return false;
         }
-        if ("pending".equals(currentStatus)) {
-            casePlan.setStatus("processing");
-            casePlanRepo.save(casePlan);
+
+        String owner = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        if (casePlanRepo.claimLease(id, owner, now.plus(leaseTtl()), now) == 0) {
+            return false; // another worker holds a live lease, or the plan finished meanwhile
         }
+        heartbeat(onHeartbeat);
 
-        Exception last = null;
-        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
-            try {
-                String generated = generatePlanWithLLM(casePlan.getCaseInfo());
-                casePlan.setGeneratedPlan(generated);
-                casePlan.setStatus("completed");
-                casePlan.setErrorMessage(null);
-                casePlanRepo.save(casePlan);
-                return true;
-            } catch (Exception e) {
-                last = e;
-                if (attempt < MAX_ATTEMPTS) {
-                    sleep(BACKOFF_BASE_MS * (1L << (attempt - 1)));
-                }
+        int attempt = (casePlan.getAttemptCount() == null ? 0 : casePlan.getAttemptCount()) + 1;
+        ScheduledFuture<?> renewal = heartbeats.scheduleAtFixedRate(() -> renewLease(id, owner, onHeartbeat),
+                heartbeatIntervalMillis(), heartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+        try {
+            String generated = generatePlanWithLLM(casePlan.getCaseInfo());
+            return contentService.completeWithContent(id, owner, generated, attempt);
+        } catch (Exception e) {
+            if (attempt < MAX_ATTEMPTS) {
+                scheduleRetry(id, casePlan.getPriority(), owner, e.getMessage(), attempt);
+                return false;
+            }
+            if (casePlanRepo.releaseUnderLease(id, owner, "failed", e.getMessage(), attempt, Instant.now()) == 0) {
+                return false; // lease lost: the plan is someone else's attempt now
             }
+            throw generationFailed(id);
+        } finally {
+            renewal.cancel(false);
         }
+    }
 
-        casePlan.setStatus("failed");
-        // All MAX_ATTEMPTS attempts threw, so the last exception is always set here
-        casePlan.setErrorMessage(last.getMessage());
-        casePlanRepo.save(casePlan);
-        throw generationFailed(id);
+    /** Nothing is scheduled if the lease was lost: the plan is someone else's attempt then. */
+    private void scheduleRetry(Long id, String storedPriority, String owner, String error, int attempt) {
+        Instant now = Instant.now();
+        Instant availableAt = now.plusMillis(BACKOFF_BASE_MS * (1L << (attempt - 1)));
+        String priority = QueuePriority.fromStored(storedPriority).getValue();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (casePlanRepo.releaseUnderLease(id, owner, "pending", error, attempt, now) == 1) {
+                outboxRepo.save(new CasePlanOutbox(id, priority, availableAt));
+            }
+        });
+    }
+
+    public Duration leaseTtl() {
+        return Duration.ofSeconds(Math.max(1L, leaseTtlSeconds));
+    }
+
+    private long heartbeatIntervalMillis() {
+        return Math.max(1L, leaseTtl().toMillis() / 3);
+    }
+
+    /** One renewal; a failed one is retried on the next tick while the lease has TTL left. */
+    private void renewLease(Long id, String owner, Runnable onHeartbeat) {
+        try {
+            if (casePlanRepo.renewLease(id, owner, Instant.now().plus(leaseTtl())) == 1) {
+                heartbeat(onHeartbeat);
+            }
+        } catch (Exception ignored) {
+            // DB blip: two more ticks fit in the TTL
+        }
+    }
+
+    private void heartbeat(Runnable onHeartbeat) {
+        if (onHeartbeat == null) {
+            return;
+        }
+        try {
+            onHeartbeat.run();
+        } catch (Exception ignored) {
+            // best-effort: the lease on the row is what guards against double work
+        }
+    }
+
+    @PreDestroy
+    void stopHeartbeats() {
+        heartbeats.shutdownNow();
     }
 
     private String generatePlanWithLLM(CaseInfo caseInfo) {
@@ -110,15 +206,6 @@ public class CasePlanGenerationService {
         return trimmed.isEmpty() ? fallback : trimmed;
     }
 
-    private void sleep(long ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("interrupted", e);
-        }
-    }
-
     private IllegalStateException generationFailed(Long id) {
         return new IllegalStateException("Case plan generation failed for id=" + id);
     }
@@ -5,17 +5,21 @@ import com.caseplan.common.exception.BlockException;
 import com.caseplan.common.exception.WarningException;
 import com.caseplan.domain.model.*;
 import com.caseplan.adapter.out.persistence.*;
-import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import com.caseplan.application.port.out.QueuePriority;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,32 +30,69 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CasePlanService {
 
-    private static final String SERVICE_NUMBER_PREFIX = "SRV-";
-    private static final DateTimeFormatter SERVICE_DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+    /** A plan retried sooner than this after it failed waits out the remainder on the delayed queue. */
+    private static final Duration RETRY_COOLDOWN = Duration.ofSeconds(30);
 
     private final CasePlanRepo casePlanRepo;
     private final CaseInfoRepo caseInfoRepo;
     private final ClientRepo clientRepo;
     private final AttorneyRepo attorneyRepo;
-    private final QueuePort queuePort;
-
+    private final CasePlanOutboxRepo outboxRepo;
+    private final AdmissionService admissionService;
+    private final ServiceNumberAllocator serviceNumberAllocator;
+    private final CasePlanContentService contentService;
+    private final LookupCache lookupCache;
+    private final ArchivedPlanRepo archivedPlanRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Orders per page of {@link #listOrders} when the caller does not ask for a size. */
+    @Value("${orders.page.default-limit:50}")
+    private int ordersDefaultLimit = 50;
+    /** Upper bound on a requested page size, so one poll cannot pull the whole history. */
+    @Value("${orders.page.max-limit:200}")
+    private int ordersMaxLimit = 200;
+
+    /** Read-only: legacy rows without a service number are numbered by {@link ServiceNumberBackfillService}. */
+    @Transactional(readOnly = true)
     public List<CasePlan> listAll() {
-        List<CasePlan> plans = casePlanRepo.findAllByOrderByCreatedAtDesc();
-        for (CasePlan plan : plans) {
-            if (plan != null) {
-                ensureServiceNumber(plan.getCaseInfo());
-            }
+        return casePlanRepo.findAllByOrderByCreatedAtDesc();
+    }
+
+    /**
+     * Keyset page of the orders list, newest first. Each page is one indexed range scan over
+     * (created_at, id) into a projection without the plan text, so its cost does not depend on
+     * how much history precedes it.
+     *
+     * @param cursor {@link OrderSummaryPage#getNextCursor()} of the previous page, or null for the first
+     * @param limit  page size, clamped to {@code orders.page.max-limit}; null for the default
+     */
+    @Transactional(readOnly = true)
+    public OrderSummaryPage listOrders(String cursor, Integer limit) {
+        int size = limit == null ? ordersDefaultLimit : Math.min(Math.max(limit, 1), ordersMaxLimit);
+        OrderCursor after = OrderCursor.decode(cursor);
+        // One extra row tells whether an older page exists without a count query.
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<OrderSummary> rows = after == null
+                ? casePlanRepo.findOrderSummaries(pageable)
+                : casePlanRepo.findOrderSummariesBefore(after.createdAt(), after.id(), pageable);
+        if (rows.size() <= size) {
+            return new OrderSummaryPage(rows, null);
         }
-        return plans;
+        List<OrderSummary> items = rows.subList(0, size);
+        OrderSummary last = items.get(size - 1);
+        return new OrderSummaryPage(items, new OrderCursor(last.getCreatedAt(), last.getId()).encode());
     }
 
+    @Transactional(readOnly = true)
     public Page<CasePlan> listPage(int page, int pageSize, String status, String patientName) {
         int normalizedPage = Math.max(page, 1);
         int normalizedPageSize = Math.max(pageSize, 1);
         Pageable pageable = PageRequest.of(normalizedPage - 1, normalizedPageSize);
-        return casePlanRepo.search(normalizeOptional(status), normalizeOptional(patientName), pageable);
+        String name = normalizeOptional(patientName);
+        return casePlanRepo.search(normalizeOptional(status), name == null ? null : Client.normalizeName(name), pageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<CasePlan> listByClientIdPage(Long clientId, int page, int pageSize, String status) {
         int normalizedPage = Math.max(page, 1);
         int normalizedPageSize = Math.max(pageSize, 1);
@@ -59,16 +100,46 @@ public class CasePlanService {
         return casePlanRepo.findByClientIdAndStatus(clientId, normalizeOptional(status), pageable);
     }
 
+    /** Plans past the retention window are read from the archive, only once the live tables miss. */
     @SuppressWarnings("null")
     public Optional<CasePlan> getById(Long id) {
-        return casePlanRepo.findById(id);
+        return ReadRouting.orOnPrimary(casePlanRepo.findWithCaseInfoById(id), () -> casePlanRepo.findWithCaseInfoById(id))
+                .or(() -> archivedPlanRepo.findWithCaseInfoById(id));
     }
 
-    @SuppressWarnings("null")
+    /**
+     * Persists the case and a pending plan. The queue hand-off is an outbox row committed in the
+     * same transaction, so the request makes no remote queue call and a plan can never be saved
+     * without its publish intent; {@link OutboxRelayService} delivers it. Attorneys and clients
+     * seen before are looked up by bar and id number in {@link LookupCache}.
+     * <p>
+     * The rows are written by a single flush at commit, one batch per table: ids come from
+     * pooled sequences, so a save only queues its insert, and none of the lookups reads a table
+     * with an insert queued by this order, so none of them forces an earlier flush. The client's
+     * earlier cases are read with one query, and not at all for a client this order creates.
+     * <p>
+     * The service number is taken before the transaction opens: when the local range runs out the
+     * allocator reserves the next block in a transaction of its own, which must not wait for a
+     * second pooled connection while this order holds one. An order rejected afterwards skips
+     * its number, as an unused block does.
+     */
     public CreateCasePlanResult create(CreateCasePlanCommand command) {
+        QueuePriority priority = QueuePriority.fromValue(command.getPriority());
+        // Reject before touching any table: a surge must not cost DB writes it will never use.
+        Long estimatedWaitSeconds = admissionService.admit();
+        LocalDate today = LocalDate.now();
+        String serviceNumber = serviceNumberAllocator.next(today);
+        return transactionTemplate.execute(status ->
+                createInTransaction(command, priority, today, serviceNumber, estimatedWaitSeconds));
+    }
+
+    @SuppressWarnings("null")
+    private CreateCasePlanResult createInTransaction(CreateCasePlanCommand command, QueuePriority priority,
+                                                     LocalDate today, String serviceNumber,
+                                                     Long estimatedWaitSeconds) {
         List<WarningException> warnings = new ArrayList<>();
 
-        Optional<Attorney> existingAttorneyByBar = attorneyRepo.findByBarNumber(command.getBarNumber());
+        Optional<Attorney> existingAttorneyByBar = lookupCache.attorneyByBarNumber(command.getBarNumber());
         Attorney attorney;
         if (existingAttorneyByBar.isPresent()) {
             Attorney existing = existingAttorneyByBar.get();
@@ -90,9 +161,9 @@ public class CasePlanService {
             attorney = attorneyRepo.save(attorney);
         }
 
-        Client client;
+        Optional<Client> existingClient;
         if (command.getClientIdNumber() != null && !command.getClientIdNumber().isEmpty()) {
-            Optional<Client> existingClientByIdNumber = clientRepo.findByIdNumber(command.getClientIdNumber());
+            Optional<Client> existingClientByIdNumber = lookupCache.clientByIdNumber(command.getClientIdNumber());
             if (existingClientByIdNumber.isPresent()) {
                 Client existing = existingClientByIdNumber.get();
                 if (!(existing.getFirstName().equals(command.getClientFirstName())
@@ -111,53 +182,27 @@ public class CasePlanService {
                     }
                     warnings.add(warning);
                 }
-                client = existing;
+                existingClient = existingClientByIdNumber;
             } else {
-                client = resolveClientByName(command, warnings);
+                existingClient = findClientByName(command, warnings);
             }
         } else {
-            client = resolveClientByName(command, warnings);
+            existingClient = findClientByName(command, warnings);
         }
+        Client client = existingClient.orElseGet(() -> newClient(command));
 
-        LocalDate today = LocalDate.now();
-        Instant startOfDay = today.atStartOfDay(ZoneId.systemDefault()).toInstant();
-        Instant endOfDay = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
         String opposingParty = command.getOpposingParty() != null ? command.getOpposingParty() : "";
         String primaryCause = command.getPrimaryCauseOfAction() != null ? command.getPrimaryCauseOfAction() : "";
-
-        List<CaseInfo> duplicateCases = caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                client.getId(), primaryCause, opposingParty, startOfDay, endOfDay);
-        if (!duplicateCases.isEmpty()) {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("existingCase", caseInfoSummary(duplicateCases.getFirst()));
-            throw new BlockException(
-                    "DUPLICATE_CASE_SAME_DAY",
-                    "Duplicate case: same client, cause of action, opposing party, and same day already exists",
-                    detail
-            );
-        }
-
-        List<CaseInfo> similarCases = caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                client.getId(), primaryCause, opposingParty, Instant.ofEpochMilli(0), startOfDay);
-        if (!similarCases.isEmpty()) {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("existingCase", caseInfoSummary(similarCases.getFirst()));
-            WarningException warning = new WarningException(
-                    "SIMILAR_CASE_DIFFERENT_DAY",
-                    "Similar case exists on different day. This might be a case update or reopening.",
-                    detail
-            );
-            if (command.getConfirm() == null || !command.getConfirm()) {
-                throw warning;
-            }
-            warnings.add(warning);
+        // A client this order creates has no cases yet, so there is nothing to compare against.
+        if (existingClient.isPresent()) {
+            checkEarlierCases(command, client, primaryCause, opposingParty, today, warnings);
         }
 
         CaseInfo caseInfo = new CaseInfo();
         caseInfo.setClient(client);
         caseInfo.setAttorney(attorney);
         caseInfo.setCaseNumber(normalizeOptional(command.getDocketNumber()));
-        caseInfo.setServiceNumber(generateNextServiceNumber(today));
+        caseInfo.setServiceNumber(serviceNumber);
         caseInfo.setPrimaryCauseOfAction(primaryCause);
         // Store the normalized value ("" instead of null) so the same-day duplicate
         // check, which queries with "", can actually match rows created without one.
@@ -172,22 +217,63 @@ public class CasePlanService {
         CasePlan casePlan = new CasePlan();
         casePlan.setCaseInfo(caseInfo);
         casePlan.setStatus("pending");
+        casePlan.setPriority(priority.getValue());
         casePlanRepo.save(casePlan);
 
         Long planId = casePlan.getId();
         if (planId != null) {
-            queuePort.enqueue(String.valueOf(planId));
+            outboxRepo.save(new CasePlanOutbox(planId, priority.getValue()));
         }
 
-        return new CreateCasePlanResult(casePlan, warnings);
+        return new CreateCasePlanResult(casePlan, warnings, estimatedWaitSeconds);
     }
 
+    /** Not transactional itself: {@link #create} reserves the service number before its transaction opens. */
     @SuppressWarnings("null")
     public CasePlan createCasePlan(CreateCasePlanCommand command) {
         return create(command).getCasePlan();
     }
 
-    private Client resolveClientByName(CreateCasePlanCommand command, List<WarningException> warnings) {
+    /**
+     * One query for both checks on the client's earlier cases with the same cause and opposing
+     * party: one from today blocks the order, an older one asks for confirmation.
+     */
+    private void checkEarlierCases(CreateCasePlanCommand command, Client client, String primaryCause,
+                                   String opposingParty, LocalDate today, List<WarningException> warnings) {
+        Instant startOfDay = today.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        Instant endOfDay = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        List<CaseInfo> earlierCases = caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                client.getId(), primaryCause, opposingParty, endOfDay);
+
+        Optional<CaseInfo> duplicateCase = earlierCases.stream()
+                .filter(c -> c.getCreatedAt() != null && !c.getCreatedAt().isBefore(startOfDay))
+                .findFirst();
+        if (duplicateCase.isPresent()) {
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("existingCase", caseInfoSummary(duplicateCase.get()));
+            throw new BlockException(
+                    "DUPLICATE_CASE_SAME_DAY",
+                    "Duplicate case: same client, cause of action, opposing party, and same day already exists",
+                    detail
+            );
+        }
+
+        if (!earlierCases.isEmpty()) {
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("existingCase", caseInfoSummary(earlierCases.getFirst()));
+            WarningException warning = new WarningException(
+                    "SIMILAR_CASE_DIFFERENT_DAY",
+                    "Similar case exists on different day. This might be a case update or reopening.",
+                    detail
+            );
+            if (command.getConfirm() == null || !command.getConfirm()) {
+                throw warning;
+            }
+            warnings.add(warning);
+        }
+    }
+
+    private Optional<Client> findClientByName(CreateCasePlanCommand command, List<WarningException> warnings) {
         Optional<Client> existingClientByName = clientRepo.findByFirstNameAndLastName(
                 command.getClientFirstName(), command.getClientLastName());
         if (existingClientByName.isPresent()) {
@@ -207,9 +293,11 @@ public class CasePlanService {
                 }
                 warnings.add(warning);
             }
-            return existing;
         }
+        return existingClientByName;
+    }
 
+    private Client newClient(CreateCasePlanCommand command) {
         Client client = new Client();
         client.setFirstName(command.getClientFirstName());
         client.setLastName(command.getClientLastName());
@@ -226,62 +314,24 @@ public class CasePlanService {
         return trimmed.isEmpty() ? null : trimmed;
     }
 
-    private void ensureServiceNumber(CaseInfo caseInfo) {
-        if (caseInfo == null || hasText(caseInfo.getServiceNumber())) {
-            return;
-        }
-        LocalDate date = caseInfo.getCreatedAt() == null
-                ? LocalDate.now()
-                : caseInfo.getCreatedAt().atZone(ZoneId.systemDefault()).toLocalDate();
-        caseInfo.setServiceNumber(generateNextServiceNumber(date));
-        caseInfoRepo.save(caseInfo);
-    }
-
-    private boolean hasText(String value) {
-        return value != null && !value.trim().isEmpty();
-    }
-
-    private String generateNextServiceNumber(LocalDate date) {
-        String prefix = SERVICE_NUMBER_PREFIX + date.format(SERVICE_DATE_FORMATTER) + "-";
-        Optional<CaseInfo> latest = Optional.ofNullable(
-                caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc(prefix))
-                .orElse(Optional.empty());
-
-        int next = latest
-                .map(CaseInfo::getServiceNumber)
-                .map(this::extractServiceSequence)
-                .orElse(0) + 1;
-        return prefix + String.format("%04d", next);
-    }
-
-    private int extractServiceSequence(String serviceNumber) {
-        if (serviceNumber == null) {
-            return 0;
-        }
-        int lastDash = serviceNumber.lastIndexOf('-');
-        if (lastDash < 0 || lastDash == serviceNumber.length() - 1) {
-            return 0;
-        }
-        try {
-            return Integer.parseInt(serviceNumber.substring(lastDash + 1));
-        } catch (NumberFormatException ignored) {
-            return 0;
-        }
+    /** Polled right after create, so a plan a read replica does not have yet is looked up on the primary. */
+    public Map<String, Object> getStatus(Long id) {
+        return ReadRouting.orOnPrimary(readStatus(id), () -> readStatus(id))
+                .or(() -> archivedPlanRepo.findWithCaseInfoById(id).map(this::statusBody))
+                .orElse(null);
     }
 
     @SuppressWarnings("null")
-    public Map<String, Object> getStatus(Long id) {
-        Optional<CasePlan> optional = casePlanRepo.findById(id);
-        if (optional.isEmpty()) {
-            return null;
-        }
+    private Optional<Map<String, Object>> readStatus(Long id) {
+        return casePlanRepo.findById(id).map(this::statusBody);
+    }
 
-        CasePlan casePlan = optional.get();
+    private Map<String, Object> statusBody(CasePlan casePlan) {
         Map<String, Object> body = new HashMap<>();
         body.put("status", casePlan.getStatus());
 
         if ("completed".equals(casePlan.getStatus())) {
-            body.put("content", casePlan.getGeneratedPlan());
+            body.put("content", contentService.currentContent(casePlan).orElse(null));
         } else if ("failed".equals(casePlan.getStatus())) {
             body.put("error", casePlan.getErrorMessage());
         }
@@ -289,6 +339,14 @@ public class CasePlanService {
         return body;
     }
 
+    /**
+     * Resets a failed plan to pending and queues it once the retry cooldown has passed. The reset
+     * is one conditional {@code UPDATE}, so of two concurrent retries, or a retry racing any other
+     * status change, only one wins; the loser is refused like a retry of a plan that is not failed.
+     * The winner writes an outbox row due at the end of the cooldown in the same transaction, so a
+     * plan reset to pending is never left off the queue. The returned plan is the copy read
+     * beforehand, brought in line with the reset.
+     */
     @SuppressWarnings("null")
     public Optional<CasePlan> retryFailed(Long id) {
         Optional<CasePlan> optional = casePlanRepo.findById(id);
@@ -298,36 +356,64 @@ public class CasePlanService {
 
         CasePlan casePlan = optional.get();
         if (!"failed".equals(casePlan.getStatus())) {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("currentStatus", casePlan.getStatus());
-            throw new BlockException(
-                    "CASEPLAN_RETRY_NOT_ALLOWED",
-                    "Only failed caseplans can be retried",
-                    detail
-            );
+            throw retryNotAllowed(casePlan.getStatus());
+        }
+
+        Instant now = Instant.now();
+        Instant availableAt = now.plus(retryDelay(casePlan.getUpdatedAt()));
+        String priority = QueuePriority.fromStored(casePlan.getPriority()).getValue();
+        Boolean reset = transactionTemplate.execute(status -> {
+            if (casePlanRepo.resetFailedForRetry(id, now) == 0) {
+                return false;
+            }
+            outboxRepo.save(new CasePlanOutbox(id, priority, availableAt));
+            return true;
+        });
+        if (!Boolean.TRUE.equals(reset)) {
+            throw retryNotAllowed(casePlanRepo.findById(id).map(CasePlan::getStatus).orElse(null));
         }
 
         casePlan.setStatus("pending");
         casePlan.setErrorMessage(null);
-        casePlan.setGeneratedPlan(null);
-        CasePlan saved = casePlanRepo.save(casePlan);
+        casePlan.setContentVersion(null);
+        casePlan.setLegacyGeneratedPlan(null);
+        casePlan.setAttemptCount(0);
+        casePlan.setUpdatedAt(now);
+        return Optional.of(casePlan);
+    }
+
+    private static BlockException retryNotAllowed(String currentStatus) {
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("currentStatus", currentStatus);
+        return new BlockException(
+                "CASEPLAN_RETRY_NOT_ALLOWED",
+                "Only failed caseplans can be retried",
+                detail
+        );
+    }
 
-        if (saved.getId() != null) {
-            queuePort.enqueue(String.valueOf(saved.getId()));
+    private Duration retryDelay(Instant failedAt) {
+        if (failedAt == null) {
+            return Duration.ZERO;
         }
-        return Optional.of(saved);
+        Duration remaining = RETRY_COOLDOWN.minus(Duration.between(failedAt, Instant.now()));
+        return remaining.isNegative() ? Duration.ZERO : remaining;
     }
 
+    /** @return the plan text, or empty when there is no such plan */
     @SuppressWarnings("null")
-    public Optional<CasePlan> getForDownload(Long id) {
-        Optional<CasePlan> optional = casePlanRepo.findById(id);
+    public Optional<String> getForDownload(Long id) {
+        Optional<CasePlan> optional = ReadRouting.orOnPrimary(casePlanRepo.findById(id), () -> casePlanRepo.findById(id))
+                .or(() -> archivedPlanRepo.findWithCaseInfoById(id));
         if (optional.isEmpty()) {
             return Optional.empty();
         }
 
         CasePlan casePlan = optional.get();
-        String content = casePlan.getGeneratedPlan();
-        if (!"completed".equals(casePlan.getStatus()) || content == null || content.trim().isEmpty()) {
+        String content = "completed".equals(casePlan.getStatus())
+                ? contentService.currentContent(casePlan).orElse(null)
+                : null;
+        if (content == null || content.trim().isEmpty()) {
             Map<String, Object> detail = new HashMap<>();
             detail.put("currentStatus", casePlan.getStatus());
             throw new BlockException(
@@ -337,7 +423,7 @@ public class CasePlanService {
             );
         }
 
-        return Optional.of(casePlan);
+        return Optional.of(content);
     }
 
     /**
@@ -0,0 +1,45 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.ClientNameIndexRepo;
+import com.caseplan.adapter.out.persistence.ClientNameIndexRepo.UnnormalizedClient;
+import com.caseplan.domain.model.Client;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills {@code full_name_normalized} for clients written before it existed. New and edited clients
+ * maintain the column themselves ({@link Client}).
+ */
+@Service
+@RequiredArgsConstructor
+public class ClientNameIndexService {
+
+    /** Returned by {@link #normalizeBatch} once nothing is left past the position. */
+    public static final long DONE = -1L;
+
+    private final ClientNameIndexRepo indexRepo;
+
+    /**
+     * Normalizes up to {@code limit} clients after {@code afterId} with the same rule the entity
+     * applies, so stored and searched names always agree.
+     *
+     * @return the id to continue after, or {@link #DONE}
+     */
+    public long normalizeBatch(long afterId, int limit) {
+        List<UnnormalizedClient> rows = indexRepo.findUnnormalized(afterId, limit);
+        if (rows.isEmpty()) {
+            return DONE;
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<String> names = new ArrayList<>(rows.size());
+        for (UnnormalizedClient row : rows) {
+            ids.add(row.id());
+            names.add(Client.normalizeFullName(row.firstName(), row.lastName()));
+        }
+        indexRepo.setNormalized(ids, names);
+        return rows.size() < limit ? DONE : rows.get(rows.size() - 1).id();
+    }
+}
@@ -1,5 +1,6 @@
 package com.caseplan.application.service;
 
+import com.caseplan.adapter.out.datasource.ReadRouting;
 import com.caseplan.adapter.out.persistence.ClientRepo;
 import com.caseplan.adapter.out.persistence.CasePlanRepo;
 import com.caseplan.common.exception.BlockException;
@@ -24,6 +25,7 @@ public class ClientService {
 
     private final ClientRepo clientRepo;
     private final CasePlanRepo casePlanRepo;
+    private final LookupCache lookupCache;
 
     public CreateClientResult create(String firstName, String lastName, String idNumber) {
         String normalizedFirstName = normalizeRequired(firstName, "Client first name is required");
@@ -87,7 +89,7 @@ public class ClientService {
     }
 
     public Optional<Client> getById(Long id) {
-        return clientRepo.findById(id);
+        return ReadRouting.orOnPrimary(clientRepo.findById(id), () -> clientRepo.findById(id));
     }
 
     public Optional<Client> update(Long id, String firstName, String lastName, String idNumber) {
@@ -101,6 +103,7 @@ public class ClientService {
         String normalizedIdNumber = normalizeOptional(idNumber);
 
         Client current = optional.get();
+        String previousIdNumber = current.getIdNumber();
 
         if (normalizedIdNumber != null) {
             Optional<Client> existingById = clientRepo.findByIdNumber(normalizedIdNumber);
@@ -125,11 +128,14 @@ public class ClientService {
         current.setFirstName(normalizedFirstName);
         current.setLastName(normalizedLastName);
         current.setIdNumber(normalizedIdNumber);
-        return Optional.of(clientRepo.save(current));
+        Client saved = clientRepo.save(current);
+        lookupCache.evictClient(previousIdNumber);
+        return Optional.of(saved);
     }
 
     public boolean delete(Long id) {
-        if (!clientRepo.existsById(id)) {
+        Optional<Client> existing = clientRepo.findById(id);
+        if (existing.isEmpty()) {
             return false;
         }
 
@@ -148,6 +154,7 @@ public class ClientService {
         }
 
         clientRepo.deleteById(id);
+        lookupCache.evictClient(existing.get().getIdNumber());
         return true;
     }
 
@@ -2,14 +2,20 @@ package com.caseplan.application.service;
 
 import com.caseplan.common.exception.WarningException;
 import com.caseplan.domain.model.CasePlan;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 
 @Getter
-@RequiredArgsConstructor
+@AllArgsConstructor
 public class CreateCasePlanResult {
     private final CasePlan casePlan;
     private final List<WarningException> warnings;
+    /** Admission's estimate of the queue wait for this plan, in seconds; null when unknown. */
+    private final Long estimatedWaitSeconds;
+
+    public CreateCasePlanResult(CasePlan casePlan, List<WarningException> warnings) {
+        this(casePlan, warnings, null);
+    }
 }
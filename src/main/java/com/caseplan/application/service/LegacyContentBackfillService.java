@@ -0,0 +1,50 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.LegacyContentBackfillRepo;
+import com.caseplan.adapter.out.persistence.LegacyContentBackfillRepo.LegacyContent;
+import com.caseplan.domain.model.CompressedTextConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves plan text written before the content split into {@code dev_caseplan_contents}, one keyset
+ * batch per call, and clears the old column. Loading a plan then reads no text at all, whatever
+ * its age. The work is its own progress record: a restarted backfill simply finds fewer rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class LegacyContentBackfillService {
+
+    /** Returned by {@link #backfillBatch} once a short batch shows nothing is left past the position. */
+    public static final long DONE = -1L;
+
+    private final LegacyContentBackfillRepo backfillRepo;
+    private final CompressedTextConverter compressor = new CompressedTextConverter();
+
+    /**
+     * Locks up to {@code limit} plans with inline text after {@code afterId}, compresses the texts
+     * and moves them all with one statement.
+     *
+     * @return the id to continue after, or {@link #DONE}
+     */
+    @Transactional
+    public long backfillBatch(long afterId, int limit) {
+        List<LegacyContent> rows = backfillRepo.lockLegacy(afterId, limit);
+        if (rows.isEmpty()) {
+            return DONE;
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<byte[]> contents = new ArrayList<>(rows.size());
+        for (LegacyContent row : rows) {
+            ids.add(row.id());
+            contents.add(compressor.convertToDatabaseColumn(row.content()));
+        }
+        backfillRepo.moveToContents(ids, contents, Instant.now());
+        return rows.size() < limit ? DONE : rows.get(rows.size() - 1).id();
+    }
+}
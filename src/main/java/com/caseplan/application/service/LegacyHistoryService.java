@@ -0,0 +1,145 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.LegacyHistoryRepo;
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo;
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo.PlanPartition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.caseplan.application.service.PlanPartitionService.ARCHIVE_SUFFIX;
+import static com.caseplan.application.service.PlanPartitionService.CASES;
+import static com.caseplan.application.service.PlanPartitionService.PLANS;
+
+/**
+ * Splits the history past retention off the {@code _legacy} partitions that V8 attached with
+ * every row that existed then. The history moves, one keyset batch per call, to a
+ * {@code <table>_history} partition of the archive that ends where retention starts; once none is
+ * left, the legacy partition is re-attached to start there as well. Live queries then stop
+ * scanning the history, and {@link PlanPartitionService} later archives the rest of the legacy
+ * partition like any month.
+ * <p>
+ * The rules are those of {@link PlanPartitionService}, applied per row: pending and processing
+ * plans stay live until they finish, and a case stays live while one of its plans does. A case
+ * month may hold the plans of the month after it, so the cases' history ends one month earlier.
+ * The work is its own progress record: a restarted job simply finds fewer rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class LegacyHistoryService {
+
+    /** Returned by the batch calls once a short batch shows nothing is left past the position. */
+    public static final long DONE = -1L;
+
+    static final String HISTORY_SUFFIX = "_history";
+
+    private final PlanPartitionRepo partitionRepo;
+    private final LegacyHistoryRepo historyRepo;
+
+    /** Whole months kept live before the current one; 0 or less keeps everything. */
+    @Value("${caseplan.partitioning.retention-months:12}")
+    private int retentionMonths = 12;
+
+    /**
+     * Where the plans' history ends, creating the archive partitions that take it. Keeps the end
+     * a previous run chose, so every row goes to the same place however long the split takes.
+     *
+     * @return null when there is no history to split off: retention is off, both legacy
+     *         partitions already start later, or retention covers all of one, which
+     *         {@link PlanPartitionService} then archives whole
+     */
+    public LocalDate start(LocalDate today) {
+        if (retentionMonths <= 0) {
+            return null;
+        }
+        PlanPartition plans = legacy(PLANS);
+        PlanPartition cases = legacy(CASES);
+        if (plans == null && cases == null) {
+            return null;
+        }
+        LocalDate historyEnd = partitionRepo.partitions(PLANS + ARCHIVE_SUFFIX).stream()
+                .filter(p -> p.name().equals(PLANS + HISTORY_SUFFIX))
+                .map(PlanPartition::to)
+                .findFirst()
+                .orElse(today.withDayOfMonth(1).minusMonths(retentionMonths));
+        if ((plans != null && !historyEnd.isBefore(plans.to())) || (cases != null && !historyEnd.isBefore(cases.to()))) {
+            return null;
+        }
+        if (plans != null) {
+            partitionRepo.createPartition(PLANS + ARCHIVE_SUFFIX, PLANS + HISTORY_SUFFIX, null, historyEnd);
+        }
+        if (cases != null) {
+            partitionRepo.createPartition(CASES + ARCHIVE_SUFFIX, CASES + HISTORY_SUFFIX, null, casesEnd(historyEnd));
+        }
+        return historyEnd;
+    }
+
+    /**
+     * Locks up to {@code limit} finished legacy plans after {@code afterId} created before
+     * {@code historyEnd} and moves them to the archive.
+     *
+     * @return the id to continue after, or {@link #DONE}
+     */
+    @Transactional
+    public long archivePlans(LocalDate historyEnd, long afterId, int limit) {
+        List<Long> ids = historyRepo.lockPlans(historyEnd, afterId, limit);
+        if (ids.isEmpty()) {
+            return DONE;
+        }
+        historyRepo.archivePlans(ids);
+        return ids.size() < limit ? DONE : ids.get(ids.size() - 1);
+    }
+
+    /**
+     * Locks up to {@code limit} legacy cases after {@code afterId} from before the cases' history
+     * end that have no live plan left, and moves them to the archive.
+     *
+     * @return the id to continue after, or {@link #DONE}
+     */
+    @Transactional
+    public long archiveCases(LocalDate historyEnd, long afterId, int limit) {
+        List<Long> ids = historyRepo.lockCases(casesEnd(historyEnd), afterId, limit);
+        if (ids.isEmpty()) {
+            return DONE;
+        }
+        historyRepo.archiveCases(ids);
+        return ids.size() < limit ? DONE : ids.get(ids.size() - 1);
+    }
+
+    /**
+     * Re-attaches each legacy partition that has no history left to start where its history ends.
+     *
+     * @return whether both are done; false while rows held back by active plans remain
+     */
+    public boolean finish(LocalDate historyEnd) {
+        boolean plansDone = rebound(PLANS, historyEnd);
+        boolean casesDone = rebound(CASES, casesEnd(historyEnd));
+        return plansDone && casesDone;
+    }
+
+    private boolean rebound(String parent, LocalDate from) {
+        PlanPartition legacy = legacy(parent);
+        if (legacy == null) {
+            return true;
+        }
+        if (partitionRepo.hasRowsBefore(legacy.name(), from)) {
+            return false;
+        }
+        partitionRepo.prepareRebound(legacy, from);
+        partitionRepo.validateRebound(legacy);
+        partitionRepo.rebound(parent, legacy, from);
+        return true;
+    }
+
+    private PlanPartition legacy(String parent) {
+        return partitionRepo.partitions(parent).stream().filter(p -> p.from() == null).findFirst().orElse(null);
+    }
+
+    private static LocalDate casesEnd(LocalDate historyEnd) {
+        return historyEnd.minusMonths(1);
+    }
+}
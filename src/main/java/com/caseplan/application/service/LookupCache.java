@@ -0,0 +1,142 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.AttorneyRepo;
+import com.caseplan.adapter.out.persistence.ClientRepo;
+import com.caseplan.application.port.out.CacheInvalidationPort;
+import com.caseplan.domain.model.Attorney;
+import com.caseplan.domain.model.Client;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Node-local cache of the existing attorneys and clients that order creation looks up by bar
+ * number and id number, so a create for a known party only reads the database for its duplicate
+ * checks and writes.
+ * <p>
+ * Only rows that exist are cached, and only once the transaction that read them has committed: a
+ * row one of its own earlier statements inserted could still roll back. A new party is therefore
+ * always looked up in the database, and inserts never need an eviction. Client updates and deletes
+ * evict the client's id number on every node through {@link CacheInvalidationPort}; entries also
+ * expire after {@code caseplan.lookup-cache.ttl-seconds}, which bounds staleness when a broadcast
+ * is lost. The cached entities are detached and shared between threads: callers only read them and
+ * reference them from new rows.
+ * <p>
+ * Meters, tagged {@code cache=attorney|client}: {@code caseplan.lookup.cache.gets{result=hit|miss}},
+ * {@code caseplan.lookup.cache.hit.ratio} and {@code caseplan.lookup.cache.size}.
+ */
+@Service
+public class LookupCache {
+
+    static final String ATTORNEYS = "attorney";
+    static final String CLIENTS = "client";
+    private static final String GETS_DESCRIPTION =
+            "Lookups served from the node-local cache (hit) or the database (miss)";
+
+    private final AttorneyRepo attorneyRepo;
+    private final ClientRepo clientRepo;
+    private final CacheInvalidationPort invalidation;
+    private final NearCache<String, Attorney> attorneysByBarNumber;
+    private final NearCache<String, Client> clientsByIdNumber;
+
+    public LookupCache(
+            AttorneyRepo attorneyRepo,
+            ClientRepo clientRepo,
+            CacheInvalidationPort invalidation,
+            MeterRegistry meterRegistry,
+            @Value("${caseplan.lookup-cache.max-entries:10000}") int maxEntries,
+            @Value("${caseplan.lookup-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.attorneyRepo = attorneyRepo;
+        this.clientRepo = clientRepo;
+        this.invalidation = invalidation;
+        long ttlNanos = Duration.ofSeconds(Math.max(0L, ttlSeconds)).toNanos();
+        this.attorneysByBarNumber = new NearCache<>(Math.max(0, maxEntries), ttlNanos, System::nanoTime);
+        this.clientsByIdNumber = new NearCache<>(Math.max(0, maxEntries), ttlNanos, System::nanoTime);
+        register(meterRegistry, ATTORNEYS, attorneysByBarNumber);
+        register(meterRegistry, CLIENTS, clientsByIdNumber);
+        invalidation.subscribe(this::evictLocally);
+    }
+
+    public Optional<Attorney> attorneyByBarNumber(String barNumber) {
+        return lookup(attorneysByBarNumber, barNumber, () -> attorneyRepo.findByBarNumber(barNumber));
+    }
+
+    public Optional<Client> clientByIdNumber(String idNumber) {
+        return lookup(clientsByIdNumber, idNumber, () -> clientRepo.findByIdNumber(idNumber));
+    }
+
+    /**
+     * Drops the client cached under {@code idNumber} on every node, once the caller's transaction
+     * (if any) has committed; before that, another reader could still load and cache the old row.
+     */
+    public void evictClient(String idNumber) {
+        if (idNumber != null) {
+            afterCommit(() -> {
+                clientsByIdNumber.evict(idNumber);
+                invalidation.publish(CLIENTS, idNumber);
+            });
+        }
+    }
+
+    void evictLocally(String cache, String key) {
+        if (ATTORNEYS.equals(cache)) {
+            attorneysByBarNumber.evict(key);
+        } else if (CLIENTS.equals(cache)) {
+            clientsByIdNumber.evict(key);
+        }
+    }
+
+    private <T> Optional<T> lookup(NearCache<String, T> cache, String key, Supplier<Optional<T>> load) {
+        if (key == null) {
+            return load.get();
+        }
+        T cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long stamp = cache.stamp();
+        Optional<T> loaded = load.get();
+        loaded.ifPresent(value -> afterCommit(() -> cache.put(key, value, stamp)));
+        return loaded;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void register(MeterRegistry meterRegistry, String name, NearCache<String, ?> cache) {
+        FunctionCounter.builder("caseplan.lookup.cache.gets", cache, NearCache::hits)
+                .description(GETS_DESCRIPTION)
+                .tags("cache", name, "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("caseplan.lookup.cache.gets", cache, NearCache::misses)
+                .description(GETS_DESCRIPTION)
+                .tags("cache", name, "result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("caseplan.lookup.cache.hit.ratio", cache, NearCache::hitRatio)
+                .description("Share of lookups served from the node-local cache since start")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("caseplan.lookup.cache.size", cache, NearCache::size)
+                .description("Entries held in the node-local cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+}
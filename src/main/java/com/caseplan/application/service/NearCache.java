@@ -0,0 +1,100 @@
+package com.caseplan.application.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Small node-local cache: least recently used entries beyond {@code maxEntries} are dropped, and
+ * every entry expires {@code ttlNanos} after it was stored. Counts hits and misses.
+ * <p>
+ * A value read from the database while an eviction of its key is on its way can be stale, so a
+ * caller takes {@link #stamp()} before the read and passes it to {@link #put}: a put after any
+ * eviction since then is dropped. Evictions are rare (a client update or delete), so this costs
+ * hardly any puts.
+ */
+final class NearCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    /** Access-ordered, so the eldest entry is the least recently used; guarded by {@code this}. */
+    private final Map<K, Entry<V>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    /** Bumped by every eviction; guarded by {@code this}. */
+    private long evictions;
+
+    NearCache(int maxEntries, long ttlNanos, LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlNanos;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > NearCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** @return the live value, or null (counted as a miss) */
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && nanoClock.getAsLong() - entry.storedAtNanos >= ttlNanos) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    synchronized long stamp() {
+        return evictions;
+    }
+
+    /** Stores the value unless the cache is disabled or a key was evicted since {@code stamp}. */
+    synchronized void put(K key, V value, long stamp) {
+        if (maxEntries > 0 && stamp == evictions) {
+            entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+        }
+    }
+
+    synchronized void evict(K key) {
+        evictions++;
+        entries.remove(key);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    /** Share of lookups served from the cache; NaN before the first lookup. */
+    double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? Double.NaN : (double) hit / total;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long storedAtNanos;
+
+        private Entry(V value, long storedAtNanos) {
+            this.value = value;
+            this.storedAtNanos = storedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.caseplan.application.service;
+
+import com.caseplan.common.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the orders list: the (createdAt, id) of the last order on a page. Sent to clients
+ * as an opaque token so the key can change without breaking them.
+ */
+public record OrderCursor(Instant createdAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return null for a missing or blank token, i.e. the first page */
+    public static OrderCursor decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            if (sep < 0) {
+                throw invalid(token);
+            }
+            return new OrderCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalid(token);
+        }
+    }
+
+    private static ValidationException invalid(String token) {
+        return new ValidationException("INVALID_CURSOR", "Malformed cursor: " + token, null);
+    }
+}
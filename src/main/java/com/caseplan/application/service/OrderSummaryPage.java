@@ -0,0 +1,15 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.OrderSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class OrderSummaryPage {
+    private final List<OrderSummary> items;
+    /** Token for the next (older) page; null on the last page. */
+    private final String nextCursor;
+}
@@ -0,0 +1,54 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
+import com.caseplan.domain.model.CasePlanOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Publishes plan ids recorded in the outbox to the queue.
+ * <p>
+ * A batch is locked, published and deleted in one transaction. If publishing fails the
+ * transaction rolls back and the rows are retried on the next pass; a crash after publishing but
+ * before commit re-publishes the batch, which the queue adapters collapse as duplicates.
+ * <p>
+ * A row that is not due yet (a retry waiting out its backoff) is published with the rest of its
+ * wait as the queue's delivery delay, so the relay never holds rows back.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxRelayService {
+
+    public static final int BATCH_SIZE = 100;
+
+    private final CasePlanOutboxRepo outboxRepo;
+    private final QueuePort queuePort;
+
+    /** Relays at most one batch; returns how many rows were published. */
+    @Transactional
+    public int relayBatch() {
+        List<CasePlanOutbox> batch = outboxRepo.lockBatch(BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        for (CasePlanOutbox row : batch) {
+            String id = String.valueOf(row.getPlanId());
+            QueuePriority priority = QueuePriority.fromStored(row.getPriority());
+            if (row.getAvailableAt() != null && row.getAvailableAt().isAfter(now)) {
+                queuePort.enqueueAfter(id, priority, Duration.between(now, row.getAvailableAt()));
+            } else {
+                queuePort.enqueue(id, priority);
+            }
+        }
+        outboxRepo.deleteAllInBatch(batch);
+        return batch.size();
+    }
+}
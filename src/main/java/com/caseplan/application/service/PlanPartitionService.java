@@ -0,0 +1,122 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo;
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo.PlanPartition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the month partitions of cases and plans moving: the coming months are created ahead of
+ * time, so an insert always finds its partition, and months past the retention window move to the
+ * {@code _archive} tables, where only {@link com.caseplan.adapter.out.persistence.ArchivedPlanRepo}
+ * reads them. Queries on the live tables then only ever touch the retention window plus the months
+ * ahead, however much history there is.
+ * <p>
+ * Plan months are archived oldest first, and only once none of their plans is pending or
+ * processing; an unfinished month stays live and is tried again on the next run, while the months
+ * after it move on. A case month waits until no live plan month can hold its plans: its own month
+ * and the one after, since a plan can be created just after midnight at the end of the month its
+ * case was created in.
+ */
+@Service
+@RequiredArgsConstructor
+public class PlanPartitionService {
+
+    static final String CASES = "dev_case_infos";
+    static final String PLANS = "dev_caseplans";
+    static final String ARCHIVE_SUFFIX = "_archive";
+
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Comparator<PlanPartition> OLDEST_FIRST = Comparator.comparing(PlanPartition::to);
+
+    private final PlanPartitionRepo partitionRepo;
+
+    /** Months after the current one that already have their partitions. */
+    @Value("${caseplan.partitioning.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    /** Whole months kept live before the current one; 0 or less keeps everything. */
+    @Value("${caseplan.partitioning.retention-months:12}")
+    private int retentionMonths = 12;
+
+    /** Months are UTC months, like the bounds the migrations computed. */
+    public void maintain() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        createAhead(today);
+        archiveExpired(today);
+    }
+
+    /** @return partitions created */
+    public int createAhead(LocalDate today) {
+        LocalDate horizon = today.withDayOfMonth(1).plusMonths(Math.max(0, monthsAhead) + 1L);
+        int created = 0;
+        for (String parent : List.of(CASES, PLANS)) {
+            LocalDate covered = partitionRepo.partitions(parent).stream()
+                    .map(PlanPartition::to)
+                    .max(Comparator.naturalOrder())
+                    .orElse(today.withDayOfMonth(1));
+            while (covered.isBefore(horizon)) {
+                LocalDate next = covered.plusMonths(1);
+                partitionRepo.createPartition(parent, parent + "_p" + covered.format(MONTH_SUFFIX), covered, next);
+                covered = next;
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /** @return partitions this call moved to the archive */
+    public int archiveExpired(LocalDate today) {
+        if (retentionMonths <= 0) {
+            return 0;
+        }
+        LocalDate cutoff = today.withDayOfMonth(1).minusMonths(retentionMonths);
+        int archived = 0;
+        for (PlanPartition plans : oldestFirst(PLANS)) {
+            if (plans.to().isAfter(cutoff)) {
+                break;
+            }
+            if (!partitionRepo.hasActivePlans(plans.name())) {
+                archived += moveToArchive(PLANS, plans, true);
+            }
+        }
+
+        List<PlanPartition> livePlans = oldestFirst(PLANS);
+        for (PlanPartition cases : oldestFirst(CASES)) {
+            if (cases.to().isAfter(cutoff)) {
+                break;
+            }
+            if (livePlans.stream().noneMatch(plans -> mayHoldPlansOf(plans, cases))) {
+                archived += moveToArchive(CASES, cases, false);
+            }
+        }
+        return archived;
+    }
+
+    /** Whether the plan partition overlaps the case month or the month after it. */
+    private static boolean mayHoldPlansOf(PlanPartition plans, PlanPartition cases) {
+        boolean startsBeforeEnd = plans.from() == null || plans.from().isBefore(cases.to().plusMonths(1));
+        boolean endsAfterStart = cases.from() == null || plans.to().isAfter(cases.from());
+        return startsBeforeEnd && endsAfterStart;
+    }
+
+    private int moveToArchive(String parent, PlanPartition partition, boolean plans) {
+        partitionRepo.prepareArchive(partition);
+        partitionRepo.validateArchiveRange(partition);
+        return partitionRepo.archive(parent, parent + ARCHIVE_SUFFIX, partition, plans) ? 1 : 0;
+    }
+
+    private List<PlanPartition> oldestFirst(String parent) {
+        List<PlanPartition> partitions = new ArrayList<>(partitionRepo.partitions(parent));
+        partitions.sort(OLDEST_FIRST);
+        return partitions;
+    }
+}
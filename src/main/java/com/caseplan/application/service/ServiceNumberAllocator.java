@@ -0,0 +1,132 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CaseInfoRepo;
+import com.caseplan.adapter.out.persistence.ServiceNumberCounterRepo;
+import com.caseplan.domain.model.CaseInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Hands out {@code SRV-yyyyMMdd-NNNN} service numbers from a per-day counter row.
+ * <p>
+ * Each node reserves a block of {@code caseplan.service-number.block-size} sequences with one
+ * atomic {@code UPDATE ... RETURNING} and serves creates from that range in memory, so a create
+ * costs a DB round trip only once per block and two nodes can never issue the same number.
+ * Numbers are unique but not gap-free: a block not used up when a node stops is skipped, and
+ * across nodes the order of numbers only roughly follows creation order.
+ * <p>
+ * The first reservation of a day starts after the highest number already stored for it, so days
+ * numbered before the counter existed carry on without collisions.
+ */
+@Service
+public class ServiceNumberAllocator {
+
+    static final String SERVICE_NUMBER_PREFIX = "SRV-";
+    private static final DateTimeFormatter SERVICE_DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+    /** Ranges kept for days other than the newest; backfilling old dates should not grow this unbounded. */
+    private static final int MAX_CACHED_DAYS = 8;
+
+    private final ServiceNumberCounterRepo counterRepo;
+    private final CaseInfoRepo caseInfoRepo;
+    private final int blockSize;
+
+    /** Reserved, not yet issued range per day; guarded by {@code this}. */
+    private final Map<String, Range> ranges = new TreeMap<>();
+
+    public ServiceNumberAllocator(
+            ServiceNumberCounterRepo counterRepo,
+            CaseInfoRepo caseInfoRepo,
+            @Value("${caseplan.service-number.block-size:20}") int blockSize) {
+        this.counterRepo = counterRepo;
+        this.caseInfoRepo = caseInfoRepo;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Synchronized as a whole: within a block this is a counter bump, and the reservation it
+     * occasionally makes is a single short statement.
+     */
+    public synchronized String next(LocalDate date) {
+        String day = date.format(SERVICE_DATE_FORMATTER);
+        Range range = ranges.get(day);
+        if (range == null || range.next > range.last) {
+            long last = reserve(day, blockSize);
+            range = new Range(last - blockSize + 1, last);
+            ranges.put(day, range);
+            while (ranges.size() > MAX_CACHED_DAYS) {
+                ranges.remove(ranges.keySet().iterator().next());
+            }
+        }
+        return prefix(day) + String.format("%04d", range.next++);
+    }
+
+    /**
+     * Exactly {@code count} consecutive numbers for the day in one reservation, bypassing the
+     * local range: for bulk assignment, where a block per call would mostly go unused.
+     */
+    public List<String> nextBatch(LocalDate date, int count) {
+        String day = date.format(SERVICE_DATE_FORMATTER);
+        long last = reserve(day, count);
+        List<String> numbers = new ArrayList<>(count);
+        for (long sequence = last - count + 1; sequence <= last; sequence++) {
+            numbers.add(prefix(day) + String.format("%04d", sequence));
+        }
+        return numbers;
+    }
+
+    private long reserve(String day, int count) {
+        Long last = counterRepo.advance(day, count);
+        if (last != null) {
+            return last;
+        }
+        return counterRepo.create(day, highestIssued(day), count);
+    }
+
+    /** One prefix scan per day and cluster, only when the day's counter row does not exist yet. */
+    private long highestIssued(String day) {
+        Optional<CaseInfo> latest = Optional.ofNullable(
+                caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc(prefix(day)))
+                .orElse(Optional.empty());
+        return latest
+                .map(CaseInfo::getServiceNumber)
+                .map(ServiceNumberAllocator::extractServiceSequence)
+                .orElse(0L);
+    }
+
+    private static String prefix(String day) {
+        return SERVICE_NUMBER_PREFIX + day + "-";
+    }
+
+    static long extractServiceSequence(String serviceNumber) {
+        if (serviceNumber == null) {
+            return 0L;
+        }
+        int lastDash = serviceNumber.lastIndexOf('-');
+        if (lastDash < 0 || lastDash == serviceNumber.length() - 1) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(serviceNumber.substring(lastDash + 1));
+        } catch (NumberFormatException ignored) {
+            return 0L;
+        }
+    }
+
+    private static final class Range {
+        private long next;
+        private final long last;
+
+        private Range(long next, long last) {
+            this.next = next;
+            this.last = last;
+        }
+    }
+}
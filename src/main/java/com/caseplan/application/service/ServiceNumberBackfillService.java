@@ -0,0 +1,59 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.ServiceNumberBackfillRepo;
+import com.caseplan.adapter.out.persistence.ServiceNumberBackfillRepo.MissingServiceNumber;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers case rows created before service numbers existed, one keyset batch per call. A row is
+ * numbered for the day it was created (today when that is unknown), as the list used to do on
+ * read. The work is its own progress record: a restarted backfill simply finds fewer rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class ServiceNumberBackfillService {
+
+    /** Returned by {@link #backfillBatch} once a short batch shows nothing is left past the position. */
+    public static final long DONE = -1L;
+
+    private final ServiceNumberBackfillRepo backfillRepo;
+    private final ServiceNumberAllocator serviceNumberAllocator;
+
+    /**
+     * Locks up to {@code limit} unnumbered rows after {@code afterId}, reserves one range per day
+     * they fall on and writes all numbers with one update.
+     *
+     * @return the id to continue after, or {@link #DONE}
+     */
+    @Transactional
+    public long backfillBatch(long afterId, int limit) {
+        List<MissingServiceNumber> rows = backfillRepo.lockMissing(afterId, limit);
+        if (rows.isEmpty()) {
+            return DONE;
+        }
+        Map<LocalDate, List<Long>> idsByDay = new LinkedHashMap<>();
+        for (MissingServiceNumber row : rows) {
+            LocalDate day = row.createdAt() == null
+                    ? LocalDate.now()
+                    : row.createdAt().atZone(ZoneId.systemDefault()).toLocalDate();
+            idsByDay.computeIfAbsent(day, d -> new ArrayList<>()).add(row.id());
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<String> serviceNumbers = new ArrayList<>(rows.size());
+        for (Map.Entry<LocalDate, List<Long>> day : idsByDay.entrySet()) {
+            ids.addAll(day.getValue());
+            serviceNumbers.addAll(serviceNumberAllocator.nextBatch(day.getKey(), day.getValue().size()));
+        }
+        backfillRepo.assign(ids, serviceNumbers);
+        return rows.size() < limit ? DONE : rows.get(rows.size() - 1).id();
+    }
+}
@@ -0,0 +1,18 @@
+package com.caseplan.common.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/** Admission control turned the request away; clients should come back after {@code retryAfterSeconds}. */
+@Getter
+public class OverloadedException extends BaseAppException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String code, String message, Object detail, long retryAfterSeconds) {
+        super("overloaded", code, message, detail, HttpStatus.TOO_MANY_REQUESTS);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,9 +1,11 @@
 package com.caseplan.common.exception.handler;
 
 import com.caseplan.common.exception.BlockException;
+import com.caseplan.common.exception.OverloadedException;
 import com.caseplan.common.exception.ValidationException;
 import com.caseplan.common.exception.WarningException;
 import com.caseplan.common.exception.response.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -32,6 +34,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(Objects.requireNonNull(ex.getHttpStatus())).body(errorResponse.toMap());
     }
 
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleOverloadedException(OverloadedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex);
+        return ResponseEntity.status(Objects.requireNonNull(ex.getHttpStatus()))
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse.toMap());
+    }
+
     @ExceptionHandler(WarningException.class)
     public ResponseEntity<Map<String, Object>> handleWarningException(WarningException ex) {
         Map<String, Object> response = new HashMap<>();
@@ -15,7 +15,8 @@ import java.time.Instant;
 public class Attorney {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dev_attorneys_id")
+    @SequenceGenerator(name = "dev_attorneys_id", sequenceName = "dev_attorneys_id_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -1,6 +1,7 @@
 package com.caseplan.domain.model;
 
 import javax.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -16,15 +17,18 @@ import java.time.Instant;
 public class CaseInfo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dev_case_infos_id")
+    @SequenceGenerator(name = "dev_case_infos_id", sequenceName = "dev_case_infos_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Client client;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "attorney_id")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Attorney attorney;
 
     @Column(name = "case_number")
@@ -1,6 +1,7 @@
 package com.caseplan.domain.model;
 
 import javax.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -10,34 +11,91 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "dev_caseplans")
+@NamedEntityGraph(name = CasePlan.GRAPH_WITH_CASE,
+        attributeNodes = @NamedAttributeNode(value = "caseInfo", subgraph = "case"),
+        subgraphs = @NamedSubgraph(name = "case", attributeNodes = {
+                @NamedAttributeNode("client"),
+                @NamedAttributeNode("attorney")
+        }))
 @Getter
 @Setter
 @NoArgsConstructor
 public class CasePlan {
 
+    /**
+     * The plan with its case, client and attorney, joined into the plan's own select. Associations
+     * are lazy, so repository methods whose callers read them declare this graph.
+     */
+    public static final String GRAPH_WITH_CASE = "CasePlan.withCase";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dev_caseplans_id")
+    @SequenceGenerator(name = "dev_caseplans_id", sequenceName = "dev_caseplans_id_seq", allocationSize = 50)
     private Long id;
 
-    @OneToOne
+    /** Lazy: loaded through {@link #GRAPH_WITH_CASE} where needed, never as an extra select per row. */
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "case_info_id")
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private CaseInfo caseInfo;
 
     private String status; // pending, processing, completed, failed
 
-    @Column(columnDefinition = "TEXT")
-    private String generatedPlan;
+    private String priority; // interactive, bulk
+
+    /**
+     * Plan text written before contents moved to {@link CasePlanContent}. Read only as a fallback
+     * when {@link #contentVersion} is unset; cleared whenever a plan is regenerated, and moved to
+     * the content table by {@code LegacyContentBackfillJob}, so it is null on every row once that
+     * has run.
+     */
+    @JsonIgnore
+    @Column(name = "generated_plan", columnDefinition = "TEXT")
+    private String legacyGeneratedPlan;
+
+    /** Version of the {@link CasePlanContent} row holding the current generated plan. */
+    private Integer contentVersion;
 
     private String errorMessage;
+
+    /** Generation attempts made since creation or the last manual retry. */
+    private Integer attemptCount;
+    @Column(name = "created_at")
     private Instant createdAt;
+    @Column(name = "updated_at")
     private Instant updatedAt;
 
+    /**
+     * When the row becomes claimable under the postgres queue provider. Owned by
+     * {@code PostgresQueueAdapter}, so JPA never writes it and an entity save cannot unpublish a row.
+     */
+    @Column(name = "available_at", insertable = false, updatable = false)
+    private Instant availableAt;
+
+    /**
+     * Generation lease: the worker running the LLM call for this plan and when its claim lapses.
+     * Written only through the conditional updates in {@code CasePlanRepo}; a worker that stops
+     * heartbeating loses the plan once the expiry passes, and its late result is discarded.
+     */
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    /**
+     * Optimistic-lock version, bumped by every status transition in {@code CasePlanRepo}; a save of
+     * a copy read before the latest transition fails rather than writing the old status back.
+     */
+    @JsonIgnore
+    @Version
+    private Long version;
+
     @PrePersist
     void onCreate() {
         createdAt = Instant.now();
         updatedAt = Instant.now();
         if (status == null) status = "pending";
+        if (priority == null) priority = "interactive";
     }
 
     @PreUpdate
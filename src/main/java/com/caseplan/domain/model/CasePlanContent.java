@@ -0,0 +1,50 @@
+package com.caseplan.domain.model;
+
+import javax.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Generated plan text, kept off the {@link CasePlan} row so status polls, list pages and queue
+ * scans never read it. One row per successful generation; the plan points at its current one
+ * through {@code content_version}, so a regenerated plan never overwrites an older version.
+ */
+@Entity
+@Table(name = "dev_caseplan_contents", uniqueConstraints =
+        @UniqueConstraint(name = "uk_caseplan_contents_plan_version", columnNames = {"plan_id", "version"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class CasePlanContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dev_caseplan_contents_id")
+    @SequenceGenerator(name = "dev_caseplan_contents_id", sequenceName = "dev_caseplan_contents_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "plan_id", nullable = false)
+    private Long planId;
+
+    @Column(nullable = false)
+    private Integer version;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content")
+    private String content;
+
+    private Instant createdAt;
+
+    public CasePlanContent(Long planId, Integer version, String content) {
+        this.planId = planId;
+        this.version = version;
+        this.content = content;
+    }
+
+    @PrePersist
+    void onCreate() {
+        createdAt = Instant.now();
+    }
+}
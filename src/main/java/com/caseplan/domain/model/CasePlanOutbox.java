@@ -0,0 +1,51 @@
+package com.caseplan.domain.model;
+
+import javax.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Transactional outbox row: written in the same transaction as a new {@link CasePlan}, or as the
+ * status change that puts one back to {@code pending}, and deleted by the relay once the plan id
+ * has been published to the queue.
+ */
+@Entity
+@Table(name = "dev_caseplan_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CasePlanOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dev_caseplan_outbox_id")
+    @SequenceGenerator(name = "dev_caseplan_outbox_id", sequenceName = "dev_caseplan_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "plan_id", nullable = false)
+    private Long planId;
+
+    private String priority; // interactive, bulk
+
+    /** When the plan may be delivered; null for at once. */
+    private Instant availableAt;
+
+    private Instant createdAt;
+
+    public CasePlanOutbox(Long planId, String priority) {
+        this.planId = planId;
+        this.priority = priority;
+    }
+
+    public CasePlanOutbox(Long planId, String priority, Instant availableAt) {
+        this(planId, priority);
+        this.availableAt = availableAt;
+    }
+
+    @PrePersist
+    void onCreate() {
+        createdAt = Instant.now();
+    }
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Instant;
+import java.util.Locale;
 
 @Entity
 @Table(name = "dev_clients")
@@ -15,12 +16,20 @@ import java.time.Instant;
 public class Client {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dev_clients_id")
+    @SequenceGenerator(name = "dev_clients_id", sequenceName = "dev_clients_id_seq", allocationSize = 50)
     private Long id;
 
     private String firstName;
     private String lastName;
 
+    /**
+     * "first last", lower-cased with whitespace collapsed; kept in step with the name on every
+     * write. Name search matches substrings of this one column, which a pg_trgm GIN index serves.
+     */
+    @Column(name = "full_name_normalized")
+    private String fullNameNormalized;
+
     @Column(unique = true)
     private String idNumber; // nullable for MVP
 
@@ -29,5 +38,20 @@ public class Client {
     @PrePersist
     void onCreate() {
         createdAt = Instant.now();
+        fullNameNormalized = normalizeFullName(firstName, lastName);
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        fullNameNormalized = normalizeFullName(firstName, lastName);
+    }
+
+    public static String normalizeFullName(String firstName, String lastName) {
+        return normalizeName((firstName == null ? "" : firstName) + " " + (lastName == null ? "" : lastName));
+    }
+
+    /** The form both the stored full name and a search term are reduced to before matching. */
+    public static String normalizeName(String name) {
+        return name.replaceAll("\\s+", " ").trim().toLowerCase(Locale.ROOT);
     }
 }
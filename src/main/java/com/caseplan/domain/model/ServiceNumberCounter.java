@@ -0,0 +1,25 @@
+package com.caseplan.domain.model;
+
+import javax.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Last service-number sequence handed out for a day ({@code yyyyMMdd}). Only ever advanced with an
+ * atomic {@code UPDATE ... RETURNING}; the entity exists so the schema is managed with the rest.
+ */
+@Entity
+@Table(name = "dev_service_number_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ServiceNumberCounter {
+
+    @Id
+    @Column(name = "day", length = 8)
+    private String day;
+
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+}
@@ -0,0 +1,53 @@
+-- Schema as Hibernate created it (ddl-auto: update) before migrations were introduced.
+-- Existing databases are adopted at this version (spring.flyway.baseline-on-migrate) and skip it.
+-- Constraint names are the ones Hibernate generated, so fresh and adopted databases match.
+
+CREATE TABLE dev_clients (
+    id         bigserial    NOT NULL,
+    created_at timestamp,
+    first_name varchar(255),
+    id_number  varchar(255),
+    last_name  varchar(255),
+    CONSTRAINT dev_clients_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_bvhsf8k495h6t7rqf1xfc3ftf UNIQUE (id_number)
+);
+
+CREATE TABLE dev_attorneys (
+    id         bigserial    NOT NULL,
+    bar_number varchar(255),
+    created_at timestamp,
+    name       varchar(255),
+    CONSTRAINT dev_attorneys_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_aga9lxhaoiuyjhvab9a2cueg6 UNIQUE (bar_number)
+);
+
+CREATE TABLE dev_case_infos (
+    id                      bigserial    NOT NULL,
+    additional_causes       varchar(255),
+    case_documents          text,
+    case_number             varchar(255),
+    created_at              timestamp,
+    opposing_party          varchar(255),
+    primary_cause_of_action varchar(255),
+    prior_legal_actions     varchar(255),
+    referring_source        varchar(255),
+    legal_remedy_sought     varchar(255),
+    service_number          varchar(255),
+    attorney_id             bigint,
+    client_id               bigint,
+    CONSTRAINT dev_case_infos_pkey PRIMARY KEY (id),
+    CONSTRAINT fkdl8x0xqncd94qwsvev1cs7kdx FOREIGN KEY (attorney_id) REFERENCES dev_attorneys (id),
+    CONSTRAINT fkj5mvgrpa0epnloatkueb76hpy FOREIGN KEY (client_id) REFERENCES dev_clients (id)
+);
+
+CREATE TABLE dev_caseplans (
+    id             bigserial    NOT NULL,
+    created_at     timestamp,
+    error_message  varchar(255),
+    generated_plan text,
+    status         varchar(255),
+    updated_at     timestamp,
+    case_info_id   bigint,
+    CONSTRAINT dev_caseplans_pkey PRIMARY KEY (id),
+    CONSTRAINT fkgd9u6aqbswjde4fwk129x78gj FOREIGN KEY (case_info_id) REFERENCES dev_case_infos (id)
+);
@@ -0,0 +1,43 @@
+-- Columns, tables and indexes the entities gained while ddl-auto was still managing the schema.
+-- Databases adopted at V1 may already have any of them, hence IF NOT EXISTS throughout.
+
+ALTER TABLE dev_caseplans ADD COLUMN IF NOT EXISTS priority varchar(255);
+ALTER TABLE dev_caseplans ADD COLUMN IF NOT EXISTS attempt_count integer;
+ALTER TABLE dev_caseplans ADD COLUMN IF NOT EXISTS available_at timestamp;
+ALTER TABLE dev_caseplans ADD COLUMN IF NOT EXISTS lease_owner varchar(64);
+ALTER TABLE dev_caseplans ADD COLUMN IF NOT EXISTS lease_expires_at timestamp;
+ALTER TABLE dev_caseplans ADD COLUMN IF NOT EXISTS content_version integer;
+
+ALTER TABLE dev_clients ADD COLUMN IF NOT EXISTS full_name_normalized varchar(255);
+
+CREATE INDEX IF NOT EXISTS idx_caseplans_status_updated_at ON dev_caseplans (status, updated_at);
+CREATE INDEX IF NOT EXISTS idx_caseplans_status_available_at ON dev_caseplans (status, available_at);
+CREATE INDEX IF NOT EXISTS idx_caseplans_status_lease_expires_at ON dev_caseplans (status, lease_expires_at);
+CREATE INDEX IF NOT EXISTS idx_caseplans_created_at_id ON dev_caseplans (created_at, id);
+
+CREATE TABLE IF NOT EXISTS dev_caseplan_outbox (
+    id         bigserial    NOT NULL,
+    created_at timestamp,
+    plan_id    bigint       NOT NULL,
+    priority   varchar(255),
+    CONSTRAINT dev_caseplan_outbox_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS dev_service_number_counters (
+    day        varchar(8) NOT NULL,
+    last_value bigint     NOT NULL,
+    CONSTRAINT dev_service_number_counters_pkey PRIMARY KEY (day)
+);
+
+CREATE TABLE IF NOT EXISTS dev_caseplan_contents (
+    id         bigserial NOT NULL,
+    content    bytea,
+    created_at timestamp,
+    plan_id    bigint    NOT NULL,
+    version    integer   NOT NULL,
+    CONSTRAINT dev_caseplan_contents_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_caseplan_contents_plan_version UNIQUE (plan_id, version)
+);
+
+-- For the client name trigram index in V3. Trusted since PostgreSQL 13: the database owner may create it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,35 @@
+-- Indexes for the predicates on the request and worker paths. Built CONCURRENTLY so writes keep
+-- flowing on a populated database; Flyway runs a script made only of such statements outside a
+-- transaction. A build that fails halfway leaves an INVALID index that IF NOT EXISTS would keep:
+-- drop it before re-running.
+
+-- CaseInfoRepo duplicate-case check (client, cause, opposing party within a window); its leading
+-- client_id also serves every lookup of a client's cases.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_case_infos_client_cause_party_created
+    ON dev_case_infos (client_id, primary_cause_of_action, opposing_party, created_at);
+
+-- Highest number issued for a day: service_number LIKE 'SRV-yyyyMMdd-%'. The pattern opclass lets a
+-- prefix LIKE use the index under any collation.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_case_infos_service_number
+    ON dev_case_infos (service_number varchar_pattern_ops);
+
+-- Plans of a client's cases (per-client plan list) join case_infos to plans on this column.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_caseplans_case_info_id
+    ON dev_caseplans (case_info_id);
+
+-- Create-order lookups of an existing client or attorney by name.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_clients_first_last_name
+    ON dev_clients (first_name, last_name);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_attorneys_name
+    ON dev_attorneys (name);
+
+-- patient_name search: substring LIKE on the normalized full name.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_clients_full_name_trgm
+    ON dev_clients USING gin (full_name_normalized gin_trgm_ops);
+
+-- Background backfills walk the rows still missing a value in id order. Partial indexes hold only
+-- those rows, so each batch stays cheap and the index costs nothing once the backfill is done.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_case_infos_missing_service_number
+    ON dev_case_infos (id) WHERE service_number IS NULL OR TRIM(service_number) = '';
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_clients_missing_full_name
+    ON dev_clients (id) WHERE full_name_normalized IS NULL;
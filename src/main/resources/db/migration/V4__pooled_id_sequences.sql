@@ -0,0 +1,10 @@
+-- Hibernate now takes ids from these sequences in blocks of 50 (pooled optimizer, allocationSize
+-- 50 on each entity) instead of reading back a serial default per insert, so inserts can wait for
+-- the flush and go out as JDBC batches. Each nextval hands out the top of a block; the column
+-- defaults stay, and a raw INSERT using one simply consumes a whole block.
+ALTER SEQUENCE dev_clients_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dev_attorneys_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dev_case_infos_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dev_caseplans_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dev_caseplan_outbox_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dev_caseplan_contents_id_seq INCREMENT BY 50;
@@ -0,0 +1,4 @@
+-- Optimistic-lock version on plans. Every status change is a conditional UPDATE in CasePlanRepo or
+-- PostgresQueueAdapter that also bumps it, and Hibernate checks it on any entity save, so a write
+-- from a stale copy of the row fails instead of overwriting a newer status. Existing rows start at 0.
+ALTER TABLE dev_caseplans ADD COLUMN version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- First step of partitioning dev_case_infos and dev_caseplans by created_at month (V7, V8). A key on
+-- a partitioned table has to include the partition column, so the existing tables, which become the
+-- first partition, need a unique index on (id, created_at) for V8 to adopt as their share of the
+-- new primary keys. Built CONCURRENTLY so writes keep flowing; see V3 about failed builds.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_case_infos_id_created_at
+    ON dev_case_infos (id, created_at);
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_caseplans_id_created_at
+    ON dev_caseplans (id, created_at);
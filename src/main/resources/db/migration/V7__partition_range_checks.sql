@@ -0,0 +1,21 @@
+-- Second step of partitioning by created_at month. The existing rows become the legacy partition
+-- in V8, covering everything before the month after next. Range partitions cannot hold a NULL key:
+-- rows from before created_at was always set are dated to the epoch. Months are UTC months, as in
+-- PlanPartitionService, whatever the session's time zone.
+--
+-- The CHECK constraints state that range up front. Added NOT VALID, they only hold a lock for the
+-- ALTER itself; V8 validates them under a lock that lets writes through and can then attach each
+-- table as a partition and set created_at NOT NULL without scanning it again.
+UPDATE dev_case_infos SET created_at = timestamp '1970-01-01' WHERE created_at IS NULL;
+UPDATE dev_caseplans SET created_at = timestamp '1970-01-01' WHERE created_at IS NULL;
+
+DO $$
+DECLARE
+    bound text := to_char(date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months', 'YYYY-MM-DD');
+BEGIN
+    EXECUTE format('ALTER TABLE dev_case_infos ADD CONSTRAINT dev_case_infos_legacy_range '
+                   'CHECK (created_at IS NOT NULL AND created_at < %L::timestamp) NOT VALID', bound);
+    EXECUTE format('ALTER TABLE dev_caseplans ADD CONSTRAINT dev_caseplans_legacy_range '
+                   'CHECK (created_at IS NOT NULL AND created_at < %L::timestamp) NOT VALID', bound);
+END
+$$;
@@ -0,0 +1,85 @@
+-- dev_case_infos and dev_caseplans become range-partitioned by created_at month, and each gets an
+-- archive twin that old months move to (PlanPartitionJob). The existing table turns into the
+-- <table>_legacy partition, which holds everything before the month after next; monthly partitions
+-- <table>_pYYYYMM follow from there. The validations below scan each table once without blocking
+-- writes; the rest only touches the catalog, because the indexes and CHECK constraints that
+-- V6 and V7 built let every step reuse what is there instead of checking it again. No row moves
+-- here: LegacyHistoryJob later moves the history past retention out of the legacy partition in
+-- batches, outside any migration.
+--
+-- Both tables now have the primary key (id, created_at): a key on a partitioned table must include
+-- the partition column. For the same reason dev_caseplans.case_info_id can no longer be a foreign
+-- key; a plan and its case are written in the same transaction, and case months are archived only
+-- after the plans of the month that follows them (see PlanPartitionService).
+
+ALTER TABLE dev_case_infos VALIDATE CONSTRAINT dev_case_infos_legacy_range;
+ALTER TABLE dev_caseplans VALIDATE CONSTRAINT dev_caseplans_legacy_range;
+ALTER TABLE dev_case_infos ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE dev_caseplans ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE dev_caseplans DROP CONSTRAINT fkgd9u6aqbswjde4fwk129x78gj;
+
+-- The old tables, their keys and indexes make way for the partitioned ones.
+ALTER TABLE dev_case_infos RENAME TO dev_case_infos_legacy;
+ALTER TABLE dev_case_infos_legacy RENAME CONSTRAINT dev_case_infos_pkey TO dev_case_infos_legacy_pkey;
+ALTER TABLE dev_case_infos_legacy
+    ADD CONSTRAINT dev_case_infos_legacy_id_created_at_key UNIQUE USING INDEX idx_case_infos_id_created_at;
+ALTER INDEX idx_case_infos_client_cause_party_created RENAME TO dev_case_infos_legacy_client_cause_party_created;
+ALTER INDEX idx_case_infos_service_number RENAME TO dev_case_infos_legacy_service_number;
+ALTER INDEX idx_case_infos_missing_service_number RENAME TO dev_case_infos_legacy_missing_service_number;
+
+ALTER TABLE dev_caseplans RENAME TO dev_caseplans_legacy;
+ALTER TABLE dev_caseplans_legacy RENAME CONSTRAINT dev_caseplans_pkey TO dev_caseplans_legacy_pkey;
+ALTER TABLE dev_caseplans_legacy
+    ADD CONSTRAINT dev_caseplans_legacy_id_created_at_key UNIQUE USING INDEX idx_caseplans_id_created_at;
+ALTER INDEX idx_caseplans_status_updated_at RENAME TO dev_caseplans_legacy_status_updated_at;
+ALTER INDEX idx_caseplans_status_available_at RENAME TO dev_caseplans_legacy_status_available_at;
+ALTER INDEX idx_caseplans_status_lease_expires_at RENAME TO dev_caseplans_legacy_status_lease_expires_at;
+ALTER INDEX idx_caseplans_created_at_id RENAME TO dev_caseplans_legacy_created_at_id;
+ALTER INDEX idx_caseplans_case_info_id RENAME TO dev_caseplans_legacy_case_info_id;
+
+-- Partitioned tables with the same columns, defaults, keys and indexes. Attaching a partition
+-- adopts its matching indexes and foreign keys rather than building new ones.
+CREATE TABLE dev_case_infos (LIKE dev_case_infos_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE dev_case_infos_id_seq OWNED BY dev_case_infos.id;
+ALTER TABLE dev_case_infos ADD CONSTRAINT dev_case_infos_pkey PRIMARY KEY (id, created_at);
+ALTER TABLE dev_case_infos
+    ADD CONSTRAINT fkdl8x0xqncd94qwsvev1cs7kdx FOREIGN KEY (attorney_id) REFERENCES dev_attorneys (id);
+ALTER TABLE dev_case_infos
+    ADD CONSTRAINT fkj5mvgrpa0epnloatkueb76hpy FOREIGN KEY (client_id) REFERENCES dev_clients (id);
+CREATE INDEX idx_case_infos_client_cause_party_created
+    ON dev_case_infos (client_id, primary_cause_of_action, opposing_party, created_at);
+CREATE INDEX idx_case_infos_service_number ON dev_case_infos (service_number varchar_pattern_ops);
+CREATE INDEX idx_case_infos_missing_service_number
+    ON dev_case_infos (id) WHERE service_number IS NULL OR TRIM(service_number) = '';
+
+CREATE TABLE dev_caseplans (LIKE dev_caseplans_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE dev_caseplans_id_seq OWNED BY dev_caseplans.id;
+ALTER TABLE dev_caseplans ADD CONSTRAINT dev_caseplans_pkey PRIMARY KEY (id, created_at);
+CREATE INDEX idx_caseplans_status_updated_at ON dev_caseplans (status, updated_at);
+CREATE INDEX idx_caseplans_status_available_at ON dev_caseplans (status, available_at);
+CREATE INDEX idx_caseplans_status_lease_expires_at ON dev_caseplans (status, lease_expires_at);
+CREATE INDEX idx_caseplans_created_at_id ON dev_caseplans (created_at, id);
+CREATE INDEX idx_caseplans_case_info_id ON dev_caseplans (case_info_id);
+
+-- Archived months: read by id only, on the slow path for plans past the retention window.
+CREATE TABLE dev_case_infos_archive (LIKE dev_case_infos) PARTITION BY RANGE (created_at);
+ALTER TABLE dev_case_infos_archive ADD CONSTRAINT dev_case_infos_archive_pkey PRIMARY KEY (id, created_at);
+CREATE TABLE dev_caseplans_archive (LIKE dev_caseplans) PARTITION BY RANGE (created_at);
+ALTER TABLE dev_caseplans_archive ADD CONSTRAINT dev_caseplans_archive_pkey PRIMARY KEY (id, created_at);
+
+DO $$
+DECLARE
+    bound timestamp := date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months';
+    suffix text := to_char(bound, 'YYYYMM');
+BEGIN
+    EXECUTE format('ALTER TABLE dev_case_infos ATTACH PARTITION dev_case_infos_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+    EXECUTE format('ALTER TABLE dev_caseplans ATTACH PARTITION dev_caseplans_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+    -- The first monthly partitions; PlanPartitionJob keeps creating them ahead from here.
+    EXECUTE format('CREATE TABLE dev_case_infos_p%s PARTITION OF dev_case_infos FOR VALUES FROM (%L) TO (%L)',
+                   suffix, bound, bound + interval '1 month');
+    EXECUTE format('CREATE TABLE dev_caseplans_p%s PARTITION OF dev_caseplans FOR VALUES FROM (%L) TO (%L)',
+                   suffix, bound, bound + interval '1 month');
+END
+$$;
@@ -0,0 +1,4 @@
+-- Outbox rows now also carry plans put back to pending (a retry, a reclaimed lease, a drained
+-- worker), written in the same transaction as that status change. A retry waits out its backoff:
+-- the relay hands the rest of the wait to the queue's delayed delivery. NULL means at once.
+ALTER TABLE dev_caseplan_outbox ADD COLUMN available_at timestamp;
@@ -8,11 +8,28 @@ import com.caseplan.adapter.out.persistence.AttorneyRepo;
 import com.caseplan.adapter.out.persistence.CaseInfoRepo;
 import com.caseplan.adapter.out.persistence.CasePlanRepo;
 import com.caseplan.adapter.out.persistence.ClientRepo;
+import com.caseplan.adapter.out.persistence.OrderSummary;
+import com.caseplan.application.service.CasePlanContentService;
 import com.caseplan.application.service.CasePlanGenerationService;
+import com.caseplan.application.service.CasePlanService;
+import com.caseplan.application.service.ClientNameIndexService;
+import com.caseplan.application.service.OrderSummaryPage;
+import com.caseplan.application.service.ServiceNumberBackfillService;
+import com.caseplan.application.service.OutboxRelayService;
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
 import com.caseplan.adapter.in.queue.CasePlanConsumer;
+import com.caseplan.adapter.in.queue.QueueMetrics;
+import com.caseplan.adapter.out.lease.LeaderLease;
+import com.caseplan.adapter.out.lease.LocalPartitionMembership;
+import com.caseplan.adapter.out.lease.RedisLeaderLease;
+import com.caseplan.adapter.out.lease.RedisPartitionMembership;
 import com.caseplan.application.port.out.LLMService;
+import com.caseplan.adapter.out.queue.PostgresQueueAdapter;
+import com.caseplan.adapter.out.queue.QueueEntry;
+import com.caseplan.application.port.out.QueuePriority;
 import com.caseplan.adapter.out.queue.RedisQueueAdapter;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
@@ -23,22 +40,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.lang.reflect.Method;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -52,6 +74,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class CasePlanFlowIT {
 
     private static final String QUEUE_KEY = "caseplan:pending";
+    private static final String QUEUED_IDS_KEY = "caseplan:pending:ids";
 
     @Autowired
     private MockMvc mockMvc;
@@ -77,6 +100,27 @@ public class CasePlanFlowIT {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private CasePlanOutboxRepo outboxRepo;
+
+    @Autowired
+    private OutboxRelayService outboxRelayService;
+
+    @Autowired
+    private CasePlanService casePlanService;
+
+    @Autowired
+    private ServiceNumberBackfillService serviceNumberBackfillService;
+
+    @Autowired
+    private CasePlanContentService contentService;
+
+    @Autowired
+    private ClientNameIndexService clientNameIndexService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @MockBean
     private LLMService llmService;
 
@@ -88,6 +132,8 @@ public class CasePlanFlowIT {
     @Before
     public void cleanState() {
         redisTemplate.delete(QUEUE_KEY);
+        redisTemplate.delete(QUEUED_IDS_KEY);
+        outboxRepo.deleteAll();
         casePlanRepo.deleteAll();
         caseInfoRepo.deleteAll();
         clientRepo.deleteAll();
@@ -96,17 +142,21 @@ public class CasePlanFlowIT {
 
     // ==================== Baseline flow IT ====================
 
-    /** Create API should persist pending record and enqueue task id into Redis. */
+    /** Create API should persist pending record plus an outbox row; the relay then pushes the id into Redis. */
     @Test
-    public void createCasePlan_persistsPendingAndPushesQueue() throws Exception {
+    public void createCasePlan_persistsPendingAndRelaysOutboxToQueue() throws Exception {
         long planId = createCasePlan();
 
-        CasePlan saved = casePlanRepo.findById(planId).orElseThrow();
+        CasePlan saved = casePlanRepo.findWithCaseInfoById(planId).orElseThrow();
         assertEquals("pending", saved.getStatus());
         assertNull(saved.getCaseInfo().getCaseNumber());
+        assertFalse(isQueued(planId));
+        assertEquals(1L, outboxRepo.count());
+
+        assertEquals(1, outboxRelayService.relayBatch());
 
-        List<String> queuedIds = redisTemplate.opsForList().range(QUEUE_KEY, 0, -1);
-        assertTrue(queuedIds != null && queuedIds.contains(String.valueOf(planId)));
+        assertTrue(isQueued(planId));
+        assertEquals(0L, outboxRepo.count());
     }
 
     /** Shared generator should move status pending -> completed when LLM succeeds. */
@@ -115,40 +165,60 @@ public class CasePlanFlowIT {
         long planId = createCasePlan();
         Mockito.when(llmService.chat(Mockito.anyString())).thenReturn("Generated plan from integration test");
 
-        CasePlanGenerationService generationService = new CasePlanGenerationService(casePlanRepo, llmService);
+        CasePlanGenerationService generationService = new CasePlanGenerationService(casePlanRepo, llmService, outboxRepo, contentService, transactionTemplate);
         generationService.processWithRetry(planId);
 
         CasePlan updated = casePlanRepo.findById(planId).orElseThrow();
         assertEquals("completed", updated.getStatus());
-        assertEquals("Generated plan from integration test", updated.getGeneratedPlan());
+        assertEquals("Generated plan from integration test", contentService.currentContent(updated).orElse(null));
         assertNull(updated.getErrorMessage());
+        String inline = jdbcTemplate.queryForObject("SELECT generated_plan FROM dev_caseplans WHERE id = ?", String.class, planId);
+        assertNull(inline); // the hot row carries only the version
     }
 
-    /** Startup reconciliation should re-queue pending records missing from Redis list. */
+    /** Startup reconciliation should re-queue pending records (past the grace window) missing from Redis list. */
     @Test
     public void recoverLostPendingQueueItems_requeuesPendingRecordsMissingFromRedis() throws Exception {
         long planId = createPendingCasePlanDirectly();
         redisTemplate.delete(QUEUE_KEY);
+        redisTemplate.delete(QUEUED_IDS_KEY);
+        jdbcTemplate.update(
+                "update dev_caseplans set updated_at = ? where id = ?",
+                Timestamp.from(Instant.now().minusSeconds(60L * 60L)),
+                planId
+        );
 
+        RedisLeaderLease lease = new RedisLeaderLease(redisTemplate, "caseplan:it:leader:" + planId, Duration.ofSeconds(15));
         CasePlanConsumer consumer = new CasePlanConsumer(
-                casePlanRepo, redisTemplate, new RedisQueueAdapter(redisTemplate), new CasePlanGenerationService(casePlanRepo, llmService));
-        Method recoverLost = CasePlanConsumer.class.getDeclaredMethod("recoverLostPendingQueueItems");
+                casePlanRepo, outboxRepo, transactionTemplate, new RedisQueueAdapter(redisTemplate),
+                new CasePlanGenerationService(casePlanRepo, llmService, outboxRepo, contentService, transactionTemplate),
+                outboxRelayService, new QueueMetrics(new RedisQueueAdapter(redisTemplate), new SimpleMeterRegistry(), 5000L),
+                lease, new LocalPartitionMembership(1));
+        java.lang.reflect.Field leaderToken = CasePlanConsumer.class.getDeclaredField("leaderToken");
+        leaderToken.setAccessible(true);
+        leaderToken.set(consumer, lease.acquireOrRenew());
+        java.lang.reflect.Field receiver = CasePlanConsumer.class.getDeclaredField("receiver");
+        receiver.setAccessible(true);
+        receiver.set(consumer, new RedisQueueAdapter(redisTemplate));
+        Method recoverLost = CasePlanConsumer.class.getDeclaredMethod("recoverLostPendingQueueItems", java.time.Duration.class);
         recoverLost.setAccessible(true);
-        recoverLost.invoke(consumer);
+        recoverLost.invoke(consumer, java.time.Duration.ofSeconds(120));
 
-        List<String> queuedIds = redisTemplate.opsForList().range(QUEUE_KEY, 0, -1);
-        assertTrue(queuedIds != null && queuedIds.contains(String.valueOf(planId)));
+        assertTrue(isQueued(planId));
     }
 
     // ==================== Reliability IT ====================
 
-    /** Shared generator should mark failed after all retry attempts are exhausted. */
+    /** Shared generator should schedule delayed retries, then mark failed once attempts are exhausted. */
     @Test
     public void generationService_allAttemptsFail_marksFailed() throws Exception {
         long planId = createCasePlan();
         Mockito.when(llmService.chat(Mockito.anyString())).thenThrow(new RuntimeException("LLM timeout"));
 
-        CasePlanGenerationService generationService = new CasePlanGenerationService(casePlanRepo, llmService);
+        CasePlanGenerationService generationService = new CasePlanGenerationService(casePlanRepo, llmService, outboxRepo, contentService, transactionTemplate);
+        assertFalse(generationService.processWithRetry(planId));
+        assertEquals("pending", casePlanRepo.findById(planId).orElseThrow().getStatus());
+        assertFalse(generationService.processWithRetry(planId));
         try {
             generationService.processWithRetry(planId);
             fail("Expected terminal generation failure to propagate");
@@ -161,28 +231,224 @@ public class CasePlanFlowIT {
         assertEquals("LLM timeout", updated.getErrorMessage());
     }
 
-    /** Stale processing records should be reset to pending and pushed back to queue. */
+    /** A processing plan whose lease lapsed is reset to pending, its in-flight marker dropped, and re-queued. */
     //noinspection SqlResolve — raw SQL against dev_caseplans; IDE has no schema loaded for its columns
     @Test
-    public void recoverStaleProcessing_requeuesOldProcessingPlan() throws Exception {
+    public void recoverExpiredLeases_requeuesPlanOfDeadWorker() throws Exception {
         long planId = createProcessingCasePlanDirectly();
         redisTemplate.delete(QUEUE_KEY);
         jdbcTemplate.update(
-                "update dev_caseplans set updated_at = ? where id = ?",
-                Timestamp.from(Instant.now().minusSeconds(60L * 60L)),
+                "update dev_caseplans set lease_owner = 'dead-worker', lease_expires_at = ? where id = ?",
+                Timestamp.from(Instant.now().minusSeconds(5L)),
                 planId
         );
+        redisTemplate.opsForValue().set(RedisQueueAdapter.inFlightKey(String.valueOf(planId)), "1");
 
+        RedisLeaderLease lease = new RedisLeaderLease(redisTemplate, "caseplan:it:leader:" + planId, Duration.ofSeconds(15));
         CasePlanConsumer consumer = new CasePlanConsumer(
-                casePlanRepo, redisTemplate, new RedisQueueAdapter(redisTemplate), new CasePlanGenerationService(casePlanRepo, llmService));
-        Method recoverStale = CasePlanConsumer.class.getDeclaredMethod("recoverStaleProcessing");
-        recoverStale.setAccessible(true);
-        recoverStale.invoke(consumer);
+                casePlanRepo, outboxRepo, transactionTemplate, new RedisQueueAdapter(redisTemplate),
+                new CasePlanGenerationService(casePlanRepo, llmService, outboxRepo, contentService, transactionTemplate),
+                outboxRelayService, new QueueMetrics(new RedisQueueAdapter(redisTemplate), new SimpleMeterRegistry(), 5000L),
+                lease, new LocalPartitionMembership(1));
+        java.lang.reflect.Field leaderToken = CasePlanConsumer.class.getDeclaredField("leaderToken");
+        leaderToken.setAccessible(true);
+        leaderToken.set(consumer, lease.acquireOrRenew());
+        java.lang.reflect.Field receiver = CasePlanConsumer.class.getDeclaredField("receiver");
+        receiver.setAccessible(true);
+        receiver.set(consumer, new RedisQueueAdapter(redisTemplate));
+        Method recoverExpired = CasePlanConsumer.class.getDeclaredMethod("recoverExpiredLeases");
+        recoverExpired.setAccessible(true);
+        recoverExpired.invoke(consumer);
 
         CasePlan updated = casePlanRepo.findById(planId).orElseThrow();
         assertEquals("pending", updated.getStatus());
-        List<String> queuedIds = redisTemplate.opsForList().range(QUEUE_KEY, 0, -1);
-        assertTrue(queuedIds != null && queuedIds.contains(String.valueOf(planId)));
+        assertNull(updated.getLeaseOwner());
+        assertFalse(isQueued(planId)); // the reclaim only wrote the outbox row
+        assertEquals(1, outboxRelayService.relayBatch());
+        assertTrue(isQueued(planId));
+    }
+
+    /** A worker that lost its lease cannot overwrite the attempt that took the plan over. */
+    @Test
+    public void generationLease_lostLease_discardsLateResult() throws Exception {
+        long planId = createPendingCasePlanDirectly();
+        Instant now = Instant.now();
+        assertEquals(1, casePlanRepo.claimLease(planId, "worker-a", now.minusSeconds(1L), now.minusSeconds(2L)));
+        assertEquals(1, casePlanRepo.claimLease(planId, "worker-b", now.plusSeconds(30L), now));
+        assertEquals(0, casePlanRepo.claimLease(planId, "worker-c", now.plusSeconds(30L), now));
+
+        assertEquals(0, casePlanRepo.renewLease(planId, "worker-a", now.plusSeconds(30L)));
+        assertFalse(contentService.completeWithContent(planId, "worker-a", "late", 1));
+        assertTrue(contentService.completeWithContent(planId, "worker-b", "fresh", 1));
+
+        CasePlan updated = casePlanRepo.findById(planId).orElseThrow();
+        assertEquals("completed", updated.getStatus());
+        assertEquals(Integer.valueOf(1), updated.getContentVersion()); // the late result left no version behind
+        assertEquals("fresh", contentService.currentContent(updated).orElse(null));
+        assertNull(updated.getLeaseExpiresAt());
+    }
+
+    /** Status changes are guarded transitions: a duplicate loses, and a stale copy cannot write back. */
+    @Test
+    public void statusTransition_duplicateLosesAndStaleSaveFails() {
+        long planId = createProcessingCasePlanDirectly();
+        CasePlan stale = casePlanRepo.findById(planId).orElseThrow();
+        Instant now = Instant.now();
+
+        assertEquals(1, casePlanRepo.transition(planId, "processing", "failed", now));
+        assertEquals(0, casePlanRepo.transition(planId, "processing", "failed", now));
+        assertEquals(1, casePlanRepo.resetFailedForRetry(planId, now));
+        assertEquals(0, casePlanRepo.resetFailedForRetry(planId, now));
+
+        CasePlan current = casePlanRepo.findById(planId).orElseThrow();
+        assertEquals("pending", current.getStatus());
+        assertEquals(Long.valueOf(stale.getVersion() + 2), current.getVersion());
+
+        stale.setStatus("completed");
+        try {
+            casePlanRepo.save(stale);
+            fail("expected the stale copy to be rejected");
+        } catch (ObjectOptimisticLockingFailureException expected) {
+            assertEquals("pending", casePlanRepo.findById(planId).orElseThrow().getStatus());
+        }
+    }
+
+    /** Two live nodes split the partitions between them; when one leaves the other takes them all. */
+    /** Walking the orders list by cursor visits every plan once, newest first, with no plan text selected. */
+    @Test
+    public void listOrders_keysetPagesCoverEveryPlanOnce() {
+        for (int i = 0; i < 5; i++) {
+            createPendingCasePlanDirectlyWithSeed("page" + i);
+        }
+
+        List<Long> seen = new java.util.ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderSummaryPage page = casePlanService.listOrders(cursor, 2);
+            for (OrderSummary order : page.getItems()) {
+                seen.add(order.getId());
+                assertTrue(order.getClientFirstName().startsWith("Directpage"));
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+        assertEquals(5, new java.util.HashSet<>(seen).size());
+        List<Long> newestFirst = new java.util.ArrayList<>(seen);
+        newestFirst.sort(java.util.Comparator.reverseOrder());
+        assertEquals(newestFirst, seen);
+    }
+
+    /** Legacy rows get distinct numbers for their creation day; batches resume until nothing is left. */
+    @Test
+    public void serviceNumberBackfill_numbersLegacyRowsInBatches() {
+        for (int i = 0; i < 3; i++) {
+            createPendingCasePlanDirectlyWithSeed("backfill" + i);
+        }
+
+        long afterId = 0L;
+        int batches = 0;
+        do {
+            afterId = serviceNumberBackfillService.backfillBatch(afterId, 2);
+            batches++;
+        } while (afterId != ServiceNumberBackfillService.DONE);
+
+        assertEquals(2, batches);
+        Set<String> numbers = new java.util.HashSet<>();
+        for (CaseInfo info : caseInfoRepo.findAll()) {
+            assertTrue(info.getServiceNumber().matches("SRV-\\d{8}-\\d{4,}"));
+            numbers.add(info.getServiceNumber());
+        }
+        assertEquals(3, numbers.size());
+    }
+
+    /** Clients written before the normalized column existed become searchable once backfilled. */
+    @Test
+    public void clientNameSearch_matchesBackfilledAndNewClients() {
+        long legacyPlanId = createPendingCasePlanDirectlyWithSeed("Trgm");
+        long freshPlanId = createPendingCasePlanDirectlyWithSeed("Other");
+        jdbcTemplate.update("UPDATE dev_clients SET full_name_normalized = NULL WHERE first_name = 'DirectTrgm'");
+
+        assertEquals(0L, casePlanService.listPage(1, 10, null, "trgm client").getTotalElements());
+
+        long afterId = 0L;
+        do {
+            afterId = clientNameIndexService.normalizeBatch(afterId, 1);
+        } while (afterId != ClientNameIndexService.DONE);
+
+        List<CasePlan> found = casePlanService.listPage(1, 10, null, "  TRGM   client").getContent();
+        assertEquals(1, found.size());
+        assertEquals(Long.valueOf(legacyPlanId), found.get(0).getId());
+        assertEquals(Long.valueOf(freshPlanId),
+                casePlanService.listPage(1, 10, null, "directother").getContent().get(0).getId());
+    }
+
+    @Test
+    public void redisPartitionMembership_rebalancesOnJoinAndLeave() {
+        String key = "caseplan:it:members:" + System.nanoTime();
+        RedisPartitionMembership nodeA = new RedisPartitionMembership(redisTemplate, key, 8, Duration.ofSeconds(15));
+        RedisPartitionMembership nodeB = new RedisPartitionMembership(redisTemplate, key, 8, Duration.ofSeconds(15));
+
+        assertEquals(8, nodeA.heartbeat().size());
+        Set<Integer> ownedByB = nodeB.heartbeat();
+        Set<Integer> ownedByA = nodeA.heartbeat();
+        assertEquals(4, ownedByA.size());
+        assertEquals(4, ownedByB.size());
+        ownedByA.retainAll(ownedByB);
+        assertTrue(ownedByA.isEmpty());
+
+        nodeB.leave();
+        assertEquals(8, nodeA.heartbeat().size());
+    }
+
+    /** Only one node leads at a time; tokens grow with each term and a stale token cannot renew. */
+    @Test
+    public void redisLeaderLease_singleLeaderWithIncreasingTokens() {
+        String key = "caseplan:it:leader:" + System.nanoTime();
+        RedisLeaderLease nodeA = new RedisLeaderLease(redisTemplate, key, Duration.ofSeconds(15));
+        RedisLeaderLease nodeB = new RedisLeaderLease(redisTemplate, key, Duration.ofSeconds(15));
+
+        long first = nodeA.acquireOrRenew();
+        assertTrue(first > 0);
+        assertEquals(first, nodeA.acquireOrRenew());
+        assertEquals(LeaderLease.NOT_LEADER, nodeB.acquireOrRenew());
+
+        nodeA.release(first);
+        long second = nodeB.acquireOrRenew();
+        assertTrue(second > first);
+        assertFalse(nodeA.renew(first));
+        assertTrue(nodeB.renew(second));
+    }
+
+    // ==================== Postgres queue IT ====================
+
+    /** A published row is claimed exactly once; SKIP LOCKED claims never hand the same row to two workers. */
+    @Test
+    public void postgresQueue_publishedRowClaimedOnce() {
+        long planId = createPendingCasePlanDirectly();
+        PostgresQueueAdapter queue = new PostgresQueueAdapter(jdbcTemplate);
+
+        assertTrue(queue.claim(QueuePriority.INTERACTIVE, 10, Duration.ofSeconds(30)).isEmpty());
+        queue.enqueue(String.valueOf(planId), QueuePriority.INTERACTIVE);
+
+        assertEquals(List.of(planId), queue.claim(QueuePriority.INTERACTIVE, 10, Duration.ofSeconds(30)));
+        assertTrue(queue.claim(QueuePriority.INTERACTIVE, 10, Duration.ofSeconds(30)).isEmpty());
+        assertEquals("processing", casePlanRepo.findById(planId).orElseThrow().getStatus());
+    }
+
+    /** A delayed row is invisible to claims until due, and reported as the next due time. */
+    @Test
+    public void postgresQueue_delayedRowNotClaimedBeforeDue() {
+        long planId = createPendingCasePlanDirectly();
+        PostgresQueueAdapter queue = new PostgresQueueAdapter(jdbcTemplate);
+
+        queue.enqueueAfter(String.valueOf(planId), QueuePriority.INTERACTIVE, java.time.Duration.ofMinutes(5));
+
+        assertTrue(queue.claim(QueuePriority.INTERACTIVE, 10, Duration.ofSeconds(30)).isEmpty());
+        assertTrue(queue.nextDueAt().isAfter(Instant.now()));
     }
 
     // ==================== Concurrency IT ====================
@@ -194,7 +460,7 @@ public class CasePlanFlowIT {
         long planId2 = createPendingCasePlanDirectlyWithSeed("P2");
         Mockito.when(llmService.chat(Mockito.anyString())).thenReturn("Parallel generated plan");
 
-        CasePlanGenerationService generationService = new CasePlanGenerationService(casePlanRepo, llmService);
+        CasePlanGenerationService generationService = new CasePlanGenerationService(casePlanRepo, llmService, outboxRepo, contentService, transactionTemplate);
 
         CountDownLatch ready = new CountDownLatch(2);
         CountDownLatch start = new CountDownLatch(1);
@@ -298,4 +564,17 @@ public class CasePlanFlowIT {
             error.compareAndSet(null, t);
         }
     }
+
+    private boolean isQueued(long planId) {
+        List<String> queued = redisTemplate.opsForList().range(QUEUE_KEY, 0, -1);
+        if (queued == null) {
+            return false;
+        }
+        for (String raw : queued) {
+            if (QueueEntry.parse(raw).id().equals(String.valueOf(planId))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,157 @@
+package com.caseplan.adapter;
+
+import com.caseplan.adapter.in.queue.CasePlanConsumer;
+import com.caseplan.adapter.out.persistence.AttorneyRepo;
+import com.caseplan.adapter.out.persistence.CaseInfoRepo;
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
+import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.adapter.out.persistence.ClientRepo;
+import com.caseplan.application.port.out.LLMService;
+import com.caseplan.application.service.CasePlanService;
+import com.caseplan.domain.model.Attorney;
+import com.caseplan.domain.model.CaseInfo;
+import com.caseplan.domain.model.CasePlan;
+import com.caseplan.domain.model.Client;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Statement counts per read path, from Hibernate statistics. Each path must load plans together
+ * with their case, client and attorney, so the count stays flat however many rows a page holds.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("it")
+public class CasePlanQueryCountIT {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Autowired
+    private CasePlanService casePlanService;
+
+    @Autowired
+    private CasePlanRepo casePlanRepo;
+
+    @Autowired
+    private CaseInfoRepo caseInfoRepo;
+
+    @Autowired
+    private ClientRepo clientRepo;
+
+    @Autowired
+    private AttorneyRepo attorneyRepo;
+
+    @Autowired
+    private CasePlanOutboxRepo outboxRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    @SuppressWarnings("unused")
+    private LLMService llmService;
+
+    /** Replaces the real consumer bean so its background worker threads stay out of the IT run. */
+    @MockBean
+    @SuppressWarnings("unused")
+    private CasePlanConsumer disabledBackgroundConsumer;
+
+    private Statistics statistics;
+    private Long firstClientId;
+
+    @Before
+    public void seed() {
+        outboxRepo.deleteAll();
+        casePlanRepo.deleteAll();
+        caseInfoRepo.deleteAll();
+        clientRepo.deleteAll();
+        attorneyRepo.deleteAll();
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Client client = new Client();
+            client.setFirstName("Count" + i);
+            client.setLastName("Client");
+            client = clientRepo.save(client);
+            if (firstClientId == null) {
+                firstClientId = client.getId();
+            }
+
+            Attorney attorney = new Attorney();
+            attorney.setName("Count Attorney " + i);
+            attorney.setBarNumber("BAR-IT-COUNT-" + i);
+            attorney = attorneyRepo.save(attorney);
+
+            CaseInfo caseInfo = new CaseInfo();
+            caseInfo.setClient(client);
+            caseInfo.setAttorney(attorney);
+            caseInfo.setPrimaryCauseOfAction("Cause " + i);
+            caseInfo = caseInfoRepo.save(caseInfo);
+
+            CasePlan plan = new CasePlan();
+            plan.setCaseInfo(caseInfo);
+            plan.setStatus("pending");
+            casePlanRepo.save(plan);
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void listPage_fullPage_selectPlusCount() {
+        Page<CasePlan> page = casePlanService.listPage(1, PAGE_SIZE, null, null);
+        touchAssociations(page.getContent());
+
+        assertEquals(PAGE_SIZE, page.getContent().size());
+        assertEquals(2L, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void listByClientIdPage_shortPage_singleSelect() {
+        Page<CasePlan> page = casePlanService.listByClientIdPage(firstClientId, 1, PAGE_SIZE, null);
+        touchAssociations(page.getContent());
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(1L, statistics.getPrepareStatementCount()); // a short first page needs no count
+    }
+
+    @Test
+    public void listOrders_fullPage_singleSelect() {
+        assertEquals(PAGE_SIZE, casePlanService.listOrders(null, PAGE_SIZE).getItems().size());
+
+        assertEquals(1L, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void detailAndGenerationLoad_singleSelect() {
+        Long id = casePlanRepo.findAll().get(0).getId();
+        statistics.clear();
+
+        CasePlan plan = casePlanService.getById(id).orElseThrow();
+        touchAssociations(java.util.Collections.singletonList(plan));
+
+        assertEquals(1L, statistics.getPrepareStatementCount());
+    }
+
+    /** Reads what the list, detail and prompt read; outside a session a missing fetch would throw. */
+    private void touchAssociations(Iterable<CasePlan> plans) {
+        for (CasePlan plan : plans) {
+            plan.getCaseInfo().getPrimaryCauseOfAction();
+            plan.getCaseInfo().getClient().getFirstName();
+            plan.getCaseInfo().getAttorney().getName();
+        }
+    }
+}
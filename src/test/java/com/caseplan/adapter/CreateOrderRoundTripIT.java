@@ -0,0 +1,252 @@
+package com.caseplan.adapter;
+
+import com.caseplan.adapter.in.queue.CasePlanConsumer;
+import com.caseplan.application.port.in.CreateCasePlanCommand;
+import com.caseplan.application.port.out.LLMService;
+import com.caseplan.application.service.CasePlanService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips per order on the create path, counted at the JDBC boundary: each statement
+ * execution (a whole batch counts once) and each commit or rollback, on whichever connection the
+ * path uses. Prints the figures for one order per transaction, as the API creates them, and for an
+ * import that creates many orders in one transaction; run it before and after a change to the
+ * write path to compare. Admission control is off: it asks the queue, not the database.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "admission.enabled=false")
+@ActiveProfiles("it")
+public class CreateOrderRoundTripIT {
+
+    private static final int ORDERS = 200;
+
+    /** What the test thread sent while {@link #recordingThread} was set, in order; "commit" for commits. */
+    private static final List<String> SENT = Collections.synchronizedList(new ArrayList<>());
+    private static volatile Thread recordingThread;
+
+    @Autowired
+    private CasePlanService casePlanService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    @SuppressWarnings("unused")
+    private LLMService llmService;
+
+    /** Replaces the real consumer bean so its background worker threads stay out of the IT run. */
+    @MockBean
+    @SuppressWarnings("unused")
+    private CasePlanConsumer disabledBackgroundConsumer;
+
+    /** Wraps the pool so what the test thread sends can be counted. */
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? proxy(DataSource.class, bean, null) : bean;
+                }
+            };
+        }
+    }
+
+    @Before
+    public void warmUp() {
+        // The day's service-number block and id blocks: one-off costs, not per order.
+        casePlanService.create(command("warmup-" + UUID.randomUUID()));
+    }
+
+    @Test
+    public void oneOrderPerTransaction() {
+        String run = UUID.randomUUID().toString();
+        List<String> sent = record(() -> {
+            for (int i = 0; i < ORDERS; i++) {
+                casePlanService.create(command(run + "-" + i));
+            }
+        });
+        report("one order per transaction", sent);
+
+        List<String> single = record(() -> casePlanService.create(command(run + "-single")));
+        assertTrue("create writes in one flush at the end of its transaction: " + single, insertsAreTheTail(single));
+        assertEquals("a new client has no earlier cases to read: " + single, 0, caseLookups(single));
+    }
+
+    /** A known attorney and client come from the lookup cache: only the new rows need the database. */
+    @Test
+    public void returningAttorneyAndClients() {
+        String run = UUID.randomUUID().toString();
+        for (int i = ORDERS; i < ORDERS + 20; i++) {
+            casePlanService.create(returning(run, i)); // a first visit inserts, the second caches
+        }
+        List<String> sent = record(() -> {
+            for (int i = 0; i < ORDERS; i++) {
+                casePlanService.create(returning(run, i));
+            }
+        });
+        report("returning attorney and clients", sent);
+
+        assertTrue("no attorney or client lookup: " + sent, sent.stream()
+                .noneMatch(sql -> sql.startsWith("select") && (sql.contains(" from dev_attorneys ")
+                        || sql.contains(" from dev_clients "))));
+        assertEquals("one query for the duplicate and similar case checks", ORDERS, caseLookups(sent));
+    }
+
+    @Test
+    public void importInOneTransaction() {
+        String run = UUID.randomUUID().toString();
+        List<String> sent = record(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ORDERS; i++) {
+                casePlanService.create(command(run + "-" + i));
+            }
+        }));
+        report("import, " + ORDERS + " orders in one transaction", sent);
+    }
+
+    private static List<String> record(Runnable work) {
+        SENT.clear();
+        recordingThread = Thread.currentThread();
+        try {
+            work.run();
+        } finally {
+            recordingThread = null;
+        }
+        return new ArrayList<>(SENT);
+    }
+
+    private static void report(String scenario, List<String> sent) {
+        long inserts = sent.stream().filter(sql -> sql.startsWith("insert")).count();
+        long commits = sent.stream().filter(sql -> sql.equals("commit")).count();
+        System.out.printf(Locale.ROOT, "%s: %.2f round trips per order (%.2f insert, %.2f commit, %.2f other)%n",
+                scenario,
+                sent.size() / (double) ORDERS,
+                inserts / (double) ORDERS,
+                commits / (double) ORDERS,
+                (sent.size() - inserts - commits) / (double) ORDERS);
+    }
+
+    private static long caseLookups(List<String> sent) {
+        return sent.stream().filter(sql -> sql.startsWith("select") && sql.contains(" from dev_case_infos ")).count();
+    }
+
+    /** No read or update between the first insert and the commit. */
+    private static boolean insertsAreTheTail(List<String> sent) {
+        int firstInsert = -1;
+        for (int i = 0; i < sent.size(); i++) {
+            if (sent.get(i).startsWith("insert")) {
+                firstInsert = i;
+                break;
+            }
+        }
+        if (firstInsert < 0) {
+            return false;
+        }
+        for (String sql : sent.subList(firstInsert, sent.size())) {
+            if (!sql.startsWith("insert") && !sql.equals("commit")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CreateCasePlanCommand command(String key) {
+        CreateCasePlanCommand command = new CreateCasePlanCommand();
+        command.setClientFirstName("Trip");
+        command.setClientLastName(key);
+        command.setClientIdNumber("TRIP-" + key);
+        command.setAttorneyName("Trip Attorney " + key);
+        command.setBarNumber("BAR-TRIP-" + key);
+        command.setPrimaryCauseOfAction("Breach of contract");
+        command.setOpposingParty("Opposing " + key);
+        command.setPriority("bulk");
+        return command;
+    }
+
+    /** One attorney and ten clients, each order against a new opposing party. */
+    private static CreateCasePlanCommand returning(String run, int order) {
+        CreateCasePlanCommand command = command(run + "-client-" + (order % 10));
+        command.setAttorneyName("Trip Attorney " + run);
+        command.setBarNumber("BAR-TRIP-" + run);
+        command.setOpposingParty("Opposing " + run + "-" + order);
+        return command;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, String sql) {
+        return (T) Proxy.newProxyInstance(CreateOrderRoundTripIT.class.getClassLoader(), new Class<?>[]{type},
+                new Counter(target, sql));
+    }
+
+    /**
+     * Passes every call through. A connection hands out counting statements and counts its own
+     * commits and rollbacks; a statement counts each execution, under the SQL it was prepared with.
+     */
+    private static final class Counter implements InvocationHandler {
+        private final Object target;
+        private final String sql;
+
+        Counter(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (recordingThread == Thread.currentThread()) {
+                if (target instanceof Connection && (name.equals("commit") || name.equals("rollback"))) {
+                    SENT.add(name);
+                } else if (target instanceof Statement && name.startsWith("execute")) {
+                    String executed = sql != null ? sql : args != null && args.length > 0 ? String.valueOf(args[0]) : "";
+                    SENT.add(executed.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection) {
+                return proxy(Connection.class, result, null);
+            }
+            if (result instanceof PreparedStatement && name.equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, result, (String) args[0]);
+            }
+            if (result instanceof Statement && name.equals("createStatement")) {
+                return proxy(Statement.class, result, null);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.caseplan.adapter;
+
+import com.caseplan.application.port.in.CreateCasePlanCommand;
+import com.caseplan.application.port.out.LLMService;
+import com.caseplan.application.service.CasePlanService;
+import com.caseplan.domain.model.CasePlan;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Orders created with a pool of one connection and a service-number block of one, so every order
+ * reserves a block. Reserving inside the order's transaction would wait for a second connection
+ * and time out after {@code connection-timeout}; the create paths must take the number first.
+ * The consumer is off, so no background worker holds the connection.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "admission.enabled=false",
+        "caseplan.consumer.enabled=false",
+        "caseplan.service-number.block-size=1",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+@ActiveProfiles("it")
+public class CreateOrderSinglePoolIT {
+
+    @Autowired
+    private CasePlanService casePlanService;
+
+    @MockBean
+    @SuppressWarnings("unused")
+    private LLMService llmService;
+
+    @Test
+    public void create_withoutOuterTransaction_reservesEveryBlockOnTheOneConnection() {
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < 3; i++) {
+            CasePlan plan = casePlanService.create(command(run + "-" + i)).getCasePlan();
+            assertEquals("pending", plan.getStatus());
+            assertNotNull(plan.getCaseInfo().getServiceNumber());
+        }
+    }
+
+    @Test
+    public void createCasePlan_reservesBlockOnTheOneConnection() {
+        CasePlan plan = casePlanService.createCasePlan(command(UUID.randomUUID() + "-plan"));
+
+        assertNotNull(plan.getCaseInfo().getServiceNumber());
+    }
+
+    private static CreateCasePlanCommand command(String key) {
+        CreateCasePlanCommand command = new CreateCasePlanCommand();
+        command.setClientFirstName("Pool");
+        command.setClientLastName(key);
+        command.setAttorneyName("Pool Attorney");
+        command.setBarNumber("POOL-" + key);
+        command.setPrimaryCauseOfAction("Breach of contract");
+        command.setOpposingParty("Acme " + key);
+        return command;
+    }
+}
@@ -0,0 +1,361 @@
+package com.caseplan.adapter;
+
+import com.caseplan.adapter.in.queue.CasePlanConsumer;
+import com.caseplan.adapter.out.persistence.ArchivedPlanRepo;
+import com.caseplan.adapter.out.persistence.AttorneyRepo;
+import com.caseplan.adapter.out.persistence.CaseInfoRepo;
+import com.caseplan.adapter.out.persistence.CasePlanContentRepo;
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
+import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.adapter.out.persistence.ClientNameIndexRepo;
+import com.caseplan.adapter.out.persistence.ClientRepo;
+import com.caseplan.adapter.out.persistence.ServiceNumberBackfillRepo;
+import com.caseplan.adapter.out.queue.PostgresQueueAdapter;
+import com.caseplan.application.port.out.LLMService;
+import com.caseplan.application.port.out.QueuePriority;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Query-plan regression test. Seeds tables well past {@link #SEQ_SCAN_ROW_THRESHOLD}, runs each
+ * repository query as the application does, and replays every statement it sent under
+ * {@code EXPLAIN} with the same parameters. A sequential scan of a relation above the threshold
+ * fails the test, naming the query and the table: some predicate lost (or never had) its index.
+ * <p>
+ * Reads that return a whole table by design ({@code findAllByOrderByCreatedAtDesc}, the row count
+ * of an unfiltered list page) are deliberately not covered.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("it")
+public class QueryPlanIT {
+
+    /** Relations estimated above this many rows must not be read sequentially. */
+    private static final long SEQ_SCAN_ROW_THRESHOLD = 1000L;
+    private static final int SEEDED_ROWS = 20000;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<Recorded> RECORDED = Collections.synchronizedList(new ArrayList<>());
+    private static volatile boolean recording;
+    private static boolean seeded;
+
+    @Autowired
+    private CasePlanRepo casePlanRepo;
+
+    @Autowired
+    private CaseInfoRepo caseInfoRepo;
+
+    @Autowired
+    private ClientRepo clientRepo;
+
+    @Autowired
+    private AttorneyRepo attorneyRepo;
+
+    @Autowired
+    private CasePlanContentRepo contentRepo;
+
+    @Autowired
+    private CasePlanOutboxRepo outboxRepo;
+
+    @Autowired
+    private ServiceNumberBackfillRepo serviceNumberBackfillRepo;
+
+    @Autowired
+    private ClientNameIndexRepo clientNameIndexRepo;
+
+    @Autowired
+    private ArchivedPlanRepo archivedPlanRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockBean
+    @SuppressWarnings("unused")
+    private LLMService llmService;
+
+    /** Replaces the real consumer bean so its background worker threads stay out of the IT run. */
+    @MockBean
+    @SuppressWarnings("unused")
+    private CasePlanConsumer disabledBackgroundConsumer;
+
+    /** Wraps the pool so statements (and their bound parameters) can be recorded while a check runs. */
+    @TestConfiguration
+    static class RecordingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? proxy(DataSource.class, bean) : bean;
+                }
+            };
+        }
+    }
+
+    @Before
+    public void seed() {
+        if (seeded) {
+            return;
+        }
+        // Sequences keep running: another test context may still hold a block of ids from them.
+        jdbcTemplate.execute("TRUNCATE dev_caseplan_contents, dev_caseplan_outbox, dev_caseplans, "
+                + "dev_case_infos, dev_clients, dev_attorneys, dev_service_number_counters");
+        jdbcTemplate.update("INSERT INTO dev_attorneys (name, bar_number, created_at) "
+                + "SELECT 'Attorney ' || g, 'BAR-PLAN-' || g, now() FROM generate_series(1, ?) g", SEEDED_ROWS);
+        jdbcTemplate.update("INSERT INTO dev_clients (first_name, last_name, full_name_normalized, id_number, created_at) "
+                + "SELECT 'First' || g, 'Last' || g, 'first' || g || ' last' || g, 'ID-' || g, now() "
+                + "FROM generate_series(1, ?) g", SEEDED_ROWS);
+        jdbcTemplate.update("INSERT INTO dev_case_infos (client_id, attorney_id, primary_cause_of_action, opposing_party, "
+                + "service_number, created_at) "
+                + "SELECT c.id, a.id, 'Cause ' || (g % 50), 'Party ' || g, "
+                + "'SRV-' || to_char(date '2026-01-01' + g / 100, 'YYYYMMDD') || '-' || lpad((g % 100)::text, 4, '0'), "
+                + "now() - make_interval(secs => g) "
+                + "FROM (SELECT id, row_number() OVER (ORDER BY id)::int AS g FROM dev_clients) c "
+                + "JOIN (SELECT id, row_number() OVER (ORDER BY id) AS n FROM dev_attorneys) a ON a.n = c.g");
+        // Mostly finished plans, as in production; the queue states are the rare ones.
+        jdbcTemplate.update("INSERT INTO dev_caseplans (case_info_id, status, priority, attempt_count, created_at, "
+                + "updated_at, available_at, lease_owner, lease_expires_at, content_version) "
+                + "SELECT ci.id, s.status, 'interactive', 1, now() - make_interval(secs => g), now() - make_interval(secs => g), "
+                + "CASE WHEN s.status = 'pending' THEN now() END, "
+                + "CASE WHEN s.status = 'processing' THEN 'worker' END, "
+                + "CASE WHEN s.status = 'processing' THEN now() + interval '30 seconds' END, "
+                + "CASE WHEN s.status = 'completed' THEN 1 END "
+                + "FROM (SELECT id, row_number() OVER (ORDER BY id)::int AS g FROM dev_case_infos) ci, "
+                + "LATERAL (SELECT CASE WHEN g % 100 = 1 THEN 'pending' "
+                + "WHEN g % 100 = 2 THEN 'processing' WHEN g % 100 = 3 THEN 'failed' ELSE 'completed' END AS status) s");
+        jdbcTemplate.update("INSERT INTO dev_caseplan_contents (plan_id, version, content, created_at) "
+                + "SELECT id, 1, NULL, now() FROM dev_caseplans WHERE status = 'completed'");
+        jdbcTemplate.execute("VACUUM ANALYZE"); // also merges the GIN pending list, as autovacuum would
+        seeded = true;
+    }
+
+    @Test
+    public void casePlanRepo_queriesUseIndexes() {
+        Instant now = Instant.now();
+        assertIndexed("findWithCaseInfoById", () -> casePlanRepo.findWithCaseInfoById(500L));
+        assertIndexed("findByStatus", () -> casePlanRepo.findByStatus("failed"));
+        assertIndexed("countByStatusInAndUpdatedAtAfter", () -> casePlanRepo.countByStatusInAndUpdatedAtAfter(
+                Arrays.asList("completed", "failed"), now.minusSeconds(60)));
+        assertIndexed("findKeysByStatusUpdatedBefore", () -> casePlanRepo.findKeysByStatusUpdatedBefore(
+                "pending", now, Instant.EPOCH, 0L, PageRequest.of(0, 100)));
+        assertIndexed("findKeysWithExpiredLease", () -> casePlanRepo.findKeysWithExpiredLease(
+                now, now.minusSeconds(600), PageRequest.of(0, 100)));
+        assertIndexed("claimLease", () -> casePlanRepo.claimLease(101L, "plan-it", now.plusSeconds(30), now));
+        assertIndexed("renewLease", () -> casePlanRepo.renewLease(101L, "plan-it", now.plusSeconds(30)));
+        assertIndexed("completeUnderLease", () -> casePlanRepo.completeUnderLease(101L, "plan-it", 1, 1, now));
+        assertIndexed("releaseUnderLease", () -> casePlanRepo.releaseUnderLease(102L, "plan-it", "pending", "x", 1, now));
+        assertIndexed("reclaimExpiredLease", () -> casePlanRepo.reclaimExpiredLease(102L, now, now.minusSeconds(600)));
+        assertIndexed("transition", () -> casePlanRepo.transition(103L, "processing", "pending", now));
+        assertIndexed("resetFailedForRetry", () -> casePlanRepo.resetFailedForRetry(104L, now));
+        assertIndexed("findOrderSummaries", () -> casePlanRepo.findOrderSummaries(PageRequest.of(0, 50)));
+        assertIndexed("findOrderSummariesBefore", () -> casePlanRepo.findOrderSummariesBefore(
+                now.minusSeconds(5000), 5000L, PageRequest.of(0, 50)));
+        assertIndexed("search by status", () -> casePlanRepo.search("failed", null, PageRequest.of(0, 20)));
+        assertIndexed("search by name", () -> casePlanRepo.search(null, "first1234 last", PageRequest.of(0, 20)));
+        assertIndexed("findByClientIdAndStatus", () -> casePlanRepo.findByClientIdAndStatus(
+                1234L, null, PageRequest.of(0, 20)));
+        assertIndexed("findIdsByClientIdAndStatusIn", () -> casePlanRepo.findIdsByClientIdAndStatusIn(
+                1234L, Arrays.asList("pending", "completed")));
+    }
+
+    @Test
+    public void caseInfoClientAttorneyAndContentRepos_queriesUseIndexes() {
+        Instant now = Instant.now();
+        assertIndexed("findTopByServiceNumberStartingWith", () ->
+                caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc("SRV-20260105-"));
+        assertIndexed("findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore", () ->
+                caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                        1234L, "Cause 34", "Party 1234", now));
+        assertIndexed("findByFirstNameAndLastName", () -> clientRepo.findByFirstNameAndLastName("First77", "Last77"));
+        assertIndexed("findByIdNumber", () -> clientRepo.findByIdNumber("ID-77"));
+        assertIndexed("findByBarNumber", () -> attorneyRepo.findByBarNumber("BAR-PLAN-77"));
+        assertIndexed("findByName", () -> attorneyRepo.findByName("Attorney 77"));
+        assertIndexed("findByPlanIdAndVersion", () -> contentRepo.findByPlanIdAndVersion(500L, 1));
+        assertIndexed("nextVersion", () -> contentRepo.nextVersion(500L));
+        assertIndexed("lockBatch", () -> transactionTemplate.execute(status -> outboxRepo.lockBatch(100)));
+    }
+
+    @Test
+    public void jdbcRepositoriesAndPostgresQueue_queriesUseIndexes() {
+        PostgresQueueAdapter queue = new PostgresQueueAdapter(jdbcTemplate);
+        assertIndexed("ServiceNumberBackfillRepo.lockMissing", () ->
+                transactionTemplate.execute(status -> serviceNumberBackfillRepo.lockMissing(0L, 200)));
+        assertIndexed("ClientNameIndexRepo.findUnnormalized", () -> clientNameIndexRepo.findUnnormalized(0L, 1000));
+        assertIndexed("ArchivedPlanRepo.findWithCaseInfoById", () -> archivedPlanRepo.findWithCaseInfoById(500L));
+        assertIndexed("PostgresQueueAdapter.claim", () -> queue.claim(QueuePriority.INTERACTIVE, 4, Duration.ofSeconds(30)));
+        assertIndexed("PostgresQueueAdapter.nextDueAt", queue::nextDueAt);
+        assertIndexed("PostgresQueueAdapter.depth", queue::depth);
+        assertIndexed("PostgresQueueAdapter.oldestAgeMillis", () -> queue.oldestAgeMillis(QueuePriority.INTERACTIVE));
+        assertIndexed("PostgresQueueAdapter.releaseExpired", () -> queue.releaseExpired(Instant.now().minusSeconds(600)));
+    }
+
+    /** Runs the query, then EXPLAINs each statement it issued with the parameters it bound. */
+    private void assertIndexed(String query, Runnable call) {
+        RECORDED.clear();
+        recording = true;
+        try {
+            call.run();
+        } finally {
+            recording = false;
+        }
+        List<Recorded> statements = new ArrayList<>(RECORDED);
+        assertTrue(query + " issued no statement", !statements.isEmpty());
+        for (Recorded statement : statements) {
+            if (!isExplainable(statement.sql)) {
+                continue;
+            }
+            JsonNode plan = explain(statement);
+            List<String> scanned = new ArrayList<>();
+            collectLargeSeqScans(plan, scanned);
+            if (!scanned.isEmpty()) {
+                fail(query + " sequentially scans " + scanned + ":\n" + statement.sql + "\n" + plan.toPrettyString());
+            }
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        String head = sql.trim().toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("update") || head.startsWith("delete") || head.startsWith("with");
+    }
+
+    private JsonNode explain(Recorded statement) {
+        try (Connection connection = unwrapped().getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.sql)) {
+            for (Object[] binding : statement.bindings) {
+                ((Method) binding[0]).invoke(explain, (Object[]) binding[1]);
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                rs.next();
+                return JSON.readTree(rs.getString(1)).get(0).get("Plan");
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("EXPLAIN failed for: " + statement.sql, e);
+        }
+    }
+
+    private void collectLargeSeqScans(JsonNode plan, List<String> scanned) {
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) {
+            String relation = plan.path("Relation Name").asText();
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE relname = ?", Long.class, relation);
+            if (rows != null && rows > SEQ_SCAN_ROW_THRESHOLD) {
+                scanned.add(relation + " (~" + rows + " rows)");
+            }
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectLargeSeqScans(child, scanned);
+        }
+    }
+
+    private DataSource unwrapped() {
+        return ((Recorder) Proxy.getInvocationHandler(dataSource)).target();
+    }
+
+    /** One statement the application executed, with its parameter setter calls in order. */
+    private static final class Recorded {
+        final String sql;
+        final List<Object[]> bindings = new ArrayList<>();
+
+        Recorded(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target) {
+        return (T) Proxy.newProxyInstance(QueryPlanIT.class.getClassLoader(), new Class<?>[]{type}, new Recorder(target, null));
+    }
+
+    /**
+     * Passes every call through. A connection hands out recording statements; a prepared statement
+     * keeps its {@code set*} calls and, when executed while {@link #recording}, publishes them. A
+     * plain statement publishes the SQL it is given.
+     */
+    private static final class Recorder implements InvocationHandler {
+        private final Object target;
+        private final Recorded recorded;
+
+        Recorder(Object target, Recorded recorded) {
+            this.target = target;
+            this.recorded = recorded;
+        }
+
+        DataSource target() {
+            return (DataSource) target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (recorded != null && method.getName().startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer) {
+                recorded.bindings.add(new Object[]{method, args});
+            }
+            if (method.getName().startsWith("execute") && recording) {
+                if (recorded != null) {
+                    RECORDED.add(recorded);
+                } else if (target instanceof Statement && args != null && args[0] instanceof String) {
+                    RECORDED.add(new Recorded((String) args[0]));
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection) {
+                return Proxy.newProxyInstance(QueryPlanIT.class.getClassLoader(), new Class<?>[]{Connection.class},
+                        new Recorder(result, null));
+            }
+            if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                return Proxy.newProxyInstance(QueryPlanIT.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                        new Recorder(result, new Recorded((String) args[0])));
+            }
+            if (result instanceof Statement && method.getName().equals("createStatement")) {
+                return Proxy.newProxyInstance(QueryPlanIT.class.getClassLoader(), new Class<?>[]{Statement.class},
+                        new Recorder(result, null));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.caseplan.adapter;
+
+import com.caseplan.adapter.in.queue.CasePlanConsumer;
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import com.caseplan.application.port.out.LLMService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Which server a transaction reads from once {@code caseplan.datasource.replica-urls} is set.
+ * <p>
+ * The replica is {@code IT_SPRING_DATASOURCE_REPLICA_URL} (a second PostgreSQL, e.g. a streaming
+ * standby of the primary) or, when unset, the primary itself. Either way its connections carry
+ * their own {@code ApplicationName}, which is how the tests tell where a statement ran.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("it")
+public class ReplicaRoutingIT {
+
+    private static final String REPLICA_APPLICATION_NAME = "caseplan-it-replica";
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        String url = env("IT_SPRING_DATASOURCE_REPLICA_URL",
+                env("IT_SPRING_DATASOURCE_URL", env("SPRING_DATASOURCE_URL", "jdbc:postgresql://localhost:5433/dev_db")));
+        String replicaUrl = url + (url.contains("?") ? "&" : "?") + "ApplicationName=" + REPLICA_APPLICATION_NAME;
+        registry.add("caseplan.datasource.replica-urls", () -> replicaUrl);
+    }
+
+    @MockBean
+    private LLMService llmService;
+
+    @MockBean
+    private CasePlanConsumer casePlanConsumer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @After
+    public void tearDown() {
+        ReadRouting.clear();
+    }
+
+    @Test
+    public void readOnlyOnReplicaTolerantThread_readsReplica() {
+        assertEquals(REPLICA_APPLICATION_NAME, ReadRouting.onReplica(() -> jpaApplicationName(true)));
+        assertEquals(REPLICA_APPLICATION_NAME, ReadRouting.onReplica(() -> jdbcApplicationName(true)));
+    }
+
+    @Test
+    public void writeTransaction_usesPrimary() {
+        assertPrimary(ReadRouting.onReplica(() -> jpaApplicationName(false)));
+        assertPrimary(ReadRouting.onReplica(() -> jdbcApplicationName(false)));
+    }
+
+    @Test
+    public void readOnlyWithoutReplicaAllowance_usesPrimary() {
+        assertPrimary(jpaApplicationName(true));
+        assertPrimary(ReadRouting.onReplica(() -> ReadRouting.onPrimary(() -> jdbcApplicationName(true))));
+    }
+
+    /** Boot's Flyway and Hibernate validation ran against this data source at startup. */
+    @Test
+    public void schemaIsMigratedOnPrimary() {
+        Integer applied = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM flyway_schema_history WHERE success", Integer.class);
+        assertTrue(applied != null && applied > 0);
+    }
+
+    private String jpaApplicationName(boolean readOnly) {
+        return transaction(readOnly).execute(status -> (String) entityManager
+                .createNativeQuery("SELECT current_setting('application_name')")
+                .getSingleResult());
+    }
+
+    private String jdbcApplicationName(boolean readOnly) {
+        return transaction(readOnly).execute(status ->
+                jdbcTemplate.queryForObject("SELECT current_setting('application_name')", String.class));
+    }
+
+    private TransactionTemplate transaction(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    private static void assertPrimary(String applicationName) {
+        assertNotEquals(REPLICA_APPLICATION_NAME, applicationName);
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.trim().isEmpty() ? fallback : value.trim();
+    }
+}
@@ -0,0 +1,31 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.ClientNameIndexService;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClientNameIndexJobTest {
+
+    private final ClientNameIndexService service = mock(ClientNameIndexService.class);
+
+    @Test
+    public void run_continuesFromLastIdUntilDone() {
+        ClientNameIndexJob job = new ClientNameIndexJob(service);
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+        ReflectionTestUtils.setField(job, "intervalMs", 0L);
+        ReflectionTestUtils.setField(job, "running", true);
+        when(service.normalizeBatch(0L, 2)).thenReturn(4L);
+        when(service.normalizeBatch(4L, 2)).thenReturn(ClientNameIndexService.DONE);
+
+        job.run();
+
+        InOrder order = inOrder(service);
+        order.verify(service).normalizeBatch(0L, 2);
+        order.verify(service).normalizeBatch(4L, 2);
+    }
+}
@@ -0,0 +1,49 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.LegacyContentBackfillService;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LegacyContentBackfillJobTest {
+
+    private final LegacyContentBackfillService service = mock(LegacyContentBackfillService.class);
+
+    private LegacyContentBackfillJob job() {
+        LegacyContentBackfillJob job = new LegacyContentBackfillJob(service);
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+        ReflectionTestUtils.setField(job, "intervalMs", 0L);
+        ReflectionTestUtils.setField(job, "running", true);
+        return job;
+    }
+
+    @Test
+    public void run_continuesFromLastIdUntilDone() {
+        when(service.backfillBatch(0L, 2)).thenReturn(5L);
+        when(service.backfillBatch(5L, 2)).thenReturn(LegacyContentBackfillService.DONE);
+
+        job().run();
+
+        verify(service).backfillBatch(0L, 2);
+        verify(service).backfillBatch(5L, 2);
+    }
+
+    @Test
+    public void run_stopped_makesNoFurtherBatches() {
+        LegacyContentBackfillJob job = job();
+        when(service.backfillBatch(anyLong(), anyInt())).thenAnswer(invocation -> {
+            job.stop();
+            return 7L;
+        });
+
+        job.run();
+
+        verify(service, times(1)).backfillBatch(anyLong(), anyInt());
+    }
+}
@@ -0,0 +1,75 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.LegacyHistoryService;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LegacyHistoryJobTest {
+
+    private static final LocalDate HISTORY_END = LocalDate.of(2025, 10, 1);
+
+    private final LegacyHistoryService service = mock(LegacyHistoryService.class);
+
+    private LegacyHistoryJob job() {
+        LegacyHistoryJob job = new LegacyHistoryJob(service);
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+        ReflectionTestUtils.setField(job, "intervalMs", 0L);
+        ReflectionTestUtils.setField(job, "running", true);
+        return job;
+    }
+
+    @Test
+    public void run_nothingToSplit_stopsAtOnce() {
+        when(service.start(any())).thenReturn(null);
+
+        job().run();
+
+        verify(service, never()).archivePlans(any(), anyLong(), anyInt());
+        verify(service, never()).finish(any());
+    }
+
+    @Test
+    public void run_walksPlansThenCasesThenFinishes() {
+        when(service.start(any())).thenReturn(HISTORY_END);
+        when(service.archivePlans(HISTORY_END, 0L, 2)).thenReturn(5L);
+        when(service.archivePlans(HISTORY_END, 5L, 2)).thenReturn(LegacyHistoryService.DONE);
+        when(service.archiveCases(HISTORY_END, 0L, 2)).thenReturn(LegacyHistoryService.DONE);
+        when(service.finish(HISTORY_END)).thenReturn(true);
+
+        job().run();
+
+        InOrder order = inOrder(service);
+        order.verify(service).archivePlans(HISTORY_END, 0L, 2);
+        order.verify(service).archivePlans(HISTORY_END, 5L, 2);
+        order.verify(service).archiveCases(HISTORY_END, 0L, 2);
+        order.verify(service).finish(HISTORY_END);
+    }
+
+    @Test
+    public void run_stopped_makesNoFurtherBatchesAndDoesNotFinish() {
+        LegacyHistoryJob job = job();
+        when(service.start(any())).thenReturn(HISTORY_END);
+        when(service.archivePlans(any(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            job.stop();
+            return 7L;
+        });
+
+        job.run();
+
+        verify(service).archivePlans(any(), anyLong(), anyInt());
+        verify(service, never()).archiveCases(any(), anyLong(), anyInt());
+        verify(service, never()).finish(any());
+    }
+}
@@ -0,0 +1,35 @@
+package com.caseplan.adapter.in.job;
+
+import com.caseplan.application.service.PlanPartitionService;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PlanPartitionJobTest {
+
+    private final PlanPartitionService service = mock(PlanPartitionService.class);
+
+    @Test
+    public void run_maintainsEveryIntervalUntilStopped() {
+        PlanPartitionJob job = new PlanPartitionJob(service);
+        ReflectionTestUtils.setField(job, "intervalMs", 0L);
+        ReflectionTestUtils.setField(job, "running", true);
+        AtomicInteger runs = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (runs.incrementAndGet() == 2) {
+                job.stop();
+            }
+            return null;
+        }).when(service).maintain();
+
+        job.run();
+
+        verify(service, times(2)).maintain();
+    }
+}
@@ -4,6 +4,8 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.caseplan.adapter.in.web.controller.CasePlanController;
 import com.caseplan.adapter.in.web.dto.CreateCasePlanRequest;
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import com.caseplan.common.exception.OverloadedException;
 import com.caseplan.common.exception.WarningException;
 import com.caseplan.domain.model.CasePlan;
 import org.junit.Test;
@@ -83,6 +85,29 @@ public class CreateOrderHandlerTest {
         assertTrue(res.getBody().contains("\"id\":12"));
     }
 
+    @Test
+    public void handleRequest_successWithEstimate_addsEtaFields() {
+        CasePlanController controller = mock(CasePlanController.class);
+        Validator validator = mock(Validator.class);
+        when(validator.validate(any(CreateCasePlanRequest.class))).thenReturn(Collections.emptySet());
+
+        CasePlan cp = new CasePlan();
+        cp.setId(13L);
+        doReturn(ResponseEntity.status(HttpStatus.CREATED)
+                .header(CasePlanController.ESTIMATED_WAIT_HEADER, "90")
+                .header(CasePlanController.ESTIMATED_COMPLETION_HEADER, "2026-01-01T00:01:30Z")
+                .header(ReadRouting.PRIMARY_UNTIL_HEADER, "1767225695000")
+                .body(cp))
+                .when(controller).create(any(CreateCasePlanRequest.class));
+
+        CreateOrderHandler handler = new CreateOrderHandler(controller, validator);
+        APIGatewayProxyResponseEvent res = handler.handleRequest(validRequest(), null);
+        assertEquals(Integer.valueOf(201), res.getStatusCode());
+        assertTrue(res.getBody().contains("\"estimatedWaitSeconds\":90"));
+        assertTrue(res.getBody().contains("\"estimatedCompletionAt\":\"2026-01-01T00:01:30Z\""));
+        assertEquals("1767225695000", res.getHeaders().get(ReadRouting.PRIMARY_UNTIL_HEADER));
+    }
+
     @Test
     public void handleRequest_successWrappedMapBody_returns201() {
         CasePlanController controller = mock(CasePlanController.class);
@@ -115,6 +140,21 @@ public class CreateOrderHandlerTest {
         assertEquals(Integer.valueOf(200), res.getStatusCode());
     }
 
+    @Test
+    public void handleRequest_overloaded_returns429WithRetryAfter() {
+        CasePlanController controller = mock(CasePlanController.class);
+        Validator validator = mock(Validator.class);
+        when(validator.validate(any(CreateCasePlanRequest.class))).thenReturn(Collections.emptySet());
+        when(controller.create(any(CreateCasePlanRequest.class)))
+                .thenThrow(new OverloadedException("QUEUE_BACKLOG", "busy", null, 30L));
+
+        CreateOrderHandler handler = new CreateOrderHandler(controller, validator);
+        APIGatewayProxyResponseEvent res = handler.handleRequest(validRequest(), null);
+        assertEquals(Integer.valueOf(429), res.getStatusCode());
+        assertEquals("30", res.getHeaders().get("Retry-After"));
+        assertEquals("application/json", res.getHeaders().get("Content-Type"));
+    }
+
     @Test
     public void handleRequest_createdButNoId_returns500() {
         CasePlanController controller = mock(CasePlanController.class);
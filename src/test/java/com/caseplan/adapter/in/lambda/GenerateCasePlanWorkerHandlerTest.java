@@ -1,15 +1,27 @@
 package com.caseplan.adapter.in.lambda;
 
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.caseplan.adapter.out.queue.SqsQueueAdapter;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
 import com.caseplan.application.service.CasePlanGenerationService;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -117,4 +129,124 @@ public class GenerateCasePlanWorkerHandlerTest {
         GenerateCasePlanWorkerHandler handler = new GenerateCasePlanWorkerHandler(generationService);
         handler.handleRequest(event, null);
     }
+
+    @Test
+    public void handleRequest_withSentTimestamp_stillProcessesRecord() {
+        CasePlanGenerationService generationService = mock(CasePlanGenerationService.class);
+        when(generationService.processWithRetry(7L)).thenReturn(true);
+
+        SQSEvent.SQSMessage m = new SQSEvent.SQSMessage();
+        m.setBody("{\"planId\":7,\"priority\":\"bulk\"}");
+        m.setAttributes(java.util.Collections.singletonMap("SentTimestamp", String.valueOf(System.currentTimeMillis() - 250L)));
+        SQSEvent.SQSMessage bad = new SQSEvent.SQSMessage();
+        bad.setBody("{\"planId\":8}");
+        bad.setAttributes(java.util.Collections.singletonMap("SentTimestamp", "not-a-number"));
+        SQSEvent event = new SQSEvent();
+        event.setRecords(java.util.Arrays.asList(m, bad));
+
+        GenerateCasePlanWorkerHandler handler = new GenerateCasePlanWorkerHandler(generationService);
+        String result = handler.handleRequest(event, null);
+
+        assertTrue(result.contains("success=1"));
+        verify(generationService).processWithRetry(7L);
+        verify(generationService).processWithRetry(8L);
+    }
+
+    @Test
+    public void handleRequest_emitsWaitAndProcessingMetricsWithoutReadingDepth() {
+        CasePlanGenerationService generationService = mock(CasePlanGenerationService.class);
+        when(generationService.processWithRetry(9L)).thenReturn(true);
+        QueuePort queuePort = mock(QueuePort.class);
+
+        SQSEvent.SQSMessage m = new SQSEvent.SQSMessage();
+        m.setBody("{\"planId\":9,\"priority\":\"bulk\",\"enqueuedAt\":" + (System.currentTimeMillis() - 5_000L) + "}");
+        SQSEvent event = new SQSEvent();
+        event.setRecords(java.util.Collections.singletonList(m));
+
+        PrintStream oldOut = System.out;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bos));
+        try {
+            new GenerateCasePlanWorkerHandler(generationService, queuePort).handleRequest(event, null);
+        } finally {
+            System.setOut(oldOut);
+        }
+
+        String out = bos.toString(StandardCharsets.UTF_8);
+        assertTrue(out.contains("\"priority\":\"bulk\""));
+        assertTrue(out.contains("\"QueueWait\""));
+        assertTrue(out.contains("\"ProcessingTime\""));
+        assertTrue(out.contains("\"PlansDequeued\":1.0"));
+        assertTrue(out.contains("\"OldestQueueWait\":5"));
+        assertFalse(out.contains("QueueDepth"));
+        verify(queuePort, never()).depth();
+    }
+
+    @Test
+    public void handleRequest_sqsQueue_extendsVisibilityOnEachLeaseHeartbeat() {
+        CasePlanGenerationService generationService = mock(CasePlanGenerationService.class);
+        when(generationService.leaseTtl()).thenReturn(Duration.ofSeconds(30));
+        when(generationService.processWithRetry(eq(11L), any(Runnable.class))).thenAnswer(invocation -> {
+            Runnable heartbeat = invocation.getArgument(1);
+            heartbeat.run();
+            heartbeat.run();
+            return true;
+        });
+        SqsQueueAdapter sqs = mock(SqsQueueAdapter.class);
+
+        SQSEvent.SQSMessage m = new SQSEvent.SQSMessage();
+        m.setBody("{\"planId\":11,\"priority\":\"bulk\"}");
+        m.setReceiptHandle("receipt-11");
+        SQSEvent event = new SQSEvent();
+        event.setRecords(java.util.Collections.singletonList(m));
+
+        String result = new GenerateCasePlanWorkerHandler(generationService, sqs).handleRequest(event, null);
+
+        assertTrue(result.contains("success=1"));
+        verify(sqs, times(2)).extendVisibility(QueuePriority.BULK, "receipt-11", Duration.ofSeconds(60));
+        verify(generationService, never()).processWithRetry(11L);
+    }
+
+    @Test
+    public void handleRequest_messageNotDueYet_hiddenUntilDueAndBatchFails() {
+        CasePlanGenerationService generationService = mock(CasePlanGenerationService.class);
+        when(generationService.processWithRetry(12L)).thenReturn(true);
+        SqsQueueAdapter sqs = mock(SqsQueueAdapter.class);
+
+        SQSEvent.SQSMessage early = new SQSEvent.SQSMessage();
+        early.setReceiptHandle("rh-11");
+        early.setBody("{\"planId\":11,\"priority\":\"bulk\",\"enqueuedAt\":" + (System.currentTimeMillis() + 30_000L) + "}");
+        SQSEvent.SQSMessage due = new SQSEvent.SQSMessage();
+        due.setBody("{\"planId\":12,\"enqueuedAt\":" + System.currentTimeMillis() + "}");
+        SQSEvent event = new SQSEvent();
+        event.setRecords(java.util.Arrays.asList(early, due));
+
+        try {
+            new GenerateCasePlanWorkerHandler(generationService, sqs).handleRequest(event, null);
+            org.junit.Assert.fail("a held message must fail the batch");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("Held 1"));
+        }
+
+        ArgumentCaptor<Duration> hidden = ArgumentCaptor.forClass(Duration.class);
+        verify(sqs).extendVisibility(eq(QueuePriority.BULK), eq("rh-11"), hidden.capture());
+        assertTrue(hidden.getValue().getSeconds() >= 29 && hidden.getValue().getSeconds() <= 31);
+        verify(generationService, never()).processWithRetry(eq(11L), any(Runnable.class));
+        verify(generationService).processWithRetry(12L);
+    }
+
+    @Test
+    public void handleRequest_messageNotDueWithoutSqs_isProcessed() {
+        CasePlanGenerationService generationService = mock(CasePlanGenerationService.class);
+        when(generationService.processWithRetry(13L)).thenReturn(true);
+
+        SQSEvent.SQSMessage early = new SQSEvent.SQSMessage();
+        early.setBody("{\"planId\":13,\"enqueuedAt\":" + (System.currentTimeMillis() + 30_000L) + "}");
+        SQSEvent event = new SQSEvent();
+        event.setRecords(java.util.Collections.singletonList(early));
+
+        String result = new GenerateCasePlanWorkerHandler(generationService).handleRequest(event, null);
+
+        assertTrue(result.contains("success=1"));
+    }
 }
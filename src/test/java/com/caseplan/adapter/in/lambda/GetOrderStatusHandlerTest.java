@@ -2,14 +2,19 @@ package com.caseplan.adapter.in.lambda;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.caseplan.adapter.out.datasource.ReadRouting;
 import com.caseplan.application.service.CasePlanService;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -57,6 +62,29 @@ public class GetOrderStatusHandlerTest {
         assertTrue(res.getBody().contains("\"status\":\"completed\""));
     }
 
+    @Test
+    public void handleRequest_pollMayReadReplica_unlessPrimaryRequested() {
+        CasePlanService service = mock(CasePlanService.class);
+        List<Boolean> replicaAllowed = new ArrayList<>();
+        when(service.getStatus(3L)).thenAnswer(inv -> {
+            replicaAllowed.add(ReadRouting.isReplicaAllowed());
+            return Collections.singletonMap("status", "pending");
+        });
+        GetOrderStatusHandler handler = new GetOrderStatusHandler(service);
+
+        APIGatewayProxyRequestEvent poll = new APIGatewayProxyRequestEvent();
+        poll.setPathParameters(Collections.singletonMap("id", "3"));
+        handler.handleRequest(poll, null);
+        APIGatewayProxyRequestEvent afterCreate = new APIGatewayProxyRequestEvent();
+        afterCreate.setPathParameters(Collections.singletonMap("id", "3"));
+        afterCreate.setHeaders(Collections.singletonMap("x-read-primary-until",
+                String.valueOf(System.currentTimeMillis() + 60_000)));
+        handler.handleRequest(afterCreate, null);
+
+        assertEquals(Arrays.asList(true, false), replicaAllowed);
+        assertFalse(ReadRouting.isReplicaAllowed());
+    }
+
     @Test
     public void handleRequest_serviceThrows_returns500() {
         CasePlanService service = mock(CasePlanService.class);
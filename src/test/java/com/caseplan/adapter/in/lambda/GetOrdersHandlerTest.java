@@ -1,28 +1,39 @@
 package com.caseplan.adapter.in.lambda;
 
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import com.caseplan.adapter.out.persistence.OrderSummary;
 import com.caseplan.application.service.CasePlanService;
-import com.caseplan.domain.model.Attorney;
-import com.caseplan.domain.model.CaseInfo;
-import com.caseplan.domain.model.CasePlan;
-import com.caseplan.domain.model.Client;
+import com.caseplan.application.service.OrderSummaryPage;
+import com.caseplan.common.exception.ValidationException;
 import org.junit.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 public class GetOrdersHandlerTest {
 
     @Test
     public void handleRequest_success_returns200AndItems() {
+        OrderSummary order = buildOrder();
         CasePlanService service = mock(CasePlanService.class);
-        when(service.listAll()).thenReturn(List.of(buildPlan()));
+        when(service.listOrders(null, null)).thenReturn(new OrderSummaryPage(List.of(order), "next-token"));
         GetOrdersHandler handler = new GetOrdersHandler(service);
 
         APIGatewayProxyResponseEvent res = handler.handleRequest(null, null);
@@ -34,12 +45,66 @@ public class GetOrdersHandlerTest {
         assertTrue(res.getBody().contains("\"clientName\":\"Mia Johnson\""));
         assertTrue(res.getBody().contains("\"serviceNumber\":\"SRV-20260216-0001\""));
         assertTrue(res.getBody().contains("\"docketNumber\":\"2026-CV-123456\""));
+        assertTrue(res.getBody().contains("\"barNumber\":\"BAR-1\""));
+        assertTrue(res.getBody().contains("\"nextCursor\":\"next-token\""));
+    }
+
+    @Test
+    public void handleRequest_passesCursorAndLimit() {
+        CasePlanService service = mock(CasePlanService.class);
+        when(service.listOrders("abc", 10)).thenReturn(new OrderSummaryPage(Collections.emptyList(), null));
+        GetOrdersHandler handler = new GetOrdersHandler(service);
+
+        APIGatewayProxyResponseEvent res = handler.handleRequest(query("abc", " 10 "), null);
+
+        assertEquals(Integer.valueOf(200), res.getStatusCode());
+        verify(service).listOrders("abc", 10);
+    }
+
+    @Test
+    public void handleRequest_orderWithoutCaseInfo_omitsCaseFields() {
+        OrderSummary order = mock(OrderSummary.class);
+        when(order.getId()).thenReturn(3L);
+        when(order.getStatus()).thenReturn("pending");
+        when(order.getCaseInfoId()).thenReturn(null); // mocks default wrapper types to 0
+        CasePlanService service = mock(CasePlanService.class);
+        when(service.listOrders(isNull(), isNull())).thenReturn(new OrderSummaryPage(List.of(order), null));
+
+        APIGatewayProxyResponseEvent res = new GetOrdersHandler(service).handleRequest(null, null);
+
+        assertEquals(Integer.valueOf(200), res.getStatusCode());
+        assertFalse(res.getBody().contains("caseInfo"));
+        assertTrue(res.getBody().contains("\"nextCursor\":null"));
+    }
+
+    @Test
+    public void handleRequest_nonNumericLimit_returns400() {
+        CasePlanService service = mock(CasePlanService.class);
+        GetOrdersHandler handler = new GetOrdersHandler(service);
+
+        APIGatewayProxyResponseEvent res = handler.handleRequest(query(null, "ten"), null);
+
+        assertEquals(Integer.valueOf(400), res.getStatusCode());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    public void handleRequest_invalidCursor_returns400() {
+        CasePlanService service = mock(CasePlanService.class);
+        when(service.listOrders(any(), any()))
+                .thenThrow(new ValidationException("INVALID_CURSOR", "Malformed cursor: x", null));
+        GetOrdersHandler handler = new GetOrdersHandler(service);
+
+        APIGatewayProxyResponseEvent res = handler.handleRequest(query("x", null), null);
+
+        assertEquals(Integer.valueOf(400), res.getStatusCode());
+        assertTrue(res.getBody().contains("INVALID_CURSOR"));
     }
 
     @Test
     public void handleRequest_emptyList_returns200() {
         CasePlanService service = mock(CasePlanService.class);
-        when(service.listAll()).thenReturn(Collections.emptyList());
+        when(service.listOrders(null, null)).thenReturn(new OrderSummaryPage(Collections.emptyList(), null));
         GetOrdersHandler handler = new GetOrdersHandler(service);
 
         APIGatewayProxyResponseEvent res = handler.handleRequest(null, null);
@@ -47,38 +112,57 @@ public class GetOrdersHandlerTest {
         assertTrue(res.getBody().contains("\"count\":0"));
     }
 
+    @Test
+    public void handleRequest_primaryRequested_staysOnPrimary() {
+        CasePlanService service = mock(CasePlanService.class);
+        List<Boolean> replicaAllowed = new ArrayList<>();
+        when(service.listOrders(isNull(), isNull())).thenAnswer(inv -> {
+            replicaAllowed.add(ReadRouting.isReplicaAllowed());
+            return new OrderSummaryPage(Collections.emptyList(), null);
+        });
+        GetOrdersHandler handler = new GetOrdersHandler(service);
+
+        handler.handleRequest(new APIGatewayProxyRequestEvent(), null);
+        APIGatewayProxyRequestEvent primary = new APIGatewayProxyRequestEvent();
+        primary.setHeaders(Collections.singletonMap(ReadRouting.CONSISTENCY_HEADER, "primary"));
+        handler.handleRequest(primary, null);
+
+        assertEquals(Arrays.asList(true, false), replicaAllowed);
+    }
+
     @Test
     public void handleRequest_serviceThrows_returns500() {
         CasePlanService service = mock(CasePlanService.class);
-        when(service.listAll()).thenThrow(new RuntimeException("db down"));
+        when(service.listOrders(null, null)).thenThrow(new RuntimeException("db down"));
         GetOrdersHandler handler = new GetOrdersHandler(service);
 
         APIGatewayProxyResponseEvent res = handler.handleRequest(null, null);
         assertEquals(Integer.valueOf(500), res.getStatusCode());
     }
 
-    private CasePlan buildPlan() {
-        Client client = new Client();
-        client.setFirstName("Mia");
-        client.setLastName("Johnson");
-
-        Attorney attorney = new Attorney();
-        attorney.setName("Ethan Cole");
-        attorney.setBarNumber("BAR-1");
-
-        CaseInfo info = new CaseInfo();
-        info.setCaseNumber("2026-CV-123456");
-        info.setServiceNumber("SRV-20260216-0001");
-        info.setPrimaryCauseOfAction("Contract");
-        info.setRemedySought("Damages");
-        info.setClient(client);
-        info.setAttorney(attorney);
-
-        CasePlan plan = new CasePlan();
-        plan.setId(9L);
-        plan.setStatus("completed");
-        plan.setCreatedAt(Instant.parse("2026-02-16T00:00:00Z"));
-        plan.setCaseInfo(info);
-        return plan;
+    private APIGatewayProxyRequestEvent query(String cursor, String limit) {
+        Map<String, String> params = new HashMap<>();
+        params.put("cursor", cursor);
+        params.put("limit", limit);
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        event.setQueryStringParameters(params);
+        return event;
+    }
+
+    private OrderSummary buildOrder() {
+        OrderSummary order = mock(OrderSummary.class);
+        when(order.getId()).thenReturn(9L);
+        when(order.getStatus()).thenReturn("completed");
+        when(order.getCreatedAt()).thenReturn(Instant.parse("2026-02-16T00:00:00Z"));
+        when(order.getCaseInfoId()).thenReturn(5L);
+        when(order.getServiceNumber()).thenReturn("SRV-20260216-0001");
+        when(order.getDocketNumber()).thenReturn("2026-CV-123456");
+        when(order.getPrimaryCauseOfAction()).thenReturn("Contract");
+        when(order.getRemedySought()).thenReturn("Damages");
+        when(order.getClientFirstName()).thenReturn("Mia");
+        when(order.getClientLastName()).thenReturn("Johnson");
+        when(order.getAttorneyName()).thenReturn("Ethan Cole");
+        when(order.getAttorneyBarNumber()).thenReturn("BAR-1");
+        return order;
     }
 }
@@ -0,0 +1,89 @@
+package com.caseplan.adapter.in.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.service.OutboxRelayService;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutboxRelayHandlerTest {
+
+    @Test
+    public void handleRequest_withoutContext_makesSinglePass() {
+        OutboxRelayService relayService = mock(OutboxRelayService.class);
+        when(relayService.relayBatch()).thenReturn(3);
+        OutboxRelayHandler handler = new OutboxRelayHandler(relayService);
+
+        String result = handler.handleRequest(new ScheduledEvent(), null);
+
+        assertEquals("relayed=3, passes=1", result);
+        verify(relayService, times(1)).relayBatch();
+    }
+
+    @Test
+    public void handleRequest_fullBatches_keepRelayingWhileTimeRemains() {
+        OutboxRelayService relayService = mock(OutboxRelayService.class);
+        when(relayService.relayBatch()).thenReturn(OutboxRelayService.BATCH_SIZE, OutboxRelayService.BATCH_SIZE, 0);
+        Context context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(60_000, 60_000, 1_000);
+        OutboxRelayHandler handler = new OutboxRelayHandler(relayService);
+
+        String result = handler.handleRequest(new ScheduledEvent(), context);
+
+        assertEquals("relayed=" + (2 * OutboxRelayService.BATCH_SIZE) + ", passes=3", result);
+    }
+
+    @Test
+    public void handleRequest_readsDepthOnceAndEmitsIt() {
+        OutboxRelayService relayService = mock(OutboxRelayService.class);
+        when(relayService.relayBatch()).thenReturn(OutboxRelayService.BATCH_SIZE, 0);
+        Context context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(60_000, 1_000);
+        QueuePort queuePort = mock(QueuePort.class);
+        when(queuePort.depth()).thenReturn(42L);
+
+        String out = captureStdout(() -> new OutboxRelayHandler(relayService, queuePort).handleRequest(new ScheduledEvent(), context));
+
+        assertTrue(out.contains("\"QueueDepth\":42.0"));
+        verify(queuePort, times(1)).depth();
+    }
+
+    @Test
+    public void handleRequest_depthLookupFails_stillRelaysAndLeavesDepthOut() {
+        OutboxRelayService relayService = mock(OutboxRelayService.class);
+        when(relayService.relayBatch()).thenReturn(2);
+        QueuePort queuePort = mock(QueuePort.class);
+        when(queuePort.depth()).thenThrow(new RuntimeException("throttled"));
+
+        String[] result = new String[1];
+        String out = captureStdout(() -> result[0] = new OutboxRelayHandler(relayService, queuePort).handleRequest(new ScheduledEvent(), null));
+
+        assertEquals("relayed=2, passes=1", result[0]);
+        assertTrue(out.contains("\"OutboxRelayed\":2.0"));
+        assertFalse(out.contains("QueueDepth"));
+    }
+
+    private static String captureStdout(Runnable action) {
+        PrintStream oldOut = System.out;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bos));
+        try {
+            action.run();
+        } finally {
+            System.setOut(oldOut);
+        }
+        return bos.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -1,116 +1,310 @@
 package com.caseplan.adapter.in.queue;
 
+import com.caseplan.adapter.out.lease.LeaderLease;
+import com.caseplan.adapter.out.lease.PartitionMembership;
+import com.caseplan.adapter.out.persistence.CasePlanKey;
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
 import com.caseplan.domain.model.CasePlan;
+import com.caseplan.domain.model.CasePlanOutbox;
 import com.caseplan.application.port.out.QueuePort;
 import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.adapter.out.queue.QueueDelivery;
+import com.caseplan.adapter.out.queue.QueueEntry;
+import com.caseplan.adapter.out.queue.QueueReceiver;
 import com.caseplan.application.service.CasePlanGenerationService;
+import com.caseplan.application.service.OutboxRelayService;
+import com.caseplan.application.port.out.QueuePriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.data.redis.core.ListOperations;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CasePlanConsumerTest {
 
     @Mock private CasePlanRepo casePlanRepo;
-    @Mock private StringRedisTemplate redisTemplate;
-    @Mock private QueuePort queuePort;
+    @Mock private CasePlanOutboxRepo outboxRepo;
+    @Mock private PlatformTransactionManager transactionManager;
+    private final QueuePort queuePort = mock(QueuePort.class, withSettings().extraInterfaces(QueueReceiver.class));
+    private final QueueReceiver receiver = (QueueReceiver) queuePort;
     @Mock private CasePlanGenerationService generationService;
-    @Mock private ListOperations<String, String> listOps;
+    @Mock private OutboxRelayService outboxRelayService;
+    @Mock private LeaderLease maintenanceLease;
+    @Mock private PartitionMembership partitionMembership;
 
     private CasePlanConsumer consumer;
 
     @Before
     public void setup() throws Exception {
-        when(redisTemplate.opsForList()).thenReturn(listOps);
         consumer = createConsumerWithoutPostConstruct();
     }
 
     private CasePlanConsumer createConsumerWithoutPostConstruct() throws Exception {
         java.lang.reflect.Constructor<CasePlanConsumer> ctor =
                 CasePlanConsumer.class.getDeclaredConstructor(
-                        CasePlanRepo.class, StringRedisTemplate.class, QueuePort.class, CasePlanGenerationService.class);
-        return ctor.newInstance(casePlanRepo, redisTemplate, queuePort, generationService);
+                        CasePlanRepo.class, CasePlanOutboxRepo.class, TransactionTemplate.class, QueuePort.class,
+                        CasePlanGenerationService.class, OutboxRelayService.class, QueueMetrics.class,
+                        LeaderLease.class, PartitionMembership.class);
+        CasePlanConsumer created = ctor.newInstance(casePlanRepo, outboxRepo, new TransactionTemplate(transactionManager),
+                queuePort, generationService, outboxRelayService,
+                new QueueMetrics(queuePort, new SimpleMeterRegistry(), 5000L), maintenanceLease, partitionMembership);
+        java.lang.reflect.Field receiverField = CasePlanConsumer.class.getDeclaredField("receiver");
+        receiverField.setAccessible(true);
+        receiverField.set(created, receiver);
+        // maintenance jobs run as the leader of term 7 unless a test says otherwise
+        java.lang.reflect.Field tokenField = CasePlanConsumer.class.getDeclaredField("leaderToken");
+        tokenField.setAccessible(true);
+        tokenField.set(created, 7L);
+        lenient().when(maintenanceLease.renew(7L)).thenReturn(true);
+        return created;
     }
 
-    private CasePlan plan(Long id, String status) {
-        CasePlan plan = new CasePlan();
-        plan.setId(id);
-        plan.setStatus(status);
-        return plan;
+    @Test
+    public void recoverExpiredLeases_reclaimsAndRequeuesExpiredPlans() throws Exception {
+        when(casePlanRepo.findKeysWithExpiredLease(any(Instant.class), any(Instant.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(key(10L), key(20L)));
+        when(casePlanRepo.reclaimExpiredLease(eq(10L), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(casePlanRepo.reclaimExpiredLease(eq(20L), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        invokeLeaseRecovery();
+
+        InOrder order = inOrder(casePlanRepo, receiver, outboxRepo, transactionManager);
+        order.verify(casePlanRepo).reclaimExpiredLease(eq(10L), any(Instant.class), any(Instant.class));
+        order.verify(receiver).releaseInFlight("10");
+        order.verify(outboxRepo).save(any(CasePlanOutbox.class));
+        order.verify(transactionManager).commit(any());
+        verify(receiver).releaseInFlight("20");
+        ArgumentCaptor<CasePlanOutbox> rows = ArgumentCaptor.forClass(CasePlanOutbox.class);
+        verify(outboxRepo, times(2)).save(rows.capture());
+        assertEquals(Long.valueOf(20L), rows.getAllValues().get(1).getPlanId());
+        assertEquals("interactive", rows.getAllValues().get(1).getPriority());
+        verify(queuePort, never()).enqueue(anyString(), any(QueuePriority.class));
+    }
+
+    @Test
+    public void recoverExpiredLeases_renewedMeanwhile_leavesPlanAlone() throws Exception {
+        when(casePlanRepo.findKeysWithExpiredLease(any(Instant.class), any(Instant.class), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(key(30L)));
+        when(casePlanRepo.reclaimExpiredLease(eq(30L), any(Instant.class), any(Instant.class))).thenReturn(0);
+
+        invokeLeaseRecovery();
+
+        verify(receiver, never()).releaseInFlight(anyString());
+        verify(outboxRepo, never()).save(any(CasePlanOutbox.class));
     }
 
     @Test
-    public void recoverStaleProcessing_requeuesStaleRecords() throws Exception {
-        CasePlan stale1 = plan(10L, "processing");
-        CasePlan stale2 = plan(20L, "processing");
-        when(casePlanRepo.findByStatusAndUpdatedAtBefore(eq("processing"), any(Instant.class)))
-                .thenReturn(Arrays.asList(stale1, stale2));
-        when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        Method method = CasePlanConsumer.class.getDeclaredMethod("recoverStaleProcessing");
+    public void recoverExpiredLeases_noExpiredLeases_doesNothing() throws Exception {
+        when(casePlanRepo.findKeysWithExpiredLease(any(Instant.class), any(Instant.class), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        invokeLeaseRecovery();
+
+        verify(casePlanRepo, never()).reclaimExpiredLease(anyLong(), any(), any());
+        verify(queuePort, never()).enqueue(anyString(), any(QueuePriority.class));
+    }
+
+    private void invokeLeaseRecovery() throws Exception {
+        Method method = CasePlanConsumer.class.getDeclaredMethod("recoverExpiredLeases");
         method.setAccessible(true);
         method.invoke(consumer);
+    }
+
+    @Test
+    public void recoverLostPendingQueueItems_requeuesMissingOnly() throws Exception {
+        when(casePlanRepo.findKeysByStatusUpdatedBefore(eq("pending"), any(Instant.class), any(Instant.class), anyLong(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(key(100L), key(200L)));
+        when(receiver.queuedAmong(Arrays.asList("100", "200"))).thenReturn(Collections.singleton("100"));
+
+        invokeReconcile();
+
+        verify(queuePort, never()).enqueue(eq("100"), any(QueuePriority.class));
+        verify(queuePort).enqueue("200", QueuePriority.BULK);
+    }
+
+    @Test
+    public void recoverLostPendingQueueItems_walksKeysetPages() throws Exception {
+        when(receiver.queuedAmong(anyList())).thenReturn(Collections.emptySet());
+        List<CasePlanKey> fullPage = new java.util.ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            fullPage.add(key(id));
+        }
+        when(casePlanRepo.findKeysByStatusUpdatedBefore(eq("pending"), any(Instant.class), any(Instant.class), anyLong(), any(Pageable.class)))
+                .thenReturn(fullPage, Collections.singletonList(key(501L)));
+
+        invokeReconcile();
 
-        verify(casePlanRepo, times(2)).save(any(CasePlan.class));
-        verify(queuePort).enqueue("10");
-        verify(queuePort).enqueue("20");
+        verify(casePlanRepo).findKeysByStatusUpdatedBefore(eq("pending"), any(Instant.class), eq(Instant.EPOCH), eq(0L), any(Pageable.class));
+        verify(casePlanRepo).findKeysByStatusUpdatedBefore(eq("pending"), any(Instant.class), eq(Instant.ofEpochSecond(500L)), eq(500L), any(Pageable.class));
+        verify(queuePort).enqueue("501", QueuePriority.INTERACTIVE);
+        verify(queuePort, times(501)).enqueue(anyString(), any(QueuePriority.class));
     }
 
     @Test
-    public void recoverStaleProcessing_noStaleRecords_doesNothing() throws Exception {
-        when(casePlanRepo.findByStatusAndUpdatedAtBefore(eq("processing"), any(Instant.class)))
+    public void recoverLostPendingQueueItems_emptyPending_doesNothing() throws Exception {
+        when(casePlanRepo.findKeysByStatusUpdatedBefore(eq("pending"), any(Instant.class), any(Instant.class), anyLong(), any(Pageable.class)))
                 .thenReturn(Collections.emptyList());
 
-        Method method = CasePlanConsumer.class.getDeclaredMethod("recoverStaleProcessing");
+        invokeReconcile();
+
+        verify(receiver, never()).queuedAmong(anyList());
+        verify(queuePort, never()).enqueue(anyString(), any(QueuePriority.class));
+    }
+
+    private void invokeReconcile() throws Exception {
+        Method method = CasePlanConsumer.class.getDeclaredMethod("recoverLostPendingQueueItems", Duration.class);
         method.setAccessible(true);
-        method.invoke(consumer);
+        method.invoke(consumer, Duration.ofSeconds(120));
+    }
+
+    private CasePlanKey key(Long id) {
+        return new CasePlanKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
 
-        verify(casePlanRepo, never()).save(any());
-        verify(queuePort, never()).enqueue(anyString());
+            @Override
+            public Instant getUpdatedAt() {
+                return Instant.ofEpochSecond(id);
+            }
+
+            @Override
+            public String getPriority() {
+                return id == 200L ? "bulk" : null;
+            }
+        };
     }
 
     @Test
-    public void recoverLostPendingQueueItems_requeuesMissingOnly() throws Exception {
-        CasePlan pending1 = plan(100L, "pending");
-        CasePlan pending2 = plan(200L, "pending");
-        when(casePlanRepo.findByStatus("pending")).thenReturn(Arrays.asList(pending1, pending2));
-        when(listOps.range("caseplan:pending", 0, -1)).thenReturn(Collections.singletonList("100"));
+    public void stop_pastDeadline_returnsInFlightPlansToQueue() throws Exception {
+        when(casePlanRepo.transition(eq(30L), eq("processing"), eq("pending"), any(Instant.class))).thenReturn(1);
+        QueueDelivery delivery = new QueueDelivery(QueuePriority.BULK, new QueueEntry("30", 1L));
+        consumer.getDrain().begin("30", delivery);
+        setField("running", true);
+        setField("drainTimeoutSeconds", 0L);
+
+        consumer.stop();
+
+        verify(receiver).complete(delivery);
+        verify(casePlanRepo).transition(eq(30L), eq("processing"), eq("pending"), any(Instant.class));
+        verify(casePlanRepo, never()).save(any(CasePlan.class));
+        ArgumentCaptor<CasePlanOutbox> row = ArgumentCaptor.forClass(CasePlanOutbox.class);
+        verify(outboxRepo).save(row.capture());
+        assertEquals(Long.valueOf(30L), row.getValue().getPlanId());
+        assertEquals("bulk", row.getValue().getPriority());
+        verify(transactionManager).commit(any());
+        verify(queuePort, never()).enqueue(anyString(), any(QueuePriority.class));
+        assertFalse(consumer.isRunning());
+        assertEquals(ConsumerDrain.Phase.STOPPED, consumer.getDrain().getPhase());
+        assertEquals(1L, consumer.getDrain().report().get("returnedToQueue"));
+    }
+
+    @Test
+    public void stop_alreadyFinishedPlan_isNotRequeued() throws Exception {
+        when(casePlanRepo.transition(eq(31L), eq("processing"), eq("pending"), any(Instant.class))).thenReturn(0);
+        QueueDelivery delivery = new QueueDelivery(QueuePriority.INTERACTIVE, new QueueEntry("31", 1L));
+        consumer.getDrain().begin("31", delivery);
+        setField("running", true);
+
+        consumer.stop();
+
+        verify(receiver).complete(delivery);
+        verify(casePlanRepo, never()).save(any(CasePlan.class));
+        verify(outboxRepo, never()).save(any(CasePlanOutbox.class));
+    }
+
+    @Test
+    public void stop_notRunning_isNoOp() {
+        consumer.stop();
+
+        assertEquals(ConsumerDrain.Phase.RUNNING, consumer.getDrain().getPhase());
+        verify(queuePort, never()).enqueue(anyString(), any(QueuePriority.class));
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field field = CasePlanConsumer.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(consumer, value);
+    }
+
+    @Test
+    public void recoverExpiredLeases_leadershipLost_doesNothing() throws Exception {
+        when(maintenanceLease.renew(7L)).thenReturn(false);
+
+        invokeLeaseRecovery();
+
+        verify(casePlanRepo, never()).findKeysWithExpiredLease(any(), any(), any());
+        verify(queuePort, never()).enqueue(anyString(), any(QueuePriority.class));
+    }
+
+    @Test
+    public void recoverLostPendingQueueItems_follower_skipsScan() throws Exception {
+        setField("leaderToken", LeaderLease.NOT_LEADER);
 
-        Method method = CasePlanConsumer.class.getDeclaredMethod("recoverLostPendingQueueItems");
+        Method method = CasePlanConsumer.class.getDeclaredMethod("recoverLostPendingQueueItems", Duration.class);
         method.setAccessible(true);
-        method.invoke(consumer);
+        method.invoke(consumer, Duration.ZERO);
 
-        verify(queuePort, never()).enqueue("100");
-        verify(queuePort).enqueue("200");
+        verify(casePlanRepo, never()).findKeysByStatusUpdatedBefore(anyString(), any(), any(), anyLong(), any());
     }
 
     @Test
-    public void recoverLostPendingQueueItems_emptyPending_doesNothing() throws Exception {
-        when(casePlanRepo.findByStatus("pending")).thenReturn(Collections.emptyList());
+    public void stop_leader_releasesLease() throws Exception {
+        setField("running", true);
+
+        consumer.stop();
+
+        verify(maintenanceLease).release(7L);
+        verify(partitionMembership).leave();
+    }
+
+    @Test
+    public void membershipLoop_pointsReceiverAtOwnedPartitions() throws Exception {
+        setField("running", true);
+        Set<Integer> owned = new HashSet<>(Arrays.asList(1, 3));
+        when(partitionMembership.heartbeat()).thenAnswer(invocation -> {
+            Thread.currentThread().interrupt(); // end the loop at its interval sleep
+            return owned;
+        });
 
-        Method method = CasePlanConsumer.class.getDeclaredMethod("recoverLostPendingQueueItems");
+        Method method = CasePlanConsumer.class.getDeclaredMethod("runMembershipLoop");
         method.setAccessible(true);
         method.invoke(consumer);
+        Thread.interrupted();
 
-        verify(listOps, never()).range(anyString(), anyLong(), anyLong());
-        verify(queuePort, never()).enqueue(anyString());
+        verify(receiver).assignPartitions(owned);
     }
 }
@@ -0,0 +1,44 @@
+package com.caseplan.adapter.in.queue;
+
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConsumerDrainEndpointTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void drain_noConsumer_reportsDisabled() {
+        ObjectProvider<CasePlanConsumer> provider = mock(ObjectProvider.class);
+        ObjectProvider<PostgresQueueConsumer> postgres = mock(ObjectProvider.class);
+
+        assertEquals("disabled", new ConsumerDrainEndpoint(provider, postgres).drain().get("phase"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void drain_withConsumer_reportsItsProgress() {
+        ObjectProvider<CasePlanConsumer> provider = mock(ObjectProvider.class);
+        CasePlanConsumer consumer = mock(CasePlanConsumer.class);
+        when(provider.getIfAvailable()).thenReturn(consumer);
+        when(consumer.getDrain()).thenReturn(new ConsumerDrain<>());
+
+        assertEquals("running", new ConsumerDrainEndpoint(provider, mock(ObjectProvider.class)).drain().get("phase"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void drain_withPostgresConsumer_reportsItsProgress() {
+        ObjectProvider<PostgresQueueConsumer> provider = mock(ObjectProvider.class);
+        PostgresQueueConsumer consumer = mock(PostgresQueueConsumer.class);
+        ConsumerDrain<Long> drain = new ConsumerDrain<>();
+        drain.stopped();
+        when(provider.getIfAvailable()).thenReturn(consumer);
+        when(consumer.getDrain()).thenReturn(drain);
+
+        assertEquals("stopped", new ConsumerDrainEndpoint(mock(ObjectProvider.class), provider).drain().get("phase"));
+    }
+}
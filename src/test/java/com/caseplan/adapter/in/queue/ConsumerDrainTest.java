@@ -0,0 +1,71 @@
+package com.caseplan.adapter.in.queue;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConsumerDrainTest {
+
+    private final ConsumerDrain<String> drain = new ConsumerDrain<>();
+
+    @Test
+    public void finish_ownedItem_countsOnlyWhileDraining() {
+        assertTrue(drain.begin("1", "a"));
+        assertTrue(drain.finish("1"));
+
+        drain.startDrain(Instant.now().plusSeconds(30));
+        drain.begin("2", "b");
+        assertTrue(drain.finish("2"));
+
+        Map<String, Object> report = drain.report();
+        assertEquals("draining", report.get("phase"));
+        assertEquals(1L, report.get("finishedWhileDraining"));
+        assertEquals(0, report.get("inFlight"));
+        assertTrue(report.containsKey("drainDeadline"));
+    }
+
+    @Test
+    public void abandon_takesStragglersAndLateFinishIsNotOwned() {
+        drain.begin("1", "a");
+        drain.startDrain(Instant.now());
+
+        List<String> abandoned = drain.abandon();
+        drain.stopped();
+
+        assertEquals(Collections.singletonList("a"), abandoned);
+        assertFalse(drain.finish("1"));
+        Map<String, Object> report = drain.report();
+        assertEquals("stopped", report.get("phase"));
+        assertEquals(1L, report.get("returnedToQueue"));
+        assertEquals(0L, report.get("finishedWhileDraining"));
+        assertTrue(report.containsKey("stoppedAt"));
+    }
+
+    @Test
+    public void begin_afterAbandon_isRefusedAndReclaimedByCaller() {
+        drain.startDrain(Instant.now());
+        drain.abandon();
+
+        assertFalse(drain.begin("3", "c"));
+        assertTrue(drain.reclaim("3"));
+        assertFalse(drain.reclaim("3"));
+        assertEquals(0, drain.inFlightCount());
+        assertEquals(1L, drain.report().get("returnedToQueue"));
+    }
+
+    @Test
+    public void report_running_hasNoDrainTimestamps() {
+        Map<String, Object> report = drain.report();
+
+        assertEquals("running", report.get("phase"));
+        assertFalse(report.containsKey("drainStartedAt"));
+        assertFalse(report.containsKey("stoppedAt"));
+    }
+}
@@ -0,0 +1,243 @@
+package com.caseplan.adapter.in.queue;
+
+import com.caseplan.adapter.out.queue.PostgresQueueAdapter;
+import com.caseplan.application.port.out.QueuePriority;
+import com.caseplan.application.service.CasePlanGenerationService;
+import com.caseplan.application.service.OutboxRelayService;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PostgresQueueConsumerTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private final PostgresQueueAdapter queue = mock(PostgresQueueAdapter.class);
+    private final CasePlanGenerationService generationService = mock(CasePlanGenerationService.class);
+    private final Semaphore idleWorkers = new Semaphore(0);
+    private final ExecutorService workers = Executors.newSingleThreadExecutor();
+    private final PostgresQueueConsumer consumer = new PostgresQueueConsumer(
+            mock(DataSource.class), mock(JdbcTemplate.class), generationService, mock(OutboxRelayService.class));
+
+    {
+        ReflectionTestUtils.setField(consumer, "queue", queue);
+        ReflectionTestUtils.setField(consumer, "idleWorkers", idleWorkers);
+        ReflectionTestUtils.setField(consumer, "workers", workers);
+    }
+
+    @Test
+    public void claim_fillsRemainingSlotsFromNextClass() {
+        when(queue.claim(QueuePriority.INTERACTIVE, 3, LEASE)).thenReturn(Collections.singletonList(1L));
+        when(queue.claim(QueuePriority.BULK, 2, LEASE)).thenReturn(Arrays.asList(2L, 3L));
+
+        List<Long> claimed = PostgresQueueConsumer.claim(queue, new WeightedFairScheduler(), 3, LEASE);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), claimed);
+    }
+
+    @Test
+    public void claim_firstClassFillsAllSlots_skipsOthers() {
+        when(queue.claim(QueuePriority.INTERACTIVE, 2, LEASE)).thenReturn(Arrays.asList(1L, 2L));
+
+        List<Long> claimed = PostgresQueueConsumer.claim(queue, new WeightedFairScheduler(), 2, LEASE);
+
+        assertEquals(Arrays.asList(1L, 2L), claimed);
+        verify(queue, never()).claim(QueuePriority.BULK, 0, LEASE);
+    }
+
+    @Test
+    public void dispatch_runsPlanOnWorkerAndFreesSlot() throws Exception {
+        consumer.dispatch(7L);
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(5, TimeUnit.SECONDS));
+
+        verify(generationService).processWithRetry(7L);
+        assertEquals(0, consumer.getDrain().inFlightCount());
+        assertEquals(1, idleWorkers.availablePermits());
+    }
+
+    @Test
+    public void dispatch_afterDrainClosed_releasesRowInsteadOfProcessing() {
+        consumer.getDrain().abandon();
+
+        consumer.dispatch(8L);
+
+        verify(queue).release(8L);
+        verify(generationService, never()).processWithRetry(anyLong());
+        assertEquals(1, idleWorkers.availablePermits());
+    }
+
+    @Test
+    public void dispatch_afterDrainClosed_releaseFails_stillFreesSlot() {
+        when(queue.release(8L)).thenThrow(new IllegalStateException("db down"));
+        consumer.getDrain().abandon();
+
+        consumer.dispatch(8L);
+
+        verify(generationService, never()).processWithRetry(anyLong());
+        assertEquals(1, idleWorkers.availablePermits());
+    }
+
+    @Test
+    public void dispatch_poolAlreadyShutDown_releasesRow() {
+        workers.shutdown();
+
+        consumer.dispatch(9L);
+
+        verify(queue).release(9L);
+        verify(generationService, never()).processWithRetry(anyLong());
+        assertEquals(0, consumer.getDrain().inFlightCount());
+        assertEquals(1, idleWorkers.availablePermits());
+    }
+
+    @Test
+    public void dispatch_generationThrows_freesSlot() throws Exception {
+        when(generationService.processWithRetry(10L)).thenThrow(new IllegalStateException("llm down"));
+
+        consumer.dispatch(10L);
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(0, consumer.getDrain().inFlightCount());
+        assertEquals(1, idleWorkers.availablePermits());
+    }
+
+    @Test
+    public void stop_pastDeadline_releasesInFlightRowsAndShutsPoolDown() {
+        consumer.getDrain().begin("30", 30L);
+        ReflectionTestUtils.setField(consumer, "running", true);
+        ReflectionTestUtils.setField(consumer, "drainTimeoutSeconds", 0L);
+
+        consumer.stop();
+
+        verify(queue).release(30L);
+        assertFalse(consumer.isRunning());
+        assertTrue(workers.isShutdown());
+        assertEquals(ConsumerDrain.Phase.STOPPED, consumer.getDrain().getPhase());
+        assertEquals(1L, consumer.getDrain().report().get("returnedToQueue"));
+    }
+
+    @Test
+    public void stop_notRunning_isNoOp() {
+        consumer.stop();
+
+        assertEquals(ConsumerDrain.Phase.RUNNING, consumer.getDrain().getPhase());
+        assertFalse(workers.isShutdown());
+    }
+
+    @Test
+    public void startWorker_listensClaimsDueRowsAndRelaysOutbox_untilStopped() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        PGConnection notifications = mock(PGConnection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(notifications);
+        when(notifications.getNotifications(anyInt())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(Math.min(20, invocation.<Integer>getArgument(0)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new PGNotification[0];
+        });
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any(), any(), eq("interactive"), anyInt()))
+                .thenReturn(Arrays.asList(5L, 6L), Collections.emptyList());
+        when(jdbcTemplate.queryForObject(contains("available_at > ?"), eq(Timestamp.class), any()))
+                .thenReturn(Timestamp.from(Instant.now().plusMillis(50)), (Timestamp) null);
+        OutboxRelayService relayService = mock(OutboxRelayService.class);
+        when(relayService.relayBatch())
+                .thenReturn(OutboxRelayService.BATCH_SIZE, 0)
+                .thenThrow(new IllegalStateException("db down"));
+        PostgresQueueConsumer live = liveConsumer(dataSource, jdbcTemplate, relayService);
+
+        live.start();
+
+        verify(generationService, timeout(5000)).processWithRetry(5L);
+        verify(generationService, timeout(5000)).processWithRetry(6L);
+        verify(statement, timeout(5000)).execute("LISTEN " + PostgresQueueAdapter.NOTIFY_CHANNEL);
+        verify(jdbcTemplate, timeout(5000).atLeastOnce()).update(contains("lease_expires_at < ?"), any(), any(), any());
+        verify(notifications, timeout(5000).atLeastOnce()).getNotifications(anyInt());
+        verify(relayService, timeout(5000).times(3)).relayBatch();
+        assertTrue(live.isRunning());
+
+        live.stop();
+
+        assertLoopsEnded(live);
+        verify(connection, timeout(5000)).close();
+        assertEquals(ConsumerDrain.Phase.STOPPED, live.getDrain().getPhase());
+    }
+
+    @Test
+    public void dispatcher_claimFails_returnsSlotsAndBacksOffUntilStopped() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.unwrap(PGConnection.class)).thenReturn(mock(PGConnection.class));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any(), any(), any(), anyInt()))
+                .thenThrow(new IllegalStateException("db down"));
+        PostgresQueueConsumer live = liveConsumer(dataSource, jdbcTemplate, mock(OutboxRelayService.class));
+
+        live.start();
+
+        verify(connection, timeout(5000)).close();
+        live.stop();
+
+        assertLoopsEnded(live);
+        verify(dataSource, times(1)).getConnection();
+        verify(generationService, never()).processWithRetry(anyLong());
+        assertEquals(2, ((Semaphore) ReflectionTestUtils.getField(live, "idleWorkers")).availablePermits());
+    }
+
+    private PostgresQueueConsumer liveConsumer(DataSource dataSource, JdbcTemplate jdbcTemplate, OutboxRelayService relayService) {
+        PostgresQueueConsumer live = new PostgresQueueConsumer(dataSource, jdbcTemplate, generationService, relayService);
+        ReflectionTestUtils.setField(live, "workerCount", 2);
+        ReflectionTestUtils.setField(live, "leaseTtlSeconds", 30L);
+        ReflectionTestUtils.setField(live, "drainTimeoutSeconds", 1L);
+        return live;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertLoopsEnded(PostgresQueueConsumer live) throws InterruptedException {
+        for (Thread thread : (List<Thread>) ReflectionTestUtils.getField(live, "threads")) {
+            thread.join(5000);
+            assertFalse(thread.getName(), thread.isAlive());
+        }
+    }
+}
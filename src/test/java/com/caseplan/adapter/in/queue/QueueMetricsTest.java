@@ -0,0 +1,84 @@
+package com.caseplan.adapter.in.queue;
+
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QueueMetricsTest {
+
+    private final QueuePort queuePort = mock(QueuePort.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueueMetrics metrics = new QueueMetrics(queuePort, registry, 60_000L);
+
+    @Test
+    public void gauges_readProviderOnScrape() {
+        when(queuePort.depth()).thenReturn(12L);
+        when(queuePort.oldestAgeMillis(QueuePriority.BULK)).thenReturn(4_000L);
+
+        assertEquals(12.0, registry.get("caseplan.queue.depth").gauge().value(), 0.0);
+        assertEquals(4.0, registry.get("caseplan.queue.oldest.age").tag("priority", "bulk")
+                .timeGauge().value(TimeUnit.SECONDS), 0.0);
+    }
+
+    @Test
+    public void gauges_withinTtl_shareOneProviderRead() {
+        when(queuePort.depth()).thenReturn(12L).thenReturn(99L);
+
+        registry.get("caseplan.queue.depth").gauge().value();
+        registry.get("caseplan.queue.oldest.age").tag("priority", "bulk").timeGauge().value(TimeUnit.SECONDS);
+        assertEquals(12.0, registry.get("caseplan.queue.depth").gauge().value(), 0.0);
+
+        verify(queuePort, times(1)).depth();
+        verify(queuePort, times(1)).oldestAgeMillis(QueuePriority.BULK);
+        verify(queuePort, times(1)).oldestAgeMillis(QueuePriority.INTERACTIVE);
+    }
+
+    @Test
+    public void gauges_afterTtl_readProviderAgain() {
+        SimpleMeterRegistry uncached = new SimpleMeterRegistry();
+        new QueueMetrics(queuePort, uncached, 0L);
+        when(queuePort.depth()).thenReturn(12L).thenReturn(99L);
+
+        assertEquals(12.0, uncached.get("caseplan.queue.depth").gauge().value(), 0.0);
+        assertEquals(99.0, uncached.get("caseplan.queue.depth").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void gauges_unknownReading_isNaN() {
+        when(queuePort.depth()).thenReturn(-1L);
+        when(queuePort.oldestAgeMillis(QueuePriority.INTERACTIVE)).thenReturn(-1L);
+
+        assertTrue(Double.isNaN(registry.get("caseplan.queue.depth").gauge().value()));
+        assertTrue(Double.isNaN(registry.get("caseplan.queue.oldest.age").tag("priority", "interactive")
+                .timeGauge().value(TimeUnit.MILLISECONDS)));
+    }
+
+    @Test
+    public void recordDequeued_countsAndTimesWait() {
+        metrics.recordDequeued(QueuePriority.INTERACTIVE, System.currentTimeMillis() - 1_000L);
+        metrics.recordDequeued(QueuePriority.INTERACTIVE, -1L);
+
+        assertEquals(2.0, registry.get("caseplan.queue.dequeued").tag("priority", "interactive").counter().count(), 0.0);
+        assertEquals(1L, registry.get("caseplan.queue.wait").tag("priority", "interactive").timer().count());
+        assertTrue(registry.get("caseplan.queue.wait").tag("priority", "interactive").timer()
+                .totalTime(TimeUnit.MILLISECONDS) >= 1_000.0);
+    }
+
+    @Test
+    public void recordProcessed_timesPerClass() {
+        metrics.recordProcessed(QueuePriority.BULK, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals(1L, registry.get("caseplan.queue.processing").tag("priority", "bulk").timer().count());
+        assertEquals(0L, registry.get("caseplan.queue.processing").tag("priority", "interactive").timer().count());
+    }
+}
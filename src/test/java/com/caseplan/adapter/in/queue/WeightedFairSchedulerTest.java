@@ -0,0 +1,43 @@
+package com.caseplan.adapter.in.queue;
+
+import com.caseplan.application.port.out.QueuePriority;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class WeightedFairSchedulerTest {
+
+    @Test
+    public void nextOrder_sharesTurnsInProportionToWeights() {
+        WeightedFairScheduler scheduler = new WeightedFairScheduler();
+        Map<QueuePriority, Integer> firsts = new EnumMap<>(QueuePriority.class);
+
+        for (int i = 0; i < 50; i++) {
+            List<QueuePriority> order = scheduler.nextOrder();
+            assertEquals(QueuePriority.values().length, order.size());
+            firsts.merge(order.get(0), 1, Integer::sum);
+        }
+
+        assertEquals(Integer.valueOf(40), firsts.get(QueuePriority.INTERACTIVE));
+        assertEquals(Integer.valueOf(10), firsts.get(QueuePriority.BULK));
+    }
+
+    @Test
+    public void nextOrder_interleavesBulkTurnsInsteadOfBatchingThem() {
+        WeightedFairScheduler scheduler = new WeightedFairScheduler();
+
+        for (int round = 0; round < 3; round++) {
+            int bulkTurns = 0;
+            for (int i = 0; i < 5; i++) {
+                if (scheduler.nextOrder().get(0) == QueuePriority.BULK) {
+                    bulkTurns++;
+                }
+            }
+            assertEquals(1, bulkTurns);
+        }
+    }
+}
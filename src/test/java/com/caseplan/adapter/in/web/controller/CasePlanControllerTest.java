@@ -1,6 +1,7 @@
 package com.caseplan.adapter.in.web.controller;
 
 import com.caseplan.adapter.in.web.dto.CreateCasePlanRequest;
+import com.caseplan.adapter.out.datasource.ReadRouting;
 import com.caseplan.application.port.in.CreateCasePlanCommand;
 import com.caseplan.application.service.CasePlanService;
 import com.caseplan.application.service.CreateCasePlanResult;
@@ -115,6 +116,36 @@ public class CasePlanControllerTest {
         assertEquals(Long.valueOf(10L), ((CasePlan) response.getBody()).getId());
     }
 
+    @Test
+    public void create_withEstimate_setsEtaHeaders() {
+        CreateCasePlanRequest req = new CreateCasePlanRequest();
+        CasePlan plan = new CasePlan();
+        plan.setId(12L);
+        when(casePlanService.create(any(CreateCasePlanCommand.class)))
+                .thenReturn(new CreateCasePlanResult(plan, Collections.emptyList(), 120L));
+
+        ResponseEntity<?> response = controller.create(req);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertTrue(response.getBody() instanceof CasePlan);
+        assertEquals("120", response.getHeaders().getFirst(CasePlanController.ESTIMATED_WAIT_HEADER));
+        assertNotNull(response.getHeaders().getFirst(CasePlanController.ESTIMATED_COMPLETION_HEADER));
+    }
+
+    @Test
+    public void create_setsReadYourWritesHeader() {
+        CasePlan plan = new CasePlan();
+        plan.setId(14L);
+        when(casePlanService.create(any(CreateCasePlanCommand.class)))
+                .thenReturn(new CreateCasePlanResult(plan, Collections.emptyList()));
+        long before = System.currentTimeMillis();
+
+        ResponseEntity<?> response = controller.create(new CreateCasePlanRequest());
+
+        long primaryUntil = Long.parseLong(response.getHeaders().getFirst(ReadRouting.PRIMARY_UNTIL_HEADER));
+        assertTrue(primaryUntil >= before + 5_000L);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void create_withWarnings_returnsWrappedBody() {
@@ -145,11 +176,7 @@ public class CasePlanControllerTest {
 
     @Test
     public void download_ready_returnsAttachment() {
-        CasePlan plan = new CasePlan();
-        plan.setId(5L);
-        plan.setStatus("completed");
-        plan.setGeneratedPlan("hello");
-        when(casePlanService.getForDownload(5L)).thenReturn(Optional.of(plan));
+        when(casePlanService.getForDownload(5L)).thenReturn(Optional.of("hello"));
 
         ResponseEntity<byte[]> response = controller.download(5L);
 
@@ -180,6 +207,7 @@ public class CasePlanControllerTest {
         assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(9L, response.getBody().get("id"));
+        assertNotNull(response.getHeaders().getFirst(ReadRouting.PRIMARY_UNTIL_HEADER));
     }
 
     @Test
@@ -0,0 +1,105 @@
+package com.caseplan.adapter.in.web.controller;
+
+import com.caseplan.adapter.in.lambda.LambdaSpringContext;
+import com.caseplan.adapter.in.web.dto.CreateCasePlanRequest;
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import com.caseplan.application.service.CasePlanService;
+import com.caseplan.application.service.OrderSummaryPage;
+import com.caseplan.domain.model.CasePlan;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OrdersControllerTest {
+
+    private final CasePlanController casePlanController = mock(CasePlanController.class);
+    private final CasePlanService casePlanService = mock(CasePlanService.class);
+    private final Validator validator = mock(Validator.class);
+    private OrdersController controller;
+
+    @Before
+    public void setUp() {
+        ConfigurableApplicationContext context = mock(ConfigurableApplicationContext.class);
+        when(context.getBean(CasePlanController.class)).thenReturn(casePlanController);
+        when(context.getBean(CasePlanService.class)).thenReturn(casePlanService);
+        when(context.getBean(Validator.class)).thenReturn(validator);
+        controller = new OrdersController(context);
+    }
+
+    @After
+    public void tearDown() {
+        LambdaSpringContext.setContext(null);
+    }
+
+    @Test
+    public void listOrders_passesQueryAndHeadersToHandler() {
+        List<Boolean> replicaAllowed = new ArrayList<>();
+        when(casePlanService.listOrders(eq("abc"), eq(5))).thenAnswer(inv -> {
+            replicaAllowed.add(ReadRouting.isReplicaAllowed());
+            return new OrderSummaryPage(Collections.emptyList(), null);
+        });
+        HttpHeaders primary = new HttpHeaders();
+        primary.add(ReadRouting.CONSISTENCY_HEADER, "primary");
+
+        ResponseEntity<String> plain = controller.listOrders("abc", "5", new HttpHeaders());
+        controller.listOrders("abc", "5", primary);
+
+        assertEquals(HttpStatus.OK, plain.getStatusCode());
+        assertEquals("application/json", plain.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals(Arrays.asList(true, false), replicaAllowed);
+    }
+
+    @Test
+    public void listOrders_withoutParams_usesDefaults() {
+        when(casePlanService.listOrders(isNull(), isNull())).thenReturn(new OrderSummaryPage(Collections.emptyList(), null));
+
+        ResponseEntity<String> response = controller.listOrders(null, null, new HttpHeaders());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    public void getOrder_returnsHandlerResponse() {
+        when(casePlanService.getStatus(4L)).thenReturn(Collections.singletonMap("status", "pending"));
+
+        ResponseEntity<String> response = controller.getOrder("4", new HttpHeaders());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"status\":\"pending\""));
+    }
+
+    @Test
+    public void createOrder_returnsHandlerResponseWithHeaders() {
+        when(validator.validate(any(CreateCasePlanRequest.class))).thenReturn(Collections.emptySet());
+        CasePlan plan = new CasePlan();
+        plan.setId(8L);
+        doReturn(ResponseEntity.status(HttpStatus.CREATED)
+                .header(ReadRouting.PRIMARY_UNTIL_HEADER, "1767225695000")
+                .body(plan))
+                .when(casePlanController).create(any(CreateCasePlanRequest.class));
+
+        ResponseEntity<String> response = controller.createOrder("{\"clientFirstName\":\"A\"}");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("1767225695000", response.getHeaders().getFirst(ReadRouting.PRIMARY_UNTIL_HEADER));
+    }
+}
@@ -0,0 +1,47 @@
+package com.caseplan.adapter.in.web.filter;
+
+import com.caseplan.adapter.out.datasource.ReadRouting;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadConsistencyFilterTest {
+
+    private final ReadConsistencyFilter filter = new ReadConsistencyFilter();
+
+    @Test
+    public void get_allowsReplicaForTheRequestOnly() throws Exception {
+        assertTrue(replicaAllowedDuring(new MockHttpServletRequest("GET", "/api/caseplans")));
+        assertTrue(replicaAllowedDuring(new MockHttpServletRequest("HEAD", "/api/caseplans")));
+        assertFalse(ReadRouting.isReplicaAllowed());
+    }
+
+    @Test
+    public void write_staysOnPrimary() throws Exception {
+        assertFalse(replicaAllowedDuring(new MockHttpServletRequest("POST", "/api/caseplans")));
+    }
+
+    @Test
+    public void getAskingForPrimary_staysOnPrimary() throws Exception {
+        MockHttpServletRequest consistency = new MockHttpServletRequest("GET", "/api/caseplans/1/status");
+        consistency.addHeader(ReadRouting.CONSISTENCY_HEADER, "primary");
+        MockHttpServletRequest recentWrite = new MockHttpServletRequest("GET", "/api/caseplans/1/status");
+        recentWrite.addHeader(ReadRouting.PRIMARY_UNTIL_HEADER, String.valueOf(System.currentTimeMillis() + 60_000));
+
+        assertFalse(replicaAllowedDuring(consistency));
+        assertFalse(replicaAllowedDuring(recentWrite));
+    }
+
+    private boolean replicaAllowedDuring(MockHttpServletRequest request) throws Exception {
+        AtomicBoolean allowed = new AtomicBoolean();
+        FilterChain chain = (req, res) -> allowed.set(ReadRouting.isReplicaAllowed());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return allowed.get();
+    }
+}
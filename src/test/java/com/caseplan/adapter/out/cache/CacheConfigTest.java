@@ -0,0 +1,44 @@
+package com.caseplan.adapter.out.cache;
+
+import com.caseplan.application.port.out.CacheInvalidationPort;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CacheConfigTest {
+
+    private final CacheConfig config = new CacheConfig();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cacheInvalidation_redis_publishesOverRedis() {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mock(StringRedisTemplate.class));
+
+        CacheInvalidationPort port = config.cacheInvalidation(" Redis ", provider);
+
+        assertTrue(port instanceof RedisCacheInvalidation);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @SuppressWarnings("unchecked")
+    public void cacheInvalidation_redisWithoutTemplate_throws() {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(null);
+
+        config.cacheInvalidation("redis", provider);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cacheInvalidation_otherProvider_staysLocal() {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+
+        assertTrue(config.cacheInvalidation("sqs", provider) instanceof LocalCacheInvalidation);
+        assertTrue(config.cacheInvalidation(null, provider) instanceof LocalCacheInvalidation);
+    }
+}
@@ -0,0 +1,59 @@
+package com.caseplan.adapter.out.cache;
+
+import org.junit.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class RedisCacheInvalidationTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisCacheInvalidation invalidation = new RedisCacheInvalidation(redisTemplate, "evict");
+
+    @Test
+    public void publish_sendsCacheAndKeyOnChannel() {
+        invalidation.publish("client", "ID|1");
+
+        verify(redisTemplate).convertAndSend("evict", "client|ID|1");
+    }
+
+    @Test
+    public void publish_redisDown_doesNotFailCaller() {
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate).convertAndSend(eq("evict"), anyString());
+
+        invalidation.publish("client", "ID-1");
+        invalidation.close();
+    }
+
+    @Test
+    public void dispatch_splitsAtFirstSeparatorAndIgnoresMalformed() {
+        List<String> received = new ArrayList<>();
+
+        RedisCacheInvalidation.dispatch("client|ID|1", (cache, key) -> received.add(cache + "=" + key));
+        RedisCacheInvalidation.dispatch("no-separator", (cache, key) -> received.add("unexpected"));
+        RedisCacheInvalidation.dispatch("|key", (cache, key) -> received.add("unexpected"));
+
+        assertEquals(1, received.size());
+        assertTrue(received.contains("client=ID|1"));
+    }
+
+    @Test
+    public void localInvalidation_doesNothing() {
+        LocalCacheInvalidation local = new LocalCacheInvalidation();
+
+        local.subscribe((cache, key) -> {
+            throw new AssertionError("no evictions expected");
+        });
+        local.publish("client", "ID-1");
+    }
+}
@@ -0,0 +1,68 @@
+package com.caseplan.adapter.out.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DataSourceConfigTest {
+
+    private final DataSourceConfig config = new DataSourceConfig();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void routingDataSource_poolPerReplicaUrlWithPrimaryCredentialsAndHikariSettings() {
+        DataSourceProperties properties = properties();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "3");
+        HikariDataSource primary = config.primaryDataSource(properties);
+
+        try (ReplicaRoutingDataSource routing = config.routingDataSource(primary, properties, environment,
+                " jdbc:postgresql://replica-a:5432/db, ,jdbc:postgresql://replica-b:5432/db")) {
+            List<DataSource> replicas = (List<DataSource>) ReflectionTestUtils.getField(routing, "replicas");
+            assertEquals(2, replicas.size());
+            HikariDataSource first = (HikariDataSource) replicas.get(0);
+            HikariDataSource second = (HikariDataSource) replicas.get(1);
+            assertEquals("jdbc:postgresql://replica-a:5432/db", first.getJdbcUrl());
+            assertEquals("jdbc:postgresql://replica-b:5432/db", second.getJdbcUrl());
+            assertEquals("caseplan-replica-0", first.getPoolName());
+            assertEquals("caseplan-replica-1", second.getPoolName());
+            assertEquals("app", first.getUsername());
+            assertEquals(3, first.getMaximumPoolSize());
+            assertEquals("jdbc:postgresql://primary:5432/db", primary.getJdbcUrl());
+        }
+    }
+
+    @Test
+    public void dataSource_defersConnectionToRoutingDataSource() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Collections.emptyList());
+
+        DataSource dataSource = config.dataSource(routing);
+
+        assertTrue(dataSource instanceof LazyConnectionDataSourceProxy);
+        assertSame(routing, ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource());
+    }
+
+    private static DataSourceProperties properties() {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:postgresql://primary:5432/db");
+        properties.setUsername("app");
+        properties.setPassword("secret");
+        return properties;
+    }
+}
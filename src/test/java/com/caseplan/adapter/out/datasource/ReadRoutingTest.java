@@ -0,0 +1,91 @@
+package com.caseplan.adapter.out.datasource;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadRoutingTest {
+
+    @After
+    public void tearDown() {
+        ReadRouting.clear();
+    }
+
+    @Test
+    public void replicaNotAllowedByDefault() {
+        assertFalse(ReadRouting.isReplicaAllowed());
+    }
+
+    @Test
+    public void onReplica_allowsReplicaForTheReadOnly() {
+        boolean inside = ReadRouting.onReplica(ReadRouting::isReplicaAllowed);
+
+        assertTrue(inside);
+        assertFalse(ReadRouting.isReplicaAllowed());
+    }
+
+    @Test
+    public void onPrimary_restoresReplicaAllowance() {
+        ReadRouting.allowReplica();
+
+        boolean inside = ReadRouting.onPrimary(ReadRouting::isReplicaAllowed);
+
+        assertFalse(inside);
+        assertTrue(ReadRouting.isReplicaAllowed());
+    }
+
+    @Test
+    public void orOnPrimary_missOnReplica_readsPrimary() {
+        ReadRouting.allowReplica();
+        AtomicInteger primaryReads = new AtomicInteger();
+
+        Optional<String> result = ReadRouting.orOnPrimary(Optional.empty(), () -> {
+            primaryReads.incrementAndGet();
+            return Optional.of(ReadRouting.isReplicaAllowed() ? "replica" : "primary");
+        });
+
+        assertEquals(Optional.of("primary"), result);
+        assertEquals(1, primaryReads.get());
+    }
+
+    @Test
+    public void orOnPrimary_hitOrAlreadyOnPrimary_doesNotReadAgain() {
+        AtomicInteger primaryReads = new AtomicInteger();
+
+        Optional<String> miss = ReadRouting.orOnPrimary(Optional.empty(), () -> {
+            primaryReads.incrementAndGet();
+            return Optional.of("x");
+        });
+        ReadRouting.allowReplica();
+        Optional<String> hit = ReadRouting.orOnPrimary(Optional.of("found"), () -> {
+            primaryReads.incrementAndGet();
+            return Optional.of("x");
+        });
+
+        assertEquals(Optional.empty(), miss);
+        assertEquals(Optional.of("found"), hit);
+        assertEquals(0, primaryReads.get());
+    }
+
+    @Test
+    public void replicaAcceptable_honoursConsistencyAndPrimaryUntil() {
+        assertTrue(ReadRouting.replicaAcceptable(null, null, 1000L));
+        assertTrue(ReadRouting.replicaAcceptable("replica", null, 1000L));
+        assertFalse(ReadRouting.replicaAcceptable(" Primary ", null, 1000L));
+        assertFalse(ReadRouting.replicaAcceptable(null, "1001", 1000L));
+        assertTrue(ReadRouting.replicaAcceptable(null, "1000", 1000L));
+        assertTrue(ReadRouting.replicaAcceptable(null, "soon", 1000L));
+    }
+
+    @Test
+    public void primaryUntil_addsWindow() {
+        assertEquals("6000", ReadRouting.primaryUntil(1000L, Duration.ofSeconds(5)));
+    }
+}
@@ -0,0 +1,112 @@
+package com.caseplan.adapter.out.datasource;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    @After
+    public void tearDown() {
+        ReadRouting.clear();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void readOnlyOnReplicaTolerantThread_usesReplicasInTurn() throws Exception {
+        DataSource first = mock(DataSource.class);
+        DataSource second = mock(DataSource.class);
+        Connection secondConnection = mock(Connection.class);
+        when(first.getConnection()).thenReturn(replicaConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Arrays.asList(first, second));
+        ReadRouting.allowReplica();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    public void writeOrUnmarkedThread_usesPrimary() throws Exception {
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Collections.singletonList(replica));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routing.getConnection()); // read-only, but nobody allowed replicas
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadRouting.allowReplica();
+        assertSame(primaryConnection, routing.getConnection()); // replica-tolerant, but a write
+    }
+
+    @Test
+    public void noReplicas_usesPrimary() throws Exception {
+        when(primary.getConnection("u", "p")).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Collections.emptyList());
+        ReadRouting.allowReplica();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routing.getConnection("u", "p"));
+    }
+
+    @Test
+    public void replicaUnavailable_fallsBackToPrimary() throws Exception {
+        DataSource replica = mock(DataSource.class);
+        when(replica.getConnection()).thenThrow(new SQLException("down"));
+        when(replica.getConnection("u", "p")).thenThrow(new SQLException("down"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(primary.getConnection("u", "p")).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Collections.singletonList(replica));
+        ReadRouting.allowReplica();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertSame(primaryConnection, routing.getConnection("u", "p"));
+    }
+
+    @Test(expected = SQLException.class)
+    public void primaryUnavailable_propagates() throws Exception {
+        when(primary.getConnection()).thenThrow(new SQLException("down"));
+        new ReplicaRoutingDataSource(primary, Collections.emptyList()).getConnection();
+    }
+
+    @Test(expected = SQLException.class)
+    public void primaryUnavailableWithCredentials_propagates() throws Exception {
+        when(primary.getConnection("u", "p")).thenThrow(new SQLException("down"));
+        new ReplicaRoutingDataSource(primary, Collections.emptyList()).getConnection("u", "p");
+    }
+
+    @Test
+    public void close_closesReplicaPools() throws Exception {
+        DataSource pooled = mock(DataSource.class, withSettings().extraInterfaces(Closeable.class));
+        DataSource failing = mock(DataSource.class, withSettings().extraInterfaces(Closeable.class));
+        doThrow(new IOException("already closed")).when((Closeable) failing).close();
+        DataSource plain = mock(DataSource.class);
+
+        new ReplicaRoutingDataSource(primary, Arrays.asList(failing, pooled, plain)).close();
+
+        verify((Closeable) pooled).close();
+    }
+}
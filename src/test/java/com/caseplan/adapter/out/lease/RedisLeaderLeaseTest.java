@@ -0,0 +1,83 @@
+package com.caseplan.adapter.out.lease;
+
+import org.junit.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class RedisLeaderLeaseTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisLeaderLease lease = new RedisLeaderLease(redisTemplate, "lease", Duration.ofSeconds(15));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void acquireOrRenew_returnsTokenFromScript() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(Arrays.asList("lease", "lease:fence")),
+                eq(lease.owner()), eq("15000"))).thenReturn(4L);
+
+        assertEquals(4L, lease.acquireOrRenew());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void acquireOrRenew_heldElsewhere_isNotLeader() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(-1L);
+
+        assertEquals(LeaderLease.NOT_LEADER, lease.acquireOrRenew());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void renew_matchesOwnerAndToken() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(Collections.singletonList("lease")),
+                eq(lease.owner() + "|4"), eq("15000"))).thenReturn(1L);
+
+        assertTrue(lease.renew(4L));
+        assertFalse(lease.renew(3L));
+    }
+
+    @Test
+    public void renew_notLeaderToken_skipsRedis() {
+        assertFalse(lease.renew(LeaderLease.NOT_LEADER));
+        lease.release(LeaderLease.NOT_LEADER);
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void release_deletesOnlyOwnTerm() {
+        lease.release(4L);
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(Collections.singletonList("lease")),
+                eq(lease.owner() + "|4"));
+        verify(redisTemplate, never()).delete("lease");
+    }
+
+    @Test
+    public void localLease_alwaysLeadsUnderOneToken() {
+        LocalLeaderLease local = new LocalLeaderLease();
+        long token = local.acquireOrRenew();
+
+        assertTrue(local.renew(token));
+        assertFalse(local.renew(token + 1));
+        local.release(token);
+        assertEquals(token, local.acquireOrRenew());
+    }
+}
@@ -0,0 +1,94 @@
+package com.caseplan.adapter.out.lease;
+
+import org.junit.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RedisPartitionMembershipTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisPartitionMembership membership =
+            new RedisPartitionMembership(redisTemplate, "members", 8, Duration.ofSeconds(15));
+
+    @Test
+    public void assign_splitsPartitionsRoundRobinInNameOrder() {
+        assertEquals(new TreeSet<>(Arrays.asList(0, 3, 6)), RedisPartitionMembership.assign(Arrays.asList("c", "a", "b"), "a", 8));
+        assertEquals(new TreeSet<>(Arrays.asList(1, 4, 7)), RedisPartitionMembership.assign(Arrays.asList("c", "a", "b"), "b", 8));
+        assertEquals(new TreeSet<>(Arrays.asList(2, 5)), RedisPartitionMembership.assign(Arrays.asList("c", "a", "b"), "c", 8));
+    }
+
+    @Test
+    public void assign_everyPartitionHasExactlyOneOwner() {
+        java.util.List<String> members = Arrays.asList("n1", "n2", "n3", "n4", "n5");
+        Set<Integer> covered = new HashSet<>();
+        int total = 0;
+        for (String member : members) {
+            Set<Integer> owned = RedisPartitionMembership.assign(members, member, 16);
+            covered.addAll(owned);
+            total += owned.size();
+        }
+        assertEquals(16, covered.size());
+        assertEquals(16, total);
+    }
+
+    @Test
+    public void assign_moreNodesThanPartitions_leavesExtraNodesIdle() {
+        assertTrue(RedisPartitionMembership.assign(Arrays.asList("a", "b", "c"), "c", 2).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void heartbeat_assignsFromLiveMembers() {
+        String self = membership.nodeId();
+        String other = "0" + self; // sorts first
+        when(redisTemplate.execute(any(RedisScript.class), eq(Collections.singletonList("members")),
+                eq(self), anyString(), anyString(), eq("30000"))).thenReturn(Arrays.asList(other, self));
+
+        assertEquals(new TreeSet<>(Arrays.asList(1, 3, 5, 7)), membership.heartbeat());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void heartbeat_noReply_ownsEverythingAsSoleMember() {
+        when(redisTemplate.execute(any(RedisScript.class), any(java.util.List.class), any(), any(), any(), any()))
+                .thenReturn(null);
+
+        assertEquals(8, membership.heartbeat().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void leave_removesOwnEntry() {
+        ZSetOperations<String, String> zSetOps = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+
+        membership.leave();
+
+        verify(zSetOps).remove("members", membership.nodeId());
+    }
+
+    @Test
+    public void localMembership_ownsAllPartitions() {
+        LocalPartitionMembership local = new LocalPartitionMembership(3);
+
+        assertEquals(new TreeSet<>(Arrays.asList(0, 1, 2)), local.heartbeat());
+        local.leave();
+    }
+}
@@ -0,0 +1,103 @@
+package com.caseplan.adapter.out.persistence;
+
+import com.caseplan.domain.model.CaseInfo;
+import com.caseplan.domain.model.CasePlan;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ArchivedPlanRepoTest {
+
+    private static final Instant CREATED = Instant.parse("2025-01-15T10:00:00Z");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ArchivedPlanRepo repo = new ArchivedPlanRepo(jdbcTemplate);
+
+    @Test
+    public void findWithCaseInfoById_mapsPlanWithCaseClientAndAttorney() throws SQLException {
+        ResultSet rs = planRow();
+        when(rs.getObject("ci_id")).thenReturn(3L);
+        when(rs.getLong("ci_id")).thenReturn(3L);
+        when(rs.getString("service_number")).thenReturn("SRV-1");
+        when(rs.getTimestamp("ci_created_at")).thenReturn(Timestamp.from(CREATED));
+        when(rs.getObject("c_id")).thenReturn(4L);
+        when(rs.getLong("c_id")).thenReturn(4L);
+        when(rs.getString("first_name")).thenReturn("John");
+        when(rs.getObject("a_id")).thenReturn(5L);
+        when(rs.getLong("a_id")).thenReturn(5L);
+        when(rs.getString("bar_number")).thenReturn("BAR123");
+        stubRow(rs);
+
+        CasePlan plan = repo.findWithCaseInfoById(2L).orElseThrow();
+
+        assertEquals(Long.valueOf(2L), plan.getId());
+        assertEquals("completed", plan.getStatus());
+        assertEquals(Integer.valueOf(1), plan.getContentVersion());
+        assertEquals(CREATED, plan.getCreatedAt());
+        assertNull(plan.getUpdatedAt());
+        CaseInfo caseInfo = plan.getCaseInfo();
+        assertEquals(Long.valueOf(3L), caseInfo.getId());
+        assertEquals("SRV-1", caseInfo.getServiceNumber());
+        assertEquals(CREATED, caseInfo.getCreatedAt());
+        assertEquals("John", caseInfo.getClient().getFirstName());
+        assertEquals("BAR123", caseInfo.getAttorney().getBarNumber());
+    }
+
+    @Test
+    public void findWithCaseInfoById_caseWithoutParties_leavesThemNull() throws SQLException {
+        ResultSet rs = planRow();
+        when(rs.getObject("ci_id")).thenReturn(3L);
+        when(rs.getLong("ci_id")).thenReturn(3L);
+        stubRow(rs);
+
+        CaseInfo caseInfo = repo.findWithCaseInfoById(2L).orElseThrow().getCaseInfo();
+
+        assertNull(caseInfo.getClient());
+        assertNull(caseInfo.getAttorney());
+    }
+
+    @Test
+    public void findWithCaseInfoById_caseNotFound_leavesCaseNull() throws SQLException {
+        stubRow(planRow());
+
+        assertNull(repo.findWithCaseInfoById(2L).orElseThrow().getCaseInfo());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void findWithCaseInfoById_notArchived_returnsEmpty() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(2L))).thenReturn(List.of());
+
+        assertFalse(repo.findWithCaseInfoById(2L).isPresent());
+    }
+
+    private static ResultSet planRow() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(2L);
+        when(rs.getString("status")).thenReturn("completed");
+        when(rs.getObject("content_version", Integer.class)).thenReturn(1);
+        when(rs.getTimestamp("created_at")).thenReturn(Timestamp.from(CREATED));
+        return rs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubRow(ResultSet rs) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(2L))).thenAnswer(invocation ->
+                List.of(((RowMapper<CasePlan>) invocation.getArgument(1)).mapRow(rs, 0)));
+    }
+}
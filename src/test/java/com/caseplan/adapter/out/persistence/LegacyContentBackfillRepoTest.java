@@ -0,0 +1,38 @@
+package com.caseplan.adapter.out.persistence;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LegacyContentBackfillRepoTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LegacyContentBackfillRepo repo = new LegacyContentBackfillRepo(jdbcTemplate);
+
+    @Test
+    public void moveToContents_bindsIdsAndContentsAsArrays() {
+        Instant now = Instant.parse("2026-10-19T10:00:00Z");
+        byte[] first = {1, 2};
+        byte[] second = {3};
+        when(jdbcTemplate.update(startsWith("WITH moved AS (INSERT INTO dev_caseplan_contents"),
+                eq(Timestamp.from(now)), any(Long[].class), any(byte[][].class)))
+                .thenAnswer(invocation -> {
+                    assertArrayEquals(new Long[]{1L, 2L}, invocation.getArgument(2));
+                    assertArrayEquals(new byte[][]{first, second}, invocation.getArgument(3));
+                    return 2;
+                });
+
+        assertEquals(2, repo.moveToContents(Arrays.asList(1L, 2L), Arrays.asList(first, second), now));
+    }
+}
@@ -0,0 +1,61 @@
+package com.caseplan.adapter.out.persistence;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LegacyHistoryRepoTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LegacyHistoryRepo repo = new LegacyHistoryRepo(jdbcTemplate);
+
+    @Test
+    public void lockPlans_bindsPositionEndAndLimit() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM dev_caseplans_legacy"), eq(Long.class),
+                eq(10L), eq(LocalDateTime.of(2025, 10, 1, 0, 0)), eq(2))).thenReturn(List.of(11L, 12L));
+
+        assertEquals(List.of(11L, 12L), repo.lockPlans(LocalDate.of(2025, 10, 1), 10L, 2));
+    }
+
+    @Test
+    public void lockCases_bindsPositionEndAndLimit() {
+        when(jdbcTemplate.queryForList(contains("NOT EXISTS (SELECT 1 FROM dev_caseplans p"), eq(Long.class),
+                eq(0L), eq(LocalDateTime.of(2025, 9, 1, 0, 0)), eq(5))).thenReturn(List.of(3L));
+
+        assertEquals(List.of(3L), repo.lockCases(LocalDate.of(2025, 9, 1), 0L, 5));
+    }
+
+    @Test
+    public void archivePlans_bindsIdsAsOneArray() {
+        when(jdbcTemplate.update(contains("INSERT INTO dev_caseplans_archive"), any(Object.class)))
+                .thenAnswer(invocation -> {
+                    assertArrayEquals(new Long[]{11L, 12L}, invocation.getArgument(1));
+                    return 2;
+                });
+
+        assertEquals(2, repo.archivePlans(List.of(11L, 12L)));
+    }
+
+    @Test
+    public void archiveCases_bindsIdsAsOneArray() {
+        when(jdbcTemplate.update(contains("INSERT INTO dev_case_infos_archive"), any(Object.class)))
+                .thenAnswer(invocation -> {
+                    assertArrayEquals(new Long[]{3L}, invocation.getArgument(1));
+                    return 1;
+                });
+
+        assertEquals(1, repo.archiveCases(List.of(3L)));
+    }
+}
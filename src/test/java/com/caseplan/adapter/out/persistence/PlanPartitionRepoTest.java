@@ -0,0 +1,235 @@
+package com.caseplan.adapter.out.persistence;
+
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo.PlanPartition;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PlanPartitionRepoTest {
+
+    private static final PlanPartition LEGACY =
+            new PlanPartition("dev_caseplans_legacy", null, LocalDate.of(2026, 12, 1));
+    private static final PlanPartition DECEMBER =
+            new PlanPartition("dev_caseplans_p202612", LocalDate.of(2026, 12, 1), LocalDate.of(2027, 1, 1));
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlanPartitionRepo repo = new PlanPartitionRepo(jdbcTemplate);
+
+    @Test
+    public void partition_parsesMonthAndMinvalueBounds() {
+        assertEquals(DECEMBER, PlanPartitionRepo.partition("dev_caseplans_p202612",
+                "FOR VALUES FROM ('2026-12-01 00:00:00') TO ('2027-01-01 00:00:00')"));
+        PlanPartition legacy = PlanPartitionRepo.partition("dev_caseplans_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2026-12-01 00:00:00')");
+        assertNull(legacy.from());
+        assertEquals(LocalDate.of(2026, 12, 1), legacy.to());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void partition_defaultPartition_throws() {
+        PlanPartitionRepo.partition("dev_caseplans_default", "DEFAULT");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void partition_noBound_throws() {
+        PlanPartitionRepo.partition("dev_caseplans_x", null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void partitions_mapsCatalogRows() {
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class), eq("dev_caseplans")))
+                .thenReturn(List.of(DECEMBER));
+
+        assertEquals(List.of(DECEMBER), repo.partitions("dev_caseplans"));
+    }
+
+    @Test
+    public void createPartition_locksThenCreatesIfMissing() {
+        repo.createPartition("dev_caseplans", "dev_caseplans_p202701", LocalDate.of(2027, 1, 1), LocalDate.of(2027, 2, 1));
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("SET LOCAL lock_timeout = '5s'");
+        order.verify(jdbcTemplate).queryForObject(anyString(), eq(Integer.class), eq(PlanPartitionRepo.MAINTENANCE_LOCK));
+        order.verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS dev_caseplans_p202701 PARTITION OF dev_caseplans "
+                + "FOR VALUES FROM ('2027-01-01') TO ('2027-02-01')");
+    }
+
+    @Test
+    public void createPartition_noLowerBound_startsAtMinvalue() {
+        repo.createPartition("dev_caseplans_archive", "dev_caseplans_history", null, LocalDate.of(2025, 10, 1));
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS dev_caseplans_history PARTITION OF dev_caseplans_archive "
+                + "FOR VALUES FROM (MINVALUE) TO ('2025-10-01')");
+    }
+
+    @Test
+    public void prepareArchive_existingConstraint_doesNothing() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM pg_constraint"), eq(Integer.class),
+                eq("dev_caseplans_legacy"), eq("dev_caseplans_legacy_range"))).thenReturn(1);
+
+        repo.prepareArchive(LEGACY);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    public void prepareArchive_monthPartition_addsRangeCheck() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM pg_constraint"), eq(Integer.class),
+                anyString(), anyString())).thenReturn(0);
+
+        repo.prepareArchive(DECEMBER);
+
+        verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans_p202612 ADD CONSTRAINT dev_caseplans_p202612_range "
+                + "CHECK (created_at IS NOT NULL AND created_at >= '2026-12-01' AND created_at < '2027-01-01') NOT VALID");
+    }
+
+    @Test
+    public void prepareArchive_legacyPartition_checksUpperBoundOnly() {
+        repo.prepareArchive(LEGACY);
+
+        verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans_legacy ADD CONSTRAINT dev_caseplans_legacy_range "
+                + "CHECK (created_at IS NOT NULL AND created_at < '2026-12-01') NOT VALID");
+    }
+
+    @Test
+    public void validateArchiveRange_validatesRangeCheck() {
+        repo.validateArchiveRange(DECEMBER);
+
+        verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans_p202612 VALIDATE CONSTRAINT dev_caseplans_p202612_range");
+    }
+
+    @Test
+    public void hasActivePlans_queriesPartition() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS (SELECT 1 FROM dev_caseplans_p202612 "), eq(Boolean.class)))
+                .thenReturn(true);
+
+        assertTrue(repo.hasActivePlans("dev_caseplans_p202612"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void archive_alreadyDetached_returnsFalse() {
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class), eq("dev_caseplans")))
+                .thenReturn(List.of());
+
+        assertFalse(repo.archive("dev_caseplans", "dev_caseplans_archive", DECEMBER, true));
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void archive_movesPartitionToArchive() {
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class), eq("dev_caseplans")))
+                .thenReturn(List.of(LEGACY));
+
+        assertTrue(repo.archive("dev_caseplans", "dev_caseplans_archive", LEGACY, true));
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans DETACH PARTITION dev_caseplans_legacy");
+        order.verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans_archive ATTACH PARTITION dev_caseplans_legacy "
+                + "FOR VALUES FROM (MINVALUE) TO ('2026-12-01')");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void archive_casePartition_skipsActivePlanCheck() {
+        PlanPartition cases = new PlanPartition("dev_case_infos_p202612", LocalDate.of(2026, 12, 1), LocalDate.of(2027, 1, 1));
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class), eq("dev_case_infos")))
+                .thenReturn(List.of(cases));
+
+        assertTrue(repo.archive("dev_case_infos", "dev_case_infos_archive", cases, false));
+
+        verify(jdbcTemplate, never()).queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class));
+        verify(jdbcTemplate).execute("ALTER TABLE dev_case_infos_archive ATTACH PARTITION dev_case_infos_p202612 "
+                + "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @SuppressWarnings("unchecked")
+    public void archive_planBecameActive_throwsBeforeAttach() {
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class), eq("dev_caseplans")))
+                .thenReturn(List.of(DECEMBER));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class))).thenReturn(true);
+
+        repo.archive("dev_caseplans", "dev_caseplans_archive", DECEMBER, true);
+    }
+
+    @Test
+    public void hasRowsBefore_queriesPartition() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS (SELECT 1 FROM dev_caseplans_legacy WHERE created_at < ?"),
+                eq(Boolean.class), eq(LocalDate.of(2025, 10, 1).atStartOfDay()))).thenReturn(true);
+
+        assertTrue(repo.hasRowsBefore("dev_caseplans_legacy", LocalDate.of(2025, 10, 1)));
+    }
+
+    @Test
+    public void prepareRebound_addsLowerBoundCheck() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM pg_constraint"), eq(Integer.class),
+                eq("dev_caseplans_legacy"), eq("dev_caseplans_legacy_from"))).thenReturn(0);
+
+        repo.prepareRebound(LEGACY, LocalDate.of(2025, 10, 1));
+
+        verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans_legacy ADD CONSTRAINT dev_caseplans_legacy_from "
+                + "CHECK (created_at >= '2025-10-01') NOT VALID");
+    }
+
+    @Test
+    public void prepareRebound_existingConstraint_doesNothing() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM pg_constraint"), eq(Integer.class),
+                eq("dev_caseplans_legacy"), eq("dev_caseplans_legacy_from"))).thenReturn(1);
+
+        repo.prepareRebound(LEGACY, LocalDate.of(2025, 10, 1));
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    public void validateRebound_validatesLowerBoundCheck() {
+        repo.validateRebound(LEGACY);
+
+        verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans_legacy VALIDATE CONSTRAINT dev_caseplans_legacy_from");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebound_reattachesFromNewLowerBound() {
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class), eq("dev_caseplans")))
+                .thenReturn(List.of(LEGACY));
+
+        assertTrue(repo.rebound("dev_caseplans", LEGACY, LocalDate.of(2025, 10, 1)));
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans DETACH PARTITION dev_caseplans_legacy");
+        order.verify(jdbcTemplate).execute("ALTER TABLE dev_caseplans ATTACH PARTITION dev_caseplans_legacy "
+                + "FOR VALUES FROM ('2025-10-01') TO ('2026-12-01')");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebound_alreadyRebound_returnsFalse() {
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class), eq("dev_caseplans")))
+                .thenReturn(List.of(new PlanPartition("dev_caseplans_legacy", LocalDate.of(2025, 10, 1), LocalDate.of(2026, 12, 1))));
+
+        assertFalse(repo.rebound("dev_caseplans", LEGACY, LocalDate.of(2025, 10, 1)));
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+    }
+}
@@ -0,0 +1,32 @@
+package com.caseplan.adapter.out.persistence;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ServiceNumberBackfillRepoTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ServiceNumberBackfillRepo repo = new ServiceNumberBackfillRepo(jdbcTemplate);
+
+    @Test
+    public void assign_bindsIdsAndNumbersAsArrays() {
+        when(jdbcTemplate.update(startsWith("UPDATE dev_case_infos"), any(Long[].class), any(String[].class)))
+                .thenAnswer(invocation -> {
+                    assertArrayEquals(new Long[]{1L, 2L}, invocation.getArgument(1));
+                    assertArrayEquals(new String[]{"SRV-1", "SRV-2"}, invocation.getArgument(2));
+                    return 2;
+                });
+
+        assertEquals(2, repo.assign(Arrays.asList(1L, 2L), Arrays.asList("SRV-1", "SRV-2")));
+    }
+}
@@ -0,0 +1,49 @@
+package com.caseplan.adapter.out.persistence;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ServiceNumberCounterRepoTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ServiceNumberCounterRepo repo = new ServiceNumberCounterRepo(jdbcTemplate);
+
+    @Test
+    public void advance_returnsLastOfBlock() {
+        when(jdbcTemplate.queryForList(startsWith("UPDATE dev_service_number_counters"), eq(Long.class), eq(20), eq("20260216")))
+                .thenReturn(Collections.singletonList(40L));
+
+        assertEquals(Long.valueOf(40L), repo.advance("20260216", 20));
+    }
+
+    @Test
+    public void advance_noCounterForDay_returnsNull() {
+        when(jdbcTemplate.queryForList(startsWith("UPDATE dev_service_number_counters"), eq(Long.class), eq(20), eq("20260216")))
+                .thenReturn(Collections.emptyList());
+
+        assertNull(repo.advance("20260216", 20));
+    }
+
+    @Test
+    public void create_insertsSeedPlusBlock() {
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO dev_service_number_counters"), eq(Long.class),
+                eq("20260216"), eq(31L), eq(20)))
+                .thenReturn(31L);
+
+        assertEquals(31L, repo.create("20260216", 11L, 20));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void create_noRowReturned_throws() {
+        repo.create("20260216", 0L, 20);
+    }
+}
@@ -0,0 +1,200 @@
+package com.caseplan.adapter.out.queue;
+
+import com.caseplan.application.port.out.QueuePriority;
+import com.caseplan.adapter.out.queue.InMemoryQueueAdapter.OverflowPolicy;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InMemoryQueueAdapterTest {
+
+    private static final List<QueuePriority> INTERACTIVE_FIRST =
+            Arrays.asList(QueuePriority.INTERACTIVE, QueuePriority.BULK);
+    private static final List<QueuePriority> BULK_FIRST =
+            Arrays.asList(QueuePriority.BULK, QueuePriority.INTERACTIVE);
+
+    @Test
+    public void enqueueAndReceive_honoursClassOrder() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(8, OverflowPolicy.SPILL);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueue("2", QueuePriority.BULK);
+
+        QueueDelivery first = queue.receive(BULK_FIRST, Duration.ofMillis(10));
+        assertEquals("2", first.id());
+        assertEquals(QueuePriority.BULK, first.priority());
+        assertTrue(first.entry().hasEnqueuedAt());
+        assertEquals("1", queue.receive(BULK_FIRST, Duration.ofMillis(10)).id());
+        assertNull(queue.receive(BULK_FIRST, Duration.ofMillis(10)));
+    }
+
+    @Test
+    public void enqueue_duplicateOrInFlight_isCollapsed() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(8, OverflowPolicy.SPILL);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        assertEquals(1, queue.size(QueuePriority.INTERACTIVE));
+
+        QueueDelivery delivery = queue.receive(INTERACTIVE_FIRST, Duration.ofMillis(10));
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        assertEquals(0, queue.size(QueuePriority.INTERACTIVE));
+
+        queue.complete(delivery);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        assertEquals(1, queue.size(QueuePriority.INTERACTIVE));
+    }
+
+    @Test
+    public void releaseInFlight_letsReclaimedIdBeQueuedAgain() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(8, OverflowPolicy.SPILL);
+        queue.enqueue("2", QueuePriority.INTERACTIVE);
+        queue.receive(INTERACTIVE_FIRST, Duration.ofMillis(10));
+
+        queue.releaseInFlight("2");
+        queue.enqueue("2", QueuePriority.INTERACTIVE);
+
+        assertEquals(1, queue.size(QueuePriority.INTERACTIVE));
+    }
+
+    @Test
+    public void enqueueAfter_waitsUntilPromoted() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(8, OverflowPolicy.SPILL);
+        queue.enqueueAfter("3", QueuePriority.BULK, Duration.ofMillis(20));
+        queue.enqueueAfter("4", QueuePriority.BULK, Duration.ofHours(1));
+
+        assertEquals(0, queue.promoteDue());
+        assertEquals(Collections.singleton("3"), queue.queuedAmong(Arrays.asList("3", "5")));
+        Thread.sleep(30);
+        assertEquals(1, queue.promoteDue());
+        assertEquals("3", queue.receive(INTERACTIVE_FIRST, Duration.ofMillis(10)).id());
+    }
+
+    @Test
+    public void enqueueAfter_zeroDelay_isImmediate() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(8, OverflowPolicy.SPILL);
+        queue.enqueueAfter("6", QueuePriority.INTERACTIVE, Duration.ZERO);
+
+        assertEquals(1, queue.size(QueuePriority.INTERACTIVE));
+    }
+
+    @Test
+    public void promoteDue_fullBuffer_keepsItemScheduled() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(2, OverflowPolicy.SPILL);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueue("2", QueuePriority.INTERACTIVE);
+        queue.enqueueAfter("3", QueuePriority.INTERACTIVE, Duration.ofMillis(1));
+        Thread.sleep(5);
+
+        assertEquals(0, queue.promoteDue());
+        queue.receive(INTERACTIVE_FIRST, Duration.ofMillis(10));
+        assertEquals(1, queue.promoteDue());
+    }
+
+    @Test
+    public void overflowReject_throwsAndForgetsId() {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(2, OverflowPolicy.REJECT);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueue("2", QueuePriority.INTERACTIVE);
+        try {
+            queue.enqueue("3", QueuePriority.INTERACTIVE);
+            fail("Expected full buffer to reject");
+        } catch (IllegalStateException expected) {
+            assertEquals("Memory queue full for class interactive", expected.getMessage());
+        }
+        assertTrue(queue.queuedAmong(Collections.singletonList("3")).isEmpty());
+    }
+
+    @Test
+    public void overflowSpill_reportsOnceBufferHasDrained() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(2, OverflowPolicy.SPILL);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueue("2", QueuePriority.INTERACTIVE);
+        queue.enqueue("3", QueuePriority.INTERACTIVE);
+
+        assertFalse(queue.takeSpilled());
+        queue.receive(INTERACTIVE_FIRST, Duration.ofMillis(10));
+        assertTrue(queue.takeSpilled());
+        assertFalse(queue.takeSpilled());
+    }
+
+    @Test
+    public void overflowBlock_waitsForSpace() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(2, OverflowPolicy.BLOCK);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueue("2", QueuePriority.INTERACTIVE);
+        Thread producer = new Thread(() -> queue.enqueue("3", QueuePriority.INTERACTIVE));
+        producer.start();
+        Thread.sleep(20);
+        assertTrue(producer.isAlive());
+
+        queue.receive(INTERACTIVE_FIRST, Duration.ofMillis(10));
+        producer.join(5000);
+
+        assertFalse(producer.isAlive());
+        assertEquals(2, queue.size(QueuePriority.INTERACTIVE));
+    }
+
+    @Test
+    public void overflowBlock_noSpaceWithinBound_throwsAndForgetsId() {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(2, OverflowPolicy.BLOCK);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueue("2", QueuePriority.INTERACTIVE);
+        long start = System.currentTimeMillis();
+
+        try {
+            queue.enqueue("3", QueuePriority.INTERACTIVE);
+            fail("a full buffer must fail the enqueue once the wait is over");
+        } catch (IllegalStateException expected) {
+            assertTrue(System.currentTimeMillis() - start >= InMemoryQueueAdapter.BLOCK_MAX_WAIT_MS);
+        }
+        assertFalse(queue.queuedAmong(List.of("3")).contains("3"));
+    }
+
+    @Test
+    public void isDurable_false() {
+        assertFalse(new InMemoryQueueAdapter(2, OverflowPolicy.SPILL).isDurable());
+    }
+
+    @Test
+    public void overflowPolicy_fromValue() {
+        assertEquals(OverflowPolicy.SPILL, OverflowPolicy.fromValue(null));
+        assertEquals(OverflowPolicy.BLOCK, OverflowPolicy.fromValue(" block "));
+        assertEquals(OverflowPolicy.REJECT, OverflowPolicy.fromValue("REJECT"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void overflowPolicy_unknown_throws() {
+        OverflowPolicy.fromValue("drop");
+    }
+
+    @Test
+    public void depth_countsQueuedAndDelayedButNotInFlight() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(8, OverflowPolicy.SPILL);
+        queue.enqueue("1", QueuePriority.INTERACTIVE);
+        queue.enqueueAfter("2", QueuePriority.BULK, Duration.ofMinutes(5));
+        assertEquals(2L, queue.depth());
+
+        queue.receive(INTERACTIVE_FIRST, Duration.ofMillis(10));
+        assertEquals(1L, queue.depth());
+    }
+
+    @Test
+    public void oldestAgeMillis_isHeadAgeOrZeroWhenEmpty() throws Exception {
+        InMemoryQueueAdapter queue = new InMemoryQueueAdapter(8, OverflowPolicy.SPILL);
+        assertEquals(0L, queue.oldestAgeMillis(QueuePriority.BULK));
+
+        queue.enqueue("1", QueuePriority.BULK);
+        Thread.sleep(5L);
+
+        assertTrue(queue.oldestAgeMillis(QueuePriority.BULK) >= 5L);
+        assertEquals(0L, queue.oldestAgeMillis(QueuePriority.INTERACTIVE));
+    }
+}
@@ -0,0 +1,103 @@
+package com.caseplan.adapter.out.queue;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MpmcRingBufferTest {
+
+    @Test
+    public void capacity_roundsUpToPowerOfTwo() {
+        assertEquals(2, new MpmcRingBuffer<String>(1).capacity());
+        assertEquals(4, new MpmcRingBuffer<String>(3).capacity());
+        assertEquals(1024, new MpmcRingBuffer<String>(1024).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacity_mustBePositive() {
+        new MpmcRingBuffer<String>(0);
+    }
+
+    @Test
+    public void offerAndPoll_fifoUntilFullThenEmpty() {
+        MpmcRingBuffer<String> buffer = new MpmcRingBuffer<>(2);
+
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+        assertFalse(buffer.offer("c"));
+        assertEquals(2, buffer.size());
+
+        assertEquals("a", buffer.poll());
+        assertTrue(buffer.offer("c"));
+        assertEquals("b", buffer.poll());
+        assertEquals("c", buffer.poll());
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void concurrentProducersAndConsumers_deliverEveryElementOnce() throws Exception {
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        int total = producers * perProducer;
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers + producers);
+        ExecutorService pool = Executors.newFixedThreadPool(producers * 2);
+        try {
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                pool.execute(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    done.countDown();
+                });
+                pool.execute(() -> {
+                    while (consumed.get() < total) {
+                        Integer value = buffer.poll();
+                        if (value != null) {
+                            assertTrue(seen.add(value));
+                            consumed.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(total, seen.size());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void peek_returnsHeadWithoutTakingIt() {
+        MpmcRingBuffer<String> buffer = new MpmcRingBuffer<>(4);
+        assertNull(buffer.peek());
+
+        buffer.offer("a");
+        buffer.offer("b");
+
+        assertEquals("a", buffer.peek());
+        assertEquals("a", buffer.poll());
+        assertEquals("b", buffer.peek());
+        buffer.poll();
+        assertNull(buffer.peek());
+    }
+}
@@ -0,0 +1,149 @@
+package com.caseplan.adapter.out.queue;
+
+import com.caseplan.application.port.out.QueuePriority;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PostgresQueueAdapterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PostgresQueueAdapter adapter = new PostgresQueueAdapter(jdbcTemplate);
+
+    @Test
+    public void enqueue_publishesRowNowAndNotifies() {
+        long before = System.currentTimeMillis();
+
+        adapter.enqueue("42", QueuePriority.BULK);
+
+        ArgumentCaptor<Timestamp> availableAt = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).update(eq("UPDATE dev_caseplans SET available_at = ? WHERE id = ?"),
+                availableAt.capture(), eq(42L));
+        assertTrue(availableAt.getValue().getTime() >= before);
+        assertTrue(availableAt.getValue().getTime() <= System.currentTimeMillis());
+        verify(jdbcTemplate).queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                PostgresQueueAdapter.NOTIFY_CHANNEL, "42");
+    }
+
+    @Test
+    public void enqueueAfter_publishesRowAtDueTime() {
+        long before = System.currentTimeMillis();
+
+        adapter.enqueueAfter("7", QueuePriority.INTERACTIVE, Duration.ofSeconds(30));
+
+        ArgumentCaptor<Timestamp> availableAt = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).update(anyString(), availableAt.capture(), eq(7L));
+        assertTrue(availableAt.getValue().getTime() >= before + 30_000L);
+    }
+
+    @Test
+    public void enqueueAfter_zeroDelay_publishesImmediately() {
+        long before = System.currentTimeMillis();
+
+        adapter.enqueueAfter("8", QueuePriority.INTERACTIVE, Duration.ZERO);
+
+        ArgumentCaptor<Timestamp> availableAt = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).update(anyString(), availableAt.capture(), eq(8L));
+        assertTrue(availableAt.getValue().getTime() < before + 1_000L);
+    }
+
+    @Test
+    public void claim_usesSkipLockedUpdateForTheClassUnderAnOwnerlessLease() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any(), any(), eq("bulk"), eq(5)))
+                .thenReturn(Arrays.asList(3L, 4L));
+
+        List<Long> claimed = adapter.claim(QueuePriority.BULK, 5, Duration.ofSeconds(30));
+
+        assertEquals(Arrays.asList(3L, 4L), claimed);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Timestamp> claimedAt = ArgumentCaptor.forClass(Timestamp.class);
+        ArgumentCaptor<Timestamp> leaseExpiresAt = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).queryForList(sql.capture(), eq(Long.class), claimedAt.capture(), leaseExpiresAt.capture(),
+                any(), eq("bulk"), eq(5));
+        assertTrue(sql.getValue().contains("FOR UPDATE SKIP LOCKED"));
+        assertTrue(sql.getValue().contains("RETURNING id"));
+        assertTrue(sql.getValue().contains("lease_owner = NULL"));
+        assertEquals(30_000L, leaseExpiresAt.getValue().getTime() - claimedAt.getValue().getTime());
+    }
+
+    @Test
+    public void nextDueAt_mapsTimestampOrNull() {
+        Instant due = Instant.parse("2026-01-01T00:00:00Z");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Timestamp.class), any(Timestamp.class)))
+                .thenReturn(Timestamp.from(due), (Timestamp) null);
+
+        assertEquals(due, adapter.nextDueAt());
+        assertNull(adapter.nextDueAt());
+    }
+
+    @Test
+    public void releaseExpired_resetsRowsWithLapsedLeaseOrLegacyStaleRows() {
+        Instant legacyCutoff = Instant.parse("2026-01-01T00:00:00Z");
+        when(jdbcTemplate.update(anyString(), any(Timestamp.class), any(Timestamp.class), eq(Timestamp.from(legacyCutoff))))
+                .thenReturn(2);
+
+        assertEquals(2, adapter.releaseExpired(legacyCutoff));
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(sql.capture(), any(Timestamp.class), any(Timestamp.class), eq(Timestamp.from(legacyCutoff)));
+        assertTrue(sql.getValue().contains("lease_expires_at < ?"));
+    }
+
+    @Test
+    public void release_processingRow_backToPendingAndNotifies() {
+        when(jdbcTemplate.update(anyString(), any(Timestamp.class), eq(42L))).thenReturn(1);
+
+        assertTrue(adapter.release(42L));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(sql.capture(), any(Timestamp.class), eq(42L));
+        assertTrue(sql.getValue().contains("WHERE id = ? AND status = 'processing'"));
+        verify(jdbcTemplate).queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                PostgresQueueAdapter.NOTIFY_CHANNEL, "42");
+    }
+
+    @Test
+    public void release_rowNoLongerProcessing_leftAlone() {
+        assertFalse(adapter.release(43L));
+
+        verify(jdbcTemplate, never()).queryForObject(eq("SELECT pg_notify(?, ?)"), eq(Object.class), any(), any());
+    }
+
+    @Test
+    public void depth_countsPublishedPendingRows() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(17L);
+
+        assertEquals(17L, adapter.depth());
+    }
+
+    @Test
+    public void depth_nullCount_isUnknown() {
+        assertEquals(-1L, adapter.depth());
+    }
+
+    @Test
+    public void oldestAgeMillis_ageOfEarliestDueRowInClass() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Timestamp.class), any(Timestamp.class), eq("bulk")))
+                .thenReturn(Timestamp.from(Instant.now().minusSeconds(20)));
+
+        assertTrue(adapter.oldestAgeMillis(QueuePriority.BULK) >= 20_000L);
+        assertEquals(0L, adapter.oldestAgeMillis(QueuePriority.INTERACTIVE));
+    }
+}
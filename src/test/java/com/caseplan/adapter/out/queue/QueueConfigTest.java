@@ -1,10 +1,19 @@
 package com.caseplan.adapter.out.queue;
 
+import com.caseplan.adapter.out.lease.LocalLeaderLease;
+import com.caseplan.adapter.out.lease.LocalPartitionMembership;
+import com.caseplan.adapter.out.lease.PartitionMembership;
+import com.caseplan.adapter.out.lease.RedisLeaderLease;
+import com.caseplan.adapter.out.lease.RedisPartitionMembership;
 import com.caseplan.application.port.out.QueuePort;
 import org.junit.Test;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -17,7 +26,7 @@ public class QueueConfigTest {
         QueueConfig config = new QueueConfig();
         ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
 
-        QueuePort port = config.queuePort("sqs", "https://sqs.example/queue", "us-east-2", provider);
+        QueuePort port = config.queuePort("sqs", "https://sqs.example/queue", "", "us-east-2", 1024, "spill", 1, provider, mock(ObjectProvider.class));
         assertTrue(port instanceof SqsQueueAdapter);
     }
 
@@ -28,7 +37,7 @@ public class QueueConfigTest {
         ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
         when(provider.getIfAvailable()).thenReturn(mock(StringRedisTemplate.class));
 
-        QueuePort port = config.queuePort("redis", "", "us-east-2", provider);
+        QueuePort port = config.queuePort("redis", "", "", "us-east-2", 1024, "spill", 1, provider, mock(ObjectProvider.class));
         assertTrue(port instanceof RedisQueueAdapter);
     }
 
@@ -38,7 +47,7 @@ public class QueueConfigTest {
         QueueConfig config = new QueueConfig();
         ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
         when(provider.getIfAvailable()).thenReturn(null);
-        config.queuePort("redis", "", "us-east-2", provider);
+        config.queuePort("redis", "", "", "us-east-2", 1024, "spill", 1, provider, mock(ObjectProvider.class));
     }
 
     @Test
@@ -48,7 +57,78 @@ public class QueueConfigTest {
         ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
         when(provider.getIfAvailable()).thenReturn(mock(StringRedisTemplate.class));
 
-        QueuePort port = config.queuePort(null, "", "us-east-2", provider);
+        QueuePort port = config.queuePort(null, "", "", "us-east-2", 1024, "spill", 1, provider, mock(ObjectProvider.class));
         assertTrue(port instanceof RedisQueueAdapter);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void queuePort_providerPostgres_returnsPostgresAdapter() {
+        QueueConfig config = new QueueConfig();
+        ObjectProvider<JdbcTemplate> jdbcProvider = mock(ObjectProvider.class);
+        when(jdbcProvider.getIfAvailable()).thenReturn(mock(JdbcTemplate.class));
+
+        QueuePort port = config.queuePort("postgres", "", "", "us-east-2", 1024, "spill", 1, mock(ObjectProvider.class), jdbcProvider);
+        assertTrue(port instanceof PostgresQueueAdapter);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @SuppressWarnings("unchecked")
+    public void queuePort_providerPostgres_withoutJdbcTemplate_throws() {
+        QueueConfig config = new QueueConfig();
+        ObjectProvider<JdbcTemplate> jdbcProvider = mock(ObjectProvider.class);
+        when(jdbcProvider.getIfAvailable()).thenReturn(null);
+        config.queuePort("postgres", "", "", "us-east-2", 1024, "spill", 1, mock(ObjectProvider.class), jdbcProvider);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void queuePort_providerMemory_returnsInMemoryAdapter() {
+        QueueConfig config = new QueueConfig();
+
+        QueuePort port = config.queuePort("memory", "", "", "us-east-2", 64, "reject", 1,
+                mock(ObjectProvider.class), mock(ObjectProvider.class));
+        assertTrue(port instanceof InMemoryQueueAdapter);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void maintenanceLease_redisProvider_isSharedRedisLease() {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mock(StringRedisTemplate.class));
+
+        assertTrue(new QueueConfig().maintenanceLease("redis", 15L, provider) instanceof RedisLeaderLease);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void maintenanceLease_memoryProvider_isLocalLease() {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+
+        assertTrue(new QueueConfig().maintenanceLease("memory", 15L, provider) instanceof LocalLeaderLease);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @SuppressWarnings("unchecked")
+    public void maintenanceLease_redisWithoutTemplate_throws() {
+        new QueueConfig().maintenanceLease("redis", 15L, mock(ObjectProvider.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void partitionMembership_redisProvider_isSharedRedisMembership() {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mock(StringRedisTemplate.class));
+
+        assertTrue(new QueueConfig().partitionMembership("redis", 8, 15L, provider) instanceof RedisPartitionMembership);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void partitionMembership_memoryProvider_ownsTheSinglePartition() {
+        PartitionMembership membership = new QueueConfig().partitionMembership("memory", 8, 15L, mock(ObjectProvider.class));
+
+        assertTrue(membership instanceof LocalPartitionMembership);
+        assertEquals(Collections.singleton(0), membership.heartbeat());
+    }
 }
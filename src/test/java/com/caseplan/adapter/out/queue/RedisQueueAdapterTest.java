@@ -1,33 +1,269 @@
 package com.caseplan.adapter.out.queue;
 
+import com.caseplan.application.port.out.QueuePriority;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RedisQueueAdapterTest {
 
     @Mock private StringRedisTemplate redisTemplate;
-    @Mock private ListOperations<String, String> listOps;
+    @Mock private SetOperations<String, String> setOps;
 
     private RedisQueueAdapter adapter;
 
     @Before
     public void setup() {
-        when(redisTemplate.opsForList()).thenReturn(listOps);
         adapter = new RedisQueueAdapter(redisTemplate);
     }
 
     @Test
-    public void enqueue_pushesToRedisList() {
+    public void enqueue_guardedPushAgainstQueuedSetAndInFlightMarker() {
         adapter.enqueue("42");
 
-        verify(listOps).rightPush("caseplan:pending", "42");
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(Arrays.asList("caseplan:pending", "caseplan:pending:ids", "caseplan:inflight:42")),
+                eq("42"),
+                startsWith("42|"));
+    }
+
+    @Test
+    public void enqueue_bulkPriority_pushesToBulkList() {
+        adapter.enqueue("7", QueuePriority.BULK);
+
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(Arrays.asList("caseplan:pending:bulk", "caseplan:pending:ids", "caseplan:inflight:7")),
+                eq("7"),
+                startsWith("7|"));
+    }
+
+    @Test
+    public void enqueueAfter_positiveDelay_schedulesOnDelayedZset() {
+        adapter.enqueueAfter("8", QueuePriority.INTERACTIVE, Duration.ofSeconds(30));
+
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(Arrays.asList("caseplan:delayed:interactive", "caseplan:pending:ids")),
+                eq("8"),
+                anyString());
+    }
+
+    @Test
+    public void enqueueAfter_zeroDelay_enqueuesImmediately() {
+        adapter.enqueueAfter("8", QueuePriority.BULK, Duration.ZERO);
+
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(Arrays.asList("caseplan:pending:bulk", "caseplan:pending:ids", "caseplan:inflight:8")),
+                eq("8"),
+                startsWith("8|"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void promoteDue_runsMoverPerClassAndSumsPromotions() {
+        when(redisTemplate.execute(any(RedisScript.class),
+                eq(Arrays.asList("caseplan:delayed:interactive", "caseplan:pending")), anyString(), anyString(), eq("1")))
+                .thenReturn(2L);
+        when(redisTemplate.execute(any(RedisScript.class),
+                eq(Arrays.asList("caseplan:delayed:bulk", "caseplan:pending:bulk")), anyString(), anyString(), eq("1")))
+                .thenReturn(null);
+
+        assertEquals(2, adapter.promoteDue());
+    }
+
+    @Test
+    public void queueEntry_roundTripsAndAcceptsLegacyBareIds() {
+        QueueEntry entry = QueueEntry.parse(new QueueEntry("15", 1234L).encode());
+        assertEquals("15", entry.id());
+        assertEquals(1234L, entry.enqueuedAtMillis());
+        assertTrue(entry.hasEnqueuedAt());
+
+        QueueEntry legacy = QueueEntry.parse("16");
+        assertEquals("16", legacy.id());
+        assertFalse(legacy.hasEnqueuedAt());
+
+        assertFalse(QueueEntry.parse("17|garbage").hasEnqueuedAt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void receive_popsMarksInFlightAndLeavesQueuedSetInOneScript() throws Exception {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString()))
+                .thenReturn(Arrays.asList("caseplan:pending:bulk", "9|1000"));
+
+        QueueDelivery delivery = adapter.receive(
+                Arrays.asList(QueuePriority.INTERACTIVE, QueuePriority.BULK), Duration.ofSeconds(60));
+
+        assertEquals(QueuePriority.BULK, delivery.priority());
+        assertEquals("9", delivery.id());
+        assertEquals(1000L, delivery.entry().enqueuedAtMillis());
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(Arrays.asList("caseplan:pending", "caseplan:pending:bulk", "caseplan:pending:ids")),
+                eq("caseplan:inflight:"), eq("600"));
+        verify(redisTemplate, never()).opsForSet();
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void receive_timeout_pollsUntilDeadlineThenReturnsNull() throws Exception {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString())).thenReturn(null);
+
+        assertNull(adapter.receive(Arrays.asList(QueuePriority.INTERACTIVE, QueuePriority.BULK), Duration.ofMillis(250)));
+        verify(redisTemplate, atLeast(2)).execute(any(RedisScript.class), anyList(), anyString(), anyString());
+    }
+
+    @Test
+    public void complete_clearsInFlightMarker() {
+        adapter.complete(new QueueDelivery(QueuePriority.INTERACTIVE, new QueueEntry("5", 1L)));
+
+        verify(redisTemplate).delete("caseplan:inflight:5");
+    }
+
+    @Test
+    public void releaseInFlight_clearsMarkerById() {
+        adapter.releaseInFlight("6");
+
+        verify(redisTemplate).delete("caseplan:inflight:6");
+    }
+
+    @Test
+    public void queuedAmong_usesOneMembershipCall() {
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        Map<Object, Boolean> membership = new HashMap<>();
+        membership.put("1", true);
+        membership.put("2", false);
+        when(setOps.isMember("caseplan:pending:ids", "1", "2")).thenReturn(membership);
+
+        assertEquals(Collections.singleton("1"), adapter.queuedAmong(Arrays.asList("1", "2")));
+    }
+
+    @Test
+    public void queuedAmong_emptyOrNullReply_returnsEmpty() {
+        assertTrue(adapter.queuedAmong(Collections.emptyList()).isEmpty());
+
+        when(redisTemplate.opsForSet()).thenReturn(setOps); // isMember unstubbed: null reply
+        assertTrue(adapter.queuedAmong(Collections.singletonList("3")).isEmpty());
+    }
+
+    @Test
+    public void depth_isQueuedIdSetCardinality() {
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(setOps.size("caseplan:pending:ids")).thenReturn(5L);
+
+        assertEquals(5L, adapter.depth());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void oldestAgeMillis_readsHeadStamp() {
+        ListOperations<String, String> listOps = mock(ListOperations.class);
+        when(redisTemplate.opsForList()).thenReturn(listOps);
+        when(listOps.index("caseplan:pending:bulk", 0)).thenReturn("4|" + (System.currentTimeMillis() - 3_000L));
+        when(listOps.index("caseplan:pending", 0)).thenReturn(null);
+
+        assertTrue(adapter.oldestAgeMillis(QueuePriority.BULK) >= 3_000L);
+        assertEquals(0L, adapter.oldestAgeMillis(QueuePriority.INTERACTIVE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void oldestAgeMillis_legacyBareId_isUnknown() {
+        ListOperations<String, String> listOps = mock(ListOperations.class);
+        when(redisTemplate.opsForList()).thenReturn(listOps);
+        when(listOps.index("caseplan:pending", 0)).thenReturn("4");
+
+        assertEquals(-1L, adapter.oldestAgeMillis(QueuePriority.INTERACTIVE));
+    }
+
+    @Test
+    public void enqueue_partitioned_pushesToPartitionOfId() {
+        RedisQueueAdapter partitioned = new RedisQueueAdapter(redisTemplate, 4);
+
+        partitioned.enqueue("6", QueuePriority.BULK);
+        partitioned.enqueue("8", QueuePriority.INTERACTIVE);
+
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(Arrays.asList("caseplan:pending:bulk:p2", "caseplan:pending:ids", "caseplan:inflight:6")),
+                eq("6"),
+                startsWith("6|"));
+        verify(redisTemplate).execute(
+                any(RedisScript.class),
+                eq(Arrays.asList("caseplan:pending", "caseplan:pending:ids", "caseplan:inflight:8")),
+                eq("8"),
+                startsWith("8|"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void receive_partitioned_popsOnlyAssignedPartitionsInClassOrder() throws Exception {
+        RedisQueueAdapter partitioned = new RedisQueueAdapter(redisTemplate, 4);
+        partitioned.assignPartitions(new HashSet<>(Arrays.asList(3, 1, 9)));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString()))
+                .thenReturn(Arrays.asList("caseplan:pending:p3", "7"));
+
+        QueueDelivery delivery = partitioned.receive(Arrays.asList(QueuePriority.BULK, QueuePriority.INTERACTIVE),
+                Duration.ofSeconds(1));
+
+        assertEquals(QueuePriority.INTERACTIVE, delivery.priority());
+        assertFalse(delivery.entry().hasEnqueuedAt());
+        assertEquals(Arrays.asList(1, 3), partitioned.assignedPartitions());
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), anyString(), anyString());
+        assertEquals(Arrays.asList("caseplan:pending:bulk:p1", "caseplan:pending:bulk:p3",
+                "caseplan:pending:p1", "caseplan:pending:p3", "caseplan:pending:ids"), keys.getValue());
+    }
+
+    @Test
+    public void receive_noPartitionsAssigned_standsByWithoutPopping() throws Exception {
+        RedisQueueAdapter partitioned = new RedisQueueAdapter(redisTemplate, 4);
+        partitioned.assignPartitions(Collections.emptySet());
+
+        assertNull(partitioned.receive(Arrays.asList(QueuePriority.INTERACTIVE), Duration.ofMillis(10)));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void oldestAgeMillis_partitioned_takesOldestHeadAcrossPartitions() {
+        RedisQueueAdapter partitioned = new RedisQueueAdapter(redisTemplate, 2);
+        ListOperations<String, String> listOps = mock(ListOperations.class);
+        when(redisTemplate.opsForList()).thenReturn(listOps);
+        when(listOps.index("caseplan:pending", 0)).thenReturn("4|" + (System.currentTimeMillis() - 1_000L));
+        when(listOps.index("caseplan:pending:p1", 0)).thenReturn("5|" + (System.currentTimeMillis() - 9_000L));
+
+        assertTrue(partitioned.oldestAgeMillis(QueuePriority.INTERACTIVE) >= 9_000L);
     }
 }
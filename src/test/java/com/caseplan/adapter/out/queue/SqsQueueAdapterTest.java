@@ -1,14 +1,28 @@
 package com.caseplan.adapter.out.queue;
 
+import com.caseplan.application.port.out.QueuePriority;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class SqsQueueAdapterTest {
 
@@ -36,4 +50,132 @@ public class SqsQueueAdapterTest {
         }
         throw new AssertionError("expected RuntimeException");
     }
+
+    @Test
+    public void enqueue_bulkPriority_routesToBulkQueue() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient, "https://sqs.example/main", "https://sqs.example/bulk");
+
+        adapter.enqueue("9", QueuePriority.BULK);
+
+        ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient).sendMessage(captor.capture());
+        assertEquals("https://sqs.example/bulk", captor.getValue().queueUrl());
+        assertTrue(captor.getValue().messageBody().contains("\"priority\":\"bulk\""));
+    }
+
+    @Test
+    public void queueUrlFor_blankBulkQueue_fallsBackToMainQueue() {
+        SqsQueueAdapter adapter = new SqsQueueAdapter(mock(SqsClient.class), "https://sqs.example/main", " ");
+
+        assertEquals("https://sqs.example/main", adapter.queueUrlFor(QueuePriority.BULK));
+        assertEquals("https://sqs.example/main", adapter.queueUrlFor(QueuePriority.INTERACTIVE));
+    }
+
+    @Test
+    public void enqueueAfter_setsDelaySecondsClampedToSqsMaximum() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient, "https://sqs.example/main");
+
+        adapter.enqueueAfter("5", QueuePriority.INTERACTIVE, java.time.Duration.ofMillis(1500));
+        adapter.enqueueAfter("6", QueuePriority.INTERACTIVE, java.time.Duration.ofHours(1));
+
+        ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient, org.mockito.Mockito.times(2)).sendMessage(captor.capture());
+        assertEquals(Integer.valueOf(2), captor.getAllValues().get(0).delaySeconds());
+        assertEquals(Integer.valueOf(SqsQueueAdapter.MAX_DELAY_SECONDS), captor.getAllValues().get(1).delaySeconds());
+    }
+
+    @Test
+    public void enqueue_fifoQueue_usesPlanIdAsDeduplicationIdAndGroup() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient, "https://sqs.example/main.fifo");
+
+        adapter.enqueue("31");
+        adapter.enqueueAfter("31", QueuePriority.INTERACTIVE, java.time.Duration.ofSeconds(4));
+
+        ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient, org.mockito.Mockito.times(2)).sendMessage(captor.capture());
+        SendMessageRequest immediate = captor.getAllValues().get(0);
+        assertEquals("31", immediate.messageDeduplicationId());
+        assertEquals("31", immediate.messageGroupId());
+        SendMessageRequest delayed = captor.getAllValues().get(1);
+        assertTrue(delayed.messageDeduplicationId().startsWith("31-"));
+        assertEquals(null, delayed.delaySeconds());
+    }
+
+    @Test
+    public void enqueue_standardQueue_hasNoDeduplicationId() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient, "https://sqs.example/main");
+
+        adapter.enqueue("32");
+
+        ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient).sendMessage(captor.capture());
+        assertEquals(null, captor.getValue().messageDeduplicationId());
+    }
+
+    @Test
+    public void depth_sumsVisibleAndDelayedAcrossDistinctQueues() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        Map<QueueAttributeName, String> attributes = new HashMap<>();
+        attributes.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "7");
+        attributes.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_DELAYED, "2");
+        when(sqsClient.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+                .thenReturn(GetQueueAttributesResponse.builder().attributes(attributes).build());
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient,
+                "https://sqs.example/queue", "https://sqs.example/bulk");
+
+        assertEquals(18L, adapter.depth());
+        verify(sqsClient, times(2)).getQueueAttributes(any(GetQueueAttributesRequest.class));
+    }
+
+    @Test
+    public void depth_singleQueue_isQueriedOnceAndToleratesMissingCounts() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        Map<QueueAttributeName, String> attributes = new HashMap<>();
+        attributes.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "not-a-number");
+        when(sqsClient.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+                .thenReturn(GetQueueAttributesResponse.builder().attributes(attributes).build());
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient, "https://sqs.example/queue");
+
+        assertEquals(0L, adapter.depth());
+        verify(sqsClient, times(1)).getQueueAttributes(any(GetQueueAttributesRequest.class));
+    }
+
+    @Test
+    public void enqueue_stampsEnqueuedAtAndDelayedSendsUseDueTime() throws Exception {
+        SqsClient sqsClient = mock(SqsClient.class);
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient, "https://sqs.example/main");
+        long before = System.currentTimeMillis();
+
+        adapter.enqueue("1");
+        adapter.enqueueAfter("2", QueuePriority.INTERACTIVE, java.time.Duration.ofSeconds(30));
+
+        ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient, times(2)).sendMessage(captor.capture());
+        ObjectMapper mapper = new ObjectMapper();
+        long immediate = mapper.readTree(captor.getAllValues().get(0).messageBody()).get("enqueuedAt").asLong();
+        long delayed = mapper.readTree(captor.getAllValues().get(1).messageBody()).get("enqueuedAt").asLong();
+        assertTrue(immediate >= before && immediate <= System.currentTimeMillis());
+        assertTrue(delayed >= before + 29_000L);
+    }
+
+    @Test
+    public void extendVisibility_targetsTheClassQueueAndCapsAtTwelveHours() {
+        SqsClient sqsClient = mock(SqsClient.class);
+        SqsQueueAdapter adapter = new SqsQueueAdapter(sqsClient, "https://sqs.example/main", "https://sqs.example/bulk");
+
+        adapter.extendVisibility(QueuePriority.BULK, "receipt", Duration.ofSeconds(60));
+        adapter.extendVisibility(QueuePriority.INTERACTIVE, "receipt", Duration.ofDays(1));
+
+        ArgumentCaptor<ChangeMessageVisibilityRequest> captor = ArgumentCaptor.forClass(ChangeMessageVisibilityRequest.class);
+        verify(sqsClient, times(2)).changeMessageVisibility(captor.capture());
+        assertEquals("https://sqs.example/bulk", captor.getAllValues().get(0).queueUrl());
+        assertEquals("receipt", captor.getAllValues().get(0).receiptHandle());
+        assertEquals(Integer.valueOf(60), captor.getAllValues().get(0).visibilityTimeout());
+        assertEquals("https://sqs.example/main", captor.getAllValues().get(1).queueUrl());
+        assertEquals(Integer.valueOf(SqsQueueAdapter.MAX_VISIBILITY_SECONDS), captor.getAllValues().get(1).visibilityTimeout());
+    }
 }
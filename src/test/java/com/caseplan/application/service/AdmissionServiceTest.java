@@ -0,0 +1,131 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.common.exception.OverloadedException;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class AdmissionServiceTest {
+
+    private final QueuePort queuePort = mock(QueuePort.class);
+    private final CasePlanRepo casePlanRepo = mock(CasePlanRepo.class);
+
+    /** 100 deep, 10 s drain window, 60 s ETA budget, no snapshot reuse unless the test asks for it. */
+    private AdmissionService service(boolean enabled, long snapshotTtlMs) {
+        return new AdmissionService(queuePort, casePlanRepo, enabled, 100L, 60L, 10L, snapshotTtlMs);
+    }
+
+    private void backlog(long depth, long finishedInWindow) {
+        when(queuePort.depth()).thenReturn(depth);
+        when(casePlanRepo.countByStatusInAndUpdatedAtAfter(anyList(), any(Instant.class))).thenReturn(finishedInWindow);
+    }
+
+    @Test
+    public void admit_disabled_skipsChecks() {
+        assertNull(service(false, 0L).admit());
+        verifyNoInteractions(queuePort, casePlanRepo);
+    }
+
+    @Test
+    public void admit_depthUnknown_admitsWithoutEstimate() {
+        when(queuePort.depth()).thenReturn(-1L);
+
+        assertNull(service(true, 0L).admit());
+        verify(casePlanRepo, never()).countByStatusInAndUpdatedAtAfter(anyList(), any(Instant.class));
+    }
+
+    @Test
+    public void admit_depthThrows_admitsWithoutEstimate() {
+        when(queuePort.depth()).thenThrow(new IllegalStateException("broker unreachable"));
+        AdmissionService service = service(true, 60_000L);
+
+        assertNull(service.admit());
+        assertNull(service.admit());
+
+        verify(queuePort, times(1)).depth(); // the failed read is cached for the TTL too
+        verify(casePlanRepo, never()).countByStatusInAndUpdatedAtAfter(anyList(), any(Instant.class));
+    }
+
+    @Test
+    public void admit_drainCountThrows_admitsWithoutEstimate() {
+        when(queuePort.depth()).thenReturn(5L);
+        when(casePlanRepo.countByStatusInAndUpdatedAtAfter(anyList(), any(Instant.class)))
+                .thenThrow(new IllegalStateException("db unreachable"));
+
+        assertNull(service(true, 0L).admit());
+    }
+
+    @Test
+    public void admit_underLimits_returnsEta() {
+        backlog(9L, 20L); // 2 plans/s, new plan is 10th in line
+
+        assertEquals(Long.valueOf(5L), service(true, 0L).admit());
+    }
+
+    @Test
+    public void admit_nothingDrainedYet_admitsWithoutEstimate() {
+        backlog(3L, 0L);
+
+        assertNull(service(true, 0L).admit());
+    }
+
+    @Test
+    public void admit_tooDeep_nothingDraining_rejectsWithDefaultRetryAfter() {
+        backlog(100L, 0L);
+
+        try {
+            service(true, 0L).admit();
+            fail("expected OverloadedException");
+        } catch (OverloadedException e) {
+            assertEquals(429, e.getHttpStatus().value());
+            assertEquals("QUEUE_BACKLOG", e.getCode());
+            assertEquals(60L, e.getRetryAfterSeconds());
+            @SuppressWarnings("unchecked")
+            Map<String, Object> detail = (Map<String, Object>) e.getDetail();
+            assertEquals(100L, detail.get("queueDepth"));
+            assertNull(detail.get("estimatedWaitSeconds"));
+        }
+    }
+
+    @Test
+    public void admit_etaOverBudget_rejectsWithTimeToDrainBelowBudget() {
+        backlog(89L, 10L); // 1 plan/s: ETA 90 s against a 60 s budget
+
+        try {
+            service(true, 0L).admit();
+            fail("expected OverloadedException");
+        } catch (OverloadedException e) {
+            assertEquals(30L, e.getRetryAfterSeconds());
+            @SuppressWarnings("unchecked")
+            Map<String, Object> detail = (Map<String, Object>) e.getDetail();
+            assertEquals(90L, detail.get("estimatedWaitSeconds"));
+        }
+    }
+
+    @Test
+    public void admit_reusesSnapshotWithinTtl() {
+        backlog(1L, 10L);
+        AdmissionService service = service(true, 60_000L);
+
+        service.admit();
+        service.admit();
+
+        verify(queuePort, times(1)).depth();
+        verify(casePlanRepo, times(1)).countByStatusInAndUpdatedAtAfter(anyList(), any(Instant.class));
+    }
+}
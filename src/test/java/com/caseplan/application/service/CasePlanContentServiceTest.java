@@ -0,0 +1,96 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CasePlanContentRepo;
+import com.caseplan.adapter.out.persistence.CasePlanRepo;
+import com.caseplan.domain.model.CasePlan;
+import com.caseplan.domain.model.CasePlanContent;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CasePlanContentServiceTest {
+
+    @Mock private CasePlanContentRepo contentRepo;
+    @Mock private CasePlanRepo casePlanRepo;
+
+    private CasePlanContentService service;
+
+    @Before
+    public void setup() {
+        service = new CasePlanContentService(contentRepo, casePlanRepo);
+    }
+
+    @Test
+    public void completeWithContent_storesNextVersionAndCompletesPlan() {
+        when(contentRepo.nextVersion(5L)).thenReturn(2);
+        when(contentRepo.save(any(CasePlanContent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(casePlanRepo.completeUnderLease(eq(5L), eq("owner"), eq(2), eq(1), any(Instant.class))).thenReturn(1);
+
+        assertTrue(service.completeWithContent(5L, "owner", "plan", 1));
+
+        ArgumentCaptor<CasePlanContent> saved = ArgumentCaptor.forClass(CasePlanContent.class);
+        verify(contentRepo).save(saved.capture());
+        assertEquals(Long.valueOf(5L), saved.getValue().getPlanId());
+        assertEquals(Integer.valueOf(2), saved.getValue().getVersion());
+        assertEquals("plan", saved.getValue().getContent());
+        verify(contentRepo, never()).delete(any());
+    }
+
+    @Test
+    public void completeWithContent_leaseLost_dropsTheNewVersion() {
+        when(contentRepo.nextVersion(6L)).thenReturn(1);
+        when(contentRepo.save(any(CasePlanContent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(casePlanRepo.completeUnderLease(anyLong(), any(), anyInt(), anyInt(), any(Instant.class))).thenReturn(0);
+
+        assertFalse(service.completeWithContent(6L, "owner", "plan", 1));
+
+        ArgumentCaptor<CasePlanContent> deleted = ArgumentCaptor.forClass(CasePlanContent.class);
+        verify(contentRepo).delete(deleted.capture());
+        assertEquals(Integer.valueOf(1), deleted.getValue().getVersion());
+    }
+
+    @Test
+    public void currentContent_readsTheVersionThePlanPointsAt() {
+        CasePlan plan = new CasePlan();
+        plan.setId(7L);
+        plan.setContentVersion(3);
+        when(contentRepo.findByPlanIdAndVersion(7L, 3)).thenReturn(Optional.of(new CasePlanContent(7L, 3, "v3")));
+
+        assertEquals(Optional.of("v3"), service.currentContent(plan));
+    }
+
+    @Test
+    public void currentContent_preSplitPlan_fallsBackToLegacyColumn() {
+        CasePlan plan = new CasePlan();
+        plan.setId(8L);
+        plan.setLegacyGeneratedPlan("inline");
+
+        assertEquals(Optional.of("inline"), service.currentContent(plan));
+        verify(contentRepo, never()).findByPlanIdAndVersion(any(), any());
+    }
+
+    @Test
+    public void currentContent_noContentAnywhere_isEmpty() {
+        assertEquals(Optional.empty(), service.currentContent(new CasePlan()));
+        verifyNoInteractions(casePlanRepo);
+    }
+}
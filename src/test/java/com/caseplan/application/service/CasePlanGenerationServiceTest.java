@@ -3,7 +3,9 @@ package com.caseplan.application.service;
 import com.caseplan.domain.model.Attorney;
 import com.caseplan.domain.model.CaseInfo;
 import com.caseplan.domain.model.CasePlan;
+import com.caseplan.domain.model.CasePlanOutbox;
 import com.caseplan.domain.model.Client;
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
 import com.caseplan.adapter.out.persistence.CasePlanRepo;
 import com.caseplan.application.port.out.LLMService;
 import org.junit.Before;
@@ -12,19 +14,27 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,48 +43,163 @@ public class CasePlanGenerationServiceTest {
 
     @Mock private CasePlanRepo casePlanRepo;
     @Mock private LLMService llmService;
+    @Mock private CasePlanOutboxRepo outboxRepo;
+    @Mock private CasePlanContentService contentService;
+    @Mock private PlatformTransactionManager transactionManager;
 
     private CasePlanGenerationService service;
 
     @Before
     public void setup() {
-        service = new CasePlanGenerationService(casePlanRepo, llmService);
+        service = new CasePlanGenerationService(casePlanRepo, llmService, outboxRepo, contentService,
+                new TransactionTemplate(transactionManager));
     }
 
     @Test
     public void processWithRetry_notFound_returnsFalse() {
-        when(casePlanRepo.findById(999L)).thenReturn(Optional.empty());
+        when(casePlanRepo.findWithCaseInfoById(999L)).thenReturn(Optional.empty());
 
         boolean ok = service.processWithRetry(999L);
 
         assertFalse(ok);
-        verify(casePlanRepo, never()).save(any(CasePlan.class));
+        verify(casePlanRepo, never()).claimLease(anyLong(), anyString(), any(), any());
         verify(llmService, never()).chat(anyString());
     }
 
     @Test
-    public void processWithRetry_pending_success_returnsTrueAndCompleted() {
+    public void processWithRetry_pending_success_returnsTrueAndCompletesUnderLease() {
         CasePlan plan = buildCasePlan(1L, "pending");
-        when(casePlanRepo.findById(1L)).thenReturn(Optional.of(plan));
-        when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(identityCasePlanAnswer());
+        when(casePlanRepo.findWithCaseInfoById(1L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(1L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(contentService.completeWithContent(eq(1L), anyString(), eq("generated"), eq(1))).thenReturn(true);
         when(llmService.chat(anyString())).thenReturn("generated");
 
         boolean ok = service.processWithRetry(1L);
 
         assertTrue(ok);
-        ArgumentCaptor<CasePlan> captor = ArgumentCaptor.forClass(CasePlan.class);
-        verify(casePlanRepo, atLeast(2)).save(captor.capture());
-        CasePlan last = captor.getAllValues().getLast();
-        assertEquals("completed", last.getStatus());
-        assertEquals("generated", last.getGeneratedPlan());
-        assertNull(last.getErrorMessage());
+        ArgumentCaptor<String> claimedBy = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Instant> expiresAt = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> claimedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(casePlanRepo).claimLease(eq(1L), claimedBy.capture(), expiresAt.capture(), claimedAt.capture());
+        assertEquals(Duration.ofSeconds(30), Duration.between(claimedAt.getValue(), expiresAt.getValue()));
+        verify(contentService).completeWithContent(eq(1L), eq(claimedBy.getValue()), eq("generated"), eq(1));
+        verify(casePlanRepo, never()).save(any(CasePlan.class));
+    }
+
+    @Test
+    public void processWithRetry_leaseHeldElsewhere_skipsWithoutCallingLlm() {
+        CasePlan plan = buildCasePlan(11L, "processing");
+        when(casePlanRepo.findWithCaseInfoById(11L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(11L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(0);
+        Runnable heartbeat = mock(Runnable.class);
+
+        assertFalse(service.processWithRetry(11L, heartbeat));
+
+        verify(llmService, never()).chat(anyString());
+        verify(heartbeat, never()).run();
+    }
+
+    @Test
+    public void processWithRetry_leaseLostDuringCall_discardsResult() {
+        CasePlan plan = buildCasePlan(12L, "pending");
+        when(casePlanRepo.findWithCaseInfoById(12L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(12L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(contentService.completeWithContent(eq(12L), anyString(), anyString(), anyInt())).thenReturn(false);
+        when(llmService.chat(anyString())).thenReturn("late");
+
+        assertFalse(service.processWithRetry(12L));
+    }
+
+    @Test
+    public void processWithRetry_longCall_renewsLeaseAndRunsHeartbeat() {
+        ReflectionTestUtils.setField(service, "leaseTtlSeconds", 1L);
+        CasePlan plan = buildCasePlan(13L, "pending");
+        when(casePlanRepo.findWithCaseInfoById(13L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(13L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(casePlanRepo.renewLease(eq(13L), anyString(), any(Instant.class))).thenReturn(1);
+        when(contentService.completeWithContent(eq(13L), anyString(), anyString(), anyInt())).thenReturn(true);
+        when(llmService.chat(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(800L); // more than two 333 ms heartbeat ticks
+            return "slow";
+        });
+        Runnable heartbeat = mock(Runnable.class);
+
+        assertTrue(service.processWithRetry(13L, heartbeat));
+
+        verify(casePlanRepo, atLeast(2)).renewLease(eq(13L), anyString(), any(Instant.class));
+        verify(heartbeat, atLeast(3)).run(); // on claim plus each renewal
+    }
+
+    @Test
+    public void processWithRetry_firstFailure_schedulesDelayedRetryInsteadOfSleeping() {
+        CasePlan plan = buildCasePlan(6L, "pending");
+        plan.setPriority("bulk");
+        when(casePlanRepo.findWithCaseInfoById(6L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(6L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(casePlanRepo.releaseUnderLease(eq(6L), anyString(), eq("pending"), eq("LLM down"), eq(1), any(Instant.class)))
+                .thenReturn(1);
+        when(llmService.chat(anyString())).thenThrow(new RuntimeException("LLM down"));
+
+        boolean ok = service.processWithRetry(6L);
+
+        assertFalse(ok);
+        verify(llmService, times(1)).chat(anyString());
+        CasePlanOutbox row = retryScheduled(6L, 1);
+        assertEquals("bulk", row.getPriority());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void processWithRetry_failureAfterLeaseLost_doesNotScheduleRetry() {
+        CasePlan plan = buildCasePlan(14L, "pending");
+        when(casePlanRepo.findWithCaseInfoById(14L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(14L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(casePlanRepo.releaseUnderLease(eq(14L), anyString(), eq("pending"), anyString(), anyInt(), any(Instant.class)))
+                .thenReturn(0);
+        when(llmService.chat(anyString())).thenThrow(new RuntimeException("LLM down"));
+
+        assertFalse(service.processWithRetry(14L));
+
+        verify(outboxRepo, never()).save(any(CasePlanOutbox.class));
+    }
+
+    @Test
+    public void processWithRetry_secondFailure_doublesBackoff() {
+        CasePlan plan = buildCasePlan(9L, "pending");
+        plan.setAttemptCount(1);
+        when(casePlanRepo.findWithCaseInfoById(9L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(9L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(casePlanRepo.releaseUnderLease(eq(9L), anyString(), eq("pending"), anyString(), eq(2), any(Instant.class)))
+                .thenReturn(1);
+        when(llmService.chat(anyString())).thenThrow(new RuntimeException("LLM down"));
+
+        assertFalse(service.processWithRetry(9L));
+
+        CasePlanOutbox row = retryScheduled(9L, 2);
+        assertEquals("interactive", row.getPriority());
+    }
+
+    /** The outbox row written with the release to pending, checked to be due one backoff after it. */
+    private CasePlanOutbox retryScheduled(long id, int attempt) {
+        ArgumentCaptor<Instant> releasedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(casePlanRepo).releaseUnderLease(eq(id), anyString(), eq("pending"), anyString(), eq(attempt),
+                releasedAt.capture());
+        ArgumentCaptor<CasePlanOutbox> row = ArgumentCaptor.forClass(CasePlanOutbox.class);
+        verify(outboxRepo).save(row.capture());
+        assertEquals(Long.valueOf(id), row.getValue().getPlanId());
+        assertEquals(Duration.ofSeconds(1L << (attempt - 1)),
+                Duration.between(releasedAt.getValue(), row.getValue().getAvailableAt()));
+        return row.getValue();
     }
 
     @Test
     public void processWithRetry_allAttemptsFail_marksFailedAndPropagatesFailure() {
         CasePlan plan = buildCasePlan(2L, "pending");
-        when(casePlanRepo.findById(2L)).thenReturn(Optional.of(plan));
-        when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(identityCasePlanAnswer());
+        plan.setAttemptCount(2);
+        when(casePlanRepo.findWithCaseInfoById(2L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(2L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(casePlanRepo.releaseUnderLease(eq(2L), anyString(), eq("failed"), eq("LLM down"), eq(3), any(Instant.class)))
+                .thenReturn(1);
         when(llmService.chat(anyString())).thenThrow(new RuntimeException("LLM down"));
 
         try {
@@ -83,18 +208,14 @@ public class CasePlanGenerationServiceTest {
         } catch (IllegalStateException ex) {
             assertEquals("Case plan generation failed for id=2", ex.getMessage());
         }
-        ArgumentCaptor<CasePlan> captor = ArgumentCaptor.forClass(CasePlan.class);
-        verify(casePlanRepo, atLeast(2)).save(captor.capture());
-        CasePlan last = captor.getAllValues().getLast();
-        assertEquals("failed", last.getStatus());
-        assertEquals("LLM down", last.getErrorMessage());
+        verify(outboxRepo, never()).save(any(CasePlanOutbox.class));
     }
 
     @Test
     public void processWithRetry_alreadyFailed_propagatesFailureForQueueRedelivery() {
         CasePlan plan = buildCasePlan(8L, "failed");
         plan.setErrorMessage("LLM down");
-        when(casePlanRepo.findById(8L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.findWithCaseInfoById(8L)).thenReturn(Optional.of(plan));
 
         try {
             service.processWithRetry(8L);
@@ -103,48 +224,43 @@ public class CasePlanGenerationServiceTest {
             assertEquals("Case plan generation failed for id=8", ex.getMessage());
         }
 
-        verify(casePlanRepo, never()).save(any(CasePlan.class));
+        verify(casePlanRepo, never()).claimLease(anyLong(), anyString(), any(), any());
         verify(llmService, never()).chat(anyString());
     }
 
     @Test
-    public void processWithRetry_processing_canContinue() {
+    public void processWithRetry_processingWithLapsedLease_canContinue() {
         CasePlan plan = buildCasePlan(3L, "processing");
-        when(casePlanRepo.findById(3L)).thenReturn(Optional.of(plan));
-        when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(identityCasePlanAnswer());
+        when(casePlanRepo.findWithCaseInfoById(3L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(3L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(contentService.completeWithContent(eq(3L), anyString(), eq("ok"), eq(1))).thenReturn(true);
         when(llmService.chat(anyString())).thenReturn("ok");
 
-        boolean ok = service.processWithRetry(3L);
-
-        assertTrue(ok);
-        ArgumentCaptor<CasePlan> captor = ArgumentCaptor.forClass(CasePlan.class);
-        verify(casePlanRepo, atLeast(1)).save(captor.capture());
-        CasePlan last = captor.getAllValues().getLast();
-        assertEquals("completed", last.getStatus());
+        assertTrue(service.processWithRetry(3L));
     }
 
     @Test
     public void processWithRetry_completed_skips() {
         CasePlan plan = buildCasePlan(4L, "completed");
-        when(casePlanRepo.findById(4L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.findWithCaseInfoById(4L)).thenReturn(Optional.of(plan));
 
         boolean ok = service.processWithRetry(4L);
 
         assertFalse(ok);
         verify(llmService, never()).chat(anyString());
-        verify(casePlanRepo, never()).save(any(CasePlan.class));
+        verify(casePlanRepo, never()).claimLease(anyLong(), anyString(), any(), any());
     }
 
     @Test
     public void processWithRetry_unknownStatus_skips() {
         CasePlan plan = buildCasePlan(5L, "archived");
-        when(casePlanRepo.findById(5L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.findWithCaseInfoById(5L)).thenReturn(Optional.of(plan));
 
         boolean ok = service.processWithRetry(5L);
 
         assertFalse(ok);
         verify(llmService, never()).chat(anyString());
-        verify(casePlanRepo, never()).save(any(CasePlan.class));
+        verify(casePlanRepo, never()).claimLease(anyLong(), anyString(), any(), any());
     }
 
     @Test
@@ -154,8 +270,9 @@ public class CasePlanGenerationServiceTest {
         plan.getCaseInfo().setAdditionalCauses(null);
         plan.getCaseInfo().setPriorLegalActions("");
         plan.getCaseInfo().setCaseDocuments(null);
-        when(casePlanRepo.findById(7L)).thenReturn(Optional.of(plan));
-        when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(identityCasePlanAnswer());
+        when(casePlanRepo.findWithCaseInfoById(7L)).thenReturn(Optional.of(plan));
+        when(casePlanRepo.claimLease(eq(7L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(contentService.completeWithContent(eq(7L), anyString(), eq("ok"), eq(1))).thenReturn(true);
         when(llmService.chat(anyString())).thenReturn("ok");
 
         boolean ok = service.processWithRetry(7L);
@@ -188,8 +305,4 @@ public class CasePlanGenerationServiceTest {
         plan.setCaseInfo(caseInfo);
         return plan;
     }
-
-    private Answer<CasePlan> identityCasePlanAnswer() {
-        return invocation -> invocation.getArgument(0);
-    }
 }
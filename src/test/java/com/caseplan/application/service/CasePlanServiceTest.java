@@ -1,25 +1,33 @@
 package com.caseplan.application.service;
 
 import com.caseplan.application.port.in.CreateCasePlanCommand;
+import com.caseplan.common.exception.ValidationException;
 import com.caseplan.domain.model.*;
-import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.CacheInvalidationPort;
 import com.caseplan.adapter.out.persistence.*;
+import com.caseplan.adapter.out.datasource.ReadRouting;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Map;
 import java.util.Optional;
 import java.util.Collections;
 import java.util.Arrays;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,15 +43,25 @@ public class CasePlanServiceTest {
     @Mock private AttorneyRepo attorneyRepo;
     @Mock private CaseInfoRepo caseInfoRepo;
     @Mock private CasePlanRepo casePlanRepo;
-    @Mock private QueuePort queuePort;
+    @Mock private CasePlanOutboxRepo outboxRepo;
+    @Mock private AdmissionService admissionService;
+    @Mock private ServiceNumberAllocator serviceNumberAllocator;
+    @Mock private CasePlanContentService contentService;
+    @Mock private ArchivedPlanRepo archivedPlanRepo;
+    @Mock private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
     private CasePlanService service;
 
     private CreateCasePlanCommand request;
 
     @Before
     public void setup() {
+        // The real cache over the mocked repositories, so the repository stubs below still apply.
+        LookupCache lookupCache = new LookupCache(attorneyRepo, clientRepo, mock(CacheInvalidationPort.class),
+                new SimpleMeterRegistry(), 100, 300);
+        service = new CasePlanService(casePlanRepo, caseInfoRepo, clientRepo, attorneyRepo, outboxRepo,
+                admissionService, serviceNumberAllocator, contentService, lookupCache,
+                archivedPlanRepo, new TransactionTemplate(transactionManager));
         // 构造一个通用的请求对象
         request = new CreateCasePlanCommand();
         request.setClientFirstName("John");
@@ -76,8 +94,8 @@ public class CasePlanServiceTest {
             return casePlan;
         });
         when(casePlanRepo.findAllByOrderByCreatedAtDesc()).thenReturn(Collections.emptyList());
-        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc(anyString()))
-                .thenReturn(Optional.empty());
+        when(serviceNumberAllocator.next(any(LocalDate.class))).thenAnswer(invocation ->
+                "SRV-" + invocation.<LocalDate>getArgument(0).format(DateTimeFormatter.BASIC_ISO_DATE) + "-0001");
     }
 
     // ==================== createCasePlan ====================
@@ -99,8 +117,12 @@ public class CasePlanServiceTest {
         verify(caseInfoRepo).save(any(CaseInfo.class));
         verify(casePlanRepo).save(any(CasePlan.class));
 
-        // 应该推到队列
-        verify(queuePort).enqueue("1");
+        // 应该写入 outbox，而不是同步推到队列
+        ArgumentCaptor<CasePlanOutbox> outbox = ArgumentCaptor.forClass(CasePlanOutbox.class);
+        verify(outboxRepo).save(outbox.capture());
+        assertEquals(Long.valueOf(1L), outbox.getValue().getPlanId());
+        assertEquals("interactive", outbox.getValue().getPriority());
+        assertNull(outbox.getValue().getAvailableAt());
 
         assertEquals("pending", result.getStatus());
     }
@@ -179,15 +201,35 @@ public class CasePlanServiceTest {
         assertEquals("Court", saved.getReferringSource());
     }
 
+    @Test
+    public void createCasePlan_bulkPriority_persistsAndRecordsBulkOutboxRow() {
+        request.setPriority("BULK");
+        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
+        when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
+
+        CasePlan result = service.createCasePlan(request);
+
+        assertEquals("bulk", result.getPriority());
+        ArgumentCaptor<CasePlanOutbox> outbox = ArgumentCaptor.forClass(CasePlanOutbox.class);
+        verify(outboxRepo).save(outbox.capture());
+        assertEquals("bulk", outbox.getValue().getPriority());
+    }
+
+    @Test(expected = com.caseplan.common.exception.ValidationException.class)
+    public void createCasePlan_unknownPriority_rejected() {
+        request.setPriority("asap");
+
+        service.createCasePlan(request);
+    }
+
     // ==================== getStatus ====================
 
     @Test
     public void getStatus_completed_returnsStatusAndContent() {
         CasePlan plan = new CasePlan();
         plan.setStatus("completed");
-        plan.setGeneratedPlan("This is the plan.");
-
         when(casePlanRepo.findById(1L)).thenReturn(Optional.of(plan));
+        when(contentService.currentContent(plan)).thenReturn(Optional.of("This is the plan."));
 
         Map<String, Object> result = service.getStatus(1L);
 
@@ -234,6 +276,91 @@ public class CasePlanServiceTest {
         assertNull(result);
     }
 
+    @Test
+    public void getStatus_missingOnReplica_readsPrimary() {
+        CasePlan plan = new CasePlan();
+        plan.setStatus("pending");
+        when(casePlanRepo.findById(7L)).thenAnswer(inv ->
+                ReadRouting.isReplicaAllowed() ? Optional.empty() : Optional.of(plan));
+
+        Map<String, Object> result = ReadRouting.onReplica(() -> service.getStatus(7L));
+
+        assertEquals("pending", result.get("status"));
+        verify(casePlanRepo, times(2)).findById(7L);
+    }
+
+    @Test
+    public void getById_missingOnReplica_readsPrimary() {
+        CasePlan plan = new CasePlan();
+        when(casePlanRepo.findWithCaseInfoById(7L)).thenAnswer(inv ->
+                ReadRouting.isReplicaAllowed() ? Optional.empty() : Optional.of(plan));
+
+        Optional<CasePlan> result = ReadRouting.onReplica(() -> service.getById(7L));
+
+        assertSame(plan, result.orElse(null));
+    }
+
+    @Test
+    public void getById_archived_readsArchiveAfterLiveTables() {
+        CasePlan archived = new CasePlan();
+        when(casePlanRepo.findWithCaseInfoById(8L)).thenReturn(Optional.empty());
+        when(archivedPlanRepo.findWithCaseInfoById(8L)).thenReturn(Optional.of(archived));
+
+        Optional<CasePlan> result = service.getById(8L);
+
+        assertSame(archived, result.orElse(null));
+        verify(casePlanRepo).findWithCaseInfoById(8L);
+    }
+
+    @Test
+    public void getById_live_skipsArchive() {
+        when(casePlanRepo.findWithCaseInfoById(9L)).thenReturn(Optional.of(new CasePlan()));
+
+        service.getById(9L);
+
+        verifyNoInteractions(archivedPlanRepo);
+    }
+
+    @Test
+    public void getStatus_archived_readsArchive() {
+        CasePlan archived = new CasePlan();
+        archived.setStatus("failed");
+        archived.setErrorMessage("LLM timeout");
+        when(casePlanRepo.findById(10L)).thenReturn(Optional.empty());
+        when(archivedPlanRepo.findWithCaseInfoById(10L)).thenReturn(Optional.of(archived));
+
+        Map<String, Object> result = service.getStatus(10L);
+
+        assertEquals("failed", result.get("status"));
+        assertEquals("LLM timeout", result.get("error"));
+    }
+
+    @Test
+    public void create_admitted_returnsEstimatedWait() {
+        when(admissionService.admit()).thenReturn(42L);
+
+        CreateCasePlanResult result = service.create(request);
+
+        assertEquals(Long.valueOf(42L), result.getEstimatedWaitSeconds());
+        verify(outboxRepo).save(any(CasePlanOutbox.class));
+    }
+
+    @Test
+    public void create_overloaded_rejectsBeforeAnyWrite() {
+        when(admissionService.admit()).thenThrow(
+                new com.caseplan.common.exception.OverloadedException("QUEUE_BACKLOG", "busy", null, 30L));
+
+        try {
+            service.create(request);
+            fail("expected OverloadedException");
+        } catch (com.caseplan.common.exception.OverloadedException e) {
+            assertEquals(30L, e.getRetryAfterSeconds());
+        }
+        verify(clientRepo, never()).save(any(Client.class));
+        verify(casePlanRepo, never()).save(any(CasePlan.class));
+        verifyNoInteractions(outboxRepo, serviceNumberAllocator, transactionManager);
+    }
+
     // ==================== additional branches ====================
 
     @Test(expected = com.caseplan.common.exception.BlockException.class)
@@ -274,9 +401,8 @@ public class CasePlanServiceTest {
         existing.setLastName("Bob");
         existing.setIdNumber("ID-1");
         when(clientRepo.findByIdNumber("ID-1")).thenReturn(Optional.of(existing));
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
 
         CreateCasePlanResult result = service.create(request);
         assertEquals(1, result.getWarnings().size());
@@ -292,9 +418,8 @@ public class CasePlanServiceTest {
         existing.setLastName("Doe");
         existing.setIdNumber("ID-2");
         when(clientRepo.findByIdNumber("ID-2")).thenReturn(Optional.of(existing));
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
 
         service.create(request);
         verify(clientRepo, never()).save(any(Client.class));
@@ -304,10 +429,9 @@ public class CasePlanServiceTest {
     public void create_similarCaseWithConfirm_trueReturnsWarnings() {
         request.setConfirm(true);
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
-        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.singletonList(new CaseInfo()));
+        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingJohnDoe()));
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                eq(42L), anyString(), anyString(), any())).thenReturn(Collections.singletonList(caseCreatedDaysAgo(3)));
 
         CreateCasePlanResult result = service.create(request);
         assertEquals(1, result.getWarnings().size());
@@ -316,10 +440,10 @@ public class CasePlanServiceTest {
     @Test(expected = com.caseplan.common.exception.BlockException.class)
     public void create_duplicateCaseSameDay_throwsBlockException() {
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
-        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.singletonList(new CaseInfo()));
+        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingJohnDoe()));
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                eq(42L), anyString(), anyString(), any())).thenReturn(
+                Arrays.asList(caseCreatedDaysAgo(0), caseCreatedDaysAgo(3)));
 
         service.create(request);
     }
@@ -327,13 +451,24 @@ public class CasePlanServiceTest {
     @Test(expected = com.caseplan.common.exception.WarningException.class)
     public void create_similarCaseWithoutConfirm_throwsWarning() {
         request.setConfirm(false);
+        when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
+        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingJohnDoe()));
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                eq(42L), anyString(), anyString(), any())).thenReturn(Collections.singletonList(caseCreatedDaysAgo(3)));
+
+        service.create(request);
+    }
+
+    @Test
+    public void create_newClient_skipsEarlierCaseLookup() {
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.singletonList(new CaseInfo()));
 
         service.create(request);
+
+        verify(clientRepo).save(any(Client.class));
+        verify(caseInfoRepo, never()).findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                any(), any(), any(), any());
     }
 
     @Test(expected = com.caseplan.common.exception.WarningException.class)
@@ -364,9 +499,8 @@ public class CasePlanServiceTest {
         existingByName.setLastName("Doe");
         existingByName.setIdNumber("OLD-ID");
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingByName));
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
 
         CreateCasePlanResult result = service.create(request);
         assertEquals(1, result.getWarnings().size());
@@ -398,9 +532,8 @@ public class CasePlanServiceTest {
         existingByName.setLastName("Doe");
         existingByName.setIdNumber("EXISTING");
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingByName));
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
 
         CreateCasePlanResult result = service.create(request);
         assertEquals(0, result.getWarnings().size());
@@ -411,9 +544,6 @@ public class CasePlanServiceTest {
         request.setDocketNumber("   ");
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
 
         service.create(request);
         ArgumentCaptor<CaseInfo> captor = ArgumentCaptor.forClass(CaseInfo.class);
@@ -422,25 +552,31 @@ public class CasePlanServiceTest {
     }
 
     @Test
-    public void create_existingServiceNumber_allocatesNextSequence() {
-        CaseInfo latest = new CaseInfo();
-        latest.setServiceNumber("SRV-20260216-0011");
-        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc(anyString()))
-                .thenReturn(Optional.of(latest));
+    public void create_takesServiceNumberFromAllocatorForToday() {
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
 
         service.create(request);
-        ArgumentCaptor<CaseInfo> captor = ArgumentCaptor.forClass(CaseInfo.class);
-        verify(caseInfoRepo, atLeastOnce()).save(captor.capture());
-        assertEquals("0012", captor.getValue().getServiceNumber().substring(captor.getValue().getServiceNumber().length() - 4));
+
+        verify(serviceNumberAllocator).next(LocalDate.now());
+        verify(caseInfoRepo, never()).findTopByServiceNumberStartingWithOrderByServiceNumberDesc(anyString());
     }
 
     @Test
-    public void create_whenCasePlanIdNull_doesNotEnqueue() {
+    public void create_takesServiceNumberBeforeOpeningTransaction() {
+        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
+        when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
+
+        service.create(request);
+
+        org.mockito.InOrder order = inOrder(serviceNumberAllocator, transactionManager, caseInfoRepo);
+        order.verify(serviceNumberAllocator).next(LocalDate.now());
+        order.verify(transactionManager).getTransaction(any(TransactionDefinition.class));
+        order.verify(caseInfoRepo).save(any(CaseInfo.class));
+    }
+
+    @Test
+    public void create_whenCasePlanIdNull_writesNoOutboxRow() {
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
         when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(invocation -> invocation.getArgument(0)); // keep id null
@@ -448,7 +584,7 @@ public class CasePlanServiceTest {
         CasePlan plan = service.createCasePlan(request);
 
         assertEquals("pending", plan.getStatus());
-        verify(queuePort, never()).enqueue(anyString());
+        verify(outboxRepo, never()).save(any(CasePlanOutbox.class));
     }
 
     @Test
@@ -456,94 +592,79 @@ public class CasePlanServiceTest {
         service.listAll();
         service.getById(1L);
         verify(casePlanRepo).findAllByOrderByCreatedAtDesc();
-        verify(casePlanRepo).findById(1L);
+        verify(casePlanRepo).findWithCaseInfoById(1L);
     }
 
     @Test
-    public void listAll_backfillsMissingServiceNumber() {
-        CaseInfo info = new CaseInfo();
-        info.setCreatedAt(Instant.parse("2026-02-16T15:02:03Z"));
-        CasePlan plan = new CasePlan();
-        plan.setId(77L);
-        plan.setCaseInfo(info);
+    public void listOrders_firstPage_fetchesOneExtraRowAndReturnsCursorOfLastItem() {
+        OrderSummary newer = orderSummary(12L, "2026-02-16T10:00:00.123456Z");
+        OrderSummary older = orderSummary(11L, "2026-02-16T09:00:00Z");
+        OrderSummary extra = orderSummary(10L, "2026-02-16T08:00:00Z");
+        when(casePlanRepo.findOrderSummaries(PageRequest.of(0, 3))).thenReturn(Arrays.asList(newer, older, extra));
 
-        CaseInfo latest = new CaseInfo();
-        latest.setServiceNumber("SRV-20260216-0004");
-        when(casePlanRepo.findAllByOrderByCreatedAtDesc()).thenReturn(Collections.singletonList(plan));
-        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc("SRV-20260216-"))
-                .thenReturn(Optional.of(latest));
+        OrderSummaryPage page = service.listOrders(null, 2);
 
-        service.listAll();
-
-        ArgumentCaptor<CaseInfo> captor = ArgumentCaptor.forClass(CaseInfo.class);
-        verify(caseInfoRepo).save(captor.capture());
-        assertEquals("SRV-20260216-0005", captor.getValue().getServiceNumber());
+        assertEquals(Arrays.asList(newer, older), page.getItems());
+        OrderCursor next = OrderCursor.decode(page.getNextCursor());
+        assertEquals(Instant.parse("2026-02-16T09:00:00Z"), next.createdAt());
+        assertEquals(Long.valueOf(11L), next.id());
     }
 
     @Test
-    public void listAll_ignoresNullPlansNullCaseInfoAndExistingServiceNumbers() {
-        CasePlan withoutCaseInfo = new CasePlan();
-        CaseInfo existingInfo = new CaseInfo();
-        existingInfo.setServiceNumber("SRV-EXISTING");
-        CasePlan withExistingNumber = new CasePlan();
-        withExistingNumber.setCaseInfo(existingInfo);
-        when(casePlanRepo.findAllByOrderByCreatedAtDesc())
-                .thenReturn(Arrays.asList(null, withoutCaseInfo, withExistingNumber));
+    public void listOrders_withCursor_continuesBeforeItAndEndsWithoutCursor() {
+        Instant createdAt = Instant.parse("2026-02-16T09:00:00.000001Z");
+        String cursor = new OrderCursor(createdAt, 11L).encode();
+        OrderSummary last = orderSummary(10L, "2026-02-16T08:00:00Z");
+        when(casePlanRepo.findOrderSummariesBefore(createdAt, 11L, PageRequest.of(0, 51)))
+                .thenReturn(Collections.singletonList(last));
 
-        service.listAll();
+        OrderSummaryPage page = service.listOrders(cursor, null);
 
-        verify(caseInfoRepo, never()).save(any(CaseInfo.class));
+        assertEquals(Collections.singletonList(last), page.getItems());
+        assertNull(page.getNextCursor());
+        verify(casePlanRepo, never()).findOrderSummaries(any());
     }
 
     @Test
-    public void listAll_blankServiceNumberAndNullCreatedAt_usesTodayAndMalformedLatestAsZero() {
-        CaseInfo info = new CaseInfo();
-        info.setServiceNumber("   ");
-        CasePlan plan = new CasePlan();
-        plan.setCaseInfo(info);
-        CaseInfo malformedLatest = new CaseInfo();
-        malformedLatest.setServiceNumber("malformed");
-        when(casePlanRepo.findAllByOrderByCreatedAtDesc()).thenReturn(Collections.singletonList(plan));
-        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc(anyString()))
-                .thenReturn(Optional.of(malformedLatest));
+    public void listOrders_clampsLimit() {
+        when(casePlanRepo.findOrderSummaries(any())).thenReturn(Collections.emptyList());
 
-        service.listAll();
+        service.listOrders(null, 100_000);
+        service.listOrders(null, 0);
 
-        assertTrue(info.getServiceNumber().matches("SRV-\\d{8}-0001"));
-        verify(caseInfoRepo).save(info);
+        verify(casePlanRepo).findOrderSummaries(PageRequest.of(0, 201));
+        verify(casePlanRepo).findOrderSummaries(PageRequest.of(0, 2));
     }
 
-    @Test
-    public void listAll_latestServiceNumberEndingWithDash_restartsSequenceAtOne() {
-        CaseInfo info = new CaseInfo();
-        info.setCreatedAt(Instant.parse("2026-02-16T15:02:03Z"));
-        CasePlan plan = new CasePlan();
-        plan.setCaseInfo(info);
-        CaseInfo malformedLatest = new CaseInfo();
-        malformedLatest.setServiceNumber("SRV-20260216-");
-        when(casePlanRepo.findAllByOrderByCreatedAtDesc()).thenReturn(Collections.singletonList(plan));
-        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc("SRV-20260216-"))
-                .thenReturn(Optional.of(malformedLatest));
-
-        service.listAll();
+    @Test(expected = ValidationException.class)
+    public void listOrders_malformedCursor_throwsValidation() {
+        service.listOrders("not-a-cursor!", null);
+    }
 
-        assertEquals("SRV-20260216-0001", info.getServiceNumber());
+    private OrderSummary orderSummary(Long id, String createdAt) {
+        OrderSummary summary = mock(OrderSummary.class);
+        lenient().when(summary.getId()).thenReturn(id);
+        lenient().when(summary.getCreatedAt()).thenReturn(Instant.parse(createdAt));
+        return summary;
     }
 
     @Test
-    public void listAll_latestNullServiceNumber_restartsSequenceAtOne() {
-        CaseInfo info = new CaseInfo();
-        info.setCreatedAt(Instant.parse("2026-02-16T15:02:03Z"));
+    public void listAll_rowsWithoutServiceNumber_areReturnedWithoutWrites() {
+        CaseInfo missing = new CaseInfo();
+        missing.setCreatedAt(Instant.parse("2026-02-16T15:02:03Z"));
         CasePlan plan = new CasePlan();
-        plan.setCaseInfo(info);
-        CaseInfo latestWithoutNumber = new CaseInfo();
-        when(casePlanRepo.findAllByOrderByCreatedAtDesc()).thenReturn(Collections.singletonList(plan));
-        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc("SRV-20260216-"))
-                .thenReturn(Optional.of(latestWithoutNumber));
+        plan.setCaseInfo(missing);
+        CaseInfo blank = new CaseInfo();
+        blank.setServiceNumber("   ");
+        CasePlan blankPlan = new CasePlan();
+        blankPlan.setCaseInfo(blank);
+        when(casePlanRepo.findAllByOrderByCreatedAtDesc()).thenReturn(Arrays.asList(plan, blankPlan));
 
-        service.listAll();
+        assertEquals(Arrays.asList(plan, blankPlan), service.listAll());
 
-        assertEquals("SRV-20260216-0001", info.getServiceNumber());
+        assertNull(missing.getServiceNumber());
+        verify(serviceNumberAllocator, never()).next(any(LocalDate.class));
+        verify(caseInfoRepo, never()).save(any(CaseInfo.class));
     }
 
     @Test
@@ -555,6 +676,15 @@ public class CasePlanServiceTest {
         verify(casePlanRepo).search(eq("completed"), eq("zhang"), any());
     }
 
+    @Test
+    public void listPage_patientName_isMatchedInNormalizedForm() {
+        when(casePlanRepo.search(any(), any(), any())).thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 1), 0));
+
+        service.listPage(1, 10, null, "  Zhang   SAN ");
+
+        verify(casePlanRepo).search(isNull(), eq("zhang san"), any());
+    }
+
     @Test
     public void create_existingAttorneySameName_andExistingClientByName_noWarnings() {
         Attorney existingAttorney = new Attorney();
@@ -567,9 +697,8 @@ public class CasePlanServiceTest {
         existingClient.setFirstName("John");
         existingClient.setLastName("Doe");
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingClient));
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
 
         CreateCasePlanResult result = service.create(request);
         assertEquals(0, result.getWarnings().size());
@@ -577,14 +706,36 @@ public class CasePlanServiceTest {
         verify(clientRepo, never()).save(any(Client.class));
     }
 
+    @Test
+    public void create_knownAttorneyAndClient_secondCreateReadsThemFromCache() {
+        request.setClientIdNumber("ID-42");
+        Attorney existingAttorney = new Attorney();
+        existingAttorney.setName("Jane Smith");
+        existingAttorney.setBarNumber("BAR123");
+        when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.of(existingAttorney));
+        Client existingClient = new Client();
+        existingClient.setId(42L);
+        existingClient.setFirstName("John");
+        existingClient.setLastName("Doe");
+        existingClient.setIdNumber("ID-42");
+        when(clientRepo.findByIdNumber("ID-42")).thenReturn(Optional.of(existingClient));
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
+
+        service.create(request);
+        CreateCasePlanResult second = service.create(request);
+
+        assertSame(existingAttorney, second.getCasePlan().getCaseInfo().getAttorney());
+        assertSame(existingClient, second.getCasePlan().getCaseInfo().getClient());
+        verify(attorneyRepo, times(1)).findByBarNumber("BAR123");
+        verify(clientRepo, times(1)).findByIdNumber("ID-42");
+    }
+
     @Test
     public void create_emptyClientId_treatedAsNoClientIdPath() {
         request.setClientIdNumber("");
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
 
         service.create(request);
         verify(clientRepo, never()).findByIdNumber(anyString());
@@ -595,14 +746,27 @@ public class CasePlanServiceTest {
         request.setPrimaryCauseOfAction(null);
         request.setOpposingParty(null);
         when(attorneyRepo.findByBarNumber("BAR123")).thenReturn(Optional.empty());
-        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.empty());
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
+        when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingJohnDoe()));
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
 
         service.create(request);
-        verify(caseInfoRepo, atLeastOnce()).findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), eq(""), eq(""), any(), any());
+        verify(caseInfoRepo).findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                eq(42L), eq(""), eq(""), any());
+    }
+
+    private static Client existingJohnDoe() {
+        Client client = new Client();
+        client.setId(42L);
+        client.setFirstName("John");
+        client.setLastName("Doe");
+        return client;
+    }
+
+    private static CaseInfo caseCreatedDaysAgo(int days) {
+        CaseInfo caseInfo = new CaseInfo();
+        caseInfo.setCreatedAt(Instant.now().minus(Duration.ofDays(days)));
+        return caseInfo;
     }
 
     @Test
@@ -621,18 +785,65 @@ public class CasePlanServiceTest {
         failed.setId(10L);
         failed.setStatus("failed");
         failed.setErrorMessage("boom");
-        failed.setGeneratedPlan("old");
+        failed.setContentVersion(2);
+        failed.setLegacyGeneratedPlan("old");
 
         when(casePlanRepo.findById(10L)).thenReturn(Optional.of(failed));
-        when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(casePlanRepo.resetFailedForRetry(eq(10L), any(Instant.class))).thenReturn(1);
 
         Optional<CasePlan> result = service.retryFailed(10L);
 
         assertTrue(result.isPresent());
         assertEquals("pending", result.get().getStatus());
         assertNull(result.get().getErrorMessage());
-        assertNull(result.get().getGeneratedPlan());
-        verify(queuePort).enqueue("10");
+        assertNull(result.get().getContentVersion());
+        assertNull(result.get().getLegacyGeneratedPlan());
+        assertEquals(Integer.valueOf(0), result.get().getAttemptCount());
+        CasePlanOutbox row = retryOutboxRow(10L);
+        assertEquals("interactive", row.getPriority());
+        assertEquals(result.get().getUpdatedAt(), row.getAvailableAt());
+        verify(transactionManager).commit(any());
+        verify(casePlanRepo, never()).save(any(CasePlan.class));
+    }
+
+    @Test
+    public void retryFailed_recentFailure_waitsOutCooldownOnDelayedQueue() {
+        CasePlan failed = new CasePlan();
+        failed.setId(13L);
+        failed.setStatus("failed");
+        failed.setPriority("bulk");
+        failed.setUpdatedAt(Instant.now().minusSeconds(10));
+        when(casePlanRepo.findById(13L)).thenReturn(Optional.of(failed));
+        when(casePlanRepo.resetFailedForRetry(eq(13L), any(Instant.class))).thenReturn(1);
+
+        CasePlan result = service.retryFailed(13L).orElseThrow();
+
+        CasePlanOutbox row = retryOutboxRow(13L);
+        assertEquals("bulk", row.getPriority());
+        Duration delay = Duration.between(result.getUpdatedAt(), row.getAvailableAt());
+        assertTrue(delay.getSeconds() > 15 && delay.getSeconds() <= 20);
+    }
+
+    @Test
+    public void retryFailed_oldFailure_enqueuesWithoutDelay() {
+        CasePlan failed = new CasePlan();
+        failed.setId(14L);
+        failed.setStatus("failed");
+        failed.setUpdatedAt(Instant.now().minusSeconds(3600));
+        when(casePlanRepo.findById(14L)).thenReturn(Optional.of(failed));
+        when(casePlanRepo.resetFailedForRetry(eq(14L), any(Instant.class))).thenReturn(1);
+
+        CasePlan result = service.retryFailed(14L).orElseThrow();
+
+        assertEquals(result.getUpdatedAt(), retryOutboxRow(14L).getAvailableAt());
+    }
+
+    /** The outbox row written with the reset, in the reset's transaction. */
+    private CasePlanOutbox retryOutboxRow(long id) {
+        ArgumentCaptor<CasePlanOutbox> row = ArgumentCaptor.forClass(CasePlanOutbox.class);
+        verify(outboxRepo).save(row.capture());
+        assertEquals(Long.valueOf(id), row.getValue().getPlanId());
+        return row.getValue();
     }
 
     @Test(expected = com.caseplan.common.exception.BlockException.class)
@@ -645,6 +856,26 @@ public class CasePlanServiceTest {
         service.retryFailed(11L);
     }
 
+    @Test
+    public void retryFailed_lostRace_throwsBlockWithCurrentStatusAndDoesNotEnqueue() {
+        CasePlan failed = new CasePlan();
+        failed.setId(15L);
+        failed.setStatus("failed");
+        CasePlan retried = new CasePlan();
+        retried.setId(15L);
+        retried.setStatus("pending");
+        when(casePlanRepo.findById(15L)).thenReturn(Optional.of(failed)).thenReturn(Optional.of(retried));
+        when(casePlanRepo.resetFailedForRetry(eq(15L), any(Instant.class))).thenReturn(0);
+
+        try {
+            service.retryFailed(15L);
+            fail("expected the losing retry to be refused");
+        } catch (com.caseplan.common.exception.BlockException e) {
+            assertEquals("pending", ((Map<?, ?>) e.getDetail()).get("currentStatus"));
+        }
+        verify(outboxRepo, never()).save(any(CasePlanOutbox.class));
+    }
+
     @Test
     public void retryFailed_notFound_returnsEmpty() {
         when(casePlanRepo.findById(12L)).thenReturn(Optional.empty());
@@ -655,17 +886,17 @@ public class CasePlanServiceTest {
     }
 
     @Test
-    public void getForDownload_completedWithContent_returnsCasePlan() {
+    public void getForDownload_completedWithContent_returnsContent() {
         CasePlan completed = new CasePlan();
         completed.setId(20L);
         completed.setStatus("completed");
-        completed.setGeneratedPlan("content");
+        completed.setContentVersion(1);
         when(casePlanRepo.findById(20L)).thenReturn(Optional.of(completed));
+        when(contentService.currentContent(completed)).thenReturn(Optional.of("content"));
 
-        Optional<CasePlan> result = service.getForDownload(20L);
+        Optional<String> result = service.getForDownload(20L);
 
-        assertTrue(result.isPresent());
-        assertEquals(Long.valueOf(20L), result.get().getId());
+        assertEquals(Optional.of("content"), result);
     }
 
     @Test(expected = com.caseplan.common.exception.BlockException.class)
@@ -673,17 +904,32 @@ public class CasePlanServiceTest {
         CasePlan failed = new CasePlan();
         failed.setId(21L);
         failed.setStatus("failed");
-        failed.setGeneratedPlan(null);
         when(casePlanRepo.findById(21L)).thenReturn(Optional.of(failed));
 
         service.getForDownload(21L);
+        verify(contentService, never()).currentContent(any());
+    }
+
+    @Test
+    public void getForDownload_archived_readsArchive() {
+        CasePlan archived = new CasePlan();
+        archived.setId(23L);
+        archived.setStatus("completed");
+        archived.setLegacyGeneratedPlan("old content");
+        when(casePlanRepo.findById(23L)).thenReturn(Optional.empty());
+        when(archivedPlanRepo.findWithCaseInfoById(23L)).thenReturn(Optional.of(archived));
+        when(contentService.currentContent(archived)).thenReturn(Optional.of("old content"));
+
+        Optional<String> result = service.getForDownload(23L);
+
+        assertEquals(Optional.of("old content"), result);
     }
 
     @Test
     public void getForDownload_notFound_returnsEmpty() {
         when(casePlanRepo.findById(22L)).thenReturn(Optional.empty());
 
-        Optional<CasePlan> result = service.getForDownload(22L);
+        Optional<String> result = service.getForDownload(22L);
 
         assertFalse(result.isPresent());
     }
@@ -693,8 +939,8 @@ public class CasePlanServiceTest {
         CasePlan plan = new CasePlan();
         plan.setId(30L);
         plan.setStatus("completed");
-        plan.setGeneratedPlan("   ");
         when(casePlanRepo.findById(30L)).thenReturn(Optional.of(plan));
+        when(contentService.currentContent(plan)).thenReturn(Optional.of("   "));
 
         service.getForDownload(30L);
     }
@@ -704,8 +950,8 @@ public class CasePlanServiceTest {
         CasePlan plan = new CasePlan();
         plan.setId(31L);
         plan.setStatus("completed");
-        plan.setGeneratedPlan(null);
         when(casePlanRepo.findById(31L)).thenReturn(Optional.of(plan));
+        when(contentService.currentContent(plan)).thenReturn(Optional.empty());
 
         service.getForDownload(31L);
     }
@@ -722,30 +968,11 @@ public class CasePlanServiceTest {
         existingByName.setLastName("Doe");
         existingByName.setIdNumber(null); // existing client has no idNumber
         when(clientRepo.findByFirstNameAndLastName("John", "Doe")).thenReturn(Optional.of(existingByName));
-        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBetween(
-                anyLong(), anyString(), anyString(), any(), any())).thenReturn(
-                Collections.emptyList()).thenReturn(Collections.emptyList());
+        when(caseInfoRepo.findByClientIdAndPrimaryCauseOfActionAndOpposingPartyAndCreatedAtBefore(
+                anyLong(), anyString(), anyString(), any())).thenReturn(Collections.emptyList());
 
         CreateCasePlanResult result = service.create(request);
         // existing client has null idNumber, so the ID mismatch branch is not entered
         assertEquals(0, result.getWarnings().size());
     }
-
-    @Test
-    public void retryFailed_savedIdNull_doesNotEnqueue() {
-        CasePlan failed = new CasePlan();
-        failed.setId(40L);
-        failed.setStatus("failed");
-        when(casePlanRepo.findById(40L)).thenReturn(Optional.of(failed));
-        when(casePlanRepo.save(any(CasePlan.class))).thenAnswer(invocation -> {
-            CasePlan saved = invocation.getArgument(0);
-            saved.setId(null); // simulate null ID after save
-            return saved;
-        });
-
-        Optional<CasePlan> result = service.retryFailed(40L);
-
-        assertTrue(result.isPresent());
-        verify(queuePort, never()).enqueue(anyString());
-    }
 }
@@ -0,0 +1,46 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.ClientNameIndexRepo;
+import com.caseplan.adapter.out.persistence.ClientNameIndexRepo.UnnormalizedClient;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClientNameIndexServiceTest {
+
+    private final ClientNameIndexRepo repo = mock(ClientNameIndexRepo.class);
+    private final ClientNameIndexService service = new ClientNameIndexService(repo);
+
+    @Test
+    public void normalizeBatch_fullBatch_writesNormalizedNamesAndContinues() {
+        when(repo.findUnnormalized(0L, 2)).thenReturn(Arrays.asList(
+                new UnnormalizedClient(3L, " Ana ", "DE  la Cruz"),
+                new UnnormalizedClient(8L, null, "Lee")));
+
+        assertEquals(8L, service.normalizeBatch(0L, 2));
+        verify(repo).setNormalized(Arrays.asList(3L, 8L), Arrays.asList("ana de la cruz", "lee"));
+    }
+
+    @Test
+    public void normalizeBatch_shortBatch_isDone() {
+        when(repo.findUnnormalized(8L, 2)).thenReturn(Collections.singletonList(new UnnormalizedClient(9L, "Kim", "Park")));
+
+        assertEquals(ClientNameIndexService.DONE, service.normalizeBatch(8L, 2));
+    }
+
+    @Test
+    public void normalizeBatch_nothingLeft_writesNothing() {
+        when(repo.findUnnormalized(9L, 2)).thenReturn(Collections.emptyList());
+
+        assertEquals(ClientNameIndexService.DONE, service.normalizeBatch(9L, 2));
+        verify(repo, never()).setNormalized(anyList(), anyList());
+    }
+}
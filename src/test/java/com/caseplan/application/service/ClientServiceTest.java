@@ -37,6 +37,9 @@ public class ClientServiceTest {
     @Mock
     private CasePlanRepo casePlanRepo;
 
+    @Mock
+    private LookupCache lookupCache;
+
     @InjectMocks
     private ClientService clientService;
 
@@ -227,6 +230,7 @@ public class ClientServiceTest {
 
         assertTrue(result.isPresent());
         assertEquals("ID-30", result.get().getIdNumber());
+        verify(lookupCache).evictClient("ID-30");
     }
 
     @Test(expected = ValidationException.class)
@@ -281,8 +285,11 @@ public class ClientServiceTest {
     }
 
     @Test
-    public void delete_existing_returnsTrue() {
-        when(clientRepo.existsById(7L)).thenReturn(true);
+    public void delete_existing_returnsTrueAndEvictsCachedClient() {
+        Client existing = new Client();
+        existing.setId(7L);
+        existing.setIdNumber("ID-7");
+        when(clientRepo.findById(7L)).thenReturn(Optional.of(existing));
         when(casePlanRepo.findIdsByClientIdAndStatusIn(eq(7L), any()))
                 .thenReturn(Collections.emptyList());
 
@@ -290,11 +297,12 @@ public class ClientServiceTest {
 
         assertTrue(result);
         verify(clientRepo).deleteById(7L);
+        verify(lookupCache).evictClient("ID-7");
     }
 
     @Test
     public void delete_notExisting_returnsFalse() {
-        when(clientRepo.existsById(anyLong())).thenReturn(false);
+        when(clientRepo.findById(anyLong())).thenReturn(Optional.empty());
 
         boolean result = clientService.delete(7L);
 
@@ -303,7 +311,7 @@ public class ClientServiceTest {
 
     @Test
     public void delete_withActiveCasePlans_throws409AndReturnsBlockingIds() {
-        when(clientRepo.existsById(7L)).thenReturn(true);
+        when(clientRepo.findById(7L)).thenReturn(Optional.of(new Client()));
         when(casePlanRepo.findIdsByClientIdAndStatusIn(
                 eq(7L),
                 eq(java.util.Arrays.asList("pending", "processing"))))
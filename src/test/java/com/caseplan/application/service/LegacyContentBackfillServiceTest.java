@@ -0,0 +1,58 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.LegacyContentBackfillRepo;
+import com.caseplan.adapter.out.persistence.LegacyContentBackfillRepo.LegacyContent;
+import com.caseplan.domain.model.CompressedTextConverter;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LegacyContentBackfillServiceTest {
+
+    private final LegacyContentBackfillRepo backfillRepo = mock(LegacyContentBackfillRepo.class);
+    private final LegacyContentBackfillService service = new LegacyContentBackfillService(backfillRepo);
+
+    @Test
+    public void backfillBatch_nothingLeft_isDone() {
+        when(backfillRepo.lockLegacy(0L, 3)).thenReturn(Collections.emptyList());
+
+        assertEquals(LegacyContentBackfillService.DONE, service.backfillBatch(0L, 3));
+        verify(backfillRepo, never()).moveToContents(anyList(), anyList(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void backfillBatch_fullBatch_movesCompressedTextsInOneCall() {
+        when(backfillRepo.lockLegacy(10L, 2)).thenReturn(Arrays.asList(
+                new LegacyContent(11L, "first plan"), new LegacyContent(14L, "second plan")));
+
+        assertEquals(14L, service.backfillBatch(10L, 2));
+
+        ArgumentCaptor<List<byte[]>> contents = ArgumentCaptor.forClass(List.class);
+        verify(backfillRepo).moveToContents(eq(Arrays.asList(11L, 14L)), contents.capture(), any(Instant.class));
+        CompressedTextConverter converter = new CompressedTextConverter();
+        assertEquals("first plan", converter.convertToEntityAttribute(contents.getValue().get(0)));
+        assertEquals("second plan", converter.convertToEntityAttribute(contents.getValue().get(1)));
+    }
+
+    @Test
+    public void backfillBatch_shortBatch_isDone() {
+        when(backfillRepo.lockLegacy(0L, 5)).thenReturn(Collections.singletonList(new LegacyContent(4L, "text")));
+
+        assertEquals(LegacyContentBackfillService.DONE, service.backfillBatch(0L, 5));
+        verify(backfillRepo).moveToContents(eq(Collections.singletonList(4L)), anyList(), any(Instant.class));
+    }
+}
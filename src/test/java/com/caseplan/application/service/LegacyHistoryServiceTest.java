@@ -0,0 +1,160 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.LegacyHistoryRepo;
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo;
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo.PlanPartition;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LegacyHistoryServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+    private static final LocalDate HISTORY_END = LocalDate.of(2025, 10, 1);
+    private static final LocalDate LEGACY_END = LocalDate.of(2026, 12, 1);
+
+    private static final PlanPartition PLANS_LEGACY = new PlanPartition("dev_caseplans_legacy", null, LEGACY_END);
+    private static final PlanPartition CASES_LEGACY = new PlanPartition("dev_case_infos_legacy", null, LEGACY_END);
+    private static final PlanPartition PLANS_REBOUND = new PlanPartition("dev_caseplans_legacy", HISTORY_END, LEGACY_END);
+
+    private final PlanPartitionRepo partitionRepo = mock(PlanPartitionRepo.class);
+    private final LegacyHistoryRepo historyRepo = mock(LegacyHistoryRepo.class);
+    private final LegacyHistoryService service = new LegacyHistoryService(partitionRepo, historyRepo);
+
+    @Test
+    public void start_createsHistoryPartitionsEndingWhereRetentionStarts() {
+        when(partitionRepo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_LEGACY));
+        when(partitionRepo.partitions("dev_case_infos")).thenReturn(List.of(CASES_LEGACY));
+        when(partitionRepo.partitions("dev_caseplans_archive")).thenReturn(List.of());
+
+        assertEquals(HISTORY_END, service.start(TODAY));
+
+        verify(partitionRepo).createPartition("dev_caseplans_archive", "dev_caseplans_history", null, HISTORY_END);
+        verify(partitionRepo).createPartition("dev_case_infos_archive", "dev_case_infos_history", null,
+                LocalDate.of(2025, 9, 1));
+    }
+
+    @Test
+    public void start_keepsTheEndAPreviousRunChose() {
+        when(partitionRepo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_LEGACY));
+        when(partitionRepo.partitions("dev_case_infos")).thenReturn(List.of());
+        when(partitionRepo.partitions("dev_caseplans_archive"))
+                .thenReturn(List.of(new PlanPartition("dev_caseplans_history", null, LocalDate.of(2025, 8, 1))));
+
+        assertEquals(LocalDate.of(2025, 8, 1), service.start(TODAY));
+
+        verify(partitionRepo, never()).createPartition(eq("dev_case_infos_archive"), anyString(), any(), any());
+    }
+
+    @Test
+    public void start_legacyAlreadyRebound_returnsNull() {
+        when(partitionRepo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_REBOUND));
+        when(partitionRepo.partitions("dev_case_infos")).thenReturn(List.of());
+
+        assertNull(service.start(TODAY));
+        verify(partitionRepo, never()).createPartition(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    public void start_retentionCoversWholeLegacy_leavesItToPartitionJob() {
+        when(partitionRepo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_LEGACY));
+        when(partitionRepo.partitions("dev_case_infos")).thenReturn(List.of(CASES_LEGACY));
+        when(partitionRepo.partitions("dev_caseplans_archive")).thenReturn(List.of());
+
+        assertNull(service.start(LocalDate.of(2028, 1, 10)));
+        verify(partitionRepo, never()).createPartition(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    public void start_retentionDisabled_returnsNull() {
+        ReflectionTestUtils.setField(service, "retentionMonths", 0);
+
+        assertNull(service.start(TODAY));
+        verify(partitionRepo, never()).partitions(anyString());
+    }
+
+    @Test
+    public void archivePlans_fullBatch_movesAndContinuesAfterLastId() {
+        when(historyRepo.lockPlans(HISTORY_END, 10L, 2)).thenReturn(List.of(11L, 14L));
+
+        assertEquals(14L, service.archivePlans(HISTORY_END, 10L, 2));
+        verify(historyRepo).archivePlans(List.of(11L, 14L));
+    }
+
+    @Test
+    public void archivePlans_nothingLeft_isDone() {
+        when(historyRepo.lockPlans(HISTORY_END, 0L, 2)).thenReturn(Collections.emptyList());
+
+        assertEquals(LegacyHistoryService.DONE, service.archivePlans(HISTORY_END, 0L, 2));
+        verify(historyRepo, never()).archivePlans(anyList());
+    }
+
+    @Test
+    public void archiveCases_shortBatch_usesMonthEarlierEndAndIsDone() {
+        when(historyRepo.lockCases(LocalDate.of(2025, 9, 1), 0L, 3)).thenReturn(List.of(4L));
+
+        assertEquals(LegacyHistoryService.DONE, service.archiveCases(HISTORY_END, 0L, 3));
+        verify(historyRepo).archiveCases(List.of(4L));
+    }
+
+    @Test
+    public void archiveCases_nothingLeft_isDone() {
+        when(historyRepo.lockCases(any(), eq(0L), eq(3))).thenReturn(Collections.emptyList());
+
+        assertEquals(LegacyHistoryService.DONE, service.archiveCases(HISTORY_END, 0L, 3));
+        verify(historyRepo, never()).archiveCases(anyList());
+    }
+
+    @Test
+    public void finish_noHistoryLeft_reboundsBothLegacyPartitions() {
+        when(partitionRepo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_LEGACY));
+        when(partitionRepo.partitions("dev_case_infos")).thenReturn(List.of(CASES_LEGACY));
+
+        assertTrue(service.finish(HISTORY_END));
+
+        InOrder order = inOrder(partitionRepo);
+        order.verify(partitionRepo).prepareRebound(PLANS_LEGACY, HISTORY_END);
+        order.verify(partitionRepo).validateRebound(PLANS_LEGACY);
+        order.verify(partitionRepo).rebound("dev_caseplans", PLANS_LEGACY, HISTORY_END);
+        verify(partitionRepo).rebound("dev_case_infos", CASES_LEGACY, LocalDate.of(2025, 9, 1));
+    }
+
+    @Test
+    public void finish_rowsHeldBack_leavesThatPartitionForNextWalk() {
+        when(partitionRepo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_LEGACY));
+        when(partitionRepo.partitions("dev_case_infos")).thenReturn(List.of(CASES_LEGACY));
+        when(partitionRepo.hasRowsBefore("dev_caseplans_legacy", HISTORY_END)).thenReturn(true);
+
+        assertFalse(service.finish(HISTORY_END));
+
+        verify(partitionRepo, never()).prepareRebound(eq(PLANS_LEGACY), any());
+        verify(partitionRepo).rebound("dev_case_infos", CASES_LEGACY, LocalDate.of(2025, 9, 1));
+    }
+
+    @Test
+    public void finish_alreadyRebound_isDone() {
+        when(partitionRepo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_REBOUND));
+        when(partitionRepo.partitions("dev_case_infos")).thenReturn(List.of());
+
+        assertTrue(service.finish(HISTORY_END));
+        verify(partitionRepo, never()).rebound(anyString(), any(), any());
+    }
+}
@@ -0,0 +1,163 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.AttorneyRepo;
+import com.caseplan.adapter.out.persistence.ClientRepo;
+import com.caseplan.application.port.out.CacheInvalidationPort;
+import com.caseplan.domain.model.Attorney;
+import com.caseplan.domain.model.Client;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LookupCacheTest {
+
+    private final AttorneyRepo attorneyRepo = mock(AttorneyRepo.class);
+    private final ClientRepo clientRepo = mock(ClientRepo.class);
+    private final CacheInvalidationPort invalidation = mock(CacheInvalidationPort.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LookupCache cache;
+    private BiConsumer<String, String> remoteEvictions;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        cache = new LookupCache(attorneyRepo, clientRepo, invalidation, meterRegistry, 100, 300);
+        ArgumentCaptor<BiConsumer<String, String>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(invalidation).subscribe(handler.capture());
+        remoteEvictions = handler.getValue();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void attorneyByBarNumber_secondLookup_servedFromCache() {
+        Attorney attorney = new Attorney();
+        when(attorneyRepo.findByBarNumber("BAR-1")).thenReturn(Optional.of(attorney));
+
+        assertSame(attorney, cache.attorneyByBarNumber("BAR-1").orElseThrow());
+        assertSame(attorney, cache.attorneyByBarNumber("BAR-1").orElseThrow());
+
+        verify(attorneyRepo, times(1)).findByBarNumber("BAR-1");
+        assertEquals(1.0, meterRegistry.get("caseplan.lookup.cache.gets")
+                .tags("cache", "attorney", "result", "hit").functionCounter().count(), 0.0);
+        assertEquals(1.0, meterRegistry.get("caseplan.lookup.cache.gets")
+                .tags("cache", "attorney", "result", "miss").functionCounter().count(), 0.0);
+        assertEquals(0.5, meterRegistry.get("caseplan.lookup.cache.hit.ratio")
+                .tag("cache", "attorney").gauge().value(), 0.0);
+        assertEquals(1.0, meterRegistry.get("caseplan.lookup.cache.size")
+                .tag("cache", "attorney").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void clientByIdNumber_notFound_isNotCached() {
+        when(clientRepo.findByIdNumber("ID-1")).thenReturn(Optional.empty());
+
+        assertFalse(cache.clientByIdNumber("ID-1").isPresent());
+        assertFalse(cache.clientByIdNumber("ID-1").isPresent());
+
+        verify(clientRepo, times(2)).findByIdNumber("ID-1");
+    }
+
+    @Test
+    public void clientByIdNumber_nullKey_alwaysLoads() {
+        when(clientRepo.findByIdNumber(null)).thenReturn(Optional.of(new Client()));
+
+        cache.clientByIdNumber(null);
+        cache.clientByIdNumber(null);
+
+        verify(clientRepo, times(2)).findByIdNumber(null);
+    }
+
+    @Test
+    public void lookupInTransaction_cachedOnlyAfterCommit() {
+        Client client = new Client();
+        when(clientRepo.findByIdNumber("ID-2")).thenReturn(Optional.of(client));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.clientByIdNumber("ID-2");
+        cache.clientByIdNumber("ID-2");
+        verify(clientRepo, times(2)).findByIdNumber("ID-2");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertSame(client, cache.clientByIdNumber("ID-2").orElseThrow());
+        verify(clientRepo, times(2)).findByIdNumber("ID-2");
+    }
+
+    @Test
+    public void evictClient_dropsLocalEntryAndPublishes() {
+        when(clientRepo.findByIdNumber("ID-3")).thenReturn(Optional.of(new Client()));
+        cache.clientByIdNumber("ID-3");
+
+        cache.evictClient("ID-3");
+        cache.evictClient(null);
+        cache.clientByIdNumber("ID-3");
+
+        verify(invalidation).publish("client", "ID-3");
+        verify(invalidation, times(1)).publish(any(), any());
+        verify(clientRepo, times(2)).findByIdNumber("ID-3");
+    }
+
+    @Test
+    public void evictClientInTransaction_waitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evictClient("ID-4");
+        verify(invalidation, never()).publish(any(), any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(invalidation).publish("client", "ID-4");
+    }
+
+    @Test
+    public void remoteEviction_dropsMatchingEntryOnly() {
+        when(attorneyRepo.findByBarNumber("BAR-5")).thenReturn(Optional.of(new Attorney()));
+        when(clientRepo.findByIdNumber("BAR-5")).thenReturn(Optional.of(new Client()));
+        cache.attorneyByBarNumber("BAR-5");
+        cache.clientByIdNumber("BAR-5");
+
+        remoteEvictions.accept("attorney", "BAR-5");
+        remoteEvictions.accept("unknown", "BAR-5");
+        cache.attorneyByBarNumber("BAR-5");
+        cache.clientByIdNumber("BAR-5");
+
+        verify(attorneyRepo, times(2)).findByBarNumber("BAR-5");
+        verify(clientRepo, times(1)).findByIdNumber("BAR-5");
+    }
+
+    @Test
+    public void evictionDuringLoad_loadedRowIsNotCached() {
+        when(clientRepo.findByIdNumber("ID-6")).thenAnswer(invocation -> {
+            remoteEvictions.accept("client", "ID-6"); // the row was updated while we read it
+            return Optional.of(new Client());
+        });
+
+        cache.clientByIdNumber("ID-6");
+        cache.clientByIdNumber("ID-6");
+
+        verify(clientRepo, times(2)).findByIdNumber("ID-6");
+    }
+}
@@ -0,0 +1,79 @@
+package com.caseplan.application.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NearCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        NearCache<String, String> cache = new NearCache<>(10, 1000L, now::get);
+        assertTrue(Double.isNaN(cache.hitRatio()));
+
+        assertNull(cache.get("a"));
+        cache.put("a", "A", cache.stamp());
+
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(2L, cache.hits());
+        assertEquals(1L, cache.misses());
+        assertEquals(2.0 / 3.0, cache.hitRatio(), 1e-9);
+    }
+
+    @Test
+    public void get_afterTtl_missesAndDropsEntry() {
+        NearCache<String, String> cache = new NearCache<>(10, 1000L, now::get);
+        cache.put("a", "A", cache.stamp());
+
+        now.set(999L);
+        assertEquals("A", cache.get("a"));
+        now.set(1000L);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_beyondMaxEntries_dropsLeastRecentlyUsed() {
+        NearCache<String, String> cache = new NearCache<>(2, 1000L, now::get);
+        cache.put("a", "A", cache.stamp());
+        cache.put("b", "B", cache.stamp());
+        cache.get("a");
+
+        cache.put("c", "C", cache.stamp());
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    public void put_afterEvictionSinceStamp_isDropped() {
+        NearCache<String, String> cache = new NearCache<>(10, 1000L, now::get);
+        long stamp = cache.stamp();
+
+        cache.evict("other");
+        cache.put("a", "stale", stamp);
+        assertNull(cache.get("a"));
+
+        cache.put("a", "A", cache.stamp());
+        assertEquals("A", cache.get("a"));
+    }
+
+    @Test
+    public void put_withZeroMaxEntries_keepsNothing() {
+        NearCache<String, String> cache = new NearCache<>(0, 1000L, now::get);
+
+        cache.put("a", "A", cache.stamp());
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,97 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CasePlanOutboxRepo;
+import com.caseplan.application.port.out.QueuePort;
+import com.caseplan.application.port.out.QueuePriority;
+import com.caseplan.domain.model.CasePlanOutbox;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OutboxRelayServiceTest {
+
+    @Mock private CasePlanOutboxRepo outboxRepo;
+    @Mock private QueuePort queuePort;
+
+    @InjectMocks
+    private OutboxRelayService relayService;
+
+    @Test
+    public void relayBatch_publishesEachRowWithItsPriorityThenDeletesBatch() {
+        List<CasePlanOutbox> batch = Arrays.asList(
+                new CasePlanOutbox(1L, "interactive"),
+                new CasePlanOutbox(2L, "bulk"),
+                new CasePlanOutbox(3L, null));
+        when(outboxRepo.lockBatch(OutboxRelayService.BATCH_SIZE)).thenReturn(batch);
+
+        assertEquals(3, relayService.relayBatch());
+
+        verify(queuePort).enqueue("1", QueuePriority.INTERACTIVE);
+        verify(queuePort).enqueue("2", QueuePriority.BULK);
+        verify(queuePort).enqueue("3", QueuePriority.INTERACTIVE);
+        verify(outboxRepo).deleteAllInBatch(batch);
+    }
+
+    @Test
+    public void relayBatch_rowNotDueYet_handsRemainingWaitToQueue() {
+        List<CasePlanOutbox> batch = Arrays.asList(
+                new CasePlanOutbox(4L, "bulk", Instant.now().plusSeconds(20)),
+                new CasePlanOutbox(5L, "interactive", Instant.now().minusSeconds(1)));
+        when(outboxRepo.lockBatch(OutboxRelayService.BATCH_SIZE)).thenReturn(batch);
+
+        assertEquals(2, relayService.relayBatch());
+
+        ArgumentCaptor<Duration> delay = ArgumentCaptor.forClass(Duration.class);
+        verify(queuePort).enqueueAfter(eq("4"), eq(QueuePriority.BULK), delay.capture());
+        assertTrue(delay.getValue().getSeconds() > 15 && delay.getValue().getSeconds() <= 20);
+        verify(queuePort).enqueue("5", QueuePriority.INTERACTIVE);
+        verify(outboxRepo).deleteAllInBatch(batch);
+    }
+
+    @Test
+    public void relayBatch_emptyOutbox_doesNothing() {
+        when(outboxRepo.lockBatch(OutboxRelayService.BATCH_SIZE)).thenReturn(Collections.emptyList());
+
+        assertEquals(0, relayService.relayBatch());
+
+        verify(queuePort, never()).enqueue(anyString(), any(QueuePriority.class));
+        verify(outboxRepo, never()).deleteAllInBatch(anyList());
+    }
+
+    @Test
+    public void relayBatch_publishFails_keepsRowsForNextPass() {
+        when(outboxRepo.lockBatch(OutboxRelayService.BATCH_SIZE))
+                .thenReturn(Collections.singletonList(new CasePlanOutbox(7L, "interactive")));
+        doThrow(new RuntimeException("queue down")).when(queuePort).enqueue("7", QueuePriority.INTERACTIVE);
+
+        try {
+            relayService.relayBatch();
+            fail("Expected publish failure to propagate and roll back the batch");
+        } catch (RuntimeException expected) {
+            assertEquals("queue down", expected.getMessage());
+        }
+        verify(outboxRepo, never()).deleteAllInBatch(anyList());
+    }
+}
@@ -0,0 +1,155 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo;
+import com.caseplan.adapter.out.persistence.PlanPartitionRepo.PlanPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class PlanPartitionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2027, 6, 15);
+
+    private static final PlanPartition PLANS_LEGACY = month("dev_caseplans_legacy", null, 2026, 5);
+    private static final PlanPartition PLANS_MAY = month("dev_caseplans_p202605", LocalDate.of(2026, 5, 1), 2026, 6);
+    private static final PlanPartition PLANS_JUNE = month("dev_caseplans_p202606", LocalDate.of(2026, 6, 1), 2026, 7);
+    private static final PlanPartition CASES_LEGACY = month("dev_case_infos_legacy", null, 2026, 5);
+    private static final PlanPartition CASES_MAY = month("dev_case_infos_p202605", LocalDate.of(2026, 5, 1), 2026, 6);
+
+    private final PlanPartitionRepo repo = mock(PlanPartitionRepo.class);
+    private final PlanPartitionService service = new PlanPartitionService(repo);
+
+    @Before
+    public void setup() {
+        ReflectionTestUtils.setField(service, "monthsAhead", 3);
+        ReflectionTestUtils.setField(service, "retentionMonths", 12);
+        when(repo.archive(anyString(), anyString(), any(PlanPartition.class), anyBoolean())).thenReturn(true);
+    }
+
+    @Test
+    public void createAhead_createsMonthsUpToHorizon() {
+        when(repo.partitions("dev_case_infos"))
+                .thenReturn(List.of(month("dev_case_infos_p202707", LocalDate.of(2027, 7, 1), 2027, 8)));
+        when(repo.partitions("dev_caseplans"))
+                .thenReturn(List.of(month("dev_caseplans_p202709", LocalDate.of(2027, 9, 1), 2027, 10)));
+
+        assertEquals(2, service.createAhead(TODAY));
+
+        verify(repo).createPartition("dev_case_infos", "dev_case_infos_p202708", LocalDate.of(2027, 8, 1), LocalDate.of(2027, 9, 1));
+        verify(repo).createPartition("dev_case_infos", "dev_case_infos_p202709", LocalDate.of(2027, 9, 1), LocalDate.of(2027, 10, 1));
+        verify(repo, never()).createPartition(eq("dev_caseplans"), anyString(), any(), any());
+    }
+
+    @Test
+    public void createAhead_noPartitions_startsAtCurrentMonth() {
+        when(repo.partitions(anyString())).thenReturn(List.of());
+
+        assertEquals(8, service.createAhead(TODAY));
+
+        verify(repo).createPartition("dev_caseplans", "dev_caseplans_p202706", LocalDate.of(2027, 6, 1), LocalDate.of(2027, 7, 1));
+        verify(repo).createPartition("dev_caseplans", "dev_caseplans_p202709", LocalDate.of(2027, 9, 1), LocalDate.of(2027, 10, 1));
+    }
+
+    @Test
+    public void archiveExpired_retentionDisabled_keepsEverything() {
+        ReflectionTestUtils.setField(service, "retentionMonths", 0);
+
+        assertEquals(0, service.archiveExpired(TODAY));
+
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    public void archiveExpired_movesExpiredPlanMonthsThenTheirCaseMonths() {
+        when(repo.partitions("dev_caseplans"))
+                .thenReturn(List.of(PLANS_JUNE, PLANS_MAY, PLANS_LEGACY))
+                .thenReturn(List.of(PLANS_JUNE));
+        when(repo.partitions("dev_case_infos")).thenReturn(List.of(CASES_MAY, CASES_LEGACY));
+
+        assertEquals(3, service.archiveExpired(TODAY));
+
+        InOrder order = inOrder(repo);
+        order.verify(repo).prepareArchive(PLANS_LEGACY);
+        order.verify(repo).validateArchiveRange(PLANS_LEGACY);
+        order.verify(repo).archive("dev_caseplans", "dev_caseplans_archive", PLANS_LEGACY, true);
+        order.verify(repo).archive("dev_caseplans", "dev_caseplans_archive", PLANS_MAY, true);
+        order.verify(repo).archive("dev_case_infos", "dev_case_infos_archive", CASES_LEGACY, false);
+        verify(repo, never()).archive(anyString(), anyString(), eq(PLANS_JUNE), anyBoolean());
+        // May's cases wait for June's plans, which are still within retention.
+        verify(repo, never()).archive(anyString(), anyString(), eq(CASES_MAY), anyBoolean());
+    }
+
+    @Test
+    public void archiveExpired_activePlans_skipThatMonthButArchiveNewerOnes() {
+        when(repo.partitions("dev_caseplans"))
+                .thenReturn(List.of(PLANS_MAY, PLANS_LEGACY))
+                .thenReturn(List.of(PLANS_LEGACY));
+        when(repo.partitions("dev_case_infos")).thenReturn(List.of(CASES_LEGACY));
+        when(repo.hasActivePlans("dev_caseplans_legacy")).thenReturn(true);
+
+        assertEquals(1, service.archiveExpired(TODAY));
+
+        verify(repo).archive("dev_caseplans", "dev_caseplans_archive", PLANS_MAY, true);
+        verify(repo, never()).prepareArchive(PLANS_LEGACY);
+        verify(repo, never()).archive(anyString(), anyString(), eq(PLANS_LEGACY), anyBoolean());
+        // Legacy cases wait for the legacy plans that are still running.
+        verify(repo, never()).archive(anyString(), anyString(), eq(CASES_LEGACY), anyBoolean());
+    }
+
+    @Test
+    public void archiveExpired_caseMonthAfterActivePlans_archivedOnceItsPlanMonthsAre() {
+        ReflectionTestUtils.setField(service, "retentionMonths", 11);
+        PlanPartition plansJuly = month("dev_caseplans_p202607", LocalDate.of(2026, 7, 1), 2026, 8);
+        when(repo.partitions("dev_caseplans"))
+                .thenReturn(List.of(PLANS_LEGACY, PLANS_MAY, PLANS_JUNE, plansJuly))
+                .thenReturn(List.of(PLANS_LEGACY, plansJuly));
+        when(repo.partitions("dev_case_infos")).thenReturn(List.of(CASES_LEGACY, CASES_MAY));
+        when(repo.hasActivePlans("dev_caseplans_legacy")).thenReturn(true);
+
+        assertEquals(3, service.archiveExpired(TODAY));
+
+        verify(repo).archive("dev_case_infos", "dev_case_infos_archive", CASES_MAY, false);
+        verify(repo, never()).archive(anyString(), anyString(), eq(CASES_LEGACY), anyBoolean());
+    }
+
+    @Test
+    public void archiveExpired_archivedByAnotherNode_notCounted() {
+        when(repo.partitions("dev_caseplans")).thenReturn(List.of(PLANS_LEGACY)).thenReturn(List.of());
+        when(repo.archive("dev_caseplans", "dev_caseplans_archive", PLANS_LEGACY, true)).thenReturn(false);
+
+        assertEquals(0, service.archiveExpired(TODAY));
+
+        verify(repo, never()).archive(eq("dev_case_infos"), anyString(), any(PlanPartition.class), anyBoolean());
+    }
+
+    @Test
+    public void maintain_nothingDue_changesNothing() {
+        when(repo.partitions(anyString())).thenReturn(List.of(
+                month("dev_caseplans_pfar", LocalDate.of(2099, 1, 1), 2099, 2)));
+
+        service.maintain();
+
+        verify(repo, never()).createPartition(anyString(), anyString(), any(), any());
+        verify(repo, never()).hasActivePlans(anyString());
+    }
+
+    private static PlanPartition month(String name, LocalDate from, int toYear, int toMonth) {
+        return new PlanPartition(name, from, LocalDate.of(toYear, toMonth, 1));
+    }
+}
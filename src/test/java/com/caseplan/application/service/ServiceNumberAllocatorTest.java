@@ -0,0 +1,120 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.CaseInfoRepo;
+import com.caseplan.adapter.out.persistence.ServiceNumberCounterRepo;
+import com.caseplan.domain.model.CaseInfo;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServiceNumberAllocatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 2, 16);
+
+    private final ServiceNumberCounterRepo counterRepo = mock(ServiceNumberCounterRepo.class);
+    private final CaseInfoRepo caseInfoRepo = mock(CaseInfoRepo.class);
+
+    private ServiceNumberAllocator allocator(int blockSize) {
+        return new ServiceNumberAllocator(counterRepo, caseInfoRepo, blockSize);
+    }
+
+    private void latestIssued(String serviceNumber) {
+        CaseInfo latest = new CaseInfo();
+        latest.setServiceNumber(serviceNumber);
+        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc("SRV-20260216-"))
+                .thenReturn(Optional.of(latest));
+    }
+
+    @Test
+    public void next_servesWholeBlockFromOneReservation() {
+        when(counterRepo.advance("20260216", 3)).thenReturn(3L, 6L);
+        ServiceNumberAllocator allocator = allocator(3);
+
+        assertEquals("SRV-20260216-0001", allocator.next(DAY));
+        assertEquals("SRV-20260216-0002", allocator.next(DAY));
+        assertEquals("SRV-20260216-0003", allocator.next(DAY));
+        assertEquals("SRV-20260216-0004", allocator.next(DAY));
+
+        verify(counterRepo, times(2)).advance("20260216", 3);
+        verify(caseInfoRepo, never()).findTopByServiceNumberStartingWithOrderByServiceNumberDesc(anyString());
+    }
+
+    @Test
+    public void next_blockTakenByOtherNode_skipsToItsOwnRange() {
+        when(counterRepo.advance("20260216", 2)).thenReturn(2L, 8L); // another node took 3-6
+        ServiceNumberAllocator allocator = allocator(2);
+
+        allocator.next(DAY);
+        allocator.next(DAY);
+
+        assertEquals("SRV-20260216-0007", allocator.next(DAY));
+    }
+
+    @Test
+    public void next_firstOfDay_seedsCounterFromHighestStoredNumber() {
+        when(counterRepo.advance("20260216", 20)).thenReturn(null);
+        latestIssued("SRV-20260216-0011");
+        when(counterRepo.create("20260216", 11L, 20)).thenReturn(31L);
+
+        assertEquals("SRV-20260216-0012", allocator(20).next(DAY));
+    }
+
+    @Test
+    public void next_firstOfDay_nothingStored_startsAtOne() {
+        when(counterRepo.advance("20260216", 20)).thenReturn(null);
+        when(caseInfoRepo.findTopByServiceNumberStartingWithOrderByServiceNumberDesc("SRV-20260216-"))
+                .thenReturn(Optional.empty());
+        when(counterRepo.create("20260216", 0L, 20)).thenReturn(20L);
+
+        assertEquals("SRV-20260216-0001", allocator(20).next(DAY));
+    }
+
+    @Test
+    public void next_malformedStoredNumber_seedsFromZero() {
+        when(counterRepo.advance(anyString(), anyInt())).thenReturn(null);
+        when(counterRepo.create(anyString(), anyLong(), anyInt())).thenReturn(1L);
+
+        latestIssued("SRV-20260216-");
+        allocator(1).next(DAY);
+        latestIssued("malformed");
+        allocator(1).next(DAY);
+        latestIssued(null);
+        allocator(1).next(DAY);
+
+        verify(counterRepo, times(3)).create("20260216", 0L, 1);
+    }
+
+    @Test
+    public void next_keepsSeparateRangesPerDay() {
+        when(counterRepo.advance("20260216", 5)).thenReturn(5L);
+        when(counterRepo.advance("20260217", 5)).thenReturn(10L);
+        ServiceNumberAllocator allocator = allocator(5);
+
+        assertEquals("SRV-20260216-0001", allocator.next(DAY));
+        assertEquals("SRV-20260217-0006", allocator.next(DAY.plusDays(1)));
+        assertEquals("SRV-20260216-0002", allocator.next(DAY));
+    }
+
+    @Test
+    public void nextBatch_reservesExactlyCountWithoutTouchingLocalRange() {
+        when(counterRepo.advance("20260216", 3)).thenReturn(7L);
+        when(counterRepo.advance("20260216", 20)).thenReturn(27L);
+        ServiceNumberAllocator allocator = allocator(20);
+
+        assertEquals(Arrays.asList("SRV-20260216-0005", "SRV-20260216-0006", "SRV-20260216-0007"),
+                allocator.nextBatch(DAY, 3));
+        assertEquals("SRV-20260216-0008", allocator.next(DAY));
+    }
+}
@@ -0,0 +1,67 @@
+package com.caseplan.application.service;
+
+import com.caseplan.adapter.out.persistence.ServiceNumberBackfillRepo;
+import com.caseplan.adapter.out.persistence.ServiceNumberBackfillRepo.MissingServiceNumber;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServiceNumberBackfillServiceTest {
+
+    private static final Instant DAY_ONE = Instant.parse("2026-02-16T12:00:00Z");
+    private static final Instant DAY_TWO = Instant.parse("2026-02-18T12:00:00Z");
+
+    private final ServiceNumberBackfillRepo backfillRepo = mock(ServiceNumberBackfillRepo.class);
+    private final ServiceNumberAllocator allocator = mock(ServiceNumberAllocator.class);
+    private final ServiceNumberBackfillService service = new ServiceNumberBackfillService(backfillRepo, allocator);
+
+    private static LocalDate day(Instant createdAt) {
+        return createdAt.atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    @Test
+    public void backfillBatch_nothingLeft_isDone() {
+        when(backfillRepo.lockMissing(0L, 3)).thenReturn(Collections.emptyList());
+
+        assertEquals(ServiceNumberBackfillService.DONE, service.backfillBatch(0L, 3));
+        verify(backfillRepo, never()).assign(anyList(), anyList());
+        verify(allocator, never()).nextBatch(any(), anyInt());
+    }
+
+    @Test
+    public void backfillBatch_fullBatch_reservesPerDayAndAssignsInOneUpdate() {
+        when(backfillRepo.lockMissing(10L, 3)).thenReturn(Arrays.asList(
+                new MissingServiceNumber(11L, DAY_ONE),
+                new MissingServiceNumber(12L, DAY_TWO),
+                new MissingServiceNumber(13L, DAY_ONE)));
+        when(allocator.nextBatch(day(DAY_ONE), 2)).thenReturn(Arrays.asList("SRV-A-0001", "SRV-A-0002"));
+        when(allocator.nextBatch(day(DAY_TWO), 1)).thenReturn(Collections.singletonList("SRV-B-0001"));
+
+        assertEquals(13L, service.backfillBatch(10L, 3));
+
+        verify(backfillRepo).assign(Arrays.asList(11L, 13L, 12L), Arrays.asList("SRV-A-0001", "SRV-A-0002", "SRV-B-0001"));
+    }
+
+    @Test
+    public void backfillBatch_shortBatchWithoutCreatedAt_usesTodayAndIsDone() {
+        when(backfillRepo.lockMissing(0L, 5)).thenReturn(Collections.singletonList(new MissingServiceNumber(4L, null)));
+        when(allocator.nextBatch(LocalDate.now(), 1)).thenReturn(Collections.singletonList("SRV-T-0001"));
+
+        assertEquals(ServiceNumberBackfillService.DONE, service.backfillBatch(0L, 5));
+
+        verify(backfillRepo).assign(Collections.singletonList(4L), Collections.singletonList("SRV-T-0001"));
+    }
+}
@@ -1,11 +1,13 @@
 package com.caseplan.common.exception.handler;
 
 import com.caseplan.common.exception.BlockException;
+import com.caseplan.common.exception.OverloadedException;
 import com.caseplan.common.exception.ValidationException;
 import com.caseplan.common.exception.WarningException;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -68,6 +70,19 @@ public class GlobalExceptionHandlerTest {
         assertEquals("VAL_CODE", response.getBody().get("code"));
     }
 
+    @Test
+    public void handleOverloadedException_returns429WithRetryAfter() {
+        OverloadedException ex = new OverloadedException("QUEUE_BACKLOG", "busy", null, 45L);
+
+        ResponseEntity<Map<String, Object>> response = handler.handleOverloadedException(ex);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("45", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(response.getBody());
+        assertEquals("overloaded", response.getBody().get("type"));
+        assertEquals("QUEUE_BACKLOG", response.getBody().get("code"));
+    }
+
     @Test
     public void handleWarningException_returns200() {
         Map<String, Object> detail = new HashMap<>();
@@ -0,0 +1,51 @@
+package com.caseplan.domain.model;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    public void roundTrip_restoresText() {
+        String text = "Date of Plan: 2026-01-01\n1. **Problem List** — unpaid wages, § 201\n";
+
+        assertEquals(text, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(text)));
+    }
+
+    @Test
+    public void repetitivePlanText_shrinks() {
+        StringBuilder plan = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            plan.append("The attorney will review the lease agreement and follow up with the client.\n");
+        }
+        byte[] stored = converter.convertToDatabaseColumn(plan.toString());
+
+        assertTrue(stored.length * 10 < plan.toString().getBytes(StandardCharsets.UTF_8).length);
+        assertEquals(plan.toString(), converter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    public void null_staysNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    public void emptyText_roundTrips() {
+        assertEquals("", converter.convertToEntityAttribute(converter.convertToDatabaseColumn("")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void truncatedBytes_throw() {
+        byte[] stored = converter.convertToDatabaseColumn("some generated plan text that is long enough");
+        converter.convertToEntityAttribute(Arrays.copyOf(stored, stored.length / 2));
+    }
+}
@@ -24,6 +24,20 @@ public class EntityTest {
         assertEquals("ID123", client.getIdNumber());
     }
 
+    @Test
+    public void client_writes_keepNormalizedFullNameInStep() {
+        Client client = new Client();
+        client.setFirstName("  Mary Ann ");
+        client.setLastName("O'BRIEN");
+
+        client.onCreate();
+        assertEquals("mary ann o'brien", client.getFullNameNormalized());
+
+        client.setFirstName(null);
+        client.onUpdate();
+        assertEquals("o'brien", client.getFullNameNormalized());
+    }
+
     @Test
     public void client_gettersSetters() {
         Client client = new Client();
@@ -130,15 +144,29 @@ public class EntityTest {
     public void casePlan_gettersSetters() {
         CasePlan plan = new CasePlan();
         plan.setId(1L);
-        plan.setGeneratedPlan("the plan");
+        plan.setContentVersion(3);
         plan.setErrorMessage("error msg");
 
         CaseInfo caseInfo = new CaseInfo();
         plan.setCaseInfo(caseInfo);
 
         assertEquals(Long.valueOf(1L), plan.getId());
-        assertEquals("the plan", plan.getGeneratedPlan());
+        assertEquals(Integer.valueOf(3), plan.getContentVersion());
         assertEquals("error msg", plan.getErrorMessage());
         assertNotNull(plan.getCaseInfo());
     }
+
+    // ==================== CasePlanOutbox ====================
+
+    @Test
+    public void casePlanOutbox_prePersist_setsCreatedAt() {
+        CasePlanOutbox outbox = new CasePlanOutbox(5L, "bulk");
+        assertNull(outbox.getCreatedAt());
+
+        outbox.onCreate();
+
+        assertNotNull(outbox.getCreatedAt());
+        assertEquals(Long.valueOf(5L), outbox.getPlanId());
+        assertEquals("bulk", outbox.getPriority());
+    }
 }